@@ -34,6 +34,7 @@ import org.lockss.app.LockssApp.AppSpec;
 import org.lockss.app.LockssApp.ManagerDesc;
 import org.lockss.app.LockssDaemon;
 import org.lockss.app.ServiceDescr;
+import org.lockss.laaws.config.impl.AuConfigIndexManager;
 import org.lockss.plugin.PluginManager;
 import org.lockss.spring.base.BaseSpringBootApplication;
 import org.slf4j.Logger;
@@ -51,11 +52,18 @@ public class ConfigApplication extends BaseSpringBootApplication
   private static final Logger logger =
       LoggerFactory.getLogger(ConfigApplication.class);
 
+  // The manager of the AU indices of the configuration database.
+  private static final ManagerDesc AU_CONFIG_INDEX_MANAGER_DESC =
+      new ManagerDesc(AuConfigIndexManager.class.getName(),
+	  AuConfigIndexManager.class.getName());
+
   // Manager descriptors.  The order of this table determines the order in
   // which managers are initialized and started.
   private static final ManagerDesc[] myManagerDescs = {
     ACCOUNT_MANAGER_DESC,
     CONFIG_DB_MANAGER_DESC,
+    // create the AU indices after the config database manager.
+    AU_CONFIG_INDEX_MANAGER_DESC,
     PLUGIN_MANAGER_DESC,
     STATE_MANAGER_DESC,
     IDENTITY_MANAGER_DESC,
@@ -0,0 +1,523 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import jakarta.annotation.PreDestroy;
+import org.lockss.app.LockssDaemon;
+import org.lockss.config.AuConfiguration;
+import org.lockss.config.ConfigManager;
+import org.lockss.config.Configuration;
+import org.lockss.config.CurrentConfig;
+import org.lockss.db.DbException;
+import org.lockss.log.L4JLogger;
+import org.lockss.plugin.ArchivalUnit;
+import org.lockss.plugin.AuEvent;
+import org.lockss.plugin.AuEventHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * A bounded, write-through cache of the stored Archival Unit configurations,
+ * in front of the configuration database.
+ * <p>
+ * The operations of this service that change Archival Unit configurations
+ * update the cache synchronously, either with the new configuration or by
+ * invalidating the entry when the new configuration is not known. The
+ * absence of a configuration is cached too. The entry of an Archival Unit is
+ * invalidated when the plugin manager reports that it has been created,
+ * reconfigured or deleted, which covers the changes made by other parts of
+ * the daemon. Stored configurations are not part of the daemon
+ * configuration, so a reload of the latter leaves the entries in place.
+ * <p>
+ * Entries are evicted in least-recently-used order when the cache is full,
+ * including when a reload reduces its maximum size.
+ * <p>
+ * The configurations are not cached as given, but compacted: the keys and
+ * values of each one are kept in an array, and the strings, which are mostly
+ * the same parameter names and many identical values, are shared by all the
+ * entries through a pool. The statistics of the cache include an estimate of
+ * the heap used by the entries compared to that of the original maps.
+ */
+@Component
+public class AuConfigCache {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  /**
+   * The maximum number of Archival Unit configurations in the cache; 0
+   * disables the cache.
+   */
+  public static final String PARAM_MAX_SIZE =
+      AusApiServiceImpl.PREFIX + "configCache.maxSize";
+  public static final int DEFAULT_MAX_SIZE = 10000;
+
+  // The cached value of an Archival Unit without a stored configuration.
+  private static final Object NO_CONFIGURATION = new Object();
+
+  // The pool of the keys and values of the cached configurations.
+  private final StringPool pool = new StringPool();
+
+  // The cached configurations, in access order.
+  private final LinkedHashMap<String, Object> cache =
+      new LinkedHashMap<String, Object>(16, 0.75f, true) {
+	@Override
+	protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+	  if (size() > maxSize) {
+	    evictions.incrementAndGet();
+	    return true;
+	  }
+
+	  return false;
+	}
+      };
+
+  // The configuration from which the maximum size was last read.
+  private Configuration validatedConfig = null;
+
+  // The maximum number of entries.
+  private int maxSize = DEFAULT_MAX_SIZE;
+
+  // The number of changes made to the cached values, used to avoid caching a
+  // value read from the database before a concurrent change.
+  private long modifications = 0;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  // The number of Archival Unit events that may have changed stored
+  // configurations.
+  private final AtomicLong auEvents = new AtomicLong();
+
+  private final AtomicBoolean started = new AtomicBoolean(false);
+
+  // The lock of the registration of the Archival Unit event handler, which
+  // is not the lock of the cache.
+  private final Object handlerLock = new Object();
+
+  // Whether the cache has been stopped, guarded by handlerLock.
+  private boolean stopped = false;
+
+  // The handler of Archival Unit events that invalidates their entries.
+  private final AuEventHandler auEventHandler = new AuEventHandler.Base() {
+    @Override
+    public void auCreated(AuEvent event, ArchivalUnit au) {
+      auChanged(au.getAuId());
+    }
+
+    @Override
+    public void auDeleted(AuEvent event, ArchivalUnit au) {
+      auChanged(au.getAuId());
+    }
+
+    @Override
+    public void auReconfigured(AuEvent event, ArchivalUnit au,
+	Configuration oldAuConf) {
+      auChanged(au.getAuId());
+    }
+  };
+
+  /**
+   * Provides the stored configuration of an Archival Unit.
+   *
+   * @param auId
+   *          A String with the Archival Unit identifier.
+   * @return an AuConfiguration with the stored configuration, or null if
+   *         there is none.
+   * @throws DbException if any problem occurred accessing the database.
+   */
+  public AuConfiguration get(String auId) throws DbException {
+    log.debug2("auId = {}", auId);
+    start();
+
+    long modificationsBefore;
+
+    synchronized (this) {
+      validate();
+
+      Object cached = cache.get(auId);
+
+      if (cached != null) {
+	hits.incrementAndGet();
+	log.debug2("Hit for auId = {}", auId);
+	return cached == NO_CONFIGURATION ? null
+	    : ((CompactAuConfig)cached).toAuConfiguration();
+      }
+
+      modificationsBefore = modifications;
+    }
+
+    misses.incrementAndGet();
+
+    // Read the configuration outside the lock.
+    AuConfiguration result = LockssDaemon.getLockssDaemon().getPluginManager()
+	.getStoredAuConfiguration(auId);
+    log.debug2("result = {}", result);
+
+    synchronized (this) {
+      // Cache it, unless there has been a change meanwhile.
+      if (modificationsBefore == modifications && maxSize > 0) {
+	cache.put(auId, result == null ? NO_CONFIGURATION
+	    : new CompactAuConfig(result, pool));
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Stores in the cache the new configuration of an Archival Unit.
+   *
+   * @param auConfiguration
+   *          An AuConfiguration with the new configuration.
+   */
+  public void put(AuConfiguration auConfiguration) {
+    start();
+
+    synchronized (this) {
+      validate();
+      modifications++;
+
+      if (maxSize > 0) {
+	cache.put(auConfiguration.getAuId(),
+	    new CompactAuConfig(auConfiguration, pool));
+      }
+    }
+  }
+
+  /**
+   * Stores in the cache the new configurations of some Archival Units.
+   *
+   * @param auConfigurations
+   *          A {@code Collection<AuConfiguration>} with the new
+   *          configurations.
+   */
+  public void putAll(Collection<AuConfiguration> auConfigurations) {
+    for (AuConfiguration auConfiguration : auConfigurations) {
+      put(auConfiguration);
+    }
+  }
+
+  /**
+   * Records in the cache that some Archival Units no longer have a stored
+   * configuration.
+   *
+   * @param auIds
+   *          A {@code Collection<String>} with the Archival Unit identifiers.
+   */
+  public void remove(Collection<String> auIds) {
+    start();
+
+    synchronized (this) {
+      validate();
+      modifications++;
+
+      for (String auId : auIds) {
+	if (maxSize > 0) {
+	  cache.put(auId, NO_CONFIGURATION);
+	}
+      }
+    }
+  }
+
+  /**
+   * Invalidates the cached configurations of some Archival Units, which have
+   * changed in a way not known here.
+   *
+   * @param auIds
+   *          A {@code Collection<String>} with the Archival Unit identifiers.
+   */
+  public synchronized void invalidate(Collection<String> auIds) {
+    modifications++;
+
+    for (String auId : auIds) {
+      cache.remove(auId);
+    }
+  }
+
+  /**
+   * Invalidates the whole cache.
+   */
+  public synchronized void invalidateAll() {
+    modifications++;
+    cache.clear();
+    pool.clear();
+  }
+
+  /**
+   * Provides the number of Archival Unit events received that may have
+   * changed stored configurations, which is part of the version of the whole
+   * collection of configurations.
+   *
+   * @return a long with the number of events.
+   */
+  public long getAuEventCount() {
+    return auEvents.get();
+  }
+
+  /**
+   * Provides the statistics of the cache.
+   *
+   * @return a {@code Map<String, Object>} with the statistics of the cache.
+   */
+  public Map<String, Object> getStats() {
+    Map<String, Object> result = new LinkedHashMap<>();
+
+    synchronized (this) {
+      result.put("size", cache.size());
+      result.put("maxSize", maxSize);
+
+      // Estimate the heap used by the entries, with and without compaction.
+      // The identifiers of the Archival Units are the same in both cases.
+      long compactBytes = pool.estimateBytes();
+      long uncompactedBytes = 0;
+
+      for (Object cached : cache.values()) {
+	if (cached != NO_CONFIGURATION) {
+	  compactBytes += ((CompactAuConfig)cached).estimateBytes();
+	  uncompactedBytes +=
+	      ((CompactAuConfig)cached).estimateUncompactedBytes();
+	}
+      }
+
+      result.put("pooledStrings", pool.size());
+      result.put("estimatedBytes", compactBytes);
+      result.put("estimatedUncompactedBytes", uncompactedBytes);
+      result.put("savingsRatio", uncompactedBytes == 0 ? 0.0
+	  : 1.0 - (double)compactBytes / uncompactedBytes);
+    }
+
+    long hitCount = hits.get();
+    long missCount = misses.get();
+
+    result.put("hits", hitCount);
+    result.put("misses", missCount);
+    result.put("evictions", evictions.get());
+    result.put("hitRatio", hitCount + missCount == 0 ? 0.0
+	: (double)hitCount / (hitCount + missCount));
+    return result;
+  }
+
+  /**
+   * Starts receiving the Archival Unit events, if not done already.
+   * <p>
+   * The handler is registered outside the lock of the cache, which the
+   * handler takes when the events are delivered.
+   */
+  private void start() {
+    if (started.get()) {
+      return;
+    }
+
+    synchronized (handlerLock) {
+      if (!stopped && !started.get()) {
+	LockssDaemon.getLockssDaemon().getPluginManager()
+	.registerAuEventHandler(auEventHandler);
+	started.set(true);
+      }
+    }
+  }
+
+  /**
+   * Stops receiving the Archival Unit events.
+   */
+  @PreDestroy
+  public void stop() {
+    synchronized (handlerLock) {
+      stopped = true;
+
+      if (started.get()) {
+	log.debug2("Invoked");
+	LockssDaemon.getLockssDaemon().getPluginManager()
+	.unregisterAuEventHandler(auEventHandler);
+      }
+    }
+  }
+
+  /**
+   * Invalidates the entry of an Archival Unit whose stored configuration may
+   * have changed.
+   *
+   * @param auId
+   *          A String with the Archival Unit identifier.
+   */
+  private void auChanged(String auId) {
+    log.debug2("auId = {}", auId);
+    auEvents.incrementAndGet();
+    invalidate(Collections.singleton(auId));
+  }
+
+  /**
+   * Applies the maximum size of the cache if the configuration has been
+   * reloaded since it was last read, evicting the least recently used
+   * entries that no longer fit.
+   */
+  private void validate() {
+    Configuration currentConfig = ConfigManager.getCurrentConfig();
+
+    if (currentConfig == validatedConfig) {
+      return;
+    }
+
+    validatedConfig = currentConfig;
+    int newMaxSize = Math.max(0, CurrentConfig.getIntParam(PARAM_MAX_SIZE,
+	DEFAULT_MAX_SIZE));
+
+    if (newMaxSize == maxSize) {
+      return;
+    }
+
+    log.debug("maxSize = {}", newMaxSize);
+    maxSize = newMaxSize;
+
+    if (maxSize == 0) {
+      cache.clear();
+      pool.clear();
+      return;
+    }
+
+    Iterator<Object> iterator = cache.values().iterator();
+
+    while (cache.size() > maxSize && iterator.hasNext()) {
+      iterator.next();
+      iterator.remove();
+      evictions.incrementAndGet();
+    }
+  }
+
+  /**
+   * The compacted configuration of an Archival Unit.
+   */
+  static class CompactAuConfig {
+    // The approximate size, in bytes, of an entry, without its array.
+    private static final int ENTRY_BYTES = 24;
+
+    // The approximate size, in bytes, of an AuConfiguration with its map and
+    // the map table, without the entries.
+    private static final int UNCOMPACTED_BYTES = 24 + 48 + 16;
+
+    // The approximate size, in bytes, of a map entry, without its strings.
+    private static final int UNCOMPACTED_ENTRY_BYTES = 32;
+
+    private final String auId;
+
+    // The keys and values, alternating, or null if there is no map.
+    private final String[] items;
+
+    /**
+     * Constructor.
+     *
+     * @param auConfiguration
+     *          An AuConfiguration with the configuration to be compacted.
+     * @param pool
+     *          A StringPool with the pool of the keys and values.
+     */
+    CompactAuConfig(AuConfiguration auConfiguration, StringPool pool) {
+      auId = auConfiguration.getAuId();
+      Map<String, String> auConfig = auConfiguration.getAuConfig();
+
+      if (auConfig == null) {
+	items = null;
+	return;
+      }
+
+      items = new String[2 * auConfig.size()];
+      int index = 0;
+
+      for (Map.Entry<String, String> entry : auConfig.entrySet()) {
+	items[index++] = pool.intern(entry.getKey());
+	items[index++] = pool.intern(entry.getValue());
+      }
+    }
+
+    /**
+     * Provides a new AuConfiguration with this configuration.
+     *
+     * @return an AuConfiguration with this configuration.
+     */
+    AuConfiguration toAuConfiguration() {
+      if (items == null) {
+	return new AuConfiguration(auId, null);
+      }
+
+      Map<String, String> auConfig = new HashMap<>(items.length);
+
+      for (int index = 0; index < items.length; index += 2) {
+	auConfig.put(items[index], items[index + 1]);
+      }
+
+      return new AuConfiguration(auId, auConfig);
+    }
+
+    /**
+     * Provides an estimate of the heap used by this entry, without the
+     * pooled strings.
+     *
+     * @return a long with the estimated number of bytes.
+     */
+    long estimateBytes() {
+      return ENTRY_BYTES
+	  + (items == null ? 0 : StringPool.align(16 + 4L * items.length));
+    }
+
+    /**
+     * Provides an estimate of the heap used by an AuConfiguration with this
+     * configuration and with its own strings.
+     *
+     * @return a long with the estimated number of bytes.
+     */
+    long estimateUncompactedBytes() {
+      if (items == null) {
+	return ENTRY_BYTES;
+      }
+
+      int entries = items.length / 2;
+      int tableSize = Integer.highestOneBit(Math.max(1, entries * 4 / 3)) * 2;
+      long result = UNCOMPACTED_BYTES + 4L * tableSize
+	  + (long)UNCOMPACTED_ENTRY_BYTES * entries;
+
+      for (String item : items) {
+	if (item != null) {
+	  result += StringPool.estimateStringBytes(item);
+	}
+      }
+
+      return result;
+    }
+  }
+}
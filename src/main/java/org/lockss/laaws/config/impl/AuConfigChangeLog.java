@@ -0,0 +1,308 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.lockss.config.CurrentConfig;
+import org.lockss.log.L4JLogger;
+import org.springframework.stereotype.Component;
+
+/**
+ * A sequence-numbered log of the changes made through this service to the
+ * Archival Unit configurations, used by other services to resynchronize
+ * incrementally.
+ * <p>
+ * The log is kept in memory and only its most recent changes are retained.
+ * The sequence of the newest discarded change is the compaction horizon:
+ * clients that last synchronized before it, or with a previous epoch of the
+ * log, must fall back to a full resynchronization.
+ * <p>
+ * The sequence of the newest change is also part of the version of the whole
+ * collection of Archival Unit configurations, for conditional requests.
+ */
+@Component
+public class AuConfigChangeLog {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  /**
+   * The maximum number of changes retained in the log.
+   */
+  public static final String PARAM_MAX_CHANGES =
+      AusApiServiceImpl.PREFIX + "changeLog.maxChanges";
+  public static final int DEFAULT_MAX_CHANGES = 100000;
+
+  /**
+   * The type of a change to an Archival Unit configuration.
+   */
+  public enum Type {
+    ADDED, MODIFIED, REMOVED
+  }
+
+  /**
+   * A change to an Archival Unit configuration.
+   */
+  public static final class Change {
+    private final long seq;
+    private final String auId;
+    private final Type type;
+
+    Change(long seq, String auId, Type type) {
+      this.seq = seq;
+      this.auId = auId;
+      this.type = type;
+    }
+
+    public long getSeq() {
+      return seq;
+    }
+
+    public String getAuId() {
+      return auId;
+    }
+
+    public Type getType() {
+      return type;
+    }
+
+    @Override
+    public String toString() {
+      return "[Change seq=" + seq + ", auId=" + auId + ", type=" + type + "]";
+    }
+  }
+
+  /**
+   * A page of the changes that follow a given sequence.
+   */
+  public static final class Page {
+    private final List<Change> changes;
+    private final long next;
+
+    Page(List<Change> changes, long next) {
+      this.changes = changes;
+      this.next = next;
+    }
+
+    /**
+     * Provides the changes, only the last one for each Archival Unit, in
+     * sequence order.
+     *
+     * @return a {@code List<Change>} with the changes.
+     */
+    public List<Change> getChanges() {
+      return changes;
+    }
+
+    /**
+     * Provides the sequence after which the next page starts.
+     *
+     * @return a long with the sequence after which the next page starts.
+     */
+    public long getNext() {
+      return next;
+    }
+  }
+
+  // The identifier of this incarnation of the log, which restarts with the
+  // service.
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+  // The retained changes, in sequence order, as a ring buffer that starts at
+  // index first, so that a change can be found directly by its sequence.
+  private Change[] changes = new Change[16];
+  private int first = 0;
+  private int count = 0;
+
+  // The sequence of the newest change.
+  private long latest = 0;
+
+  // The sequence of the newest discarded change.
+  private long horizon = 0;
+
+  /**
+   * Provides the epoch of the log.
+   *
+   * @return a String with the epoch of the log.
+   */
+  public String getEpoch() {
+    return epoch;
+  }
+
+  /**
+   * Provides the sequence of the newest change.
+   *
+   * @return a long with the sequence of the newest change.
+   */
+  public synchronized long getLatest() {
+    return latest;
+  }
+
+  /**
+   * Provides the compaction horizon, the sequence of the newest discarded
+   * change.
+   *
+   * @return a long with the compaction horizon.
+   */
+  public synchronized long getHorizon() {
+    return horizon;
+  }
+
+  /**
+   * Records a change to an Archival Unit configuration.
+   *
+   * @param auId
+   *          A String with the Archival Unit identifier.
+   * @param type
+   *          A Type with the type of change.
+   * @return a long with the sequence of the change.
+   */
+  public long record(String auId, Type type) {
+    return record(Map.of(auId, type));
+  }
+
+  /**
+   * Records a batch of changes to Archival Unit configurations, with
+   * consecutive sequences.
+   *
+   * @param changesByAuId
+   *          A {@code Map<String, Type>} with the types of change keyed by
+   *          the Archival Unit identifier, in the order to be recorded.
+   * @return a long with the sequence of the last change.
+   */
+  public long record(Map<String, Type> changesByAuId) {
+    log.debug2("changesByAuId = {}", changesByAuId);
+
+    int maxChanges = Math.max(1, CurrentConfig.getIntParam(PARAM_MAX_CHANGES,
+	DEFAULT_MAX_CHANGES));
+
+    synchronized (this) {
+      for (Map.Entry<String, Type> entry : changesByAuId.entrySet()) {
+	addLast(new Change(++latest, entry.getKey(), entry.getValue()));
+      }
+
+      // Discard the oldest changes beyond the maximum.
+      while (count > maxChanges) {
+	horizon = changes[first].getSeq();
+	changes[first] = null;
+	first = (first + 1) % changes.length;
+	count--;
+      }
+
+      log.debug2("latest = {}, horizon = {}", latest, horizon);
+      return latest;
+    }
+  }
+
+  /**
+   * Records the same type of change to a batch of Archival Unit
+   * configurations.
+   *
+   * @param auIds
+   *          A {@code Collection<String>} with the Archival Unit identifiers.
+   * @param type
+   *          A Type with the type of change.
+   * @return a long with the sequence of the last change.
+   */
+  public long record(Collection<String> auIds, Type type) {
+    Map<String, Type> changesByAuId = new LinkedHashMap<>();
+
+    for (String auId : auIds) {
+      changesByAuId.put(auId, type);
+    }
+
+    return record(changesByAuId);
+  }
+
+  /**
+   * Provides the changes that follow a given sequence.
+   *
+   * @param since
+   *          A long with the sequence after which the changes are requested.
+   * @param limit
+   *          An int with the maximum number of changes to be examined.
+   * @return a Page with the changes, or null if the requested changes are no
+   *         longer, or not yet, in the log and a full resynchronization is
+   *         required.
+   */
+  public synchronized Page getChangesSince(long since, int limit) {
+    log.debug2("since = {}, limit = {}", since, limit);
+
+    if (since < horizon || since > latest) {
+      return null;
+    }
+
+    // The position in the log of the first change after the requested one is
+    // known because the sequences are consecutive.
+    int start = (int)(since - horizon);
+    int end = (int)Math.min(count, start + (long)limit);
+
+    // Keep only the last change to each Archival Unit.
+    Map<String, Change> lastChanges = new LinkedHashMap<>();
+    long next = since;
+
+    for (int index = start; index < end; index++) {
+      Change change = changes[(first + index) % changes.length];
+      lastChanges.remove(change.getAuId());
+      lastChanges.put(change.getAuId(), change);
+      next = change.getSeq();
+    }
+
+    Page result = new Page(new ArrayList<>(lastChanges.values()), next);
+    log.debug2("result.getChanges().size() = {}",
+	result.getChanges().size());
+    return result;
+  }
+
+  /**
+   * Appends a change to the ring buffer, growing it if it is full.
+   *
+   * @param change
+   *          A Change with the change to be appended.
+   */
+  private void addLast(Change change) {
+    if (count == changes.length) {
+      // Unroll the buffer into a larger one.
+      Change[] grown = Arrays.copyOfRange(changes, first,
+	  first + changes.length * 2);
+      System.arraycopy(changes, 0, grown, changes.length - first, first);
+      changes = grown;
+      first = 0;
+    }
+
+    changes[(first + count) % changes.length] = change;
+    count++;
+  }
+}
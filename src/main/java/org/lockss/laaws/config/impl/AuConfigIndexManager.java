@@ -0,0 +1,60 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import org.lockss.app.BaseLockssManager;
+import org.lockss.db.DbException;
+import org.lockss.log.L4JLogger;
+
+/**
+ * Creates, when the service starts, the indices of the configuration
+ * database used to find Archival Units by plugin and by identifier prefix in
+ * keyset order, if the database does not have equivalent ones.
+ * <p>
+ * It is started right after the configuration database manager, so that the
+ * indices are in place before any request uses them, and no schema change is
+ * ever made from a request.
+ */
+public class AuConfigIndexManager extends BaseLockssManager {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  @Override
+  public void startService() {
+    super.startService();
+
+    try {
+      new AuConfigurationSql().ensureIndices();
+    } catch (DbException dbe) {
+      log.warn("Cannot check the Archival Unit indices", dbe);
+    }
+  }
+}
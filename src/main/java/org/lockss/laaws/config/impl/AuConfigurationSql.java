@@ -0,0 +1,1182 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import static org.lockss.config.db.SqlConstants.*;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.lockss.app.LockssDaemon;
+import org.lockss.config.AuConfiguration;
+import org.lockss.config.db.ConfigDbManager;
+import org.lockss.db.DbException;
+import org.lockss.db.DbManager;
+import org.lockss.log.L4JLogger;
+import org.lockss.plugin.PluginManager;
+import org.lockss.util.time.TimeBase;
+
+/**
+ * The SQL code used by the Archival Unit configuration web service operations
+ * that read the configuration database directly, rather than one Archival
+ * Unit at a time through the configuration manager.
+ * <p>
+ * Archival Units are visited in keyset order, which is the order of their
+ * plugin key and then their Archival Unit key. Batches of configurations are
+ * written with JDBC statement batches, in a single transaction per batch.
+ * <p>
+ * The tables are owned and upgraded by the configuration database manager.
+ * The indices that back the keyset order and the conditions on the plugin
+ * and on the Archival Unit key prefix are created, if the database does not
+ * have equivalent ones, by {@link AuConfigIndexManager} when the service
+ * starts.
+ */
+public class AuConfigurationSql {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  // The columns that identify an Archival Unit.
+  private static final String AU_COLUMNS = "a." + ARCHIVAL_UNIT_SEQ_COLUMN
+      + ", p." + PLUGIN_ID_COLUMN
+      + ", a." + ARCHIVAL_UNIT_KEY_COLUMN;
+
+  // The join of Archival Units with their plugins.
+  private static final String AU_JOIN = " from " + PLUGIN_TABLE + " p"
+      + ", " + ARCHIVAL_UNIT_TABLE + " a"
+      + " where p." + PLUGIN_SEQ_COLUMN + " = a." + PLUGIN_SEQ_COLUMN;
+
+  // The keyset order of Archival Units.
+  private static final String AU_ORDER = " order by p." + PLUGIN_ID_COLUMN
+      + ", a." + ARCHIVAL_UNIT_KEY_COLUMN;
+
+  // Query to find Archival Units in keyset order, to which any conditions
+  // and then the order are appended.
+  private static final String FIND_AUS_QUERY_PREFIX = "select " + AU_COLUMNS
+      + AU_JOIN;
+
+  // Condition on the plugin of an Archival Unit.
+  private static final String PLUGIN_CONDITION = " and p." + PLUGIN_ID_COLUMN
+      + " = ?";
+
+  // Condition on the prefix of the plugin of an Archival Unit.
+  private static final String PLUGIN_PREFIX_CONDITION = " and p."
+      + PLUGIN_ID_COLUMN + " like ? escape '\\'";
+
+  // Condition on the prefix of the key of an Archival Unit.
+  private static final String AU_KEY_PREFIX_CONDITION = " and a."
+      + ARCHIVAL_UNIT_KEY_COLUMN + " like ? escape '\\'";
+
+  // Condition on an Archival Unit following a given one in keyset order.
+  private static final String AFTER_CONDITION = " and (p." + PLUGIN_ID_COLUMN
+      + " > ?"
+      + " or (p." + PLUGIN_ID_COLUMN + " = ?"
+      + " and a." + ARCHIVAL_UNIT_KEY_COLUMN + " > ?))";
+
+  // Query to find the configuration of a set of Archival Units, to which the
+  // parameter placeholders of the Archival Unit sequences are appended.
+  private static final String FIND_AU_CONFIGS_QUERY_PREFIX = "select "
+      + ARCHIVAL_UNIT_SEQ_COLUMN
+      + ", " + CONFIG_KEY_COLUMN
+      + ", " + CONFIG_VALUE_COLUMN
+      + " from " + ARCHIVAL_UNIT_CONFIG_TABLE
+      + " where " + ARCHIVAL_UNIT_SEQ_COLUMN + " in (";
+
+  // Query to find the plugins with a set of identifiers, to which the
+  // parameter placeholders of the plugin identifiers are appended.
+  private static final String FIND_PLUGINS_QUERY_PREFIX = "select "
+      + PLUGIN_SEQ_COLUMN
+      + ", " + PLUGIN_ID_COLUMN
+      + " from " + PLUGIN_TABLE
+      + " where " + PLUGIN_ID_COLUMN + " in (";
+
+  // Query to find the Archival Units of a set of plugins with a set of keys,
+  // to which the parameter placeholders of the plugin sequences and then of
+  // the Archival Unit keys are appended.
+  private static final String FIND_AUS_BY_KEY_QUERY_PREFIX = "select "
+      + ARCHIVAL_UNIT_SEQ_COLUMN
+      + ", " + PLUGIN_SEQ_COLUMN
+      + ", " + ARCHIVAL_UNIT_KEY_COLUMN
+      + " from " + ARCHIVAL_UNIT_TABLE
+      + " where " + PLUGIN_SEQ_COLUMN + " in (";
+
+  // Query to add a plugin.
+  private static final String INSERT_PLUGIN_QUERY = "insert into "
+      + PLUGIN_TABLE
+      + "(" + PLUGIN_ID_COLUMN
+      + ") values (?)";
+
+  // Query to update the last update time of an Archival Unit, whose update
+  // count tells whether the Archival Unit exists.
+  private static final String UPDATE_AU_LAST_UPDATE_TIME_QUERY = "update "
+      + ARCHIVAL_UNIT_TABLE
+      + " set " + LAST_UPDATE_TIME_COLUMN + " = ?"
+      + " where " + PLUGIN_SEQ_COLUMN + " = ?"
+      + " and " + ARCHIVAL_UNIT_KEY_COLUMN + " = ?";
+
+  // Query to add an Archival Unit.
+  private static final String INSERT_AU_QUERY = "insert into "
+      + ARCHIVAL_UNIT_TABLE
+      + "(" + PLUGIN_SEQ_COLUMN
+      + ", " + ARCHIVAL_UNIT_KEY_COLUMN
+      + ", " + CREATION_TIME_COLUMN
+      + ", " + LAST_UPDATE_TIME_COLUMN
+      + ") values (?, ?, ?, ?)";
+
+  // Query to delete the configuration items of an Archival Unit.
+  private static final String DELETE_AU_CONFIG_QUERY = "delete from "
+      + ARCHIVAL_UNIT_CONFIG_TABLE
+      + " where " + ARCHIVAL_UNIT_SEQ_COLUMN + " = ?";
+
+  // Query to add an Archival Unit configuration item.
+  private static final String INSERT_AU_CONFIG_QUERY = "insert into "
+      + ARCHIVAL_UNIT_CONFIG_TABLE
+      + "(" + ARCHIVAL_UNIT_SEQ_COLUMN
+      + ", " + CONFIG_KEY_COLUMN
+      + ", " + CONFIG_VALUE_COLUMN
+      + ") values (?, ?, ?)";
+
+  // Query to delete an Archival Unit, with its configuration items.
+  private static final String DELETE_AU_QUERY = "delete from "
+      + ARCHIVAL_UNIT_TABLE
+      + " where " + PLUGIN_SEQ_COLUMN + " = ?"
+      + " and " + ARCHIVAL_UNIT_KEY_COLUMN + " = ?";
+
+  // The name of the index used to find the Archival Units of a plugin in
+  // keyset order.
+  static final String AU_PLUGIN_KEY_INDEX = "idx_arch_unit_plugin_key";
+
+  // Query to create the index used to find the Archival Units of a plugin in
+  // keyset order.
+  private static final String CREATE_AU_PLUGIN_KEY_INDEX_QUERY =
+      "create index " + AU_PLUGIN_KEY_INDEX
+      + " on " + ARCHIVAL_UNIT_TABLE
+      + "(" + PLUGIN_SEQ_COLUMN
+      + ", " + ARCHIVAL_UNIT_KEY_COLUMN + ")";
+
+  // The name of the index used to find plugins by their identifier or its
+  // prefix.
+  static final String PLUGIN_ID_INDEX = "idx_plugin_id";
+
+  // Query to create the index used to find plugins by their identifier or
+  // its prefix.
+  private static final String CREATE_PLUGIN_ID_INDEX_QUERY =
+      "create index " + PLUGIN_ID_INDEX
+      + " on " + PLUGIN_TABLE
+      + "(" + PLUGIN_ID_COLUMN + ")";
+
+  private final ConfigDbManager configDbManager;
+
+  /**
+   * Constructor.
+   */
+  public AuConfigurationSql() {
+    this(LockssDaemon.getLockssDaemon().getManagerByType(
+	ConfigDbManager.class));
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param configDbManager
+   *          A ConfigDbManager with the configuration database manager.
+   */
+  public AuConfigurationSql(ConfigDbManager configDbManager) {
+    this.configDbManager = configDbManager;
+  }
+
+  /**
+   * Provides the configurations of the Archival Units that follow a given one
+   * in keyset order.
+   *
+   * @param afterAuId
+   *          A String with the identifier of the Archival Unit after which
+   *          the page starts, or null to start with the first one.
+   * @param limit
+   *          An int with the maximum number of Archival Units to scan.
+   * @return a Page with the configurations, in keyset order.
+   * @throws DbException if any problem occurred accessing the database.
+   */
+  public Page findAuConfigurationPage(String afterAuId, int limit)
+      throws DbException {
+    return findAuConfigurationPage(null, null, afterAuId, limit);
+  }
+
+  /**
+   * Provides the configurations of the Archival Units of a plugin, or with
+   * identifiers that start with a given prefix, that follow a given one in
+   * keyset order.
+   * <p>
+   * The filters are evaluated by the database, using the indices on the
+   * plugin identifier and on the plugin and key of the Archival Unit, so the
+   * cost does not depend on the number of Archival Units of other plugins.
+   * <p>
+   * Archival Units without any configuration are scanned but not returned,
+   * so a page may have fewer configurations than Archival Units scanned even
+   * when more follow. The next page starts after the last Archival Unit
+   * scanned, not after the last configuration returned.
+   *
+   * @param pluginKey
+   *          A String with the key of the plugin of the Archival Units, or
+   *          null for Archival Units of any plugin.
+   * @param auIdPrefix
+   *          A String with the prefix of the Archival Unit identifiers, which
+   *          may be just a prefix of the plugin key, or null for any prefix.
+   * @param afterAuId
+   *          A String with the identifier of the Archival Unit after which
+   *          the page starts, or null to start with the first one.
+   * @param limit
+   *          An int with the maximum number of Archival Units to scan.
+   * @return a Page with the configurations, in keyset order.
+   * @throws DbException if any problem occurred accessing the database.
+   */
+  public Page findAuConfigurationPage(String pluginKey, String auIdPrefix,
+      String afterAuId, int limit) throws DbException {
+    log.debug2("pluginKey = {}", pluginKey);
+    log.debug2("auIdPrefix = {}", auIdPrefix);
+    log.debug2("afterAuId = {}", afterAuId);
+    log.debug2("limit = {}", limit);
+
+    Connection conn = null;
+
+    try {
+      conn = configDbManager.getConnection();
+
+      // Find the Archival Units in the page.
+      Map<Long, String> auIdsBySeq =
+	  findAuPage(conn, pluginKey, auIdPrefix, afterAuId, limit);
+
+      // Get their configurations.
+      List<AuConfiguration> configurations =
+	  findAuConfigurations(conn, auIdsBySeq, null);
+      log.debug2("configurations.size() = {}", configurations.size());
+
+      String lastAuId = null;
+
+      for (String auId : auIdsBySeq.values()) {
+	lastAuId = auId;
+      }
+
+      return new Page(configurations, lastAuId,
+	  limit > 0 && auIdsBySeq.size() == limit);
+    } catch (SQLException sqle) {
+      String message = "Cannot find Archival Unit configuration page";
+      log.error(message, sqle);
+      log.error("pluginKey = {}", pluginKey);
+      log.error("auIdPrefix = {}", auIdPrefix);
+      log.error("afterAuId = {}", afterAuId);
+      log.error("limit = {}", limit);
+      throw new DbException(message, sqle);
+    } finally {
+      DbManager.safeRollbackAndClose(conn);
+    }
+  }
+
+  /**
+   * Provides the configurations of a set of Archival Units.
+   *
+   * @param auIds
+   *          A {@code Collection<String>} with the Archival Unit identifiers.
+   * @return a {@code Map<String, AuConfiguration>} with the configurations of
+   *         the Archival Units that exist, keyed by their identifiers.
+   * @throws DbException if any problem occurred accessing the database.
+   */
+  public Map<String, AuConfiguration> findAuConfigurations(
+      Collection<String> auIds) throws DbException {
+    log.debug2("auIds.size() = {}", auIds.size());
+
+    Map<String, AuConfiguration> result = new HashMap<>();
+
+    if (auIds.isEmpty()) {
+      return result;
+    }
+
+    Connection conn = null;
+
+    try {
+      conn = configDbManager.getConnection();
+
+      Set<String> pluginIds = new HashSet<>();
+
+      for (String auId : auIds) {
+	pluginIds.add(PluginManager.pluginKeyFromAuId(auId));
+      }
+
+      Map<Long, String> auIdsBySeq = new LinkedHashMap<>();
+
+      for (Map.Entry<String, Long> entry
+	  : findAus(conn, auIds, findPlugins(conn, pluginIds)).entrySet()) {
+	auIdsBySeq.put(entry.getValue(), entry.getKey());
+      }
+
+      for (AuConfiguration auConfiguration
+	  : findAuConfigurations(conn, auIdsBySeq, null)) {
+	result.put(auConfiguration.getAuId(), auConfiguration);
+      }
+
+      log.debug2("result.size() = {}", result.size());
+      return result;
+    } catch (SQLException sqle) {
+      String message = "Cannot find Archival Unit configurations";
+      log.error(message, sqle);
+      log.error("auIds.size() = {}", auIds.size());
+      throw new DbException(message, sqle);
+    } finally {
+      DbManager.safeRollbackAndClose(conn);
+    }
+  }
+
+  /**
+   * Stores the configurations of a batch of Archival Units in a single
+   * transaction, replacing any previous configuration of each of them.
+   *
+   * @param auConfigurations
+   *          A {@code Collection<AuConfiguration>} with the configurations to
+   *          be stored, with no two of them for the same Archival Unit.
+   * @return a {@code Set<String>} with the identifiers of the Archival Units
+   *         that did not exist before.
+   * @throws DbException if any problem occurred accessing the database.
+   */
+  public Set<String> storeAuConfigurations(
+      Collection<AuConfiguration> auConfigurations) throws DbException {
+    log.debug2("auConfigurations.size() = {}", auConfigurations.size());
+
+    Set<String> addedAuIds = new HashSet<>();
+
+    if (auConfigurations.isEmpty()) {
+      return addedAuIds;
+    }
+
+    Connection conn = null;
+
+    try {
+      conn = configDbManager.getConnection();
+
+      // Get the plugins of the Archival Units, adding any missing ones.
+      Set<String> pluginIds = new HashSet<>();
+
+      for (AuConfiguration auConfiguration : auConfigurations) {
+	pluginIds.add(PluginManager.pluginKeyFromAuId(
+	    auConfiguration.getAuId()));
+      }
+
+      Map<String, Long> pluginSeqsById = findOrAddPlugins(conn, pluginIds);
+
+      // Update the Archival Units, adding any missing ones.
+      Map<String, Long> auSeqsByAuId =
+	  updateOrAddAus(conn, auConfigurations, pluginSeqsById, addedAuIds);
+
+      // Replace their configurations.
+      replaceAuConfigurations(conn, auConfigurations, auSeqsByAuId);
+
+      conn.commit();
+      log.debug2("addedAuIds.size() = {}", addedAuIds.size());
+      return addedAuIds;
+    } catch (SQLException sqle) {
+      String message = "Cannot store Archival Unit configuration batch";
+      log.error(message, sqle);
+      log.error("auConfigurations.size() = {}", auConfigurations.size());
+      throw new DbException(message, sqle);
+    } finally {
+      DbManager.safeRollbackAndClose(conn);
+    }
+  }
+
+  /**
+   * Deletes a batch of Archival Units, with their configurations, in a single
+   * transaction.
+   *
+   * @param auIds
+   *          A {@code Collection<String>} with the identifiers of the
+   *          Archival Units to be deleted, with no duplicates.
+   * @return a {@code Set<String>} with the identifiers of the Archival Units
+   *         that existed and have been deleted.
+   * @throws DbException if any problem occurred accessing the database.
+   */
+  public Set<String> deleteAus(Collection<String> auIds) throws DbException {
+    log.debug2("auIds.size() = {}", auIds.size());
+
+    Set<String> result = new HashSet<>();
+
+    if (auIds.isEmpty()) {
+      return result;
+    }
+
+    Connection conn = null;
+
+    try {
+      conn = configDbManager.getConnection();
+
+      Set<String> pluginIds = new HashSet<>();
+
+      for (String auId : auIds) {
+	pluginIds.add(PluginManager.pluginKeyFromAuId(auId));
+      }
+
+      Map<String, Long> pluginSeqsById = findPlugins(conn, pluginIds);
+
+      // An Archival Unit of a plugin that is not in the database does not
+      // exist.
+      List<String> candidateAuIds = new ArrayList<>(auIds.size());
+
+      for (String auId : auIds) {
+	if (pluginSeqsById.containsKey(PluginManager.pluginKeyFromAuId(auId))) {
+	  candidateAuIds.add(auId);
+	}
+      }
+
+      if (candidateAuIds.isEmpty()) {
+	return result;
+      }
+
+      int[] counts;
+      log.trace("sql = {}", DELETE_AU_QUERY);
+
+      try (PreparedStatement stmt = conn.prepareStatement(DELETE_AU_QUERY)) {
+	for (String auId : candidateAuIds) {
+	  stmt.setLong(1,
+	      pluginSeqsById.get(PluginManager.pluginKeyFromAuId(auId)));
+	  stmt.setString(2, PluginManager.auKeyFromAuId(auId));
+	  stmt.addBatch();
+	}
+
+	counts = stmt.executeBatch();
+      }
+
+      // A driver that does not report the update counts of a batch leaves
+      // each deletion as successful.
+      for (int index = 0; index < counts.length; index++) {
+	if (counts[index] > 0 || counts[index] == Statement.SUCCESS_NO_INFO) {
+	  result.add(candidateAuIds.get(index));
+	}
+      }
+
+      conn.commit();
+      log.debug2("result.size() = {}", result.size());
+      return result;
+    } catch (SQLException sqle) {
+      String message = "Cannot delete Archival Unit batch";
+      log.error(message, sqle);
+      log.error("auIds.size() = {}", auIds.size());
+      throw new DbException(message, sqle);
+    } finally {
+      DbManager.safeRollbackAndClose(conn);
+    }
+  }
+
+  /**
+   * Provides the database sequences of a set of plugins, adding to the
+   * database any that are missing.
+   *
+   * @param conn
+   *          A Connection with the database connection to be used.
+   * @param pluginIds
+   *          A {@code Collection<String>} with the plugin identifiers.
+   * @return a {@code Map<String, Long>} with the plugin database sequences
+   *         keyed by their identifiers.
+   * @throws SQLException if any problem occurred accessing the database.
+   */
+  private Map<String, Long> findOrAddPlugins(Connection conn,
+      Collection<String> pluginIds) throws SQLException {
+    Map<String, Long> result = findPlugins(conn, pluginIds);
+
+    if (result.size() < pluginIds.size()) {
+      log.trace("sql = {}", INSERT_PLUGIN_QUERY);
+
+      try (PreparedStatement stmt =
+	  conn.prepareStatement(INSERT_PLUGIN_QUERY)) {
+	for (String pluginId : pluginIds) {
+	  if (!result.containsKey(pluginId)) {
+	    stmt.setString(1, pluginId);
+	    stmt.addBatch();
+	  }
+	}
+
+	stmt.executeBatch();
+      }
+
+      result = findPlugins(conn, pluginIds);
+    }
+
+    return result;
+  }
+
+  /**
+   * Updates the last update time of a batch of Archival Units, adding to the
+   * database any that are missing.
+   * <p>
+   * Whether each Archival Unit exists is told by the update count of its
+   * update, so no separate lookup is needed, unless the driver does not
+   * report the update counts of a batch.
+   *
+   * @param conn
+   *          A Connection with the database connection to be used.
+   * @param auConfigurations
+   *          A {@code Collection<AuConfiguration>} with the configurations of
+   *          the Archival Units.
+   * @param pluginSeqsById
+   *          A {@code Map<String, Long>} with the database sequences of the
+   *          plugins of the Archival Units, keyed by their identifiers.
+   * @param addedAuIds
+   *          A {@code Set<String>} where to store the identifiers of the
+   *          Archival Units that are added.
+   * @return a {@code Map<String, Long>} with the Archival Unit database
+   *         sequences keyed by their identifiers.
+   * @throws SQLException if any problem occurred accessing the database.
+   */
+  private Map<String, Long> updateOrAddAus(Connection conn,
+      Collection<AuConfiguration> auConfigurations,
+      Map<String, Long> pluginSeqsById, Set<String> addedAuIds)
+	  throws SQLException {
+    long now = TimeBase.nowMs();
+    List<String> auIds = new ArrayList<>(auConfigurations.size());
+
+    for (AuConfiguration auConfiguration : auConfigurations) {
+      auIds.add(auConfiguration.getAuId());
+    }
+
+    int[] counts;
+    log.trace("sql = {}", UPDATE_AU_LAST_UPDATE_TIME_QUERY);
+
+    try (PreparedStatement stmt =
+	conn.prepareStatement(UPDATE_AU_LAST_UPDATE_TIME_QUERY)) {
+      for (String auId : auIds) {
+	stmt.setLong(1, now);
+	stmt.setLong(2,
+	    pluginSeqsById.get(PluginManager.pluginKeyFromAuId(auId)));
+	stmt.setString(3, PluginManager.auKeyFromAuId(auId));
+	stmt.addBatch();
+      }
+
+      counts = stmt.executeBatch();
+    }
+
+    List<String> missingAuIds = new ArrayList<>();
+    List<String> unknownAuIds = new ArrayList<>();
+
+    for (int index = 0; index < counts.length; index++) {
+      if (counts[index] == 0) {
+	missingAuIds.add(auIds.get(index));
+      } else if (counts[index] == Statement.SUCCESS_NO_INFO) {
+	unknownAuIds.add(auIds.get(index));
+      }
+    }
+
+    // Find out which of the Archival Units without an update count exist.
+    if (!unknownAuIds.isEmpty()) {
+      Set<String> existingAuIds =
+	  findAus(conn, unknownAuIds, pluginSeqsById).keySet();
+
+      for (String auId : unknownAuIds) {
+	if (!existingAuIds.contains(auId)) {
+	  missingAuIds.add(auId);
+	}
+      }
+    }
+
+    // Add the missing Archival Units.
+    if (!missingAuIds.isEmpty()) {
+      log.trace("sql = {}", INSERT_AU_QUERY);
+
+      try (PreparedStatement stmt = conn.prepareStatement(INSERT_AU_QUERY)) {
+	for (String auId : missingAuIds) {
+	  stmt.setLong(1,
+	      pluginSeqsById.get(PluginManager.pluginKeyFromAuId(auId)));
+	  stmt.setString(2, PluginManager.auKeyFromAuId(auId));
+	  stmt.setLong(3, now);
+	  stmt.setLong(4, now);
+	  stmt.addBatch();
+	}
+
+	stmt.executeBatch();
+      }
+
+      addedAuIds.addAll(missingAuIds);
+    }
+
+    return findAus(conn, new HashSet<>(auIds), pluginSeqsById);
+  }
+
+  /**
+   * Replaces the configuration items of a batch of Archival Units.
+   *
+   * @param conn
+   *          A Connection with the database connection to be used.
+   * @param auConfigurations
+   *          A {@code Collection<AuConfiguration>} with the configurations to
+   *          be stored.
+   * @param auSeqsByAuId
+   *          A {@code Map<String, Long>} with the Archival Unit database
+   *          sequences keyed by their identifiers.
+   * @throws SQLException if any problem occurred accessing the database.
+   */
+  private void replaceAuConfigurations(Connection conn,
+      Collection<AuConfiguration> auConfigurations,
+      Map<String, Long> auSeqsByAuId) throws SQLException {
+    log.trace("sql = {}", DELETE_AU_CONFIG_QUERY);
+
+    try (PreparedStatement stmt =
+	conn.prepareStatement(DELETE_AU_CONFIG_QUERY)) {
+      for (Long auSeq : auSeqsByAuId.values()) {
+	stmt.setLong(1, auSeq);
+	stmt.addBatch();
+      }
+
+      stmt.executeBatch();
+    }
+
+    log.trace("sql = {}", INSERT_AU_CONFIG_QUERY);
+
+    try (PreparedStatement stmt =
+	conn.prepareStatement(INSERT_AU_CONFIG_QUERY)) {
+      for (AuConfiguration auConfiguration : auConfigurations) {
+	Long auSeq = auSeqsByAuId.get(auConfiguration.getAuId());
+
+	for (Map.Entry<String, String> entry
+	    : auConfiguration.getAuConfig().entrySet()) {
+	  stmt.setLong(1, auSeq);
+	  stmt.setString(2, entry.getKey());
+	  stmt.setString(3, entry.getValue());
+	  stmt.addBatch();
+	}
+      }
+
+      stmt.executeBatch();
+    }
+  }
+
+  /**
+   * Provides the identifiers of the Archival Units, optionally of a plugin or
+   * with identifiers that start with a given prefix, that follow a given one
+   * in keyset order.
+   *
+   * @param conn
+   *          A Connection with the database connection to be used.
+   * @param pluginKey
+   *          A String with the key of the plugin of the Archival Units, or
+   *          null for Archival Units of any plugin.
+   * @param auIdPrefix
+   *          A String with the prefix of the Archival Unit identifiers, which
+   *          may be just a prefix of the plugin key, or null for any prefix.
+   * @param afterAuId
+   *          A String with the identifier of the Archival Unit after which
+   *          the page starts, or null to start with the first one.
+   * @param limit
+   *          An int with the maximum number of Archival Units to return, or
+   *          zero for no limit.
+   * @return a {@code Map<Long, String>} with the Archival Unit identifiers,
+   *         in keyset order, keyed by their database sequence.
+   * @throws SQLException if any problem occurred accessing the database.
+   */
+  Map<Long, String> findAuPage(Connection conn, String pluginKey,
+      String auIdPrefix, String afterAuId, int limit) throws SQLException {
+    StringBuilder sql = new StringBuilder(FIND_AUS_QUERY_PREFIX);
+    List<String> params = new ArrayList<>();
+
+    if (pluginKey != null) {
+      sql.append(PLUGIN_CONDITION);
+      params.add(pluginKey);
+    }
+
+    if (auIdPrefix != null) {
+      int separator = auIdPrefix.indexOf('&');
+
+      if (separator < 0) {
+	sql.append(PLUGIN_PREFIX_CONDITION);
+	params.add(escapeLikePattern(auIdPrefix) + "%");
+      } else {
+	sql.append(PLUGIN_CONDITION).append(AU_KEY_PREFIX_CONDITION);
+	params.add(auIdPrefix.substring(0, separator));
+	params.add(escapeLikePattern(auIdPrefix.substring(separator + 1))
+	    + "%");
+      }
+    }
+
+    if (afterAuId != null) {
+      String afterPluginKey = PluginManager.pluginKeyFromAuId(afterAuId);
+      sql.append(AFTER_CONDITION);
+      params.add(afterPluginKey);
+      params.add(afterPluginKey);
+      params.add(PluginManager.auKeyFromAuId(afterAuId));
+    }
+
+    sql.append(AU_ORDER);
+    log.trace("sql = {}", sql);
+
+    Map<Long, String> result = new LinkedHashMap<>();
+
+    try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+      stmt.setMaxRows(limit);
+      int index = 1;
+
+      for (String param : params) {
+	stmt.setString(index++, param);
+      }
+
+      try (ResultSet rs = stmt.executeQuery()) {
+	while (rs.next()) {
+	  result.put(rs.getLong(1),
+	      PluginManager.generateAuId(rs.getString(2), rs.getString(3)));
+	}
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Provides the configurations of a set of Archival Units.
+   *
+   * @param conn
+   *          A Connection with the database connection to be used.
+   * @param auIdsBySeq
+   *          A {@code Map<Long, String>} with the Archival Unit identifiers,
+   *          in the order of the result, keyed by their database sequence.
+   * @param result
+   *          A {@code List<AuConfiguration>} to which the configurations are
+   *          to be added, or null to create a new one.
+   * @return a {@code List<AuConfiguration>} with the configurations.
+   * @throws SQLException if any problem occurred accessing the database.
+   */
+  List<AuConfiguration> findAuConfigurations(Connection conn,
+      Map<Long, String> auIdsBySeq, List<AuConfiguration> result)
+	  throws SQLException {
+    if (result == null) {
+      result = new ArrayList<>(auIdsBySeq.size());
+    }
+
+    if (auIdsBySeq.isEmpty()) {
+      return result;
+    }
+
+    Map<Long, Map<String, String>> configsBySeq = new HashMap<>();
+
+    StringBuilder sql = new StringBuilder(FIND_AU_CONFIGS_QUERY_PREFIX);
+    appendPlaceholders(sql, auIdsBySeq.size()).append(")");
+    log.trace("sql = {}", sql);
+
+    try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+      int index = 1;
+
+      for (Long auSeq : auIdsBySeq.keySet()) {
+	stmt.setLong(index++, auSeq);
+      }
+
+      try (ResultSet rs = stmt.executeQuery()) {
+	while (rs.next()) {
+	  configsBySeq.computeIfAbsent(rs.getLong(1), k -> new HashMap<>())
+	  .put(rs.getString(2), rs.getString(3));
+	}
+      }
+    }
+
+    // Assemble the results in the original order.
+    for (Map.Entry<Long, String> entry : auIdsBySeq.entrySet()) {
+      Map<String, String> auConfig = configsBySeq.get(entry.getKey());
+
+      if (auConfig != null) {
+	result.add(new AuConfiguration(entry.getValue(), auConfig));
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Provides the database sequences of those of a set of plugins that exist
+   * in the database.
+   *
+   * @param conn
+   *          A Connection with the database connection to be used.
+   * @param pluginIds
+   *          A {@code Collection<String>} with the plugin identifiers.
+   * @return a {@code Map<String, Long>} with the plugin database sequences
+   *         keyed by their identifiers.
+   * @throws SQLException if any problem occurred accessing the database.
+   */
+  private Map<String, Long> findPlugins(Connection conn,
+      Collection<String> pluginIds) throws SQLException {
+    StringBuilder sql = new StringBuilder(FIND_PLUGINS_QUERY_PREFIX);
+    appendPlaceholders(sql, pluginIds.size()).append(")");
+    log.trace("sql = {}", sql);
+
+    Map<String, Long> result = new HashMap<>();
+
+    try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+      int index = 1;
+
+      for (String pluginId : pluginIds) {
+	stmt.setString(index++, pluginId);
+      }
+
+      try (ResultSet rs = stmt.executeQuery()) {
+	while (rs.next()) {
+	  result.put(rs.getString(2), rs.getLong(1));
+	}
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Provides the database sequences of those of a batch of Archival Units
+   * that exist in the database.
+   *
+   * @param conn
+   *          A Connection with the database connection to be used.
+   * @param auIds
+   *          A {@code Collection<String>} with the Archival Unit identifiers.
+   * @param pluginSeqsById
+   *          A {@code Map<String, Long>} with the database sequences of the
+   *          plugins of the Archival Units, keyed by their identifiers.
+   * @return a {@code Map<String, Long>} with the Archival Unit database
+   *         sequences keyed by their identifiers.
+   * @throws SQLException if any problem occurred accessing the database.
+   */
+  private Map<String, Long> findAus(Connection conn, Collection<String> auIds,
+      Map<String, Long> pluginSeqsById) throws SQLException {
+    Map<String, Long> result = new HashMap<>();
+
+    if (auIds.isEmpty() || pluginSeqsById.isEmpty()) {
+      return result;
+    }
+
+    Map<Long, String> pluginIdsBySeq = new HashMap<>();
+
+    for (Map.Entry<String, Long> entry : pluginSeqsById.entrySet()) {
+      pluginIdsBySeq.put(entry.getValue(), entry.getKey());
+    }
+
+    Set<String> auKeys = new HashSet<>();
+
+    for (String auId : auIds) {
+      auKeys.add(PluginManager.auKeyFromAuId(auId));
+    }
+
+    // The query may find other Archival Units of the same plugins with the
+    // same keys, which are ignored.
+    StringBuilder sql = new StringBuilder(FIND_AUS_BY_KEY_QUERY_PREFIX);
+    appendPlaceholders(sql, pluginIdsBySeq.size())
+    .append(") and ").append(ARCHIVAL_UNIT_KEY_COLUMN).append(" in (");
+    appendPlaceholders(sql, auKeys.size()).append(")");
+    log.trace("sql = {}", sql);
+
+    try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+      int index = 1;
+
+      for (Long pluginSeq : pluginIdsBySeq.keySet()) {
+	stmt.setLong(index++, pluginSeq);
+      }
+
+      for (String auKey : auKeys) {
+	stmt.setString(index++, auKey);
+      }
+
+      try (ResultSet rs = stmt.executeQuery()) {
+	while (rs.next()) {
+	  String auId = PluginManager.generateAuId(
+	      pluginIdsBySeq.get(rs.getLong(2)), rs.getString(3));
+
+	  if (auIds.contains(auId)) {
+	    result.put(auId, rs.getLong(1));
+	  }
+	}
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Appends parameter placeholders for an SQL "in" list.
+   *
+   * @param sql
+   *          A StringBuilder with the SQL to which to append the
+   *          placeholders.
+   * @param count
+   *          An int with the number of placeholders to append.
+   * @return the StringBuilder with the SQL.
+   */
+  static StringBuilder appendPlaceholders(StringBuilder sql, int count) {
+    for (int i = 0; i < count; i++) {
+      sql.append(i == 0 ? "?" : ", ?");
+    }
+
+    return sql;
+  }
+
+  /**
+   * Provides the identifiers of the Archival Units that start with a given
+   * prefix.
+   *
+   * @param auIdPrefix
+   *          A String with the prefix of the Archival Unit identifiers, which
+   *          may be just a prefix of the plugin key.
+   * @param limit
+   *          An int with the maximum number of identifiers to return.
+   * @return a {@code List<String>} with the Archival Unit identifiers, in
+   *         keyset order.
+   * @throws DbException if any problem occurred accessing the database.
+   */
+  public List<String> findAuIdsByPrefix(String auIdPrefix, int limit)
+      throws DbException {
+    log.debug2("auIdPrefix = {}", auIdPrefix);
+    log.debug2("limit = {}", limit);
+
+    Connection conn = null;
+
+    try {
+      conn = configDbManager.getConnection();
+
+      List<String> result = new ArrayList<>(
+	  findAuPage(conn, null, auIdPrefix, null, limit).values());
+      log.debug2("result.size() = {}", result.size());
+      return result;
+    } catch (SQLException sqle) {
+      String message = "Cannot find Archival Units by prefix";
+      log.error(message, sqle);
+      log.error("auIdPrefix = {}", auIdPrefix);
+      throw new DbException(message, sqle);
+    } finally {
+      DbManager.safeRollbackAndClose(conn);
+    }
+  }
+
+  /**
+   * Makes sure that the database has the indices used to find the Archival
+   * Units of a plugin, or with a prefix, in keyset order, creating those
+   * that are missing.
+   * <p>
+   * An index is missing if the database has no index with the same leading
+   * columns, such as one backing a unique constraint. A failure to create an
+   * index is logged but does not prevent the queries from working.
+   *
+   * @throws DbException if any problem occurred accessing the database.
+   */
+  public void ensureIndices() throws DbException {
+    log.debug2("Invoked");
+    Connection conn = null;
+
+    try {
+      conn = configDbManager.getConnection();
+
+      ensureIndex(conn, ARCHIVAL_UNIT_TABLE,
+	  new String[] {PLUGIN_SEQ_COLUMN, ARCHIVAL_UNIT_KEY_COLUMN},
+	  AU_PLUGIN_KEY_INDEX, CREATE_AU_PLUGIN_KEY_INDEX_QUERY);
+      ensureIndex(conn, PLUGIN_TABLE, new String[] {PLUGIN_ID_COLUMN},
+	  PLUGIN_ID_INDEX, CREATE_PLUGIN_ID_INDEX_QUERY);
+    } catch (SQLException sqle) {
+      String message = "Cannot check the Archival Unit indices";
+      log.error(message, sqle);
+      throw new DbException(message, sqle);
+    } finally {
+      DbManager.safeRollbackAndClose(conn);
+    }
+  }
+
+  /**
+   * Creates an index, unless the table has one with the same leading columns
+   * already.
+   *
+   * @param conn
+   *          A Connection with the database connection to be used.
+   * @param table
+   *          A String with the name of the table.
+   * @param columns
+   *          A String[] with the names of the leading columns of the index.
+   * @param index
+   *          A String with the name of the index.
+   * @param createQuery
+   *          A String with the query that creates the index.
+   * @throws SQLException if any problem occurred accessing the database
+   *           metadata.
+   */
+  private void ensureIndex(Connection conn, String table, String[] columns,
+      String index, String createQuery) throws SQLException {
+    if (hasIndexStartingWith(conn, table, columns)) {
+      log.debug("Table {} already has an index equivalent to {}", table,
+	  index);
+      return;
+    }
+
+    log.info("Creating index {}", index);
+    log.trace("sql = {}", createQuery);
+
+    try (Statement stmt = conn.createStatement()) {
+      stmt.execute(createQuery);
+      conn.commit();
+    } catch (SQLException sqle) {
+      conn.rollback();
+
+      // Another instance of the service may have created it meanwhile.
+      if (!hasIndexStartingWith(conn, table, columns)) {
+	log.warn("Cannot create index " + index, sqle);
+      }
+    }
+  }
+
+  /**
+   * Provides an indication of whether a table has an index whose leading
+   * columns are the given ones, in the same order.
+   *
+   * @param conn
+   *          A Connection with the database connection to be used.
+   * @param table
+   *          A String with the name of the table.
+   * @param columns
+   *          A String[] with the names of the columns.
+   * @return {@code true} if the table has such an index, {@code false}
+   *         otherwise.
+   * @throws SQLException if any problem occurred accessing the database.
+   */
+  private boolean hasIndexStartingWith(Connection conn, String table,
+      String[] columns) throws SQLException {
+    DatabaseMetaData metadata = conn.getMetaData();
+
+    // The case of the stored names depends on the database.
+    for (String name : new String[] {table, table.toUpperCase(),
+	table.toLowerCase()}) {
+      Map<String, String[]> columnsByIndex = new HashMap<>();
+
+      try (ResultSet rs = metadata.getIndexInfo(null, null, name, false,
+	  true)) {
+	while (rs.next()) {
+	  short position = rs.getShort("ORDINAL_POSITION");
+
+	  if (position < 1 || position > columns.length) {
+	    continue;
+	  }
+
+	  columnsByIndex.computeIfAbsent(rs.getString("INDEX_NAME"),
+	      k -> new String[columns.length])[position - 1] =
+	      rs.getString("COLUMN_NAME");
+	}
+      }
+
+      for (String[] indexColumns : columnsByIndex.values()) {
+	boolean matches = true;
+
+	for (int i = 0; i < columns.length && matches; i++) {
+	  matches = columns[i].equalsIgnoreCase(indexColumns[i]);
+	}
+
+	if (matches) {
+	  return true;
+	}
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Escapes the wildcard characters of an SQL "like" pattern, using the
+   * backslash as the escape character.
+   *
+   * @param text
+   *          A String with the text to be matched literally.
+   * @return a String with the escaped text.
+   */
+  static String escapeLikePattern(String text) {
+    return text.replace("\\", "\\\\").replace("%", "\\%")
+	.replace("_", "\\_");
+  }
+
+  /**
+   * A page of Archival Unit configurations, read in keyset order.
+   */
+  public static class Page {
+    private final List<AuConfiguration> configurations;
+    private final String lastAuId;
+    private final boolean full;
+
+    /**
+     * Constructor.
+     *
+     * @param configurations
+     *          A {@code List<AuConfiguration>} with the configurations.
+     * @param lastAuId
+     *          A String with the identifier of the last Archival Unit
+     *          scanned, or null if none was.
+     * @param full
+     *          A boolean with the indication of whether as many Archival
+     *          Units as requested were scanned, so that more may follow.
+     */
+    Page(List<AuConfiguration> configurations, String lastAuId,
+	boolean full) {
+      this.configurations = configurations;
+      this.lastAuId = lastAuId;
+      this.full = full;
+    }
+
+    /**
+     * Provides the configurations of the page.
+     *
+     * @return a {@code List<AuConfiguration>} with the configurations, in
+     *         keyset order.
+     */
+    public List<AuConfiguration> getConfigurations() {
+      return configurations;
+    }
+
+    /**
+     * Provides the identifier of the last Archival Unit scanned, after which
+     * the next page starts.
+     *
+     * @return a String with the identifier, or null if no Archival Unit was
+     *         scanned.
+     */
+    public String getLastAuId() {
+      return lastAuId;
+    }
+
+    /**
+     * Provides an indication of whether more Archival Units may follow the
+     * page.
+     *
+     * @return {@code true} if as many Archival Units as requested were
+     *         scanned, {@code false} if there are no more.
+     */
+    public boolean hasMore() {
+      return full;
+    }
+  }
+}
@@ -36,6 +36,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.lockss.app.LockssDaemon;
 import org.lockss.config.AuConfiguration;
@@ -173,6 +174,62 @@ public class AuHelper {
 
   private static Logger log = Logger.getLogger();
 
+  // The cache of the sizes of the Archival Units, if any.
+  private final AuSizeCache sizeCache;
+
+  // The cache of the substance and article URLs of the Archival Units, if
+  // any.
+  private final AuUrlListCache urlListCache;
+
+  // The cached sizes reported by the last status provided, if any.
+  private AuSizeCache.Sizes reportedSizes = null;
+
+  /**
+   * Default constructor, computing the sizes of the Archival Units when
+   * needed.
+   */
+  AuHelper() {
+    this(null);
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param sizeCache
+   *          An AuSizeCache with the cache of the sizes of the Archival
+   *          Units, or null to compute them when needed.
+   */
+  AuHelper(AuSizeCache sizeCache) {
+    this(sizeCache, null);
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param sizeCache
+   *          An AuSizeCache with the cache of the sizes of the Archival
+   *          Units, or null to compute them when needed.
+   * @param urlListCache
+   *          An AuUrlListCache with the cache of the substance and article
+   *          URLs of the Archival Units, or null to compute them when
+   *          needed.
+   */
+  AuHelper(AuSizeCache sizeCache, AuUrlListCache urlListCache) {
+    this.sizeCache = sizeCache;
+    this.urlListCache = urlListCache;
+  }
+
+  /**
+   * Provides the cached sizes reported by the last status provided by
+   * {@link #getAuStatus(String)}.
+   * 
+   * @return an AuSizeCache.Sizes with the cached sizes, or null if the
+   *         reported sizes did not come from the cache.
+   */
+  AuSizeCache.Sizes getReportedSizes() {
+    return reportedSizes;
+  }
+
   /**
    * Provides the status information of an archival unit in the system.
    * 
@@ -213,13 +270,21 @@ public class AuHelper {
       result.setAccessType(atype.toString());
     }
 
-    long contentSize = AuUtil.getAuContentSize(au, false);
+    // Prefer the sizes maintained by the cache, which may be known when the
+    // ones stored for the Archival Unit are not.
+    AuSizeCache.Sizes sizes =
+	sizeCache == null ? null : sizeCache.getSizes(auId);
+    reportedSizes = sizes;
+
+    long contentSize = sizes != null ? sizes.getContentSize()
+	: AuUtil.getAuContentSize(au, false);
 
     if (contentSize != -1) {
       result.setContentSize(contentSize);
     }
 
-    long du = AuUtil.getAuDiskUsage(au, false);
+    long du = sizes != null ? sizes.getDiskUsage()
+	: AuUtil.getAuDiskUsage(au, false);
 
     if (du != -1) {
       result.setDiskUsage(du);
@@ -387,7 +452,7 @@ public class AuHelper {
 
 	// Add the object initialized with this Archival Unit to the universe of
 	// objects.
-	universe.add(new AuWsSource(au));
+	universe.add(createSource(au));
       }
 
       if (log.isDebug2())
@@ -398,6 +463,75 @@ public class AuHelper {
     }
   }
 
+  /**
+   * Provides the universe of Archival Unit-related query objects used as the
+   * source for a query, narrowed down with the indexes to the Archival Units
+   * that may have some property values, sharing the budget of the query.
+   * 
+   * @param equalities
+   *          A {@code Map<String, String>} with the text constant to which
+   *          each property must be equal.
+   * @param index
+   *          An AuQueryIndex with the indexes.
+   * @param budget
+   *          A WsQueryBudget with the budget of the query, or null for no
+   *          limits.
+   * @return a List<AuWsSource> with the universe.
+   */
+  List<AuWsSource> createUniverse(Map<String, String> equalities,
+      AuQueryIndex index, WsQueryBudget budget) {
+    final String DEBUG_HEADER = "createUniverse(): ";
+
+    Set<String> auIds = index.findCandidates(equalities);
+    List<AuWsSource> universe;
+
+    // Check whether the indexes cannot be used.
+    if (auIds == null) {
+      // Yes: Use all the Archival Units.
+      universe = createUniverse();
+
+      for (AuWsSource source : universe) {
+	source.setBudget(budget);
+      }
+
+      return universe;
+    }
+
+    // Initialize the universe.
+    universe = new ArrayList<AuWsSource>(auIds.size());
+
+    // Loop through all the candidate Archival Units.
+    for (String auId : auIds) {
+      // Get the Archival Unit.
+      ArchivalUnit au =
+	  LockssDaemon.getLockssDaemon().getPluginManager().getAuFromId(auId);
+
+      if (au != null) {
+	AuWsSource source = createSource(au);
+	source.setBudget(budget);
+	universe.add(source);
+      }
+    }
+
+    if (log.isDebug2())
+      log.debug2(DEBUG_HEADER + "universe.size() = " + universe.size());
+    return universe;
+  }
+
+  /**
+   * Provides the query object of an Archival Unit.
+   * 
+   * @param au
+   *          An ArchivalUnit with the Archival Unit.
+   * @return an AuWsSource with the query object.
+   */
+  private AuWsSource createSource(ArchivalUnit au) {
+    AuWsSource source = new AuWsSource(au);
+    source.setSizeCache(sizeCache);
+    source.setUrlListCache(urlListCache);
+    return source;
+  }
+
   /**
    * Provides a printable copy of a collection of Archival Unit-related query
    * results.
@@ -0,0 +1,413 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.lockss.app.LockssDaemon;
+import org.lockss.config.AuConfiguration;
+import org.lockss.config.ConfigManager;
+import org.lockss.config.Configuration;
+import org.lockss.config.CurrentConfig;
+import org.lockss.log.L4JLogger;
+import org.lockss.plugin.ArchivalUnit;
+import org.lockss.plugin.AuEvent;
+import org.lockss.plugin.AuEventHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory secondary indexes of the configured archival units by the values
+ * of some cheap and selective properties used in archival unit queries, used
+ * to narrow down the archival units to be queried when a query requires
+ * those properties to be equal to some text constants.
+ * <p>
+ * Only properties that can be kept exactly current are indexed, so that a
+ * narrowed query has the same results as a full scan: the plugin of an
+ * archival unit does not change while it exists, and its title database
+ * properties only change with a new configuration. The indexes are built the
+ * first time that they are needed, kept up to date with the events of
+ * creation, deletion and reconfiguration of archival units, and rebuilt when
+ * they are used after a configuration change. The properties that depend on
+ * the state of the archival units change without an event, so they are not
+ * indexed.
+ * <p>
+ * The archival units are scanned, and their properties computed, outside the
+ * lock of the indexes, which is only held to update or to read them.
+ */
+@Component
+public class AuQueryIndex {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  /** Whether the indexes are used to narrow down archival unit queries. */
+  public static final String PARAM_ENABLED =
+      WsApiServiceImpl.PREFIX + "auIndex.enabled";
+  public static final boolean DEFAULT_ENABLED = true;
+
+  /** The indexed properties. */
+  static final List<String> INDEXED_PROPERTIES =
+      Collections.unmodifiableList(Arrays.asList(AuHelper.PLUGIN_NAME,
+          AuHelper.TDB_PUBLISHER, AuHelper.TDB_YEAR));
+
+  // The identifiers of the archival units, by indexed property and value.
+  private final Map<String, Map<String, Set<String>>> indexes =
+      new HashMap<>();
+
+  // The indexed property values of each archival unit, in the order of
+  // INDEXED_PROPERTIES.
+  private final Map<String, String[]> indexedValues = new LinkedHashMap<>();
+
+  // The configuration current when the indexes were last built, or null if
+  // they have not been built yet.
+  private Configuration indexedConfig = null;
+
+  // The property values of the archival units changed while the indexes are
+  // being rebuilt, null for the deleted ones, or null if they are not being
+  // rebuilt.
+  private Map<String, String[]> changedWhileRebuilding = null;
+
+  // The lock held while the indexes are being rebuilt.
+  private final Object rebuildLock = new Object();
+
+  private final AtomicBoolean registered = new AtomicBoolean(false);
+
+  // The handler of archival unit events that keeps the indexes up to date.
+  private final AuEventHandler auEventHandler = new AuEventHandler.Base() {
+    @Override
+    public void auCreated(AuEvent event, ArchivalUnit au) {
+      put(au);
+    }
+
+    @Override
+    public void auDeleted(AuEvent event, ArchivalUnit au) {
+      remove(au.getAuId());
+    }
+
+    @Override
+    public void auReconfigured(AuEvent event, ArchivalUnit au,
+        Configuration oldAuConf) {
+      put(au);
+    }
+  };
+
+  /**
+   * Provides the identifiers of the archival units that may have some
+   * property values.
+   *
+   * @param equalities A {@code Map<String, String>} with the text constant
+   *                   to which each property must be equal.
+   * @return a {@code Set<String>} with the identifiers of all the archival
+   *         units that have the values of the indexed properties, and maybe
+   *         some that do not have the values of the rest of the properties,
+   *         or null if the indexes cannot be used for these properties.
+   */
+  public Set<String> findCandidates(Map<String, String> equalities) {
+    log.debug2("equalities = {}", equalities);
+
+    if (equalities.isEmpty()
+        || !CurrentConfig.getBooleanParam(PARAM_ENABLED, DEFAULT_ENABLED)) {
+      return null;
+    }
+
+    boolean usesIndex = false;
+
+    for (String property : equalities.keySet()) {
+      usesIndex |= INDEXED_PROPERTIES.contains(property);
+    }
+
+    if (!usesIndex) {
+      return null;
+    }
+
+    Configuration currentConfig = ConfigManager.getCurrentConfig();
+    rebuildIfNeeded(currentConfig);
+
+    synchronized (this) {
+      // Check whether the configuration has changed again since the indexes
+      // were rebuilt.
+      if (indexedConfig != currentConfig) {
+        // Yes: They may not be current.
+        log.debug2("Configuration changed: Not using the indexes");
+        return null;
+      }
+
+      Set<String> candidates = null;
+
+      for (String property : INDEXED_PROPERTIES) {
+        String value = equalities.get(property);
+
+        if (value == null) {
+          continue;
+        }
+
+        Set<String> auIds = indexes.get(property)
+            .getOrDefault(value, Collections.emptySet());
+
+        if (candidates == null) {
+          candidates = new LinkedHashSet<>(auIds);
+        } else {
+          candidates.retainAll(auIds);
+        }
+      }
+
+      log.debug2("candidates.size() = {}", candidates.size());
+      return candidates;
+    }
+  }
+
+  /**
+   * Rebuilds the indexes with all the configured archival units, unless they
+   * have already been built with a configuration, and starts keeping them
+   * up to date.
+   *
+   * @param config A Configuration with the current configuration.
+   */
+  private void rebuildIfNeeded(Configuration config) {
+    synchronized (rebuildLock) {
+      synchronized (this) {
+        if (indexedConfig == config) {
+          return;
+        }
+
+        changedWhileRebuilding = new LinkedHashMap<>();
+      }
+
+      log.debug2("Rebuilding the indexes");
+
+      try {
+        // Register for the events before scanning the archival units, so
+        // that no change is missed.
+        register();
+
+        Map<String, String[]> scanned = new LinkedHashMap<>();
+
+        for (ArchivalUnit au : getConfiguredAus()) {
+          scanned.put(au.getAuId(), computeValues(au));
+        }
+
+        synchronized (this) {
+          // The changes made during the scan supersede it.
+          for (Map.Entry<String, String[]> entry
+              : changedWhileRebuilding.entrySet()) {
+            if (entry.getValue() == null) {
+              scanned.remove(entry.getKey());
+            } else {
+              scanned.put(entry.getKey(), entry.getValue());
+            }
+          }
+
+          indexes.clear();
+          indexedValues.clear();
+
+          for (String property : INDEXED_PROPERTIES) {
+            indexes.put(property, new HashMap<>());
+          }
+
+          for (Map.Entry<String, String[]> entry : scanned.entrySet()) {
+            index(entry.getKey(), entry.getValue());
+          }
+
+          indexedConfig = config;
+        }
+
+        log.debug("Indexed {} AUs", scanned.size());
+      } finally {
+        synchronized (this) {
+          changedWhileRebuilding = null;
+        }
+      }
+    }
+  }
+
+  /**
+   * Starts receiving the archival unit events, if not done already.
+   */
+  void register() {
+    if (registered.compareAndSet(false, true)) {
+      LockssDaemon.getLockssDaemon().getPluginManager()
+      .registerAuEventHandler(auEventHandler);
+    }
+  }
+
+  /**
+   * Provides the configured archival units, as queried by
+   * {@link AuHelper#createUniverse()}.
+   *
+   * @return a {@code Collection<ArchivalUnit>} with the archival units.
+   */
+  Collection<ArchivalUnit> getConfiguredAus() {
+    try {
+      Collection<AuConfiguration> allAuConfigs = ConfigManager
+          .getConfigManager().retrieveAllArchivalUnitConfiguration();
+      Collection<ArchivalUnit> aus = new ArrayList<>();
+
+      for (AuConfiguration auConfig : allAuConfigs) {
+        ArchivalUnit au = LockssDaemon.getLockssDaemon().getPluginManager()
+            .getAuFromId(auConfig.getAuId());
+
+        if (au != null) {
+          aus.add(au);
+        }
+      }
+
+      return aus;
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Provides the values of the indexed properties of an archival unit.
+   *
+   * @param au An ArchivalUnit with the archival unit.
+   * @return a String[] with the property values, in the order of
+   *         INDEXED_PROPERTIES.
+   */
+  String[] computeValues(ArchivalUnit au) {
+    String[] values = new String[INDEXED_PROPERTIES.size()];
+
+    try {
+      AuWsSource source = new AuWsSource(au);
+      values[0] = source.getPluginName();
+      values[1] = source.getTdbPublisher();
+      values[2] = source.getTdbYear();
+    } catch (RuntimeException re) {
+      log.warn("Cannot index AU {}", au.getAuId(), re);
+    }
+
+    return values;
+  }
+
+  /**
+   * Indexes, or re-indexes, an archival unit.
+   *
+   * @param au An ArchivalUnit with the archival unit.
+   */
+  void put(ArchivalUnit au) {
+    update(au.getAuId(), computeValues(au));
+  }
+
+  /**
+   * Removes an archival unit from the indexes.
+   *
+   * @param auId A String with the identifier of the archival unit.
+   */
+  void remove(String auId) {
+    update(auId, null);
+  }
+
+  /**
+   * Records the change of the indexed property values of an archival unit.
+   *
+   * @param auId   A String with the identifier of the archival unit.
+   * @param values A String[] with the property values, or null if the
+   *               archival unit has been deleted.
+   */
+  private synchronized void update(String auId, String[] values) {
+    // Check whether the indexes are being rebuilt.
+    if (changedWhileRebuilding != null) {
+      // Yes: Apply the change once they are rebuilt.
+      changedWhileRebuilding.put(auId, values);
+      return;
+    }
+
+    // Ignore the events received before the indexes are built.
+    if (indexedConfig == null) {
+      return;
+    }
+
+    unindex(auId);
+
+    if (values != null) {
+      index(auId, values);
+    }
+  }
+
+  /**
+   * Adds an archival unit to the indexes.
+   *
+   * @param auId   A String with the identifier of the archival unit.
+   * @param values A String[] with the property values.
+   */
+  private void index(String auId, String[] values) {
+    indexedValues.put(auId, values);
+
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        indexes.get(INDEXED_PROPERTIES.get(i))
+        .computeIfAbsent(values[i], k -> new LinkedHashSet<>()).add(auId);
+      }
+    }
+  }
+
+  /**
+   * Removes an archival unit from the indexes, if it is there.
+   *
+   * @param auId A String with the identifier of the archival unit.
+   */
+  private void unindex(String auId) {
+    String[] values = indexedValues.remove(auId);
+
+    if (values == null) {
+      return;
+    }
+
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        Map<String, Set<String>> index =
+            indexes.get(INDEXED_PROPERTIES.get(i));
+        Set<String> auIds = index.get(values[i]);
+
+        if (auIds != null && auIds.remove(auId) && auIds.isEmpty()) {
+          index.remove(values[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Provides the number of indexed archival units.
+   *
+   * @return an int with the number of indexed archival units.
+   */
+  synchronized int size() {
+    return indexedValues.size();
+  }
+}
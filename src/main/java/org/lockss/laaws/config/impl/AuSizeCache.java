@@ -0,0 +1,652 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import jakarta.annotation.PreDestroy;
+import org.lockss.app.LockssDaemon;
+import org.lockss.config.ConfigManager;
+import org.lockss.config.CurrentConfig;
+import org.lockss.log.L4JLogger;
+import org.lockss.plugin.ArchivalUnit;
+import org.lockss.plugin.AuEvent;
+import org.lockss.plugin.AuEventHandler;
+import org.lockss.plugin.AuUtil;
+import org.lockss.state.AuState;
+import org.lockss.util.time.TimeBase;
+import org.springframework.stereotype.Component;
+
+/**
+ * A cache of the content size and disk usage of the configured archival
+ * units, maintained in the background so that queries and status requests
+ * never wait for them to be computed against the repository.
+ * <p>
+ * The sizes of an archival unit are recomputed, by a single thread in
+ * batches of configurable size separated by a configurable interval, when it
+ * is created or its content changes, when they are requested and not cached,
+ * when it has been crawled since they were computed and when they are older
+ * than a configurable age. The cached sizes, with the time when they were
+ * computed, are saved to a file, so that they survive restarts. The first
+ * scan after they are loaded finds those of the archival units crawled while
+ * the cache was not receiving their events.
+ */
+@Component
+public class AuSizeCache {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  /**
+   * Whether the sizes of the archival units are read from this cache instead
+   * of being computed when needed.
+   */
+  public static final String PARAM_ENABLED =
+      WsApiServiceImpl.PREFIX + "auSizes.enabled";
+  public static final boolean DEFAULT_ENABLED = true;
+
+  /**
+   * The time, in milliseconds, between two batches of recomputations of the
+   * sizes of archival units.
+   */
+  public static final String PARAM_RECOMPUTE_INTERVAL =
+      WsApiServiceImpl.PREFIX + "auSizes.recomputeInterval";
+  public static final long DEFAULT_RECOMPUTE_INTERVAL = 5 * 1000L;
+
+  /**
+   * The maximum number of archival units with sizes recomputed in a batch.
+   */
+  public static final String PARAM_RECOMPUTE_BATCH_SIZE =
+      WsApiServiceImpl.PREFIX + "auSizes.recomputeBatchSize";
+  public static final int DEFAULT_RECOMPUTE_BATCH_SIZE = 100;
+
+  /**
+   * The age, in milliseconds, after which the cached sizes of an archival
+   * unit are recomputed even if its content has not changed.
+   */
+  public static final String PARAM_MAX_AGE =
+      WsApiServiceImpl.PREFIX + "auSizes.maxAge";
+  public static final long DEFAULT_MAX_AGE = 24 * 60 * 60 * 1000L;
+
+  /**
+   * The time, in milliseconds, between the scans of the configured archival
+   * units for sizes that are missing or older than the maximum age.
+   */
+  public static final String PARAM_SWEEP_INTERVAL =
+      WsApiServiceImpl.PREFIX + "auSizes.sweepInterval";
+  public static final long DEFAULT_SWEEP_INTERVAL = 60 * 60 * 1000L;
+
+  /**
+   * The path of the file where the cached sizes are saved. By default, a
+   * file in the configuration cache directory.
+   */
+  public static final String PARAM_FILE =
+      WsApiServiceImpl.PREFIX + "auSizes.file";
+  static final String DEFAULT_FILE_NAME = "wsAuSizes.txt";
+
+  /**
+   * The response header with the time, in milliseconds since the epoch, when
+   * the reported sizes of an archival unit were computed.
+   */
+  static final String HEADER_SIZES_COMPUTED_AT = "X-Lockss-Sizes-Computed-At";
+
+  // The number of recomputations after which the cached sizes are saved even
+  // if there are more pending.
+  private static final int SAVE_BATCH = 100;
+
+  // The cached sizes, by archival unit identifier.
+  private final Map<String, Sizes> sizes = new HashMap<>();
+
+  // The identifiers of the archival units with sizes to be recomputed, in
+  // order.
+  private final Set<String> pending = new LinkedHashSet<>();
+
+  private ScheduledExecutorService scheduler = null;
+  private boolean stopped = false;
+  private File file = null;
+  private long sweepTime = 0;
+  private int unsaved = 0;
+
+  // The handler of archival unit events that triggers the recomputations.
+  private final AuEventHandler auEventHandler = new AuEventHandler.Base() {
+    @Override
+    public void auCreated(AuEvent event, ArchivalUnit au) {
+      enqueue(au.getAuId());
+    }
+
+    @Override
+    public void auDeleted(AuEvent event, ArchivalUnit au) {
+      remove(au.getAuId());
+    }
+
+    @Override
+    public void auContentChanged(AuEvent event, ArchivalUnit au,
+        AuEventHandler.ChangeInfo info) {
+      enqueue(au.getAuId());
+    }
+  };
+
+  /**
+   * Provides the cached sizes of an archival unit, scheduling their
+   * computation if they are not cached.
+   *
+   * @param auId A String with the identifier of the archival unit.
+   * @return a Sizes with the cached sizes, or null if they are not cached or
+   *         the cache is disabled.
+   */
+  public synchronized Sizes getSizes(String auId) {
+    if (!isEnabled()) {
+      return null;
+    }
+
+    start();
+    Sizes result = get(auId);
+
+    if (result == null) {
+      pending.add(auId);
+    }
+
+    return result;
+  }
+
+  /**
+   * Provides an indication of whether the sizes of the archival units are
+   * read from this cache.
+   *
+   * @return {@code true} if the cache is enabled, {@code false} otherwise.
+   */
+  public boolean isEnabled() {
+    return CurrentConfig.getBooleanParam(PARAM_ENABLED, DEFAULT_ENABLED);
+  }
+
+  /**
+   * Loads the saved sizes and starts maintaining them, if not done already.
+   */
+  private void start() {
+    if (scheduler != null || stopped) {
+      return;
+    }
+
+    log.debug2("Invoked");
+    file = getFile();
+
+    if (file != null && file.exists()) {
+      try {
+        load(file);
+        log.debug("Loaded the sizes of {} AUs from {}", sizes.size(), file);
+      } catch (IOException | RuntimeException e) {
+        log.warn("Cannot load the AU sizes from {}", file, e);
+        sizes.clear();
+      }
+    }
+
+    LockssDaemon.getLockssDaemon().getPluginManager()
+    .registerAuEventHandler(auEventHandler);
+
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "AuSizeCache");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    schedule();
+  }
+
+  /**
+   * Stops maintaining the sizes, saving them if they have changed.
+   */
+  @PreDestroy
+  public void stop() {
+    ScheduledExecutorService executor;
+
+    synchronized (this) {
+      stopped = true;
+
+      if (scheduler == null) {
+        return;
+      }
+
+      log.debug2("Invoked");
+      executor = scheduler;
+      scheduler = null;
+      pending.clear();
+    }
+
+    LockssDaemon.getLockssDaemon().getPluginManager()
+    .unregisterAuEventHandler(auEventHandler);
+    executor.shutdownNow();
+
+    try {
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    }
+
+    synchronized (this) {
+      if (file != null && unsaved > 0) {
+        try {
+          save(file);
+          unsaved = 0;
+        } catch (IOException ioe) {
+          log.warn("Cannot save the AU sizes to {}", file, ioe);
+        }
+      }
+    }
+  }
+
+  /**
+   * Provides the file where the cached sizes are saved.
+   *
+   * @return a File with the file, or null if there is none.
+   */
+  private File getFile() {
+    String path = CurrentConfig.getParam(PARAM_FILE);
+
+    if (path != null) {
+      return new File(path);
+    }
+
+    File dir = ConfigManager.getConfigManager().getCacheConfigDir();
+    return dir == null ? null : new File(dir, DEFAULT_FILE_NAME);
+  }
+
+  /**
+   * Schedules the next batch of recomputations.
+   */
+  private synchronized void schedule() {
+    // Check whether the cache has been stopped.
+    if (scheduler == null) {
+      return;
+    }
+
+    scheduler.schedule(this::recomputeNext,
+        Math.max(1, CurrentConfig.getLongParam(PARAM_RECOMPUTE_INTERVAL,
+            DEFAULT_RECOMPUTE_INTERVAL)), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Recomputes the sizes of the next batch of archival units pending, if
+   * any, and saves the cached sizes when appropriate.
+   */
+  private void recomputeNext() {
+    try {
+      recomputeBatch();
+    } catch (RuntimeException re) {
+      log.warn("Cannot recompute AU sizes", re);
+    } finally {
+      schedule();
+    }
+  }
+
+  /**
+   * Recomputes the sizes of the next batch of archival units pending, if
+   * any, and saves the cached sizes when appropriate.
+   *
+   * @return an int with the number of archival units in the batch.
+   */
+  int recomputeBatch() {
+    List<String> batch = nextPending(Math.max(1, CurrentConfig.getIntParam(
+        PARAM_RECOMPUTE_BATCH_SIZE, DEFAULT_RECOMPUTE_BATCH_SIZE)));
+
+    for (String auId : batch) {
+      if (Thread.currentThread().isInterrupted()) {
+        break;
+      }
+
+      Sizes computed = computeSizes(auId);
+
+      if (computed == null) {
+        remove(auId);
+      } else {
+        put(auId, computed);
+      }
+    }
+
+    saveIfNeeded();
+    log.debug2("batch.size() = {}", batch.size());
+    return batch.size();
+  }
+
+  /**
+   * Computes the sizes of an archival unit against the repository.
+   *
+   * @param auId A String with the identifier of the archival unit.
+   * @return a Sizes with the computed sizes, or null if the archival unit
+   *         does not exist.
+   */
+  Sizes computeSizes(String auId) {
+    ArchivalUnit au = LockssDaemon.getLockssDaemon().getPluginManager()
+        .getAuFromId(auId);
+
+    if (au == null) {
+      return null;
+    }
+
+    long contentSize = AuUtil.getAuContentSize(au, true);
+    long diskUsage = AuUtil.getAuDiskUsage(au, true);
+    return new Sizes(contentSize, diskUsage, TimeBase.nowMs());
+  }
+
+  /**
+   * Provides the next archival units with sizes to be recomputed, looking
+   * for missing, outdated or old sizes when there are none pending.
+   * <p>
+   * The archival units are listed outside the lock of the cache, so that
+   * the scan does not block the readers of the sizes.
+   *
+   * @param max An int with the maximum number of archival units provided.
+   * @return a {@code List<String>} with the identifiers of the archival
+   *         units, in order.
+   */
+  private List<String> nextPending(int max) {
+    if (isSweepDue()) {
+      sweep(getAuCrawlTimes());
+    }
+
+    return takePending(max);
+  }
+
+  /**
+   * Provides an indication of whether the archival units are to be scanned
+   * for sizes to be recomputed, which they are when the sizes have just been
+   * loaded, or when there are none pending and the sweep interval has
+   * elapsed.
+   *
+   * @return {@code true} if the scan is due, {@code false} otherwise.
+   */
+  private synchronized boolean isSweepDue() {
+    return sweepTime == 0 || (pending.isEmpty()
+        && TimeBase.msSince(sweepTime) > CurrentConfig.getLongParam(
+            PARAM_SWEEP_INTERVAL, DEFAULT_SWEEP_INTERVAL));
+  }
+
+  /**
+   * Removes from the pending archival units the next ones to be recomputed.
+   *
+   * @param max An int with the maximum number of archival units provided.
+   * @return a {@code List<String>} with the identifiers of the archival
+   *         units, in order.
+   */
+  private synchronized List<String> takePending(int max) {
+    List<String> batch = new ArrayList<>(Math.min(max, pending.size()));
+
+    for (Iterator<String> iterator = pending.iterator();
+        iterator.hasNext() && batch.size() < max;) {
+      batch.add(iterator.next());
+      iterator.remove();
+    }
+
+    return batch;
+  }
+
+  /**
+   * Schedules the recomputation of the sizes that are missing, that were
+   * computed before the last crawl of their archival unit or that are older
+   * than the maximum age, in that order, oldest first within each group.
+   *
+   * @param crawlTimes A {@code Map<String, Long>} with the time of the last
+   *                   crawl of each archival unit, by identifier.
+   */
+  private synchronized void sweep(Map<String, Long> crawlTimes) {
+    long maxAge = CurrentConfig.getLongParam(PARAM_MAX_AGE, DEFAULT_MAX_AGE);
+    List<String> missing = new ArrayList<>();
+    List<String> crawled = new ArrayList<>();
+    List<String> old = new ArrayList<>();
+
+    for (Map.Entry<String, Long> entry : crawlTimes.entrySet()) {
+      String auId = entry.getKey();
+      Sizes cached = sizes.get(auId);
+
+      if (cached == null) {
+        missing.add(auId);
+      } else if (entry.getValue() > cached.getComputedAt()) {
+        crawled.add(auId);
+      } else if (TimeBase.msSince(cached.getComputedAt()) > maxAge) {
+        old.add(auId);
+      }
+    }
+
+    Comparator<String> byComputedAt =
+        Comparator.comparingLong(auId -> sizes.get(auId).getComputedAt());
+    crawled.sort(byComputedAt);
+    old.sort(byComputedAt);
+    pending.addAll(missing);
+    pending.addAll(crawled);
+    pending.addAll(old);
+    sweepTime = TimeBase.nowMs();
+    log.debug2("pending.size() = {}", pending.size());
+  }
+
+  /**
+   * Provides the time of the last crawl of each of the archival units.
+   *
+   * @return a {@code Map<String, Long>} with the time of the last crawl, or
+   *         a negative number if there has been none, of each archival unit,
+   *         by identifier.
+   */
+  Map<String, Long> getAuCrawlTimes() {
+    Map<String, Long> result = new LinkedHashMap<>();
+
+    for (ArchivalUnit au
+        : LockssDaemon.getLockssDaemon().getPluginManager().getAllAus()) {
+      AuState state = AuUtil.getAuState(au);
+      result.put(au.getAuId(), state == null ? -1L : state.getLastCrawlTime());
+    }
+
+    return result;
+  }
+
+  /**
+   * Schedules the recomputation of the sizes of an archival unit.
+   *
+   * @param auId A String with the identifier of the archival unit.
+   */
+  synchronized void enqueue(String auId) {
+    // Ignore the events received before the cache is started; the first
+    // sweep finds the archival units crawled meanwhile.
+    if (scheduler != null) {
+      pending.add(auId);
+    }
+  }
+
+  /**
+   * Provides the cached sizes of an archival unit, without starting to
+   * maintain them.
+   *
+   * @param auId A String with the identifier of the archival unit.
+   * @return a Sizes with the cached sizes, or null if they are not cached.
+   */
+  synchronized Sizes get(String auId) {
+    return sizes.get(auId);
+  }
+
+  /**
+   * Caches the sizes of an archival unit.
+   *
+   * @param auId  A String with the identifier of the archival unit.
+   * @param value A Sizes with the sizes.
+   */
+  synchronized void put(String auId, Sizes value) {
+    sizes.put(auId, value);
+    unsaved++;
+  }
+
+  /**
+   * Removes the sizes of an archival unit.
+   *
+   * @param auId A String with the identifier of the archival unit.
+   */
+  synchronized void remove(String auId) {
+    pending.remove(auId);
+
+    if (sizes.remove(auId) != null) {
+      unsaved++;
+    }
+  }
+
+  /**
+   * Saves the cached sizes if they have changed and either there are no more
+   * recomputations pending or enough have been done since the last save.
+   */
+  private synchronized void saveIfNeeded() {
+    if (file == null || unsaved == 0
+        || (!pending.isEmpty() && unsaved < SAVE_BATCH)) {
+      return;
+    }
+
+    try {
+      save(file);
+      unsaved = 0;
+    } catch (IOException ioe) {
+      log.warn("Cannot save the AU sizes to {}", file, ioe);
+    }
+  }
+
+  /**
+   * Saves the cached sizes to a file, replacing it atomically.
+   * <p>
+   * Each line has the identifier of an archival unit, its content size, its
+   * disk usage and the time when they were computed, separated by tabs.
+   *
+   * @param target A File with the file.
+   * @throws IOException if there are problems writing the file.
+   */
+  synchronized void save(File target) throws IOException {
+    File temp = new File(target.getPath() + ".tmp");
+
+    try (BufferedWriter writer =
+        Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+      for (Map.Entry<String, Sizes> entry : sizes.entrySet()) {
+        Sizes value = entry.getValue();
+        writer.write(entry.getKey() + "\t" + value.getContentSize() + "\t"
+            + value.getDiskUsage() + "\t" + value.getComputedAt());
+        writer.newLine();
+      }
+    }
+
+    Files.move(temp.toPath(), target.toPath(),
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Adds to the cache the sizes saved in a file.
+   *
+   * @param source A File with the file.
+   * @throws IOException if there are problems reading the file.
+   */
+  synchronized void load(File source) throws IOException {
+    try (BufferedReader reader =
+        Files.newBufferedReader(source.toPath(), StandardCharsets.UTF_8)) {
+      String line;
+
+      while ((line = reader.readLine()) != null) {
+        String[] fields = line.split("\t");
+
+        if (fields.length != 4) {
+          log.warn("Ignored invalid AU sizes line '{}'", line);
+          continue;
+        }
+
+        try {
+          sizes.put(fields[0], new Sizes(Long.parseLong(fields[1]),
+              Long.parseLong(fields[2]), Long.parseLong(fields[3])));
+        } catch (NumberFormatException nfe) {
+          log.warn("Ignored invalid AU sizes line '{}'", line);
+        }
+      }
+    }
+  }
+
+  /**
+   * The sizes of an archival unit, as computed at some time.
+   */
+  public static class Sizes {
+    private final long contentSize;
+    private final long diskUsage;
+    private final long computedAt;
+
+    /**
+     * Constructor.
+     *
+     * @param contentSize A long with the content size, or -1 if unknown.
+     * @param diskUsage   A long with the disk usage, or -1 if unknown.
+     * @param computedAt  A long with the time when they were computed.
+     */
+    Sizes(long contentSize, long diskUsage, long computedAt) {
+      this.contentSize = contentSize;
+      this.diskUsage = diskUsage;
+      this.computedAt = computedAt;
+    }
+
+    /**
+     * Provides the content size.
+     *
+     * @return a long with the content size, or -1 if unknown.
+     */
+    public long getContentSize() {
+      return contentSize;
+    }
+
+    /**
+     * Provides the disk usage.
+     *
+     * @return a long with the disk usage, or -1 if unknown.
+     */
+    public long getDiskUsage() {
+      return diskUsage;
+    }
+
+    /**
+     * Provides the time when the sizes were computed.
+     *
+     * @return a long with the time, in milliseconds since the epoch.
+     */
+    public long getComputedAt() {
+      return computedAt;
+    }
+  }
+}
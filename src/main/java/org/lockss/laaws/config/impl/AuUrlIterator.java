@@ -0,0 +1,128 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.lockss.log.L4JLogger;
+import org.lockss.plugin.ArchivalUnit;
+import org.lockss.plugin.AuUtil;
+import org.lockss.plugin.CachedUrl;
+import org.lockss.plugin.CachedUrlSetNode;
+import org.lockss.util.PatternFloatMap;
+import org.lockss.ws.entities.UrlWsResult;
+
+/**
+ * An iterator over the URLs of an archival unit, in the URL order of its
+ * cached URL set, starting after a given URL.
+ * <p>
+ * The properties of each URL are computed only when it is reached, and no
+ * reference to it is kept afterwards, so that the URLs of an archival unit
+ * can be listed without holding all of them in memory. The URL of each
+ * result can be used as the starting point of a later iteration.
+ */
+public class AuUrlIterator implements Iterator<UrlWsResult> {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  private final ArchivalUnit au;
+  private final String after;
+  private final Iterator<? extends CachedUrlSetNode> nodes;
+  private PatternFloatMap resultWeightMap = null;
+  private String nextUrl = null;
+
+  /**
+   * Constructor.
+   *
+   * @param au    An ArchivalUnit with the archival unit.
+   * @param after A String with the URL after which the iteration starts, or
+   *              null to start with the first URL.
+   */
+  public AuUrlIterator(ArchivalUnit au, String after) {
+    this.au = au;
+    this.after = after;
+    nodes = au.getAuCachedUrlSet().getCuIterable().iterator();
+
+    try {
+      resultWeightMap = au.makeUrlPollResultWeightMap();
+    } catch (ArchivalUnit.ConfigurationException e) {
+      log.warn("Error building urlResultWeightMap, disabling", e);
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    // Skip the URLs up to the starting point, which are only compared.
+    while (nextUrl == null && nodes.hasNext()) {
+      String url = nodes.next().getUrl();
+
+      if (after == null || url.compareTo(after) > 0) {
+        nextUrl = url;
+      }
+    }
+
+    return nextUrl != null;
+  }
+
+  @Override
+  public UrlWsResult next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    String url = nextUrl;
+    nextUrl = null;
+
+    UrlWsResult result = new UrlWsResult();
+    result.setUrl(url);
+    CachedUrl cu = null;
+
+    try {
+      cu = au.makeCachedUrl(url);
+      result.setVersionCount(cu.getCuVersions().length);
+
+      try {
+        result.setCurrentVersionSize(Long.valueOf(cu.getContentSize()));
+      } catch (UnsupportedOperationException uoe) {
+        log.debug("Ignored content size for no-content URL '{}'", url);
+      }
+
+      if (resultWeightMap != null) {
+        result.setPollWeight(resultWeightMap.isEmpty() ? 1.0f
+            : resultWeightMap.getMatch(url, 1.0f));
+      }
+    } finally {
+      AuUtil.safeRelease(cu);
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,696 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.lockss.app.LockssDaemon;
+import org.lockss.config.ConfigManager;
+import org.lockss.config.CurrentConfig;
+import org.lockss.log.L4JLogger;
+import org.lockss.plugin.ArchivalUnit;
+import org.lockss.plugin.AuEvent;
+import org.lockss.plugin.AuEventHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * A cache of the lists of substance URLs and of article URLs of the
+ * archival units, which otherwise are computed by scanning all the URLs, or
+ * running the article iterator, of an archival unit every time.
+ * <p>
+ * A cached list is valid while the last completed crawl time of its archival
+ * unit does not change and no content change event has been received for
+ * it. When the content change events since a substance URL list was
+ * computed report which URLs changed, only those URLs are checked again;
+ * otherwise, and always for article URL lists, the list is recomputed.
+ * <p>
+ * The most recently used lists are kept in memory, and every valid list is
+ * also saved in a compressed, prefix-coded file, so that it survives
+ * restarts. A file cannot record changes, so it is deleted when its archival
+ * unit changes.
+ * <p>
+ * The files are read and written outside the monitor of the cache, holding
+ * only a lock shared by the archival units with the same hash, so that the
+ * I/O of one archival unit does not block the rest.
+ */
+@Component
+public class AuUrlListCache {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  /** Whether the substance and article URL lists are cached. */
+  public static final String PARAM_ENABLED =
+      WsApiServiceImpl.PREFIX + "urlLists.enabled";
+  public static final boolean DEFAULT_ENABLED = true;
+
+  /** The maximum number of URL lists kept in memory. */
+  public static final String PARAM_MAX_CACHED =
+      WsApiServiceImpl.PREFIX + "urlLists.maxCached";
+  public static final int DEFAULT_MAX_CACHED = 64;
+
+  /**
+   * The path of the directory where the URL lists are saved. By default, a
+   * directory in the configuration cache directory.
+   */
+  public static final String PARAM_DIR =
+      WsApiServiceImpl.PREFIX + "urlLists.dir";
+  static final String DEFAULT_DIR_NAME = "wsUrlLists";
+
+  // The version of the format of the saved lists.
+  private static final int FORMAT_VERSION = 1;
+
+  // The number of locks of the files of the URL lists.
+  private static final int FILE_LOCK_COUNT = 64;
+
+  /** The kinds of cached URL lists. */
+  enum Kind {
+    SUBSTANCE("substance"), ARTICLE("article");
+
+    private final String fileSuffix;
+
+    Kind(String name) {
+      fileSuffix = "." + name + ".gz";
+    }
+  }
+
+  // The lists kept in memory, by kind and archival unit identifier, in
+  // access order.
+  private final Map<List<String>, UrlList> lists =
+      new LinkedHashMap<List<String>, UrlList>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(
+            Map.Entry<List<String>, UrlList> eldest) {
+          return size() > Math.max(1, CurrentConfig.getIntParam(
+              PARAM_MAX_CACHED, DEFAULT_MAX_CACHED));
+        }
+      };
+
+  // The number of content change events received for each archival unit.
+  private final Map<String, Long> eventCounts = new HashMap<>();
+
+  // The locks of the files of the URL lists, by hash of the archival unit
+  // identifier. A file lock is always acquired before the monitor of the
+  // cache, never while holding it.
+  private final Object[] fileLocks = new Object[FILE_LOCK_COUNT];
+
+  private boolean started = false;
+  private File dir = null;
+
+  /**
+   * Constructor.
+   */
+  public AuUrlListCache() {
+    for (int i = 0; i < fileLocks.length; i++) {
+      fileLocks[i] = new Object();
+    }
+  }
+
+  // The handler of archival unit events that invalidates the lists.
+  private final AuEventHandler auEventHandler = new AuEventHandler.Base() {
+    @Override
+    public void auDeleted(AuEvent event, ArchivalUnit au) {
+      remove(au.getAuId());
+    }
+
+    @Override
+    public void auContentChanged(AuEvent event, ArchivalUnit au,
+        AuEventHandler.ChangeInfo info) {
+      contentChanged(au.getAuId(), info == null ? null : info.getUrls());
+    }
+  };
+
+  /**
+   * Provides an indication of whether the URL lists are cached.
+   *
+   * @return {@code true} if the cache is enabled, {@code false} otherwise.
+   */
+  public boolean isEnabled() {
+    return CurrentConfig.getBooleanParam(PARAM_ENABLED, DEFAULT_ENABLED);
+  }
+
+  /**
+   * Provides the substance URLs of an archival unit.
+   *
+   * @param auId           A String with the identifier of the archival unit.
+   * @param token          A long with the last completed crawl time of the
+   *                       archival unit.
+   * @param compute        A {@code Supplier<List<String>>} that computes the
+   *                       full list.
+   * @param isSubstanceUrl A {@code Predicate<String>} that checks whether a
+   *                       URL is a substance URL with content.
+   * @return a {@code List<String>} with the substance URLs.
+   */
+  public List<String> getSubstanceUrls(String auId, long token,
+      Supplier<List<String>> compute, Predicate<String> isSubstanceUrl) {
+    return get(Kind.SUBSTANCE, auId, token, compute, isSubstanceUrl);
+  }
+
+  /**
+   * Provides the article URLs of an archival unit.
+   *
+   * @param auId    A String with the identifier of the archival unit.
+   * @param token   A long with the last completed crawl time of the archival
+   *                unit.
+   * @param compute A {@code Supplier<List<String>>} that computes the list.
+   * @return a {@code List<String>} with the article URLs.
+   */
+  public List<String> getArticleUrls(String auId, long token,
+      Supplier<List<String>> compute) {
+    return get(Kind.ARTICLE, auId, token, compute, null);
+  }
+
+  /**
+   * Provides a URL list of an archival unit, updating it if it is not
+   * valid.
+   *
+   * @param kind    A Kind with the kind of list.
+   * @param auId    A String with the identifier of the archival unit.
+   * @param token   A long with the last completed crawl time of the archival
+   *                unit.
+   * @param compute A {@code Supplier<List<String>>} that computes the full
+   *                list.
+   * @param checker A {@code Predicate<String>} that checks whether a changed
+   *                URL belongs in the list, or null if the list cannot be
+   *                updated incrementally.
+   * @return a {@code List<String>} with the URLs.
+   */
+  List<String> get(Kind kind, String auId, long token,
+      Supplier<List<String>> compute, Predicate<String> checker) {
+    start();
+    Object fileLock = getFileLock(auId);
+    UrlList cached;
+    Set<String> changed = null;
+    long events;
+
+    // No event of the archival unit is processed while its lock is held, so
+    // a list loaded from its file is current.
+    synchronized (fileLock) {
+      synchronized (this) {
+        cached = lists.get(key(kind, auId));
+        events = eventCounts.getOrDefault(auId, 0L);
+      }
+
+      if (cached == null) {
+        cached = load(kind, auId);
+      }
+
+      synchronized (this) {
+        if (cached != null && lists.get(key(kind, auId)) == null) {
+          lists.put(key(kind, auId), cached);
+        }
+
+        // Check whether the cached list is valid.
+        if (cached != null && cached.isValid(token)) {
+          // Yes.
+          log.debug2("Hit for {} URLs of {}", kind, auId);
+          return cached.urls;
+        }
+
+        // No: Check whether it can be updated incrementally.
+        if (cached != null && checker != null && cached.isUpdatable()) {
+          changed = new LinkedHashSet<>(cached.changed);
+        }
+      }
+    }
+
+    List<String> urls;
+
+    if (changed != null) {
+      log.debug2("Updating {} URLs of {} with {} changed URLs", kind, auId,
+          changed.size());
+      Set<String> updated = new LinkedHashSet<>(cached.urls);
+      boolean added = false;
+
+      for (String url : changed) {
+        if (checker.test(url)) {
+          added |= updated.add(url);
+        } else {
+          updated.remove(url);
+        }
+      }
+
+      urls = new ArrayList<>(updated);
+
+      // Keep the URL order of a full computation.
+      if (added) {
+        Collections.sort(urls);
+      }
+    } else {
+      log.debug2("Computing {} URLs of {}", kind, auId);
+      urls = compute.get();
+    }
+
+    UrlList result = new UrlList(token, Collections.unmodifiableList(urls));
+
+    synchronized (fileLock) {
+      synchronized (this) {
+        // Check whether the content of the archival unit has changed while
+        // the list was being computed.
+        if (eventCounts.getOrDefault(auId, 0L) != events) {
+          // Yes: The list may already be out of date.
+          result.changedUnknown = true;
+        }
+
+        lists.put(key(kind, auId), result);
+      }
+
+      // A list that may be out of date is not saved, as its file would not
+      // record it.
+      if (!result.changedUnknown) {
+        save(kind, auId, result);
+      }
+    }
+
+    return result.urls;
+  }
+
+  /**
+   * Starts receiving the archival unit events, if not done already.
+   */
+  private void start() {
+    synchronized (this) {
+      if (started) {
+        return;
+      }
+
+      dir = getDir();
+      started = true;
+    }
+
+    register();
+  }
+
+  /**
+   * Registers the handler of archival unit events.
+   */
+  void register() {
+    LockssDaemon.getLockssDaemon().getPluginManager()
+    .registerAuEventHandler(auEventHandler);
+  }
+
+  /**
+   * Provides the lock of the files of the URL lists of an archival unit.
+   *
+   * @param auId A String with the identifier of the archival unit.
+   * @return an Object with the lock.
+   */
+  private Object getFileLock(String auId) {
+    return fileLocks[Math.floorMod(auId.hashCode(), fileLocks.length)];
+  }
+
+  /**
+   * Provides the directory where the URL lists are saved.
+   *
+   * @return a File with the directory, or null if there is none.
+   */
+  private File getDir() {
+    String path = CurrentConfig.getParam(PARAM_DIR);
+
+    if (path != null) {
+      return new File(path);
+    }
+
+    File cacheConfigDir = ConfigManager.getConfigManager().getCacheConfigDir();
+    return cacheConfigDir == null ? null
+        : new File(cacheConfigDir, DEFAULT_DIR_NAME);
+  }
+
+  /**
+   * Provides a URL list from its file. It must be called holding the lock of
+   * the files of the archival unit, and not the monitor of the cache.
+   *
+   * @param kind A Kind with the kind of list.
+   * @param auId A String with the identifier of the archival unit.
+   * @return a UrlList with the list, or null if it is not saved.
+   */
+  private UrlList load(Kind kind, String auId) {
+    if (dir == null) {
+      return null;
+    }
+
+    File file = getFile(kind, auId);
+
+    if (!file.exists()) {
+      return null;
+    }
+
+    try {
+      return load(file, auId);
+    } catch (IOException | RuntimeException e) {
+      log.warn("Cannot load {} URLs of {} from {}", kind, auId, file, e);
+      return null;
+    }
+  }
+
+  /**
+   * Records a change of the content of an archival unit.
+   *
+   * @param auId A String with the identifier of the archival unit.
+   * @param urls A {@code Collection<String>} with the changed URLs, or null
+   *             if they are not known.
+   */
+  void contentChanged(String auId, Collection<String> urls) {
+    synchronized (getFileLock(auId)) {
+      synchronized (this) {
+        eventCounts.merge(auId, 1L, Long::sum);
+
+        for (Kind kind : Kind.values()) {
+          UrlList list = lists.get(key(kind, auId));
+
+          if (list == null) {
+            continue;
+          }
+
+          if (urls == null) {
+            list.changedUnknown = true;
+          } else {
+            list.changed.addAll(urls);
+          }
+        }
+      }
+
+      // The files cannot record the change.
+      for (Kind kind : Kind.values()) {
+        deleteFile(kind, auId);
+      }
+    }
+  }
+
+  /**
+   * Removes the URL lists of an archival unit.
+   *
+   * @param auId A String with the identifier of the archival unit.
+   */
+  void remove(String auId) {
+    synchronized (getFileLock(auId)) {
+      synchronized (this) {
+        eventCounts.merge(auId, 1L, Long::sum);
+
+        for (Kind kind : Kind.values()) {
+          lists.remove(key(kind, auId));
+        }
+      }
+
+      for (Kind kind : Kind.values()) {
+        deleteFile(kind, auId);
+      }
+    }
+  }
+
+  /**
+   * Provides the key of a URL list.
+   *
+   * @param kind A Kind with the kind of list.
+   * @param auId A String with the identifier of the archival unit.
+   * @return a {@code List<String>} with the key.
+   */
+  private static List<String> key(Kind kind, String auId) {
+    return List.of(kind.name(), auId);
+  }
+
+  /**
+   * Provides the file of a URL list, named after a digest of the archival
+   * unit identifier.
+   *
+   * @param kind A Kind with the kind of list.
+   * @param auId A String with the identifier of the archival unit.
+   * @return a File with the file.
+   */
+  private File getFile(Kind kind, String auId) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256")
+          .digest(auId.getBytes(StandardCharsets.UTF_8));
+      StringBuilder name = new StringBuilder();
+
+      for (int i = 0; i < 16; i++) {
+        name.append(String.format("%02x", digest[i]));
+      }
+
+      return new File(dir, name + kind.fileSuffix);
+    } catch (NoSuchAlgorithmException nsae) {
+      throw new IllegalStateException(nsae);
+    }
+  }
+
+  /**
+   * Deletes the file of a URL list, if any. It must be called holding the
+   * lock of the files of the archival unit, and not the monitor of the
+   * cache.
+   *
+   * @param kind A Kind with the kind of list.
+   * @param auId A String with the identifier of the archival unit.
+   */
+  private void deleteFile(Kind kind, String auId) {
+    if (dir != null) {
+      try {
+        Files.deleteIfExists(getFile(kind, auId).toPath());
+      } catch (IOException ioe) {
+        log.warn("Cannot delete the {} URLs of {}", kind, auId, ioe);
+      }
+    }
+  }
+
+  /**
+   * Saves a URL list to its file, if there is a directory for them. It must
+   * be called holding the lock of the files of the archival unit, and not
+   * the monitor of the cache.
+   *
+   * @param kind A Kind with the kind of list.
+   * @param auId A String with the identifier of the archival unit.
+   * @param list A UrlList with the list.
+   */
+  private void save(Kind kind, String auId, UrlList list) {
+    if (dir == null) {
+      return;
+    }
+
+    File file = getFile(kind, auId);
+
+    try {
+      Files.createDirectories(dir.toPath());
+      save(file, auId, list);
+    } catch (IOException ioe) {
+      log.warn("Cannot save {} URLs of {} to {}", kind, auId, file, ioe);
+    }
+  }
+
+  /**
+   * Saves a URL list to a file, replacing it atomically.
+   * <p>
+   * The file is compressed, and each URL is stored as the length of the
+   * prefix that it shares with the previous one and the rest of it, which
+   * takes a small fraction of the size of the URLs of an archival unit.
+   *
+   * @param file A File with the file.
+   * @param auId A String with the identifier of the archival unit.
+   * @param list A UrlList with the list.
+   * @throws IOException if there are problems writing the file.
+   */
+  static void save(File file, String auId, UrlList list) throws IOException {
+    File temp = new File(file.getPath() + ".tmp");
+
+    try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(temp.toPath()))))) {
+      out.writeInt(FORMAT_VERSION);
+      out.writeUTF(auId);
+      out.writeLong(list.token);
+      out.writeInt(list.urls.size());
+      String previous = "";
+
+      for (String url : list.urls) {
+        int shared = 0;
+        int max = Math.min(previous.length(), url.length());
+
+        while (shared < max && previous.charAt(shared) == url.charAt(shared)) {
+          shared++;
+        }
+
+        writeVarInt(out, shared);
+        out.writeUTF(url.substring(shared));
+        previous = url;
+      }
+    }
+
+    Files.move(temp.toPath(), file.toPath(),
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Loads a URL list from a file.
+   * <p>
+   * A list loaded from a file may have missed content change events, so it
+   * is never updated incrementally.
+   *
+   * @param file A File with the file.
+   * @param auId A String with the identifier of the archival unit.
+   * @return a UrlList with the list, or null if the file is of another
+   *         archival unit or format.
+   * @throws IOException if there are problems reading the file.
+   */
+  static UrlList load(File file, String auId) throws IOException {
+    try (DataInputStream in = new DataInputStream(new GZIPInputStream(
+        new BufferedInputStream(Files.newInputStream(file.toPath()))))) {
+      if (in.readInt() != FORMAT_VERSION || !auId.equals(in.readUTF())) {
+        return null;
+      }
+
+      long token = in.readLong();
+      int count = in.readInt();
+      List<String> urls = new ArrayList<>(count);
+      String previous = "";
+
+      for (int i = 0; i < count; i++) {
+        int shared = readVarInt(in);
+        String url = previous.substring(0, shared) + in.readUTF();
+        urls.add(url);
+        previous = url;
+      }
+
+      UrlList result = new UrlList(token, Collections.unmodifiableList(urls));
+      result.tracked = false;
+      return result;
+    }
+  }
+
+  /**
+   * Writes a non-negative int in as few bytes as needed, 7 bits at a time.
+   *
+   * @param out   A DataOutputStream with the output stream.
+   * @param value An int with the value.
+   * @throws IOException if there are problems writing the value.
+   */
+  private static void writeVarInt(DataOutputStream out, int value)
+      throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+
+    out.writeByte(value);
+  }
+
+  /**
+   * Reads an int written by {@link #writeVarInt(DataOutputStream, int)}.
+   *
+   * @param in A DataInputStream with the input stream.
+   * @return an int with the value.
+   * @throws IOException if there are problems reading the value.
+   */
+  private static int readVarInt(DataInputStream in) throws IOException {
+    int value = 0;
+
+    for (int shift = 0; ; shift += 7) {
+      int b = in.readUnsignedByte();
+      value |= (b & 0x7F) << shift;
+
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+  }
+
+  /**
+   * A URL list of an archival unit, with the changes to the archival unit
+   * since it was computed.
+   */
+  static class UrlList {
+    // The last completed crawl time of the archival unit when computed.
+    final long token;
+    final List<String> urls;
+
+    // Whether all the content change events since the list was computed
+    // have been received.
+    boolean tracked = true;
+
+    // The URLs reported as changed since the list was computed.
+    final Set<String> changed = new LinkedHashSet<>();
+
+    // Whether some change has been reported without its URLs.
+    boolean changedUnknown = false;
+
+    /**
+     * Constructor.
+     *
+     * @param token A long with the last completed crawl time of the archival
+     *              unit.
+     * @param urls  A {@code List<String>} with the URLs.
+     */
+    UrlList(long token, List<String> urls) {
+      this.token = token;
+      this.urls = urls;
+    }
+
+    /**
+     * Provides an indication of whether the list is still valid.
+     *
+     * @param currentToken A long with the current last completed crawl time
+     *                     of the archival unit.
+     * @return {@code true} if the archival unit has not changed since the
+     *         list was computed, {@code false} otherwise.
+     */
+    boolean isValid(long currentToken) {
+      return token == currentToken && changed.isEmpty() && !changedUnknown;
+    }
+
+    /**
+     * Provides an indication of whether the list can be brought up to date
+     * by checking just the changed URLs.
+     *
+     * @return {@code true} if all the changed URLs are known, {@code false}
+     *         otherwise.
+     */
+    boolean isUpdatable() {
+      return tracked && !changedUnknown && !changed.isEmpty();
+    }
+  }
+}
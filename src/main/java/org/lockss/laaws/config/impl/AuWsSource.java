@@ -129,6 +129,10 @@ public class AuWsSource extends AuWsResult {
   private CachedUrlSet auCachedUrlSet = null;
   private PatternFloatMap resultWeightMap = null;
   private boolean includePollWeight = false;
+  private WsQueryBudget budget = null;
+  private AuSizeCache sizeCache = null;
+  private AuUrlListCache urlListCache = null;
+  private SubstanceChecker substanceChecker = null;
 
   /**
    * Constructor.
@@ -139,6 +143,38 @@ public class AuWsSource extends AuWsResult {
     this.au = au;
   }
 
+  /**
+   * Sets the budget of the query, charged while computing the properties
+   * that walk the URLs or the articles of the Archival Unit.
+   * 
+   * @param budget A WsQueryBudget with the budget of the query, or null for
+   *               no limits.
+   */
+  public void setBudget(WsQueryBudget budget) {
+    this.budget = budget;
+  }
+
+  /**
+   * Sets the cache from which the content size and disk usage of the
+   * Archival Unit are read, instead of being computed.
+   * 
+   * @param sizeCache An AuSizeCache with the cache, or null to compute them.
+   */
+  public void setSizeCache(AuSizeCache sizeCache) {
+    this.sizeCache = sizeCache;
+  }
+
+  /**
+   * Sets the cache from which the substance and article URLs of the Archival
+   * Unit are read, instead of being computed every time.
+   * 
+   * @param urlListCache An AuUrlListCache with the cache, or null to compute
+   *                     them every time.
+   */
+  public void setUrlListCache(AuUrlListCache urlListCache) {
+    this.urlListCache = urlListCache;
+  }
+
   @Override
   public String getAuId() {
     if (!auIdPopulated) {
@@ -207,7 +243,10 @@ public class AuWsSource extends AuWsResult {
   @Override
   public Long getContentSize() {
     if (!contentSizePopulated) {
-      long auContentSize = AuUtil.getAuContentSize(au, true);
+      AuSizeCache.Sizes sizes = getCachedSizes();
+      // The size is not computed here if the cache maintains it.
+      long auContentSize = sizes != null ? sizes.getContentSize()
+	  : AuUtil.getAuContentSize(au, !isSizeCached());
 
       if (auContentSize != -1) {
   	setContentSize(Long.valueOf(auContentSize));
@@ -222,7 +261,10 @@ public class AuWsSource extends AuWsResult {
   @Override
   public Long getDiskUsage() {
     if (!diskUsagePopulated) {
-      long auDiskUsage = AuUtil.getAuDiskUsage(au, true);
+      AuSizeCache.Sizes sizes = getCachedSizes();
+      // The size is not computed here if the cache maintains it.
+      long auDiskUsage = sizes != null ? sizes.getDiskUsage()
+	  : AuUtil.getAuDiskUsage(au, !isSizeCached());
 
       if (auDiskUsage != -1) {
 	setDiskUsage(Long.valueOf(auDiskUsage));
@@ -234,6 +276,38 @@ public class AuWsSource extends AuWsResult {
     return super.getDiskUsage();
   }
 
+  /**
+   * Provides the cached sizes of the Archival Unit.
+   * 
+   * @return an AuSizeCache.Sizes with the cached sizes, or null if they are
+   *         not cached.
+   */
+  private AuSizeCache.Sizes getCachedSizes() {
+    return isSizeCached() ? sizeCache.getSizes(au.getAuId()) : null;
+  }
+
+  /**
+   * Provides an indication of whether the sizes of the Archival Unit are
+   * maintained by a cache.
+   * 
+   * @return {@code true} if they are maintained by a cache, {@code false}
+   *         otherwise.
+   */
+  private boolean isSizeCached() {
+    return sizeCache != null && sizeCache.isEnabled();
+  }
+
+  /**
+   * Provides an indication of whether the substance and article URLs of the
+   * Archival Unit are maintained by a cache.
+   * 
+   * @return {@code true} if they are maintained by a cache, {@code false}
+   *         otherwise.
+   */
+  private boolean isUrlListCached() {
+    return urlListCache != null && urlListCache.isEnabled();
+  }
+
   @Override
   public String getRepositoryPath() {
     if (!repositoryPathPopulated) {
@@ -720,6 +794,8 @@ public class AuWsSource extends AuWsResult {
 
 	// Loop through the peers for the agreements.
 	for (PeerIdentity pid : agreementsByPeer.keySet()) {
+	  charge("peerAgreements");
+
 	  // Get the agreement of this type for this peer.
 	  PeerAgreement agreement = agreementsByPeer.get(pid);
 	  // Check whether there has been an agreement at some point in the
@@ -809,6 +885,8 @@ public class AuWsSource extends AuWsResult {
 
       // Loop through all the URL nodes.
       for (CachedUrlSetNode cusn : getAuCachedUrlSet().getCuIterable()) {
+	charge("urls");
+
 	CachedUrlSet cus;
 	CachedUrl cu = null;
 
@@ -859,6 +937,18 @@ public class AuWsSource extends AuWsResult {
     return super.getUrls();
   }
 
+  /**
+   * Charges one step of the computation of an expensive property to the
+   * budget of the query, if any.
+   * 
+   * @param property A String with the name of the property.
+   */
+  private void charge(String property) {
+    if (budget != null) {
+      budget.charge(property);
+    }
+  }
+
   protected float getUrlResultWeight(String url) {
     if (resultWeightMap == null || resultWeightMap.isEmpty()) {
       return 1.0f;
@@ -879,112 +969,180 @@ public class AuWsSource extends AuWsResult {
   @Override
   public List<String> getSubstanceUrls() {
     if (!substanceUrlsPopulated) {
-      // Initialize the results.
-      List<String> results = new ArrayList<String>();
+      // Check whether the list is maintained by a cache.
+      if (isUrlListCached()) {
+	// Yes: Get it from the cache, which computes it only if needed.
+	setSubstanceUrls(urlListCache.getSubstanceUrls(au.getAuId(),
+	    getState().getLastCrawlTime(), this::computeSubstanceUrls,
+	    this::isSubstanceUrl));
+      } else {
+	setSubstanceUrls(computeSubstanceUrls());
+      }
 
-      if (AuUtil.hasSubstancePatterns(au)) {
-	int logException = 3;
+      substanceUrlsPopulated = true;
+    }
 
-	CuIterator iterator = getAuCachedUrlSet().getCuIterator();
-	CachedUrl cu = null;
-	SubstanceChecker subChecker = new SubstanceChecker(au);
+    return super.getSubstanceUrls();
+  }
 
-	// Loop through all the cached URLs.
-	while (iterator.hasNext()) {
-	  try {
-	    cu = iterator.next();
-
-	    // Check whether the cached URL has content.
-	    if (cu.hasContent()) {
-	      // Yes: Get the URL.
-	      String url = cu.getUrl();
-
-	      // Check whether the URL has substance.
-	      if (subChecker.isSubstanceUrl(url)) {
-		// Yes: Add it to the results.
-		results.add(url);
-	      }
-	    }
-	  } catch (Exception e) {
-	    // It shouldn't happen, but, if it does, it will likely happen many
-	    // times, so avoid cluttering the log.
-	    if (logException-- > 0) {
-	      log.warning("getSubstanceUrls() threw for cu " + cu, e);
+  /**
+   * Computes the list of substance URLs of the Archival Unit.
+   * 
+   * @return a {@code List<String>} with the substance URLs with content.
+   */
+  private List<String> computeSubstanceUrls() {
+    // Initialize the results.
+    List<String> results = new ArrayList<String>();
+
+    if (AuUtil.hasSubstancePatterns(au)) {
+      int logException = 3;
+
+      CuIterator iterator = getAuCachedUrlSet().getCuIterator();
+      CachedUrl cu = null;
+      SubstanceChecker subChecker = new SubstanceChecker(au);
+
+      // Loop through all the cached URLs.
+      while (iterator.hasNext()) {
+	charge("substanceUrls");
+
+	try {
+	  cu = iterator.next();
+
+	  // Check whether the cached URL has content.
+	  if (cu.hasContent()) {
+	    // Yes: Get the URL.
+	    String url = cu.getUrl();
+
+	    // Check whether the URL has substance.
+	    if (subChecker.isSubstanceUrl(url)) {
+	      // Yes: Add it to the results.
+	      results.add(url);
 	    }
-	  } finally {
-	    AuUtil.safeRelease(cu);
 	  }
+	} catch (Exception e) {
+	  // It shouldn't happen, but, if it does, it will likely happen many
+	  // times, so avoid cluttering the log.
+	  if (logException-- > 0) {
+	    log.warning("getSubstanceUrls() threw for cu " + cu, e);
+	  }
+	} finally {
+	  AuUtil.safeRelease(cu);
 	}
       }
+    }
 
-      setSubstanceUrls(results);
-      substanceUrlsPopulated = true;
+    return results;
+  }
+
+  /**
+   * Provides an indication of whether a URL of the Archival Unit is a
+   * substance URL with content.
+   * 
+   * @param url A String with the URL.
+   * @return {@code true} if the URL is a substance URL with content,
+   *         {@code false} otherwise.
+   */
+  private boolean isSubstanceUrl(String url) {
+    charge("substanceUrls");
+
+    if (!AuUtil.hasSubstancePatterns(au)) {
+      return false;
     }
 
-    return super.getSubstanceUrls();
+    if (substanceChecker == null) {
+      substanceChecker = new SubstanceChecker(au);
+    }
+
+    CachedUrl cu = null;
+
+    try {
+      cu = au.makeCachedUrl(url);
+      return cu.hasContent() && substanceChecker.isSubstanceUrl(url);
+    } finally {
+      AuUtil.safeRelease(cu);
+    }
   }
 
   @Override
   public List<String> getArticleUrls() {
     if (!articleUrlsPopulated) {
-      // Initialize the results.
-      List<String> results = new ArrayList<String>();
+      // Check whether the list is maintained by a cache.
+      if (isUrlListCached()) {
+	// Yes: Get it from the cache, which computes it only if needed.
+	setArticleUrls(urlListCache.getArticleUrls(au.getAuId(),
+	    getState().getLastCrawlTime(), this::computeArticleUrls));
+      } else {
+	setArticleUrls(computeArticleUrls());
+      }
 
-      int logEmpty = 3;
-      int logException = 3;
-      int logMissing = 3;
-
-      // Loop through all the article files.
-      Iterator<ArticleFiles> iter =
-	  au.getArticleIterator(MetadataTarget.Article());
-      while (iter.hasNext()) {
-	ArticleFiles af = iter.next();
-
-	// Check whether it is empty.
-	if (af.isEmpty()) {
-	  // Yes: It is probably a plugin error that shouldn't happen; but, if
-	  // it does, it will likely happen many times, so avoid cluttering the
-	  // log.
-	  if (logEmpty-- > 0) {
-	    log.error("ArticleIterator generated empty ArticleFiles");
-	  }
-	} else {
-	  // No.
-	  CachedUrl cu = null;
+      articleUrlsPopulated = true;
+    }
 
-	  try {
-	    // Get the full text cached URL.
-	    cu = af.getFullTextCu();
+    return super.getArticleUrls();
+  }
 
-	    // Check whether it exists.
-	    if (cu != null) {
-	      // Yes: Add it to the results.
-	      results.add(cu.getUrl());
-	    } else {
-	      // No: It shouldn't happen, but, if it does, it will likely happen
-	      // many times, so avoid cluttering the log.
-	      if (logMissing-- > 0) {
-		log.error("ArticleIterator generated ArticleFiles with no full "
-		    + "text CU: " + af);
-	      }
-	    }
-	  } catch (Exception e) {
-	    // It shouldn't happen, but, if it does, it will likely happen many
-	    // times, so avoid cluttering the log.
-	    if (logException-- > 0) {
-	      log.warning("getArticleUrls() threw", e);
+  /**
+   * Computes the list of article URLs of the Archival Unit.
+   * 
+   * @return a {@code List<String>} with the full text URLs of the articles.
+   */
+  private List<String> computeArticleUrls() {
+    // Initialize the results.
+    List<String> results = new ArrayList<String>();
+
+    int logEmpty = 3;
+    int logException = 3;
+    int logMissing = 3;
+
+    // Loop through all the article files.
+    Iterator<ArticleFiles> iter =
+	au.getArticleIterator(MetadataTarget.Article());
+    while (iter.hasNext()) {
+      charge("articleUrls");
+
+      ArticleFiles af = iter.next();
+
+      // Check whether it is empty.
+      if (af.isEmpty()) {
+	// Yes: It is probably a plugin error that shouldn't happen; but, if
+	// it does, it will likely happen many times, so avoid cluttering the
+	// log.
+	if (logEmpty-- > 0) {
+	  log.error("ArticleIterator generated empty ArticleFiles");
+	}
+      } else {
+	// No.
+	CachedUrl cu = null;
+
+	try {
+	  // Get the full text cached URL.
+	  cu = af.getFullTextCu();
+
+	  // Check whether it exists.
+	  if (cu != null) {
+	    // Yes: Add it to the results.
+	    results.add(cu.getUrl());
+	  } else {
+	    // No: It shouldn't happen, but, if it does, it will likely happen
+	    // many times, so avoid cluttering the log.
+	    if (logMissing-- > 0) {
+	      log.error("ArticleIterator generated ArticleFiles with no full "
+		  + "text CU: " + af);
 	    }
-	  } finally {
-	    AuUtil.safeRelease(cu);
 	  }
+	} catch (Exception e) {
+	  // It shouldn't happen, but, if it does, it will likely happen many
+	  // times, so avoid cluttering the log.
+	  if (logException-- > 0) {
+	    log.warning("getArticleUrls() threw", e);
+	  }
+	} finally {
+	  AuUtil.safeRelease(cu);
 	}
       }
-
-      setArticleUrls(results);
-      articleUrlsPopulated = true;
     }
 
-    return super.getArticleUrls();
+    return results;
   }
 
   /**
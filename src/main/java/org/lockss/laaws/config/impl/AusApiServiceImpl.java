@@ -31,16 +31,24 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package org.lockss.laaws.config.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
 import java.security.AccessControlException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.io.*;
 import java.util.*;
+import java.util.stream.IntStream;
 
 import org.lockss.account.UserAccount;
 import org.lockss.app.LockssDaemon;
 import org.lockss.config.AuConfiguration;
 import org.lockss.config.ConfigManager;
 import org.lockss.config.Configuration;
+import org.lockss.config.CurrentConfig;
 import org.lockss.daemon.TitleConfig;
+import org.lockss.db.DbException;
 import org.lockss.laaws.config.api.AusApiDelegate;
 import org.lockss.log.L4JLogger;
 import org.lockss.plugin.*;
@@ -54,6 +62,9 @@ import org.lockss.spring.base.BaseSpringApiServiceImpl;
 import org.lockss.util.*;
 import org.lockss.ws.entities.ContentConfigurationResult;
 import org.lockss.ws.entities.RequestAuControlResult;
+import org.lockss.ws.entities.UrlWsResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.MediaType;
@@ -85,6 +96,76 @@ public class AusApiServiceImpl extends BaseSpringApiServiceImpl
       "org.lockss.metadataManager.indexing_enabled";
   static final boolean DEFAULT_INDEXING_ENABLED = false;
 
+  static final String PREFIX = Configuration.PREFIX + "configService.aus.";
+
+  /**
+   * The maximum number of AU configurations returned in a page by
+   * getAllAuConfig().
+   */
+  public static final String PARAM_MAX_PAGE_SIZE = PREFIX + "maxPageSize";
+  public static final int DEFAULT_MAX_PAGE_SIZE = 10000;
+
+  /**
+   * The number of AU configurations read from the database at a time when
+   * streaming them.
+   */
+  public static final String PARAM_STREAM_PAGE_SIZE =
+      PREFIX + "streamPageSize";
+  public static final int DEFAULT_STREAM_PAGE_SIZE = 1000;
+
+  /**
+   * The response header with the value of the "after" parameter that
+   * requests the next page of AU configurations.
+   */
+  static final String HEADER_NEXT_CURSOR = "X-Lockss-Next-Cursor";
+
+  /**
+   * The maximum number of URLs of an AU returned in a page by getAuUrls().
+   */
+  public static final String PARAM_MAX_URL_PAGE_SIZE =
+      PREFIX + "maxUrlPageSize";
+  public static final int DEFAULT_MAX_URL_PAGE_SIZE = 10000;
+
+  /**
+   * The number of URLs of an AU written between flushes when getAuUrls()
+   * streams them.
+   */
+  public static final String PARAM_URL_FLUSH_SIZE = PREFIX + "urlFlushSize";
+  public static final int DEFAULT_URL_FLUSH_SIZE = 1000;
+
+  /**
+   * The maximum number of AU configurations accepted in a batch by
+   * postAuConfigBatch(), and of AUs deleted by deleteAuConfigBatch().
+   */
+  public static final String PARAM_MAX_BATCH_SIZE = PREFIX + "maxBatchSize";
+  public static final int DEFAULT_MAX_BATCH_SIZE = 10000;
+
+  /**
+   * The number of AU configurations of a batch whose changes are recorded
+   * together in the change log by postAuConfigBatch() and
+   * deleteAuConfigBatch().
+   */
+  public static final String PARAM_BATCH_CHUNK_SIZE =
+      PREFIX + "batchChunkSize";
+  public static final int DEFAULT_BATCH_CHUNK_SIZE = 500;
+
+  static final String ACTION_STORE_AU_CONFIG_BATCH = "Store AU Config Batch";
+  static final String ACTION_DELETE_AU_CONFIG_BATCH = "Delete AU Config Batch";
+
+  /**
+   * The number of AU configurations read from the database at a time when
+   * building a page of the change log.
+   */
+  static final int CHANGES_CONFIG_CHUNK_SIZE = 1000;
+
+  // The log of the changes made to the AU configurations.
+  @Autowired
+  private AuConfigChangeLog auConfigChangeLog;
+
+  // The cache of the stored AU configurations.
+  @Autowired
+  private AuConfigCache auConfigCache;
+
   /**
    * Deletes the configuration for an AU given the AU identifier.
    * 
@@ -120,10 +201,16 @@ public class AusApiServiceImpl extends BaseSpringApiServiceImpl
 
       PluginManager pluginManager = getPluginManager();
 
-      AuConfiguration result = pluginManager.getStoredAuConfiguration(auid);
+      AuConfiguration result = auConfigCache.get(auid);
       if (log.isDebugEnabled()) log.debug("result = " + result);
 
       pluginManager.deleteAuConfiguration(auid);
+      auConfigCache.remove(Collections.singleton(auid));
+
+      if (result != null) {
+	auConfigChangeLog.record(auid, AuConfigChangeLog.Type.REMOVED);
+      }
+
       return new ResponseEntity<AuConfiguration>(result, HttpStatus.OK);
     } catch (IllegalArgumentException iae) {
       String message = "No Archival Unit found for auid = '" + auid + "'";
@@ -138,14 +225,45 @@ public class AusApiServiceImpl extends BaseSpringApiServiceImpl
   }
 
   /**
-   * Provides the configuration for all AUs.
+   * Provides the configuration for all AUs, or for a page of them.
+   * <p>
+   * If the client accepts NDJSON, the configurations are streamed one per
+   * line while they are read from the database in keyset order, so the memory
+   * used does not depend on the number of AUs. If the client accepts Smile,
+   * they are streamed in the same way as a Smile array, in which the keys and
+   * values shared by many AUs are encoded only once.
+   * <p>
+   * The configurations can be restricted to the AUs of a plugin, or to those
+   * with identifiers that start with a prefix, in which case the filtering
+   * is done by the database. Unless they are streamed, filtered or paged
+   * configurations are returned at most a maximum page size at a time, with a
+   * cursor to the next page.
    * 
+   * @param limit
+   *          An Integer with the maximum number of configurations to return,
+   *          or null for all of them.
+   * @param after
+   *          A String with the identifier of the AU after which the returned
+   *          configurations start, or null to start with the first one.
+   * @param plugin
+   *          A String with the identifier of the plugin of the AUs, or null
+   *          for AUs of any plugin.
+   * @param auidPrefix
+   *          A String with the prefix of the AU identifiers, or null for any
+   *          prefix.
+   * @param ifNoneMatch
+   *          A String with the "If-None-Match" header, or null.
    * @return a {@code ResponseEntity<Collection<AuConfiguration>>} with the
    *         configuration for all AUs.
    */
   @Override
-  public ResponseEntity getAllAuConfig() {
-    if (log.isDebugEnabled()) log.debug("Invoked");
+  public ResponseEntity getAllAuConfig(Integer limit, String after,
+      String plugin, String auidPrefix, String ifNoneMatch) {
+    log.debug2("limit = {}", limit);
+    log.debug2("after = {}", after);
+    log.debug2("plugin = {}", plugin);
+    log.debug2("auidPrefix = {}", auidPrefix);
+    log.debug2("ifNoneMatch = {}", ifNoneMatch);
 
     // Check whether the service has not been fully initialized.
     if (!waitReady()) {
@@ -153,31 +271,854 @@ public class AusApiServiceImpl extends BaseSpringApiServiceImpl
       return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
     }
 
+    if (limit != null && limit.intValue() < 1) {
+      String message = "Invalid limit = " + limit;
+      log.error(message);
+      return new ResponseEntity<String>(message, HttpStatus.BAD_REQUEST);
+    }
+
+    if (after != null && (after.isEmpty() || after.indexOf('&') < 0)) {
+      String message = "Invalid after = '" + after + "'";
+      log.error(message);
+      return new ResponseEntity<String>(message, HttpStatus.BAD_REQUEST);
+    }
+
+    if ((plugin != null && plugin.isEmpty())
+	|| (auidPrefix != null && auidPrefix.isEmpty())) {
+      String message = "Invalid empty plugin or auidPrefix";
+      log.error(message);
+      return new ResponseEntity<String>(message, HttpStatus.BAD_REQUEST);
+    }
+
+    String pluginKey =
+	plugin == null ? null : PluginManager.pluginKeyFromId(plugin);
+    boolean filtered = pluginKey != null || auidPrefix != null;
+
     try {
-      Collection<AuConfiguration> result =
-	  getConfigManager().retrieveAllArchivalUnitConfiguration();
+      // Get the version of the configurations before reading them, so that
+      // a concurrent change results in a stale tag, not in a stale body.
+      // Each streamed representation has its own tag.
+      boolean ndjson = NdjsonHelper.isNdjsonAccepted();
+      boolean smile = !ndjson && SmileHelper.isSmileAccepted();
+      HttpHeaders responseHeaders = new HttpHeaders();
+      String etag =
+	  getCollectionEtag(ndjson ? "-ndjson" : smile ? "-smile" : "");
+      responseHeaders.setETag(etag);
+      responseHeaders.setVary(Collections.singletonList(HttpHeaders.ACCEPT));
+
+      // Check whether the client already has this version.
+      if (isEtagMatched(ifNoneMatch, etag)) {
+	// Yes: Return no content, just a Not-Modified status.
+	return new ResponseEntity<Void>(null, responseHeaders,
+	    HttpStatus.NOT_MODIFIED);
+      }
+
+      // Check whether the results are to be streamed.
+      if (ndjson || smile) {
+	// Yes.
+	streamAuConfigs(pluginKey, auidPrefix, limit, after, smile,
+	    responseHeaders);
+	return null;
+      }
+
+      AuConfigurationSql auConfigurationSql = new AuConfigurationSql();
+
+      // No: Check whether all the configurations are requested.
+      if (limit == null && after == null && !filtered) {
+	// Yes.
+	Collection<AuConfiguration> result =
+	    getConfigManager().retrieveAllArchivalUnitConfiguration();
+	log.debug2("result = {}", result);
+	return new ResponseEntity<Collection<AuConfiguration>>(result,
+	    responseHeaders, HttpStatus.OK);
+      }
+
+      // No: Get the requested page, which is never larger than the maximum
+      // page size, even if no limit has been requested.
+      int pageSize = Math.min(limit == null ? Integer.MAX_VALUE : limit,
+	  getMaxPageSize());
+      AuConfigurationSql.Page page = auConfigurationSql
+	  .findAuConfigurationPage(pluginKey, auidPrefix, after, pageSize);
+      List<AuConfiguration> result = page.getConfigurations();
+      log.debug2("result.size() = {}", result.size());
+
+      // Tell the client where the next page starts, if there may be one.
+      // AUs without a configuration are skipped but still scanned, so the
+      // page may have fewer configurations than requested.
+      if (page.hasMore()) {
+	responseHeaders.set(HEADER_NEXT_CURSOR, page.getLastAuId());
+      }
+
+      return new ResponseEntity<List<AuConfiguration>>(result,
+	  responseHeaders, HttpStatus.OK);
+    } catch (Exception e) {
+      String message = "Cannot getAllAuConfig()";
+      log.error(message, e);
+
+      // Check whether a streamed response has already been started.
+      if (NdjsonHelper.getCurrentResponse().isCommitted()) {
+	// Yes: Its status can no longer be changed.
+	return null;
+      }
+
+      return new ResponseEntity<String>(message,
+	  HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Provides the changes made to the AU configurations after a given point
+   * of the change log.
+   * <p>
+   * Only the last change to each AU is reported, with its current
+   * configuration unless it has been removed. If the requested changes are
+   * no longer in the log, either because they are beyond its compaction
+   * horizon or because the log has been restarted, the result tells the
+   * client to resynchronize fully using getAllAuConfig().
+   *
+   * @param since
+   *          A Long with the sequence of the last change already known to
+   *          the client, or 0 for all the changes in the log.
+   * @param epoch
+   *          A String with the epoch of the log in which that sequence was
+   *          obtained, or null.
+   * @param limit
+   *          An Integer with the maximum number of changes of the log to be
+   *          examined, or null for the maximum page size.
+   * @return a {@code ResponseEntity<Map<String, Object>>} with the changes.
+   */
+  @Override
+  public ResponseEntity getAuConfigChanges(Long since, String epoch,
+      Integer limit) {
+    log.debug2("since = {}", since);
+    log.debug2("epoch = {}", epoch);
+    log.debug2("limit = {}", limit);
+
+    // Check whether the service has not been fully initialized.
+    if (!waitReady()) {
+      // Yes: Notify the client.
+      return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    if (since == null || since.longValue() < 0) {
+      String message = "Invalid since = " + since;
+      log.error(message);
+      return new ResponseEntity<String>(message, HttpStatus.BAD_REQUEST);
+    }
+
+    if (limit != null && limit.intValue() < 1) {
+      String message = "Invalid limit = " + limit;
+      log.error(message);
+      return new ResponseEntity<String>(message, HttpStatus.BAD_REQUEST);
+    }
+
+    try {
+      int pageSize = Math.min(limit == null ? Integer.MAX_VALUE : limit,
+	  getMaxPageSize());
+
+      Map<String, Object> result = new LinkedHashMap<>();
+      result.put("epoch", auConfigChangeLog.getEpoch());
+      result.put("horizon", auConfigChangeLog.getHorizon());
+      result.put("latest", auConfigChangeLog.getLatest());
+
+      AuConfigChangeLog.Page page = null;
+
+      // A sequence from another epoch of the log is meaningless.
+      if (epoch == null || epoch.equals(auConfigChangeLog.getEpoch())) {
+	page = auConfigChangeLog.getChangesSince(since, pageSize);
+      }
+
+      if (page == null) {
+	result.put("resyncRequired", Boolean.TRUE);
+	log.debug2("result = {}", result);
+	return okResponse(result);
+      }
+
+      result.put("resyncRequired", Boolean.FALSE);
+      result.put("next", page.getNext());
+      result.put("changes", buildChanges(page.getChanges()));
+
       log.debug2("result = {}", result);
-      return new ResponseEntity<Collection<AuConfiguration>>(result,
+      return okResponse(result);
+    } catch (Exception e) {
+      String message = "Cannot getAuConfigChanges()";
+      log.error(message, e);
+      return new ResponseEntity<String>(message,
+	  HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Provides the representation of some changes to AU configurations, with
+   * the current configuration of the AUs that have not been removed.
+   *
+   * @param changes
+   *          A {@code List<AuConfigChangeLog.Change>} with the changes.
+   * @return a {@code List<Map<String, Object>>} with the representation of
+   *         the changes.
+   * @throws DbException if any problem occurred accessing the database.
+   */
+  private List<Map<String, Object>> buildChanges(
+      List<AuConfigChangeLog.Change> changes) throws DbException {
+    AuConfigurationSql auConfigurationSql = new AuConfigurationSql();
+    List<Map<String, Object>> result = new ArrayList<>(changes.size());
+
+    for (int from = 0; from < changes.size();
+	from += CHANGES_CONFIG_CHUNK_SIZE) {
+      List<AuConfigChangeLog.Change> chunk = changes.subList(from,
+	  Math.min(from + CHANGES_CONFIG_CHUNK_SIZE, changes.size()));
+
+      // Get the current configurations of the AUs in the chunk.
+      List<String> auIds = new ArrayList<>(chunk.size());
+
+      for (AuConfigChangeLog.Change change : chunk) {
+	if (change.getType() != AuConfigChangeLog.Type.REMOVED) {
+	  auIds.add(change.getAuId());
+	}
+      }
+
+      Map<String, AuConfiguration> auConfigs =
+	  auConfigurationSql.findAuConfigurations(auIds);
+
+      for (AuConfigChangeLog.Change change : chunk) {
+	Map<String, Object> entry = new LinkedHashMap<>();
+	entry.put("seq", change.getSeq());
+	entry.put("auId", change.getAuId());
+	entry.put("type", change.getType().name());
+
+	if (change.getType() != AuConfigChangeLog.Type.REMOVED) {
+	  AuConfiguration auConfig = auConfigs.get(change.getAuId());
+
+	  if (auConfig != null) {
+	    entry.put("auConfig", auConfig.getAuConfig());
+	  }
+	}
+
+	result.add(entry);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Streams AU configurations as NDJSON, or as a Smile array, reading them
+   * from the database one page at a time in keyset order.
+   *
+   * @param pluginKey
+   *          A String with the key of the plugin of the AUs, or null for AUs
+   *          of any plugin.
+   * @param auidPrefix
+   *          A String with the prefix of the AU identifiers, or null for any
+   *          prefix.
+   * @param limit
+   *          An Integer with the maximum number of configurations to stream,
+   *          or null for all of them.
+   * @param after
+   *          A String with the identifier of the AU after which the streamed
+   *          configurations start, or null to start with the first one.
+   * @param smile
+   *          A boolean with the indication of whether the configurations are
+   *          to be streamed as Smile instead of as NDJSON.
+   * @param responseHeaders
+   *          An HttpHeaders with the response headers.
+   * @throws Exception if there are problems streaming the configurations
+   *           before any part of the response has been sent. Later problems
+   *           just end the stream early.
+   */
+  private void streamAuConfigs(String pluginKey, String auidPrefix,
+      Integer limit, String after, boolean smile, HttpHeaders responseHeaders)
+	  throws Exception {
+    AuConfigurationSql auConfigurationSql = new AuConfigurationSql();
+    int pageSize = getStreamPageSize();
+    int remaining = limit == null ? Integer.MAX_VALUE : limit.intValue();
+    String cursor = after;
+    int count = 0;
+
+    JsonGenerator generator = smile
+	? SmileHelper.startResponse(responseHeaders)
+	: NdjsonHelper.startResponse(responseHeaders);
+
+    try {
+      if (smile) {
+	generator.writeStartArray();
+      }
+
+      while (remaining > 0) {
+	int size = Math.min(pageSize, remaining);
+	AuConfigurationSql.Page page = auConfigurationSql
+	    .findAuConfigurationPage(pluginKey, auidPrefix, cursor, size);
+	List<AuConfiguration> auConfigs = page.getConfigurations();
+
+	for (AuConfiguration auConfig : auConfigs) {
+	  if (smile) {
+	    generator.writeObject(auConfig);
+	  } else {
+	    NdjsonHelper.writeLine(generator, auConfig);
+	  }
+	}
+
+	generator.flush();
+	count += auConfigs.size();
+
+	// Check whether there are no more AUs, based on the AUs scanned, as
+	// those without a configuration are skipped.
+	if (!page.hasMore()) {
+	  // Yes: Done.
+	  break;
+	}
+
+	remaining -= auConfigs.size();
+	cursor = page.getLastAuId();
+      }
+
+      if (smile) {
+	generator.writeEndArray();
+      }
+    } catch (Exception e) {
+      HttpServletResponse response = NdjsonHelper.getCurrentResponse();
+
+      // Check whether nothing has been sent to the client yet.
+      if (!response.isCommitted()) {
+	// Yes: Discard the response, so that the caller can report the error.
+	response.reset();
+	throw e;
+      }
+
+      // No: The status cannot be changed anymore, so just end the stream,
+      // leaving a Smile array unterminated so that the client notices it.
+      log.error("Cannot stream AU configurations after " + count, e);
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+    }
+
+    generator.close();
+    log.debug2("Streamed {} AU configurations", count);
+  }
+
+  /**
+   * Provides a successful response with a result, encoded as Smile if the
+   * client accepts it or as JSON otherwise.
+   *
+   * @param result
+   *          An Object with the result.
+   * @return a ResponseEntity with the result, or null if the response has
+   *         already been written.
+   * @throws IOException if there are problems writing the response.
+   */
+  private ResponseEntity<Object> okResponse(Object result)
+      throws IOException {
+    if (SmileHelper.isSmileAccepted()) {
+      SmileHelper.writeResponse(null, result);
+      return null;
+    }
+
+    return new ResponseEntity<Object>(result, HttpStatus.OK);
+  }
+
+  /**
+   * Provides the maximum number of AU configurations in a page.
+   *
+   * @return an int with the maximum number of AU configurations in a page.
+   */
+  private int getMaxPageSize() {
+    return CurrentConfig.getIntParam(PARAM_MAX_PAGE_SIZE,
+	DEFAULT_MAX_PAGE_SIZE);
+  }
+
+  /**
+   * Provides the number of AU configurations read from the database at a
+   * time when all of them are returned.
+   *
+   * @return an int with the number of AU configurations read at a time.
+   */
+  private int getStreamPageSize() {
+    return CurrentConfig.getIntParam(PARAM_STREAM_PAGE_SIZE,
+	DEFAULT_STREAM_PAGE_SIZE);
+  }
+
+  /**
+   * Stores the configurations of a batch of AUs.
+   * <p>
+   * The configurations are validated in parallel and then stored in chunks,
+   * each one with JDBC statement batches in a single transaction. The changes
+   * of each chunk are recorded together in the change log, through which they
+   * are notified to the other services. A failure affects only the chunk
+   * where it happens.
+   *
+   * @param auConfigurations
+   *          A String with the AU configurations, as a JSON array or as
+   *          newline-delimited JSON.
+   * @return a {@code ResponseEntity<List<ContentConfigurationResult>>} with
+   *         the result for each AU configuration, in the order of the request.
+   */
+  @Override
+  public ResponseEntity postAuConfigBatch(String auConfigurations) {
+    log.debug2("auConfigurations.length() = {}",
+	() -> auConfigurations == null ? null : auConfigurations.length());
+
+    // Check whether the service has not been fully initialized.
+    if (!waitReady()) {
+      // Yes: Notify the client.
+      return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    // Check for required role
+    try {
+      AuthUtil.checkHasRole(Roles.ROLE_AU_ADMIN);
+    } catch (AccessControlException ace) {
+      log.warn(ace.getMessage());
+      return new ResponseEntity<Void>(HttpStatus.FORBIDDEN);
+    }
+
+    List<AuConfiguration> batch;
+
+    try {
+      batch = NdjsonHelper.readValues(auConfigurations, AuConfiguration.class);
+    } catch (IOException ioe) {
+      String message = "Invalid AU configuration batch: " + ioe.getMessage();
+      log.error(message);
+      return new ResponseEntity<String>(message, HttpStatus.BAD_REQUEST);
+    }
+
+    log.trace("batch.size() = {}", batch.size());
+
+    int maxBatchSize = CurrentConfig.getIntParam(PARAM_MAX_BATCH_SIZE,
+	DEFAULT_MAX_BATCH_SIZE);
+
+    if (batch.size() > maxBatchSize) {
+      String message = "Too many AU configurations in batch: " + batch.size()
+      + " (maximum " + maxBatchSize + ")";
+      log.error(message);
+      return new ResponseEntity<String>(message, HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    // Add to the audit log a reference to this operation, if necessary.
+    try {
+      audit(ACTION_STORE_AU_CONFIG_BATCH, batch.size() + " AUs");
+    } catch (AccessControlException ace) {
+      log.warn(ace.getMessage());
+      return new ResponseEntity<Void>(HttpStatus.FORBIDDEN);
+    }
+
+    try {
+      PluginManager pluginManager = getPluginManager();
+
+      // Validate the configurations.
+      String[] errors = validateAuConfigurations(batch);
+
+      ContentConfigurationResult[] results =
+	  new ContentConfigurationResult[batch.size()];
+
+      List<Integer> chunk = new ArrayList<>();
+      int chunkSize = Math.max(1, CurrentConfig.getIntParam(
+	  PARAM_BATCH_CHUNK_SIZE, DEFAULT_BATCH_CHUNK_SIZE));
+
+      for (int index = 0; index < batch.size(); index++) {
+	if (errors[index] != null) {
+	  AuConfiguration auConfiguration = batch.get(index);
+	  results[index] = new ContentConfigurationResult(
+	      auConfiguration == null ? null : auConfiguration.getAuId(), null,
+	      Boolean.FALSE, errors[index]);
+	  continue;
+	}
+
+	chunk.add(index);
+
+	if (chunk.size() == chunkSize) {
+	  storeAuConfigurationChunk(batch, chunk, results, pluginManager);
+	  chunk.clear();
+	}
+      }
+
+      storeAuConfigurationChunk(batch, chunk, results, pluginManager);
+
+      List<ContentConfigurationResult> result = Arrays.asList(results);
+      log.debug2("result = {}", result);
+      return okResponse(result);
+    } catch (Exception e) {
+      String message = "Cannot postAuConfigBatch()";
+      log.error(message, e);
+      return new ResponseEntity<String>(message,
+	  HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Validates in parallel a batch of AU configurations.
+   *
+   * @param batch
+   *          A {@code List<AuConfiguration>} with the AU configurations.
+   * @return a String[] with the validation error of each AU configuration,
+   *         or null for those that are valid.
+   */
+  private String[] validateAuConfigurations(List<AuConfiguration> batch) {
+    String[] errors = new String[batch.size()];
+
+    IntStream.range(0, batch.size()).parallel().forEach(index -> {
+      AuConfiguration auConfiguration = batch.get(index);
+      String auId = auConfiguration == null ? null : auConfiguration.getAuId();
+
+      if (auId == null || auId.indexOf('&') < 1
+	  || auId.indexOf('&') == auId.length() - 1) {
+	errors[index] = "Invalid auId = '" + auId + "'";
+	return;
+      }
+
+      Map<String, String> auConfig = auConfiguration.getAuConfig();
+
+      if (auConfig == null || auConfig.isEmpty()) {
+	errors[index] =
+	    "Configuration to be stored is not allowed to be null or empty";
+	return;
+      }
+
+      for (Map.Entry<String, String> entry : auConfig.entrySet()) {
+	if (StringUtil.isNullString(entry.getKey())
+	    || entry.getValue() == null) {
+	  errors[index] = "Invalid configuration item '" + entry.getKey()
+	  + "' = '" + entry.getValue() + "'";
+	  return;
+	}
+      }
+    });
+
+    // The same AU cannot be stored twice in a batch.
+    Set<String> auIds = new HashSet<>();
+
+    for (int index = 0; index < batch.size(); index++) {
+      if (errors[index] == null && !auIds.add(batch.get(index).getAuId())) {
+	errors[index] = "Duplicated auId = '" + batch.get(index).getAuId()
+	    + "'";
+      }
+    }
+
+    return errors;
+  }
+
+  /**
+   * Stores a chunk of a batch of AU configurations in a single database
+   * transaction, and then records the changes of the chunk together, which
+   * notifies them to the other services through the change feed.
+   *
+   * @param batch
+   *          A {@code List<AuConfiguration>} with the AU configurations.
+   * @param chunk
+   *          A {@code List<Integer>} with the indices in the batch of the AU
+   *          configurations in the chunk.
+   * @param results
+   *          A ContentConfigurationResult[] where to store the results.
+   * @param pluginManager
+   *          A PluginManager with the plugin manager.
+   */
+  private void storeAuConfigurationChunk(List<AuConfiguration> batch,
+      List<Integer> chunk, ContentConfigurationResult[] results,
+      PluginManager pluginManager) {
+    log.debug2("chunk = {}", chunk);
+
+    if (chunk.isEmpty()) {
+      return;
+    }
+
+    List<AuConfiguration> auConfigurations = new ArrayList<>(chunk.size());
+
+    for (Integer index : chunk) {
+      auConfigurations.add(batch.get(index));
+    }
+
+    Set<String> addedAuIds;
+
+    try {
+      addedAuIds = new AuConfigurationSql().storeAuConfigurations(
+	  auConfigurations);
+    } catch (Exception e) {
+      log.warn("Cannot store chunk of AU configurations", e);
+
+      for (Integer index : chunk) {
+	results[index] = new ContentConfigurationResult(
+	    batch.get(index).getAuId(), null, Boolean.FALSE,
+	    "Cannot store configuration: " + e.getMessage());
+      }
+
+      return;
+    }
+
+    Map<String, AuConfigChangeLog.Type> changes = new LinkedHashMap<>();
+
+    for (Integer index : chunk) {
+      String auId = batch.get(index).getAuId();
+      boolean added = addedAuIds.contains(auId);
+      changes.put(auId, added
+	  ? AuConfigChangeLog.Type.ADDED : AuConfigChangeLog.Type.MODIFIED);
+
+      ArchivalUnit au = pluginManager.getAuFromId(auId);
+      results[index] = new ContentConfigurationResult(auId,
+	  au == null ? null : au.getName(), Boolean.TRUE,
+	  added ? "Added" : "Modified");
+    }
+
+    // Record the changes.
+    auConfigChangeLog.record(changes);
+    auConfigCache.putAll(auConfigurations);
+  }
+
+  /**
+   * Deletes the configurations of a batch of AUs.
+   * <p>
+   * The AUs are deleted in chunks, each one with a single batched statement
+   * in a single transaction. A single audit event is recorded for the whole
+   * batch, and the removals of each chunk are recorded together in the change
+   * log, through which they are notified to the other services.
+   * <p>
+   * A prefix must include at least a full plugin identifier, and the number
+   * of AUs it selects is limited like the number of identifiers in a list.
+   *
+   * @param auidPrefix
+   *          A String with the prefix of the identifiers of the AUs to be
+   *          deleted, which is a plugin identifier, or a plugin key followed
+   *          by an ampersand and a prefix of the AU keys, or null.
+   * @param auIds
+   *          A {@code List<String>} with the identifiers of the AUs to be
+   *          deleted, or null.
+   * @return a {@code ResponseEntity<List<ContentConfigurationResult>>} with
+   *         the result for each AU.
+   */
+  @Override
+  public ResponseEntity deleteAuConfigBatch(String auidPrefix,
+      List<String> auIds) {
+    log.debug2("auidPrefix = {}", auidPrefix);
+    log.debug2("auIds = {}", auIds);
+
+    // Check whether the service has not been fully initialized.
+    if (!waitReady()) {
+      // Yes: Notify the client.
+      return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    // Check for required role
+    try {
+      AuthUtil.checkHasRole(Roles.ROLE_AU_ADMIN);
+    } catch (AccessControlException ace) {
+      log.warn(ace.getMessage());
+      return new ResponseEntity<Void>(HttpStatus.FORBIDDEN);
+    }
+
+    boolean hasAuIds = auIds != null && !auIds.isEmpty();
+
+    if (hasAuIds == !StringUtil.isNullString(auidPrefix)) {
+      String message = "Exactly one of auidPrefix or a list of auIds is "
+	  + "required";
+      log.error(message);
+      return new ResponseEntity<String>(message, HttpStatus.BAD_REQUEST);
+    }
+
+    int maxBatchSize = CurrentConfig.getIntParam(PARAM_MAX_BATCH_SIZE,
+	DEFAULT_MAX_BATCH_SIZE);
+
+    if (hasAuIds && auIds.size() > maxBatchSize) {
+      String message = "Too many auIds in batch: " + auIds.size()
+      + " (maximum " + maxBatchSize + ")";
+      log.error(message);
+      return new ResponseEntity<String>(message, HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    String prefix = null;
+
+    if (!hasAuIds) {
+      // A prefix without an AU key part is a whole plugin.
+      int separator = auidPrefix.indexOf('&');
+      String pluginPart =
+	  separator < 0 ? auidPrefix : auidPrefix.substring(0, separator);
+
+      if (pluginPart.trim().isEmpty()) {
+	String message = "Invalid auidPrefix = '" + auidPrefix
+	    + "': A plugin identifier is required";
+	log.error(message);
+	return new ResponseEntity<String>(message, HttpStatus.BAD_REQUEST);
+      }
+
+      prefix = PluginManager.pluginKeyFromId(pluginPart) + "&"
+	  + (separator < 0 ? "" : auidPrefix.substring(separator + 1));
+      log.trace("prefix = {}", prefix);
+    }
+
+    try {
+      // Get the AUs to be deleted.
+      List<String> targets = auIds;
+
+      if (!hasAuIds) {
+	targets = new AuConfigurationSql().findAuIdsByPrefix(prefix,
+	    maxBatchSize + 1);
+
+	if (targets.size() > maxBatchSize) {
+	  String message = "Too many AUs with auidPrefix = '" + auidPrefix
+	      + "' (maximum " + maxBatchSize + ")";
+	  log.error(message);
+	  return new ResponseEntity<String>(message,
+	      HttpStatus.PAYLOAD_TOO_LARGE);
+	}
+      }
+
+      log.trace("targets.size() = {}", targets.size());
+
+      // Add to the audit log a single reference to this operation, if
+      // necessary.
+      try {
+	audit(ACTION_DELETE_AU_CONFIG_BATCH, hasAuIds
+	    ? targets.size() + " AUs"
+	    : targets.size() + " AUs with prefix " + auidPrefix);
+      } catch (AccessControlException ace) {
+	log.warn(ace.getMessage());
+	return new ResponseEntity<Void>(HttpStatus.FORBIDDEN);
+      }
+
+      PluginManager pluginManager = getPluginManager();
+      ContentConfigurationResult[] results =
+	  new ContentConfigurationResult[targets.size()];
+      Set<String> seenAuIds = new HashSet<>();
+
+      List<Integer> chunk = new ArrayList<>();
+      int chunkSize = Math.max(1, CurrentConfig.getIntParam(
+	  PARAM_BATCH_CHUNK_SIZE, DEFAULT_BATCH_CHUNK_SIZE));
+
+      for (int index = 0; index < targets.size(); index++) {
+	String auId = targets.get(index);
+
+	if (auId == null || auId.indexOf('&') < 1) {
+	  results[index] = new ContentConfigurationResult(auId, null,
+	      Boolean.FALSE, "Invalid auId = '" + auId + "'");
+	  continue;
+	}
+
+	if (!seenAuIds.add(auId)) {
+	  results[index] = new ContentConfigurationResult(auId, null,
+	      Boolean.FALSE, "Duplicated auId = '" + auId + "'");
+	  continue;
+	}
+
+	chunk.add(index);
+
+	if (chunk.size() == chunkSize) {
+	  deleteAuChunk(targets, chunk, results, pluginManager);
+	  chunk.clear();
+	}
+      }
+
+      deleteAuChunk(targets, chunk, results, pluginManager);
+
+      List<ContentConfigurationResult> result = Arrays.asList(results);
+      log.debug2("result = {}", result);
+      return new ResponseEntity<List<ContentConfigurationResult>>(result,
 	  HttpStatus.OK);
     } catch (Exception e) {
-      String message = "Cannot getAllAuConfig()";
+      String message = "Cannot deleteAuConfigBatch()";
       log.error(message, e);
       return new ResponseEntity<String>(message,
 	  HttpStatus.INTERNAL_SERVER_ERROR);
     }
   }
 
+  /**
+   * Deletes a chunk of a batch of AUs with a single batched statement, and
+   * then records the removals of the chunk together, which notifies them to
+   * the other services through the change feed.
+   *
+   * @param auIds
+   *          A {@code List<String>} with the identifiers of the AUs in the
+   *          batch.
+   * @param chunk
+   *          A {@code List<Integer>} with the indices in the batch of the AUs
+   *          in the chunk.
+   * @param results
+   *          A ContentConfigurationResult[] where to store the results.
+   * @param pluginManager
+   *          A PluginManager with the plugin manager.
+   */
+  private void deleteAuChunk(List<String> auIds, List<Integer> chunk,
+      ContentConfigurationResult[] results, PluginManager pluginManager) {
+    log.debug2("chunk = {}", chunk);
+
+    if (chunk.isEmpty()) {
+      return;
+    }
+
+    List<String> chunkAuIds = new ArrayList<>(chunk.size());
+
+    for (Integer index : chunk) {
+      chunkAuIds.add(auIds.get(index));
+    }
+
+    Set<String> deletedAuIds;
+
+    try {
+      deletedAuIds = new AuConfigurationSql().deleteAus(chunkAuIds);
+    } catch (Exception e) {
+      log.warn("Cannot delete chunk of AUs", e);
+
+      for (Integer index : chunk) {
+	results[index] = new ContentConfigurationResult(auIds.get(index),
+	    null, Boolean.FALSE, "Cannot delete: " + e.getMessage());
+      }
+
+      return;
+    }
+
+    List<String> removedAuIds = new ArrayList<>(deletedAuIds.size());
+
+    for (Integer index : chunk) {
+      String auId = auIds.get(index);
+
+      if (!deletedAuIds.contains(auId)) {
+	results[index] = new ContentConfigurationResult(auId, null,
+	    Boolean.FALSE, NO_SUCH_AU_ERROR_MESSAGE);
+	continue;
+      }
+
+      removedAuIds.add(auId);
+      ArchivalUnit au = pluginManager.getAuFromId(auId);
+      results[index] = new ContentConfigurationResult(auId,
+	  au == null ? null : au.getName(), Boolean.TRUE, "Deleted");
+    }
+
+    // Record the changes, in the order of the request.
+    auConfigChangeLog.record(removedAuIds, AuConfigChangeLog.Type.REMOVED);
+    auConfigCache.remove(removedAuIds);
+  }
+
+  /**
+   * Provides the statistics of the cache of stored AU configurations.
+   *
+   * @return a {@code ResponseEntity<Map<String, Object>>} with the
+   *         statistics.
+   */
+  @Override
+  public ResponseEntity getAuConfigCacheStats() {
+    log.debug2("Invoked");
+
+    // Check whether the service has not been fully initialized.
+    if (!waitReady()) {
+      // Yes: Notify the client.
+      return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    Map<String, Object> result = auConfigCache.getStats();
+    log.debug2("result = {}", result);
+    return new ResponseEntity<Map<String, Object>>(result, HttpStatus.OK);
+  }
+
   /**
    * Provides the configuration for an AU given the AU identifier.
    * 
    * @param auid
    *          A String with the AU identifier.
+   * @param ifNoneMatch
+   *          A String with the "If-None-Match" header, or null.
    * @return a {@code ResponseEntity<AuConfiguration>} with the AU
    *         configuration.
    */
   @Override
-  public ResponseEntity getAuConfig(String auid) {
+  public ResponseEntity getAuConfig(String auid, String ifNoneMatch) {
     if (log.isDebugEnabled()) log.debug("auid = " + auid);
+    log.debug2("ifNoneMatch = {}", ifNoneMatch);
 
     // Check whether the service has not been fully initialized.
     if (!waitReady()) {
@@ -192,10 +1133,29 @@ public class AusApiServiceImpl extends BaseSpringApiServiceImpl
 	return new ResponseEntity<String>(message, HttpStatus.BAD_REQUEST);
       }
 
-      AuConfiguration result =
-	  getPluginManager().getStoredAuConfiguration(auid);
+      AuConfiguration result = auConfigCache.get(auid);
       if (log.isDebugEnabled()) log.debug("result = " + result);
-      return new ResponseEntity<AuConfiguration>(result, HttpStatus.OK);
+
+      // Check whether there is no configuration to be versioned.
+      if (result == null) {
+	// Yes: Report it, as there is nothing that the client can have.
+	return new ResponseEntity<AuConfiguration>(result, HttpStatus.OK);
+      }
+
+      // Get the version of the stored configuration.
+      HttpHeaders responseHeaders = new HttpHeaders();
+      String etag = getAuEtag(result);
+      responseHeaders.setETag(etag);
+
+      // Check whether the client already has this version.
+      if (isEtagMatched(ifNoneMatch, etag)) {
+	// Yes: Return no content, just a Not-Modified status.
+	return new ResponseEntity<Void>(null, responseHeaders,
+	    HttpStatus.NOT_MODIFIED);
+      }
+
+      return new ResponseEntity<AuConfiguration>(result, responseHeaders,
+	  HttpStatus.OK);
     } catch (IllegalArgumentException iae) {
       String message = "No Archival Unit found for auid = '" + auid + "'";
       log.error(message);
@@ -208,6 +1168,112 @@ public class AusApiServiceImpl extends BaseSpringApiServiceImpl
     }
   }
 
+  /**
+   * Provides the URLs of an AU, in URL order, computing the properties of
+   * each one only as it is returned.
+   * <p>
+   * If the client accepts NDJSON, the URLs are streamed as they are
+   * computed, up to the limit, if any, and the client can resume after the
+   * last one received. Otherwise, a page of at most the maximum page size is
+   * returned, with a header with the cursor of the next page if it is full.
+   * 
+   * @param auid
+   *          A String with the AU identifier.
+   * @param limit
+   *          An Integer with the maximum number of URLs to return, or null.
+   * @param after
+   *          A String with the URL after which the returned URLs start, or
+   *          null to start with the first one.
+   * @return a {@code ResponseEntity<List<UrlWsResult>>} with the URLs.
+   */
+  @Override
+  public ResponseEntity getAuUrls(String auid, Integer limit, String after) {
+    log.debug2("auid = {}", auid);
+    log.debug2("limit = {}", limit);
+    log.debug2("after = {}", after);
+
+    // Check whether the service has not been fully initialized.
+    if (!waitReady()) {
+      // Yes: Notify the client.
+      return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    if (auid == null || auid.isEmpty()) {
+      String message = "Invalid auid = '" + auid + "'";
+      log.error(message);
+      return new ResponseEntity<String>(message, HttpStatus.BAD_REQUEST);
+    }
+
+    if (limit != null && limit.intValue() < 1) {
+      String message = "Invalid limit = " + limit;
+      log.error(message);
+      return new ResponseEntity<String>(message, HttpStatus.BAD_REQUEST);
+    }
+
+    ArchivalUnit au =
+	LockssDaemon.getLockssDaemon().getPluginManager().getAuFromId(auid);
+
+    if (au == null) {
+      String message = "No Archival Unit found for auid = '" + auid + "'";
+      log.error(message);
+      return new ResponseEntity<String>(message, HttpStatus.NOT_FOUND);
+    }
+
+    try {
+      AuUrlIterator urls =
+	  new AuUrlIterator(au, StringUtil.isNullString(after) ? null : after);
+
+      // Check whether the results are to be streamed.
+      if (NdjsonHelper.isNdjsonAccepted()) {
+	// Yes.
+	int remaining = limit == null ? Integer.MAX_VALUE : limit.intValue();
+	int flushSize = Math.max(1, CurrentConfig.getIntParam(
+	    PARAM_URL_FLUSH_SIZE, DEFAULT_URL_FLUSH_SIZE));
+	int count = 0;
+
+	try (JsonGenerator generator = NdjsonHelper.startResponse(null)) {
+	  while (count < remaining && urls.hasNext()) {
+	    NdjsonHelper.writeLine(generator, urls.next());
+
+	    if (++count % flushSize == 0) {
+	      generator.flush();
+	    }
+	  }
+	}
+
+	log.debug2("Streamed {} URLs", count);
+	return null;
+      }
+
+      // No: Get the requested page.
+      int pageSize = Math.min(limit == null ? Integer.MAX_VALUE : limit,
+	  CurrentConfig.getIntParam(PARAM_MAX_URL_PAGE_SIZE,
+	      DEFAULT_MAX_URL_PAGE_SIZE));
+      List<UrlWsResult> result = new ArrayList<>();
+
+      while (result.size() < pageSize && urls.hasNext()) {
+	result.add(urls.next());
+      }
+
+      log.debug2("result.size() = {}", result.size());
+      HttpHeaders responseHeaders = new HttpHeaders();
+
+      // Tell the client where the next page starts, if there is one.
+      if (result.size() == pageSize && urls.hasNext()) {
+	responseHeaders.set(HEADER_NEXT_CURSOR,
+	    result.get(result.size() - 1).getUrl());
+      }
+
+      return new ResponseEntity<List<UrlWsResult>>(result, responseHeaders,
+	  HttpStatus.OK);
+    } catch (Exception e) {
+      String message = "Cannot getAuUrls() for auid = '" + auid + "'";
+      log.error(message, e);
+      return new ResponseEntity<String>(message,
+	  HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
   /**
    * Stores the provided Archival Unit configuration.
    * 
@@ -256,8 +1322,19 @@ public class AusApiServiceImpl extends BaseSpringApiServiceImpl
 	return new ResponseEntity<String>(message, HttpStatus.BAD_REQUEST);
       }
 
+      boolean existed = auConfigCache.get(auId) != null;
+
       // Update the Archival Unit configuration.
-      getPluginManager().updateAuConfigFromExternalSource(auConfiguration);
+      try {
+	getPluginManager().updateAuConfigFromExternalSource(auConfiguration);
+      } finally {
+	auConfigCache.invalidate(Collections.singleton(auId));
+      }
+
+      auConfigCache.put(auConfiguration);
+
+      auConfigChangeLog.record(auId, existed
+	  ? AuConfigChangeLog.Type.MODIFIED : AuConfigChangeLog.Type.ADDED);
 
       return new ResponseEntity<Void>(HttpStatus.OK);
     } catch (IllegalArgumentException iae) {
@@ -451,6 +1528,96 @@ public class AusApiServiceImpl extends BaseSpringApiServiceImpl
     }
   }
 
+  /**
+   * Provides the entity tag of the collection of all the AU configurations.
+   * <p>
+   * The changes made by this service are counted by the change log, and
+   * those made elsewhere in the daemon by the Archival Unit events received
+   * by the cache.
+   *
+   * @param suffix
+   *          A String with the suffix that identifies the representation.
+   * @return a String with the entity tag.
+   */
+  private String getCollectionEtag(String suffix) {
+    return "\"" + auConfigChangeLog.getEpoch() + "-"
+	+ auConfigChangeLog.getLatest() + "-"
+	+ auConfigCache.getAuEventCount() + suffix + "\"";
+  }
+
+  /**
+   * Provides the entity tag of the configuration of an AU, derived from the
+   * stored configuration itself, so that it changes whatever the source of
+   * the change.
+   *
+   * @param auConfiguration
+   *          An AuConfiguration with the stored configuration.
+   * @return a String with the entity tag.
+   */
+  static String getAuEtag(AuConfiguration auConfiguration) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(auConfiguration.getAuId()
+	  .getBytes(StandardCharsets.UTF_8));
+
+      Map<String, String> sorted =
+	  new TreeMap<>(auConfiguration.getAuConfig());
+
+      for (Map.Entry<String, String> entry : sorted.entrySet()) {
+	digest.update((byte)0);
+	digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+	digest.update((byte)'=');
+	digest.update(String.valueOf(entry.getValue())
+	    .getBytes(StandardCharsets.UTF_8));
+      }
+
+      byte[] hash = digest.digest();
+      StringBuilder sb = new StringBuilder("\"");
+
+      for (int i = 0; i < 8; i++) {
+	sb.append(String.format("%02x", hash[i]));
+      }
+
+      return sb.append("\"").toString();
+    } catch (NoSuchAlgorithmException nsae) {
+      // Every Java platform is required to support SHA-256.
+      throw new IllegalStateException(nsae);
+    }
+  }
+
+  /**
+   * Provides an indication of whether an "If-None-Match" header matches an
+   * entity tag, using the weak comparison.
+   *
+   * @param ifNoneMatch
+   *          A String with the "If-None-Match" header, or null.
+   * @param etag
+   *          A String with the entity tag.
+   * @return {@code true} if the header matches the entity tag,
+   *         {@code false} otherwise.
+   */
+  static boolean isEtagMatched(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+
+    if (ifNoneMatch.trim().equals("*")) {
+      return true;
+    }
+
+    for (String candidate : StringUtil.breakAt(ifNoneMatch, ",", true)) {
+      if (candidate.startsWith("W/")) {
+	candidate = candidate.substring(2);
+      }
+
+      if (candidate.equals(etag)) {
+	return true;
+      }
+    }
+
+    return false;
+  }
+
   /**
    * Provides the configuration manager.
    *
@@ -36,6 +36,8 @@ import org.lockss.log.L4JLogger;
 import org.lockss.spring.base.BaseSpringApiServiceImpl;
 import org.lockss.util.StringUtil;
 import org.lockss.ws.entities.AuStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -48,9 +50,17 @@ public class AustatusesApiServiceImpl extends BaseSpringApiServiceImpl
 implements AustatusesApiDelegate {
   private static L4JLogger log = L4JLogger.getLogger();
 
+  // The cache of the sizes of the archival units.
+  @Autowired
+  private AuSizeCache auSizeCache;
+
   /**
    * Provides the status information of an archival unit in the system.
    * 
+   * The content size and disk usage are read from the cache maintained in
+   * the background, and the time when they were computed is reported in the
+   * X-Lockss-Sizes-Computed-At response header.
+   * 
    * @param auId A String with the identifier of the archival unit.
    * @return a {@code ResponseEntity<AuStatus>} AuStatus with the status
    *         information of the archival unit.
@@ -75,9 +85,21 @@ implements AustatusesApiDelegate {
 
     try {
       // Get the status.
-      AuStatus result = new AuHelper().getAuStatus(auId);
+      AuHelper auHelper = new AuHelper(auSizeCache);
+      AuStatus result = auHelper.getAuStatus(auId);
       log.debug2("result = " + result);
-      return new ResponseEntity<AuStatus>(result, HttpStatus.OK);
+
+      HttpHeaders headers = new HttpHeaders();
+      AuSizeCache.Sizes sizes = auHelper.getReportedSizes();
+
+      // Check whether the reported sizes come from the cache.
+      if (sizes != null) {
+	// Yes: Report how old they are.
+	headers.set(AuSizeCache.HEADER_SIZES_COMPUTED_AT,
+	    String.valueOf(sizes.getComputedAt()));
+      }
+
+      return new ResponseEntity<AuStatus>(result, headers, HttpStatus.OK);
     } catch (Exception e) {
       String message = "Cannot getAuStatus() for auId = '" + auId + "'";
       log.error(message, e);
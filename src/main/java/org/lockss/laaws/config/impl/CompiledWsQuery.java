@@ -0,0 +1,1125 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import org.josql.QueryExecutionException;
+import org.lockss.log.L4JLogger;
+
+/**
+ * An <a href="package-summary.html#SQL-Like_Query">SQL-like query</a>
+ * compiled into method handle-based accessors, predicates and comparators,
+ * which avoid the per-object reflection of the evaluation of the same query
+ * by JoSQL.
+ * <p>
+ * Only a subset of the query syntax is supported: a <code>SELECT</code>
+ * clause with <code>*</code> or a list of property names, an optional
+ * <code>WHERE</code> clause combining with <code>AND</code>,
+ * <code>OR</code>, <code>NOT</code> and parentheses comparisons of a
+ * property with a constant (<code>=</code>, <code>!=</code>,
+ * <code>&lt;&gt;</code>, <code>&lt;</code>, <code>&lt;=</code>,
+ * <code>&gt;</code>, <code>&gt;=</code>, <code>[NOT] LIKE</code> and
+ * <code>IS [NOT] NULL</code>) and an optional <code>ORDER BY</code> clause
+ * with a list of property names. Queries with any other syntax, such as
+ * functions or comparisons between properties, are not compiled and must be
+ * evaluated by JoSQL.
+ * <p>
+ * A null property value is only equal to <code>null</code> and does not
+ * satisfy any ordering comparison or <code>LIKE</code>. In the
+ * <code>ORDER BY</code> clause, null values go first in ascending order.
+ * <p>
+ * A compiled query is immutable and can be executed concurrently. Its
+ * conditions can also be evaluated on the queried objects in parallel.
+ */
+public class CompiledWsQuery {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  private static final MethodHandles.Lookup LOOKUP =
+      MethodHandles.publicLookup();
+
+  // The type to which all the accessor method handles are adapted.
+  private static final MethodType ACCESSOR_TYPE =
+      MethodType.methodType(Object.class, Object.class);
+
+  // The type to which all the mutator method handles are adapted.
+  private static final MethodType MUTATOR_TYPE =
+      MethodType.methodType(void.class, Object.class, Object.class);
+
+  // The number of objects scanned before their results are produced, when
+  // their order does not need to be changed.
+  private static final int BLOCK_SIZE = 256;
+
+  private final String query;
+  private final MethodHandle resultConstructor;
+  private final List<Projection> projections;
+  private final Predicate<Object> where;
+  private final Comparator<Object> orderBy;
+  private final Map<String, String> equalities;
+
+  /**
+   * Constructor.
+   *
+   * @param query             A String with the SQL-like query.
+   * @param resultConstructor A MethodHandle with the constructor of the
+   *                          results.
+   * @param projections       A {@code List<Projection>} with the properties
+   *                          copied from each object to its result.
+   * @param where             A {@code Predicate<Object>} with the condition
+   *                          of the objects in the results, or null if all
+   *                          the objects are included.
+   * @param orderBy           A {@code Comparator<Object>} with the order of
+   *                          the objects in the results, or null if the
+   *                          objects are not sorted.
+   * @param equalities        A {@code Map<String, String>} with the text
+   *                          constants to which some properties must be
+   *                          equal for an object to be included.
+   */
+  private CompiledWsQuery(String query, MethodHandle resultConstructor,
+      List<Projection> projections, Predicate<Object> where,
+      Comparator<Object> orderBy, Map<String, String> equalities) {
+    this.query = query;
+    this.resultConstructor = resultConstructor;
+    this.projections = projections;
+    this.where = where;
+    this.orderBy = orderBy;
+    this.equalities = equalities;
+  }
+
+  /**
+   * Compiles an SQL-like query.
+   *
+   * @param query         A String with the SQL-like query.
+   * @param sourceClass   A {@code Class<?>} with the class of the queried
+   *                      objects.
+   * @param propertyNames A {@code Set<String>} with the names of the
+   *                      properties that can be queried.
+   * @param resultClass   A {@code Class<?>} with the class of the results.
+   * @return a CompiledWsQuery with the compiled query, or null if the query
+   *         uses syntax that is not supported or cannot be compiled for the
+   *         classes involved.
+   */
+  public static CompiledWsQuery compile(String query, Class<?> sourceClass,
+      Set<String> propertyNames, Class<?> resultClass) {
+    log.debug2("query = {}", query);
+
+    try {
+      CompiledWsQuery compiled =
+          new Compiler(query, sourceClass, propertyNames, resultClass)
+          .compile();
+      log.debug2("Compiled query '{}'", query);
+      return compiled;
+    } catch (UnsupportedQueryException uqe) {
+      log.debug2("Cannot compile query '{}': {}", query, uqe.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Provides the text constants to which some properties must be equal for
+   * an object to satisfy this query, which can be used to narrow down the
+   * objects to be queried.
+   *
+   * @return a {@code Map<String, String>} with the text constant of each
+   *         property, empty if there are none.
+   */
+  public Map<String, String> getEqualities() {
+    return equalities;
+  }
+
+  /**
+   * Executes this query.
+   *
+   * @param universe A {@code List<?>} with the objects to be queried.
+   * @return a {@code List<Object>} with the results.
+   * @throws QueryExecutionException if the query cannot be executed.
+   */
+  public List<Object> execute(List<?> universe)
+      throws QueryExecutionException {
+    return execute(universe, null);
+  }
+
+  /**
+   * Executes this query, evaluating the conditions on the objects and
+   * populating the results in parallel in a pool, if given. The results are
+   * in the same order as when executed serially.
+   *
+   * @param universe A {@code List<?>} with the objects to be queried.
+   * @param pool     A ForkJoinPool with the pool, or null for serial
+   *                 execution.
+   * @return a {@code List<Object>} with the results.
+   * @throws QueryExecutionException if the query cannot be executed.
+   */
+  public List<Object> execute(List<?> universe, ForkJoinPool pool)
+      throws QueryExecutionException {
+    List<Object> results = new ArrayList<>();
+
+    try {
+      stream(universe, 0, 0, pool, results::add);
+    } catch (IOException ioe) {
+      // Cannot happen when adding to a list.
+      throw new IllegalStateException(ioe);
+    }
+
+    return results;
+  }
+
+  /**
+   * Executes this query, passing a page of its results to a consumer as
+   * they are produced.
+   * <p>
+   * Without an <code>ORDER BY</code> clause, the objects are scanned in
+   * blocks, and the results of each block are passed to the consumer before
+   * the next block is scanned, so that the first results are available
+   * early and the scan stops as soon as the page is complete. With an
+   * <code>ORDER BY</code> clause, all the matching objects are found and
+   * sorted before the first result is produced. In both cases, the
+   * conditions are evaluated on the objects and the results are populated
+   * in parallel in a pool, if given, without changing their order.
+   *
+   * @param universe A {@code List<?>} with the objects to be queried.
+   * @param offset   An int with the number of results to be skipped.
+   * @param limit    An int with the maximum number of results to be passed
+   *                 to the consumer, or 0 for no limit.
+   * @param pool     A ForkJoinPool with the pool, or null for serial
+   *                 execution.
+   * @param consumer A ResultConsumer with the consumer of the results.
+   * @return an int with the number of results passed to the consumer.
+   * @throws QueryExecutionException if the query cannot be executed.
+   * @throws IOException             if the consumer cannot accept a result.
+   */
+  public int stream(List<?> universe, int offset, int limit,
+      ForkJoinPool pool, ResultConsumer consumer)
+      throws QueryExecutionException, IOException {
+    int toSkip = Math.max(0, offset);
+    int toSend = limit > 0 ? limit : Integer.MAX_VALUE;
+    int sent = 0;
+
+    try {
+      if (orderBy != null) {
+        List<Object> matches = filter(universe, 0, universe.size(), pool);
+        matches.sort(orderBy);
+
+        int from = Math.min(toSkip, matches.size());
+        int to = (int)Math.min(matches.size(), (long)from + toSend);
+
+        for (int start = from; start < to; start += BLOCK_SIZE) {
+          sent += send(matches.subList(start, Math.min(to, start + BLOCK_SIZE)),
+              pool, consumer);
+        }
+      } else {
+        for (int start = 0; start < universe.size() && sent < toSend;
+            start += BLOCK_SIZE) {
+          List<Object> matches = filter(universe, start,
+              Math.min(universe.size(), start + BLOCK_SIZE), pool);
+
+          int from = Math.min(toSkip, matches.size());
+          toSkip -= from;
+          int to = (int)Math.min(matches.size(), (long)from + toSend - sent);
+          sent += send(matches.subList(from, to), pool, consumer);
+        }
+      }
+
+      return sent;
+    } catch (RuntimeException re) {
+      throw new QueryExecutionException("Cannot execute query '" + query
+          + "'", re);
+    }
+  }
+
+  /**
+   * Provides the objects in a range of the universe that satisfy the
+   * conditions of this query, in their order in the universe.
+   *
+   * @param universe A {@code List<?>} with the objects to be queried.
+   * @param start    An int with the position of the first object.
+   * @param end      An int with the position after the last object.
+   * @param pool     A ForkJoinPool with the pool, or null for serial
+   *                 evaluation.
+   * @return a {@code List<Object>} with the matching objects.
+   */
+  private List<Object> filter(List<?> universe, int start, int end,
+      ForkJoinPool pool) {
+    List<Object> matches = new ArrayList<>();
+
+    if (where == null) {
+      matches.addAll(universe.subList(start, end));
+      return matches;
+    }
+
+    // Each object is marked in its position in the range.
+    boolean[] matched = new boolean[end - start];
+    forEachIndex(matched.length,
+        i -> matched[i] = where.test(universe.get(start + i)), pool);
+
+    for (int i = 0; i < matched.length; i++) {
+      if (matched[i]) {
+        matches.add(universe.get(start + i));
+      }
+    }
+
+    return matches;
+  }
+
+  /**
+   * Passes to a consumer the results of some selected objects, in order.
+   *
+   * @param sources  A {@code List<Object>} with the selected objects.
+   * @param pool     A ForkJoinPool with the pool used to populate the
+   *                 results, or null to populate them serially.
+   * @param consumer A ResultConsumer with the consumer of the results.
+   * @return an int with the number of results passed to the consumer.
+   * @throws IOException if the consumer cannot accept a result.
+   */
+  private int send(List<Object> sources, ForkJoinPool pool,
+      ResultConsumer consumer) throws IOException {
+    // Each result is stored in the position of its object.
+    Object[] results = new Object[sources.size()];
+    forEachIndex(results.length, i -> results[i] = project(sources.get(i)),
+        pool);
+
+    for (Object result : results) {
+      consumer.accept(result);
+    }
+
+    return results.length;
+  }
+
+  /**
+   * Performs an action for each index in a range, in parallel in a pool, if
+   * given.
+   *
+   * @param count  An int with the number of indices.
+   * @param action An IntConsumer with the action.
+   * @param pool   A ForkJoinPool with the pool, or null for serial
+   *               execution.
+   */
+  private void forEachIndex(int count, IntConsumer action,
+      ForkJoinPool pool) {
+    if (pool == null) {
+      for (int i = 0; i < count; i++) {
+        action.accept(i);
+      }
+
+      return;
+    }
+
+    try {
+      pool.submit(() -> IntStream.range(0, count).parallel().forEach(action))
+      .get();
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted executing query '" + query
+          + "'", ie);
+    } catch (ExecutionException ee) {
+      Throwable cause = ee.getCause();
+
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      }
+
+      if (cause instanceof Error) {
+        throw (Error)cause;
+      }
+
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * Provides the result of an object selected by this query.
+   *
+   * @param source An Object with the selected object.
+   * @return an Object with the result.
+   */
+  private Object project(Object source) {
+    try {
+      Object result = resultConstructor.invoke();
+
+      for (Projection projection : projections) {
+        projection.mutator.invokeExact(result,
+            projection.accessor.apply(source));
+      }
+
+      return result;
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new IllegalStateException(t);
+    }
+  }
+
+  /**
+   * Provides an accessor that invokes an adapted accessor method handle.
+   *
+   * @param getter A MethodHandle with the accessor method handle.
+   * @return a {@code Function<Object, Object>} with the accessor.
+   */
+  private static Function<Object, Object> toAccessor(MethodHandle getter) {
+    return source -> {
+      try {
+        return getter.invokeExact(source);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new IllegalStateException(t);
+      }
+    };
+  }
+
+  /**
+   * The consumer of the results of a query.
+   */
+  @FunctionalInterface
+  public interface ResultConsumer {
+    /**
+     * Accepts a result.
+     *
+     * @param result An Object with the result.
+     * @throws IOException if the result cannot be accepted.
+     */
+    void accept(Object result) throws IOException;
+  }
+
+  /**
+   * A property copied from a queried object to its result.
+   */
+  private static class Projection {
+    private final Function<Object, Object> accessor;
+    private final MethodHandle mutator;
+
+    private Projection(Function<Object, Object> accessor,
+        MethodHandle mutator) {
+      this.accessor = accessor;
+      this.mutator = mutator;
+    }
+  }
+
+  /**
+   * Thrown when a query cannot be compiled.
+   */
+  @SuppressWarnings("serial")
+  private static class UnsupportedQueryException extends Exception {
+    private UnsupportedQueryException(String message) {
+      super(message);
+    }
+  }
+
+  /**
+   * The kinds of query tokens.
+   */
+  private enum TokenType {IDENTIFIER, STRING, NUMBER, SYMBOL, END}
+
+  /**
+   * A query token.
+   */
+  private static class Token {
+    private final TokenType type;
+    private final String text;
+
+    private Token(TokenType type, String text) {
+      this.type = type;
+      this.text = text;
+    }
+
+    private boolean isKeyword(String keyword) {
+      return type == TokenType.IDENTIFIER && text.equalsIgnoreCase(keyword);
+    }
+
+    private boolean isSymbol(String symbol) {
+      return type == TokenType.SYMBOL && text.equals(symbol);
+    }
+  }
+
+  /**
+   * The compiler of a query, by recursive descent.
+   */
+  private static class Compiler {
+    private final String query;
+    private final Class<?> sourceClass;
+    private final Set<String> propertyNames;
+    private final Class<?> resultClass;
+    private final List<Token> tokens;
+    private int position = 0;
+
+    private Compiler(String query, Class<?> sourceClass,
+        Set<String> propertyNames, Class<?> resultClass)
+        throws UnsupportedQueryException {
+      this.query = query;
+      this.sourceClass = sourceClass;
+      this.propertyNames = propertyNames;
+      this.resultClass = resultClass;
+      this.tokens = tokenize(query);
+    }
+
+    /**
+     * Compiles the query.
+     *
+     * @return a CompiledWsQuery with the compiled query.
+     * @throws UnsupportedQueryException if the query cannot be compiled.
+     */
+    private CompiledWsQuery compile() throws UnsupportedQueryException {
+      expectKeyword("select");
+      List<Projection> projections = compileSelect();
+      Predicate<Object> where = null;
+      Comparator<Object> orderBy = null;
+
+      Map<String, String> equalities = Collections.emptyMap();
+
+      if (peek().isKeyword("where")) {
+        next();
+        int whereStart = position;
+        where = compileOr();
+        equalities = findEqualities(whereStart, position);
+      }
+
+      if (peek().isKeyword("order")) {
+        next();
+        expectKeyword("by");
+        orderBy = compileOrderBy();
+      }
+
+      if (peek().type != TokenType.END) {
+        throw new UnsupportedQueryException("Unexpected '" + peek().text
+            + "'");
+      }
+
+      MethodHandle constructor;
+
+      try {
+        constructor = LOOKUP.findConstructor(resultClass,
+            MethodType.methodType(void.class));
+      } catch (ReflectiveOperationException roe) {
+        throw new UnsupportedQueryException("No public constructor in "
+            + resultClass.getName());
+      }
+
+      return new CompiledWsQuery(query, constructor, projections, where,
+          orderBy, equalities);
+    }
+
+    /**
+     * Provides the comparisons of a property with a text constant that an
+     * object must satisfy to satisfy a WHERE clause, that is, those at the
+     * top level of a WHERE clause without a top-level <code>OR</code>.
+     *
+     * @param start An int with the position of the first token of the WHERE
+     *              clause.
+     * @param end   An int with the position after the last token of the
+     *              WHERE clause.
+     * @return a {@code Map<String, String>} with the text constant of each
+     *         property.
+     */
+    private Map<String, String> findEqualities(int start, int end) {
+      Map<String, String> equalities = new HashMap<>();
+      int depth = 0;
+
+      for (int i = start; i < end; i++) {
+        Token token = tokens.get(i);
+
+        if (token.isSymbol("(")) {
+          depth++;
+        } else if (token.isSymbol(")")) {
+          depth--;
+        } else if (depth == 0 && token.isKeyword("or")) {
+          return Collections.emptyMap();
+        } else if (depth == 0 && token.type == TokenType.IDENTIFIER
+            && propertyNames.contains(token.text) && i + 2 < end
+            && tokens.get(i + 1).isSymbol("=")
+            && tokens.get(i + 2).type == TokenType.STRING
+            && (i == start || tokens.get(i - 1).isKeyword("and"))) {
+          equalities.putIfAbsent(token.text, tokens.get(i + 2).text);
+        }
+      }
+
+      return equalities;
+    }
+
+    /**
+     * Compiles the list of properties of the SELECT clause.
+     */
+    private List<Projection> compileSelect() throws UnsupportedQueryException {
+      Set<String> selected;
+
+      if (peek().isSymbol("*")) {
+        next();
+        selected = new TreeSet<>(propertyNames);
+      } else {
+        selected = new TreeSet<>();
+        selected.add(expectProperty());
+
+        while (peek().isSymbol(",")) {
+          next();
+          selected.add(expectProperty());
+        }
+      }
+
+      List<Projection> projections = new ArrayList<>(selected.size());
+
+      for (String property : selected) {
+        Method getter = findGetter(property);
+        projections.add(new Projection(toAccessor(adapt(getter)),
+            findSetter(property, getter.getReturnType())));
+      }
+
+      return projections;
+    }
+
+    /**
+     * Compiles a disjunction of conditions.
+     */
+    private Predicate<Object> compileOr() throws UnsupportedQueryException {
+      Predicate<Object> predicate = compileAnd();
+
+      while (peek().isKeyword("or")) {
+        next();
+        predicate = predicate.or(compileAnd());
+      }
+
+      return predicate;
+    }
+
+    /**
+     * Compiles a conjunction of conditions.
+     */
+    private Predicate<Object> compileAnd() throws UnsupportedQueryException {
+      Predicate<Object> predicate = compileNot();
+
+      while (peek().isKeyword("and")) {
+        next();
+        predicate = predicate.and(compileNot());
+      }
+
+      return predicate;
+    }
+
+    /**
+     * Compiles a possibly negated condition.
+     */
+    private Predicate<Object> compileNot() throws UnsupportedQueryException {
+      if (peek().isKeyword("not")) {
+        next();
+        return compileNot().negate();
+      }
+
+      if (peek().isSymbol("(")) {
+        next();
+        Predicate<Object> predicate = compileOr();
+        expectSymbol(")");
+        return predicate;
+      }
+
+      return compileComparison();
+    }
+
+    /**
+     * Compiles the comparison of a property with a constant.
+     */
+    private Predicate<Object> compileComparison()
+        throws UnsupportedQueryException {
+      String property = expectProperty();
+      Method getter = findGetter(property);
+      Class<?> type = getter.getReturnType();
+      Function<Object, Object> accessor = toAccessor(adapt(getter));
+      Token token = next();
+
+      if (token.isKeyword("is")) {
+        boolean negated = false;
+
+        if (peek().isKeyword("not")) {
+          next();
+          negated = true;
+        }
+
+        expectKeyword("null");
+        Predicate<Object> isNull = source -> accessor.apply(source) == null;
+        return negated ? isNull.negate() : isNull;
+      }
+
+      if (token.isKeyword("not") || token.isKeyword("like")) {
+        boolean negated = token.isKeyword("not");
+
+        if (negated) {
+          expectKeyword("like");
+        }
+
+        if (type != String.class) {
+          throw new UnsupportedQueryException("LIKE on non-text property '"
+              + property + "'");
+        }
+
+        Pattern pattern = toPattern(expect(TokenType.STRING).text);
+        Predicate<Object> like = source -> {
+          Object value = accessor.apply(source);
+          return value != null && pattern.matcher((String)value).matches();
+        };
+
+        return negated
+            ? source -> accessor.apply(source) != null && !like.test(source)
+            : like;
+      }
+
+      if (token.type != TokenType.SYMBOL) {
+        throw new UnsupportedQueryException("Unexpected '" + token.text
+            + "'");
+      }
+
+      String operator = token.text;
+      Object constant = compileConstant(property, type);
+
+      switch (operator) {
+        case "=":
+          return source -> equal(accessor.apply(source), constant);
+        case "!=":
+        case "<>":
+          return source -> !equal(accessor.apply(source), constant);
+        case "<":
+          requireOrderable(property, type, constant);
+          return ordering(accessor, constant, result -> result < 0);
+        case "<=":
+          requireOrderable(property, type, constant);
+          return ordering(accessor, constant, result -> result <= 0);
+        case ">":
+          requireOrderable(property, type, constant);
+          return ordering(accessor, constant, result -> result > 0);
+        case ">=":
+          requireOrderable(property, type, constant);
+          return ordering(accessor, constant, result -> result >= 0);
+        default:
+          throw new UnsupportedQueryException("Unsupported operator '"
+              + operator + "'");
+      }
+    }
+
+    /**
+     * Compiles a constant compared with a property of a given type.
+     */
+    private Object compileConstant(String property, Class<?> type)
+        throws UnsupportedQueryException {
+      Token token = next();
+
+      if (token.isKeyword("null")) {
+        return null;
+      }
+
+      if (type == String.class && token.type == TokenType.STRING) {
+        return token.text;
+      }
+
+      if (isNumeric(type) && token.type == TokenType.NUMBER) {
+        return toNumber(token.text);
+      }
+
+      if ((type == Boolean.class || type == boolean.class)
+          && (token.isKeyword("true") || token.isKeyword("false"))) {
+        return Boolean.valueOf(token.text.toLowerCase(Locale.ROOT));
+      }
+
+      throw new UnsupportedQueryException("Cannot compare property '"
+          + property + "' of type " + type.getSimpleName() + " with '"
+          + token.text + "'");
+    }
+
+    /**
+     * Compiles the list of properties of the ORDER BY clause.
+     */
+    private Comparator<Object> compileOrderBy()
+        throws UnsupportedQueryException {
+      Comparator<Object> comparator = null;
+
+      do {
+        if (comparator != null) {
+          next();
+        }
+
+        String property = expectProperty();
+        Method getter = findGetter(property);
+        Class<?> type = getter.getReturnType();
+
+        if (type != String.class && !isNumeric(type)
+            && type != Boolean.class && type != boolean.class) {
+          throw new UnsupportedQueryException("Cannot order by property '"
+              + property + "'");
+        }
+
+        Function<Object, Object> accessor = toAccessor(adapt(getter));
+        Comparator<Object> propertyComparator =
+            (o1, o2) -> compare(accessor.apply(o1), accessor.apply(o2));
+
+        if (peek().isKeyword("desc")) {
+          next();
+          propertyComparator = propertyComparator.reversed();
+        } else if (peek().isKeyword("asc")) {
+          next();
+        }
+
+        comparator = comparator == null ? propertyComparator
+            : comparator.thenComparing(propertyComparator);
+      } while (peek().isSymbol(","));
+
+      return comparator;
+    }
+
+    /**
+     * Provides the public accessor method of a property.
+     */
+    private Method findGetter(String property)
+        throws UnsupportedQueryException {
+      try {
+        Method getter = sourceClass.getMethod("get" + capitalize(property));
+
+        if (getter.getReturnType() == void.class
+            || Modifier.isStatic(getter.getModifiers())) {
+          throw new UnsupportedQueryException("No accessor for property '"
+              + property + "'");
+        }
+
+        return getter;
+      } catch (NoSuchMethodException nsme) {
+        throw new UnsupportedQueryException("No accessor for property '"
+            + property + "'");
+      }
+    }
+
+    /**
+     * Provides the adapted method handle of the public mutator method of a
+     * property of the results.
+     */
+    private MethodHandle findSetter(String property, Class<?> type)
+        throws UnsupportedQueryException {
+      String name = "set" + capitalize(property);
+
+      for (Method method : resultClass.getMethods()) {
+        if (method.getName().equals(name) && method.getParameterCount() == 1
+            && !Modifier.isStatic(method.getModifiers())
+            && method.getParameterTypes()[0].isAssignableFrom(type)) {
+          try {
+            return LOOKUP.unreflect(method).asType(MUTATOR_TYPE);
+          } catch (IllegalAccessException iae) {
+            break;
+          }
+        }
+      }
+
+      throw new UnsupportedQueryException("No mutator for property '"
+          + property + "'");
+    }
+
+    /**
+     * Provides the adapted method handle of an accessor method.
+     */
+    private MethodHandle adapt(Method getter)
+        throws UnsupportedQueryException {
+      try {
+        return LOOKUP.unreflect(getter).asType(ACCESSOR_TYPE);
+      } catch (IllegalAccessException iae) {
+        throw new UnsupportedQueryException("Inaccessible accessor "
+            + getter.getName());
+      }
+    }
+
+    private void requireOrderable(String property, Class<?> type,
+        Object constant) throws UnsupportedQueryException {
+      if (constant == null || type == Boolean.class || type == boolean.class) {
+        throw new UnsupportedQueryException("Cannot order property '"
+            + property + "'");
+      }
+    }
+
+    private String expectProperty() throws UnsupportedQueryException {
+      Token token = expect(TokenType.IDENTIFIER);
+
+      if (!propertyNames.contains(token.text)) {
+        throw new UnsupportedQueryException("Unknown property '" + token.text
+            + "'");
+      }
+
+      return token.text;
+    }
+
+    private void expectKeyword(String keyword)
+        throws UnsupportedQueryException {
+      if (!next().isKeyword(keyword)) {
+        throw new UnsupportedQueryException("Expected '" + keyword + "'");
+      }
+    }
+
+    private void expectSymbol(String symbol)
+        throws UnsupportedQueryException {
+      if (!next().isSymbol(symbol)) {
+        throw new UnsupportedQueryException("Expected '" + symbol + "'");
+      }
+    }
+
+    private Token expect(TokenType type) throws UnsupportedQueryException {
+      Token token = next();
+
+      if (token.type != type) {
+        throw new UnsupportedQueryException("Expected " + type + " instead of '"
+            + token.text + "'");
+      }
+
+      return token;
+    }
+
+    private Token peek() {
+      return tokens.get(position);
+    }
+
+    private Token next() {
+      Token token = tokens.get(position);
+
+      if (token.type != TokenType.END) {
+        position++;
+      }
+
+      return token;
+    }
+  }
+
+  /**
+   * Splits a query into tokens.
+   *
+   * @param query A String with the query.
+   * @return a {@code List<Token>} with the tokens, ending with an END token.
+   * @throws UnsupportedQueryException if the query contains characters
+   *                                   outside of the supported syntax.
+   */
+  private static List<Token> tokenize(String query)
+      throws UnsupportedQueryException {
+    List<Token> tokens = new ArrayList<>();
+    int length = query.length();
+    int i = 0;
+
+    while (i < length) {
+      char c = query.charAt(i);
+
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (Character.isLetter(c) || c == '_') {
+        int start = i;
+
+        while (i < length && (Character.isLetterOrDigit(query.charAt(i))
+            || query.charAt(i) == '_')) {
+          i++;
+        }
+
+        tokens.add(new Token(TokenType.IDENTIFIER, query.substring(start, i)));
+      } else if (Character.isDigit(c) || (c == '-' && i + 1 < length
+          && Character.isDigit(query.charAt(i + 1)))) {
+        int start = i++;
+
+        while (i < length && (Character.isDigit(query.charAt(i))
+            || query.charAt(i) == '.')) {
+          i++;
+        }
+
+        String number = query.substring(start, i);
+
+        try {
+          toNumber(number);
+        } catch (NumberFormatException nfe) {
+          throw new UnsupportedQueryException("Invalid number '" + number
+              + "'");
+        }
+
+        tokens.add(new Token(TokenType.NUMBER, number));
+      } else if (c == '\'') {
+        int end = query.indexOf('\'', i + 1);
+
+        // Quotes within text constants are left to JoSQL.
+        if (end < 0 || (end + 1 < length && query.charAt(end + 1) == '\'')) {
+          throw new UnsupportedQueryException("Unsupported text constant");
+        }
+
+        tokens.add(new Token(TokenType.STRING, query.substring(i + 1, end)));
+        i = end + 1;
+      } else if ((c == '!' || c == '<' || c == '>') && i + 1 < length
+          && (query.charAt(i + 1) == '=' || (c == '<'
+          && query.charAt(i + 1) == '>'))) {
+        tokens.add(new Token(TokenType.SYMBOL, query.substring(i, i + 2)));
+        i += 2;
+      } else if ("=<>(),*".indexOf(c) >= 0) {
+        tokens.add(new Token(TokenType.SYMBOL, String.valueOf(c)));
+        i++;
+      } else {
+        throw new UnsupportedQueryException("Unsupported character '" + c
+            + "'");
+      }
+    }
+
+    tokens.add(new Token(TokenType.END, ""));
+    return tokens;
+  }
+
+  /**
+   * Provides the regular expression equivalent to a LIKE pattern, where
+   * <code>%</code> matches any sequence of characters and <code>_</code>
+   * matches any single character.
+   *
+   * @param like A String with the LIKE pattern.
+   * @return a Pattern with the regular expression.
+   */
+  static Pattern toPattern(String like) {
+    StringBuilder regex = new StringBuilder();
+    StringBuilder literal = new StringBuilder();
+
+    for (char c : like.toCharArray()) {
+      if (c == '%' || c == '_') {
+        if (literal.length() > 0) {
+          regex.append(Pattern.quote(literal.toString()));
+          literal.setLength(0);
+        }
+
+        regex.append(c == '%' ? ".*" : ".");
+      } else {
+        literal.append(c);
+      }
+    }
+
+    if (literal.length() > 0) {
+      regex.append(Pattern.quote(literal.toString()));
+    }
+
+    return Pattern.compile(regex.toString(), Pattern.DOTALL);
+  }
+
+  /**
+   * Provides the numeric value of a number constant.
+   *
+   * @param number A String with the number constant.
+   * @return a Number with the value, a Long if it is integral and a Double
+   *         otherwise.
+   * @throws NumberFormatException if the number constant is not valid.
+   */
+  private static Number toNumber(String number) {
+    try {
+      return Long.valueOf(number);
+    } catch (NumberFormatException nfe) {
+      return Double.valueOf(number);
+    }
+  }
+
+  /**
+   * Provides an indication of whether two values are equal, comparing
+   * numbers by their numeric value.
+   */
+  private static boolean equal(Object value, Object constant) {
+    if (value == null || constant == null) {
+      return value == constant;
+    }
+
+    if (constant instanceof Number) {
+      return compare(value, constant) == 0;
+    }
+
+    return value.equals(constant);
+  }
+
+  /**
+   * Provides the predicate that compares the value of a property with a
+   * constant, never satisfied by a null value.
+   *
+   * @param accessor A {@code Function<Object, Object>} with the accessor of
+   *                 the property.
+   * @param constant An Object with the constant.
+   * @param test     An IntPredicate with the test of the result of the
+   *                 comparison.
+   * @return a {@code Predicate<Object>} with the predicate.
+   */
+  private static Predicate<Object> ordering(
+      Function<Object, Object> accessor, Object constant, IntPredicate test) {
+    return source -> {
+      Object value = accessor.apply(source);
+      return value != null && test.test(compare(value, constant));
+    };
+  }
+
+  /**
+   * Compares two values, with null values first and numbers compared by
+   * their numeric value.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static int compare(Object o1, Object o2) {
+    if (o1 == null || o2 == null) {
+      return o1 == null ? (o2 == null ? 0 : -1) : 1;
+    }
+
+    if (o1 instanceof Number && o2 instanceof Number) {
+      if (isIntegral((Number)o1) && isIntegral((Number)o2)) {
+        return Long.compare(((Number)o1).longValue(),
+            ((Number)o2).longValue());
+      }
+
+      return Double.compare(((Number)o1).doubleValue(),
+          ((Number)o2).doubleValue());
+    }
+
+    return ((Comparable)o1).compareTo(o2);
+  }
+
+  private static boolean isIntegral(Number number) {
+    return number instanceof Long || number instanceof Integer
+        || number instanceof Short || number instanceof Byte;
+  }
+
+  private static boolean isNumeric(Class<?> type) {
+    return Number.class.isAssignableFrom(type) || type == int.class
+        || type == long.class || type == double.class || type == float.class
+        || type == short.class || type == byte.class;
+  }
+
+  private static String capitalize(String property) {
+    return Character.toUpperCase(property.charAt(0)) + property.substring(1);
+  }
+}
@@ -48,11 +48,13 @@ import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.zip.CRC32;
 import org.lockss.alert.AlertManagerImpl;
 import org.lockss.app.LockssDaemon;
 import org.lockss.config.ConfigManager;
@@ -66,6 +68,9 @@ import org.lockss.spring.base.*;
 import org.lockss.laaws.config.api.ConfigApiDelegate;
 import org.lockss.util.rest.repo.util.NamedInputStreamResource;
 import org.lockss.log.L4JLogger;
+import org.lockss.proxy.ProxyManager;
+import org.lockss.servlet.AdminServletManager;
+import org.lockss.servlet.BaseServletManager;
 import org.lockss.spring.error.LockssRestServiceException;
 import org.lockss.util.AccessType;
 import org.lockss.util.BuildInfo;
@@ -140,9 +145,36 @@ public class ConfigApiServiceImpl
 
   private static final String BUILD_TIMESTAMP_FORMAT = "dd-MMM-yy HH:mm:ss zzz";
 
+  // The configuration parameters of the IP access lists.
+  static final String PARAM_UI_IP_ACCESS_PREFIX =
+      AdminServletManager.IP_ACCESS_PREFIX;
+  static final String PARAM_PROXY_IP_ACCESS_PREFIX =
+      ProxyManager.IP_ACCESS_PREFIX;
+  static final String SUFFIX_IP_INCLUDE = BaseServletManager.SUFFIX_IP_INCLUDE;
+  static final String SUFFIX_IP_EXCLUDE = BaseServletManager.SUFFIX_IP_EXCLUDE;
+
+  // The map of the configuration parameter prefixes of the IP access lists by
+  // the name of the section that contains them.
+  @SuppressWarnings("serial")
+  private static final Map<String, String> ipAccessSectionMap =
+      new HashMap<String, String>() {{
+	put(SECTION_NAME_UI_IP_ACCESS, PARAM_UI_IP_ACCESS_PREFIX);
+	put(SECTION_NAME_PROXY_IP_ACCESS, PARAM_PROXY_IP_ACCESS_PREFIX);
+      }
+  };
+
   // The map of read-only configuration file sections.
   private Map<String, String> configReadOnlySectionMap = null;
 
+  // The cached part of the platform configuration.
+  private volatile PlatformConfigSnapshot platformConfigSnapshot = null;
+
+  // The parsed build timestamp.
+  private volatile Long buildTimestamp = null;
+
+  // The compiled IP access lists.
+  private volatile IpAccessSnapshot ipAccessSnapshot = null;
+
   /**
    * Provides the configuration file for a section given the section name.
    *
@@ -557,83 +589,369 @@ public class ConfigApiServiceImpl
 					HttpStatus.SERVICE_UNAVAILABLE);
     }
 
-    PlatformConfigurationWsResult result = new PlatformConfigurationWsResult();
-
     try {
+      // Start from a copy of the part of the platform configuration that only
+      // changes when the configuration does.
+      PlatformConfigurationWsResult result =
+	  copyPlatformConfig(getPlatformConfigSnapshot());
+
+      // Add the part that changes with every request.
       LockssDaemon theDaemon = LockssDaemon.getLockssDaemon();
-      Configuration config = ConfigManager.getCurrentConfig();
+      result.setCurrentTime(TimeBase.nowMs());
+      result.setUptime(TimeBase.msSince(theDaemon.getStartDate().getTime()));
+
+      log.debug2("result = {}", result);
+      return new ResponseEntity<PlatformConfigurationWsResult>(result,
+	    HttpStatus.OK);
+    } catch (Exception e) {
+      String message = "Cannot getPlatformConfig()";
+      log.error(message, e);
+      return new ResponseEntity<Void>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Provides the part of the platform configuration that does not change
+   * between configuration loads, rebuilding it if the configuration has
+   * changed since it was last built.
+   *
+   * @return a PlatformConfigurationWsResult with the cached part of the
+   *         platform configuration. It must not be modified.
+   * @throws ParseException if there are problems parsing the build timestamp.
+   */
+  PlatformConfigurationWsResult getPlatformConfigSnapshot()
+      throws ParseException {
+    Configuration config = ConfigManager.getCurrentConfig();
+    PlatformConfigSnapshot snapshot = platformConfigSnapshot;
+
+    // Check whether the cached snapshot was built from the current
+    // configuration.
+    if (snapshot != null && snapshot.config == config) {
+      // Yes: Use it.
+      return snapshot.result;
+    }
+
+    // No: Rebuild it. Concurrent requests may both do so, but the results are
+    // equivalent and the last one wins.
+    snapshot =
+	new PlatformConfigSnapshot(config, buildPlatformConfigSnapshot(config));
+    platformConfigSnapshot = snapshot;
+    log.debug2("Rebuilt platform configuration snapshot");
+
+    return snapshot.result;
+  }
+
+  /**
+   * Builds the part of the platform configuration that does not change
+   * between configuration loads.
+   *
+   * @param config
+   *          A Configuration with the configuration to be used.
+   * @return a PlatformConfigurationWsResult with the part of the platform
+   *         configuration that does not change between configuration loads.
+   * @throws ParseException if there are problems parsing the build timestamp.
+   */
+  private PlatformConfigurationWsResult buildPlatformConfigSnapshot(
+      Configuration config) throws ParseException {
+    PlatformConfigurationWsResult result = new PlatformConfigurationWsResult();
+
+    result.setHostName(config.get(PARAM_PLATFORM_FQDN));
+
+    result.setIpAddress(config.get(PARAM_PLATFORM_IP_ADDRESS));
+
+    result.setGroups(unmodifiableCopy(config.getPlatformGroupList()));
+    result.setProject(config.get(PARAM_PLATFORM_PROJECT));
+    result.setV3Identity(config.get(PARAM_PLATFORM_LOCAL_V3_IDENTITY));
+
+    String smtpHost = config.get(PARAM_PLATFORM_SMTP_HOST);
+
+    if (smtpHost != null) {
+      int smtpPort = config.getInt(PARAM_PLATFORM_SMTP_PORT,
+	  org.lockss.mail.SmtpMailService.DEFAULT_SMTPPORT);
+      result.setMailRelay(smtpHost + ":" + smtpPort);
+    }
 
-      result.setHostName(config.get(PARAM_PLATFORM_FQDN));
+    result.setAdminEmail(config.get(PARAM_PLATFORM_ADMIN_EMAIL));
+    result.setDisks(
+	unmodifiableCopy(config.getList(PARAM_PLATFORM_DISK_SPACE_LIST)));
 
-      result.setIpAddress(config.get(PARAM_PLATFORM_IP_ADDRESS));
+    DaemonVersion daemonVersion = ConfigManager.getDaemonVersion();
+    DaemonVersionWsResult daemonVersionResult = new DaemonVersionWsResult();
 
-      result.setGroups((List<String>)(config.getPlatformGroupList()));
-      result.setProject(config.get(PARAM_PLATFORM_PROJECT));
-      result.setV3Identity(config.get(PARAM_PLATFORM_LOCAL_V3_IDENTITY));
+    daemonVersionResult.setFullVersion(daemonVersion.displayString());
+    daemonVersionResult.setMajorVersion(daemonVersion.getMajorVersion());
+    daemonVersionResult.setMinorVersion(daemonVersion.getMinorVersion());
+    daemonVersionResult.setBuildVersion(daemonVersion.getBuildVersion());
 
-      String smtpHost = config.get(PARAM_PLATFORM_SMTP_HOST);
+    result.setDaemonVersion(daemonVersionResult);
+
+    JavaVersionWsResult javaVersionResult = new JavaVersionWsResult();
+
+    Properties sprops = System.getProperties();
+    javaVersionResult.setVersion(sprops.getProperty("java.version"));
+    javaVersionResult.setSpecificationVersion(
+	sprops.getProperty("java.specification.version"));
+    javaVersionResult.setRuntimeVersion(
+	sprops.getProperty("java.runtime.version"));
+    javaVersionResult.setRuntimeName(sprops.getProperty("java.runtime.name"));
+
+    result.setJavaVersion(javaVersionResult);
+
+    PlatformVersion platformVersion = Configuration.getPlatformVersion();
+    PlatformWsResult platform = new PlatformWsResult();
+
+    if (platformVersion != null) {
+      platform.setName(platformVersion.getName());
+      platform.setVersion(platformVersion.getVersion());
+      platform.setSuffix(platformVersion.getSuffix());
+      result.setPlatform(platform);
+    }
+
+    result.setCurrentWorkingDirectory(PlatformUtil.getCwd());
+
+    result.setProperties(unmodifiableCopy(
+	ConfigManager.getConfigManager().getConfigUrlList()));
+
+    result.setBuildHost(BuildInfo.getBuildProperty(BUILD_HOST));
+    result.setBuildTimestamp(getBuildTimestamp());
+
+    return result;
+  }
+
+  /**
+   * Provides a shallow copy of a platform configuration, suitable for adding
+   * the parts that change with every request.
+   *
+   * @param source
+   *          A PlatformConfigurationWsResult with the platform configuration
+   *          to be copied.
+   * @return a PlatformConfigurationWsResult with the copy.
+   */
+  private PlatformConfigurationWsResult copyPlatformConfig(
+      PlatformConfigurationWsResult source) {
+    PlatformConfigurationWsResult result = new PlatformConfigurationWsResult();
+
+    result.setHostName(source.getHostName());
+    result.setIpAddress(source.getIpAddress());
+    result.setGroups(source.getGroups());
+    result.setProject(source.getProject());
+    result.setV3Identity(source.getV3Identity());
+    result.setMailRelay(source.getMailRelay());
+    result.setAdminEmail(source.getAdminEmail());
+    result.setDisks(source.getDisks());
+    result.setDaemonVersion(source.getDaemonVersion());
+    result.setJavaVersion(source.getJavaVersion());
+    result.setPlatform(source.getPlatform());
+    result.setCurrentWorkingDirectory(source.getCurrentWorkingDirectory());
+    result.setProperties(source.getProperties());
+    result.setBuildHost(source.getBuildHost());
+    result.setBuildTimestamp(source.getBuildTimestamp());
+
+    return result;
+  }
+
+  /**
+   * Provides an unmodifiable copy of a list of strings.
+   *
+   * @param list
+   *          A List with the strings to be copied.
+   * @return a {@code List<String>} with the copy, or null if the passed list
+   *         is null.
+   */
+  private static List<String> unmodifiableCopy(List<?> list) {
+    if (list == null) {
+      return null;
+    }
+
+    List<String> copy = new ArrayList<>(list.size());
+
+    for (Object item : list) {
+      copy.add((String)item);
+    }
+
+    return Collections.unmodifiableList(copy);
+  }
+
+  /**
+   * Provides the IP access list of a section compiled into a binary CIDR
+   * radix trie.
+   *
+   * @param sectionName
+   *          A String with the section name.
+   * @param ifNoneMatch
+   *          A String with the "If-None-Match" request header.
+   * @return a {@code ResponseEntity<byte[]>} with the serialized trie, as
+   *         described in {@link IpAccessTrie#toBytes()}.
+   */
+  @Override
+  public ResponseEntity getIpAccessTrie(String sectionName,
+      String ifNoneMatch) {
+    log.debug2("sectionName = {}", () -> sectionName);
+    log.debug2("ifNoneMatch = {}", () -> ifNoneMatch);
+
+    if (!waitConfig()) {
+      return new ResponseEntity<String>("Not Ready",
+					HttpStatus.SERVICE_UNAVAILABLE);
+    }
 
-      if (smtpHost != null) {
-	int smtpPort = config.getInt(PARAM_PLATFORM_SMTP_PORT,
-	    org.lockss.mail.SmtpMailService.DEFAULT_SMTPPORT);
-	result.setMailRelay(smtpHost + ":" + smtpPort);
+    // Check for required role.
+    try {
+      AuthUtil.checkHasRole(Roles.ROLE_USER_ADMIN);
+    } catch (AccessControlException ace) {
+      log.warn(ace.getMessage());
+      return new ResponseEntity<Void>(HttpStatus.FORBIDDEN);
+    }
+
+    try {
+      CompiledIpAccess compiled = getCompiledIpAccess(sectionName);
+
+      if (compiled == null) {
+	String message = "Invalid sectionName '" + sectionName + "'";
+	log.warn(message);
+	return new ResponseEntity<String>(message, HttpStatus.BAD_REQUEST);
       }
 
-      result.setAdminEmail(config.get(PARAM_PLATFORM_ADMIN_EMAIL));
-      result.setDisks((List<String>)
-	  (config.getList(PARAM_PLATFORM_DISK_SPACE_LIST)));
+      HttpHeaders responseHeaders = new HttpHeaders();
+      setETag(responseHeaders, compiled.etag);
 
-      result.setCurrentTime(TimeBase.nowMs());
-      result.setUptime(TimeBase.msSince(theDaemon.getStartDate().getTime()));
+      // Check whether the client already has this version.
+      if (ifNoneMatch != null && (ifNoneMatch.trim().equals("*")
+	  || StringUtil.breakAt(ifNoneMatch, ",", true)
+	  .contains(compiled.etag))) {
+	// Yes: Return no content, just a Not-Modified status.
+	return new ResponseEntity<Void>(null, responseHeaders,
+	    HttpStatus.NOT_MODIFIED);
+      }
 
-      DaemonVersion daemonVersion = ConfigManager.getDaemonVersion();
-      DaemonVersionWsResult daemonVersionResult = new DaemonVersionWsResult();
+      responseHeaders.setContentType(
+	  MediaType.parseMediaType(IpAccessTrie.MEDIA_TYPE));
+      responseHeaders.setContentLength(compiled.bytes.length);
+      log.trace("responseHeaders = {}", () -> responseHeaders);
 
-      daemonVersionResult.setFullVersion(daemonVersion.displayString());
-      daemonVersionResult.setMajorVersion(daemonVersion.getMajorVersion());
-      daemonVersionResult.setMinorVersion(daemonVersion.getMinorVersion());
-      daemonVersionResult.setBuildVersion(daemonVersion.getBuildVersion());
+      return new ResponseEntity<byte[]>(compiled.bytes, responseHeaders,
+	  HttpStatus.OK);
+    } catch (Exception e) {
+      String message =
+	  "Cannot getIpAccessTrie() for sectionName = '" + sectionName + "'";
+      log.error(message, e);
+      return new ResponseEntity<String>(message,
+	  HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
 
-      result.setDaemonVersion(daemonVersionResult);
+  /**
+   * Checks whether an IP address is allowed by the IP access list of a
+   * section.
+   *
+   * @param ip
+   *          A String with the numeric IP address to be checked.
+   * @param sectionName
+   *          A String with the section name, or null for the user interface
+   *          IP access list.
+   * @return a {@code ResponseEntity<Map<String, Object>>} with the result of
+   *         the check.
+   */
+  @Override
+  public ResponseEntity getIpAccessCheck(String ip, String sectionName) {
+    log.debug2("ip = {}", () -> ip);
+    log.debug2("sectionName = {}", () -> sectionName);
 
-      JavaVersionWsResult javaVersionResult = new JavaVersionWsResult();
+    if (!waitConfig()) {
+      return new ResponseEntity<String>("Not Ready",
+					HttpStatus.SERVICE_UNAVAILABLE);
+    }
 
-      Properties sprops = System.getProperties();
-      javaVersionResult.setVersion(sprops.getProperty("java.version"));
-      javaVersionResult.setSpecificationVersion(
-	  sprops.getProperty("java.specification.version"));
-      javaVersionResult.setRuntimeVersion(
-	  sprops.getProperty("java.runtime.version"));
-      javaVersionResult.setRuntimeName(sprops.getProperty("java.runtime.name"));
+    // Check for required role.
+    try {
+      AuthUtil.checkHasRole(Roles.ROLE_USER_ADMIN);
+    } catch (AccessControlException ace) {
+      log.warn(ace.getMessage());
+      return new ResponseEntity<Void>(HttpStatus.FORBIDDEN);
+    }
 
-      result.setJavaVersion(javaVersionResult);
+    String section = StringUtil.isNullString(sectionName)
+	? SECTION_NAME_UI_IP_ACCESS : sectionName;
 
-      PlatformVersion platformVersion = Configuration.getPlatformVersion();
-      PlatformWsResult platform = new PlatformWsResult();
+    try {
+      CompiledIpAccess compiled = getCompiledIpAccess(section);
 
-      if (platformVersion != null) {
-	platform.setName(platformVersion.getName());
-	platform.setVersion(platformVersion.getVersion());
-	platform.setSuffix(platformVersion.getSuffix());
-	result.setPlatform(platform);
+      if (compiled == null) {
+	String message = "Invalid sectionName '" + sectionName + "'";
+	log.warn(message);
+	return new ResponseEntity<String>(message, HttpStatus.BAD_REQUEST);
       }
 
-      result.setCurrentWorkingDirectory(PlatformUtil.getCwd());
+      boolean allowed;
 
-      result.setProperties((List<String>)
-	  (ConfigManager.getConfigManager().getConfigUrlList()));
+      try {
+	allowed = compiled.trie.isAllowed(ip);
+      } catch (IllegalArgumentException iae) {
+	log.warn(iae.getMessage());
+	return new ResponseEntity<String>(iae.getMessage(),
+	    HttpStatus.BAD_REQUEST);
+      }
 
-      result.setBuildHost(BuildInfo.getBuildProperty(BUILD_HOST));
-      result.setBuildTimestamp(getBuildTimestamp());
+      Map<String, Object> result = new HashMap<>();
+      result.put("ip", ip);
+      result.put("sectionName", section.toLowerCase());
+      result.put("allowed", allowed);
 
       log.debug2("result = {}", result);
-      return new ResponseEntity<PlatformConfigurationWsResult>(result,
-	    HttpStatus.OK);
+      return new ResponseEntity<Map<String, Object>>(result, HttpStatus.OK);
     } catch (Exception e) {
-      String message = "Cannot getPlatformConfig()";
+      String message = "Cannot getIpAccessCheck() for ip = '" + ip
+	  + "', sectionName = '" + sectionName + "'";
       log.error(message, e);
-      return new ResponseEntity<Void>(HttpStatus.INTERNAL_SERVER_ERROR);
+      return new ResponseEntity<String>(message,
+	  HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Provides the compiled IP access list of a section, compiling the IP
+   * access lists of all the sections if the configuration has changed since
+   * they were last compiled.
+   *
+   * @param sectionName
+   *          A String with the section name.
+   * @return a CompiledIpAccess with the compiled IP access list, or null if
+   *         the section does not contain an IP access list.
+   */
+  CompiledIpAccess getCompiledIpAccess(String sectionName) {
+    if (sectionName == null) {
+      return null;
+    }
+
+    String canonicalSectionName = sectionName.toLowerCase();
+
+    if (!ipAccessSectionMap.containsKey(canonicalSectionName)) {
+      return null;
+    }
+
+    Configuration config = ConfigManager.getCurrentConfig();
+    IpAccessSnapshot snapshot = ipAccessSnapshot;
+
+    // Check whether the cached IP access lists were not compiled from the
+    // current configuration.
+    if (snapshot == null || snapshot.config != config) {
+      // Yes: Compile them again.
+      Map<String, CompiledIpAccess> compiled = new HashMap<>();
+
+      for (Map.Entry<String, String> entry : ipAccessSectionMap.entrySet()) {
+	String prefix = entry.getValue();
+	IpAccessTrie trie = IpAccessTrie.build(
+	    (List<String>)config.getList(prefix + SUFFIX_IP_INCLUDE),
+	    (List<String>)config.getList(prefix + SUFFIX_IP_EXCLUDE));
+	log.debug("Compiled {} IP access list: {}", entry.getKey(), trie);
+
+	compiled.put(entry.getKey(), new CompiledIpAccess(trie));
+      }
+
+      snapshot = new IpAccessSnapshot(config, compiled);
+      ipAccessSnapshot = snapshot;
     }
+
+    return snapshot.compiled.get(canonicalSectionName);
   }
 
   /**
@@ -824,9 +1142,18 @@ public class ConfigApiServiceImpl
   protected long getBuildTimestamp() throws ParseException {
     log.debug2("Invoked.");
 
+    // The build properties do not change, so parse them only once.
+    Long timestamp = buildTimestamp;
+
+    if (timestamp != null) {
+      log.debug2("timestamp = {}", timestamp);
+      return timestamp;
+    }
+
     try {
-      long timestamp = (new SimpleDateFormat(BUILD_TIMESTAMP_FORMAT))
+      timestamp = (new SimpleDateFormat(BUILD_TIMESTAMP_FORMAT))
 	  .parse(BuildInfo.getBuildProperty(BUILD_TIMESTAMP)).getTime();
+      buildTimestamp = timestamp;
 
       log.debug2("timestamp = {}", timestamp);
       return timestamp;
@@ -837,4 +1164,51 @@ public class ConfigApiServiceImpl
       throw pe;
     }
   }
+
+  /**
+   * The IP access lists of all the sections compiled from a configuration.
+   */
+  private static final class IpAccessSnapshot {
+    private final Configuration config;
+    private final Map<String, CompiledIpAccess> compiled;
+
+    private IpAccessSnapshot(Configuration config,
+	Map<String, CompiledIpAccess> compiled) {
+      this.config = config;
+      this.compiled = compiled;
+    }
+  }
+
+  /**
+   * A compiled IP access list with its serialized form and entity tag.
+   */
+  static final class CompiledIpAccess {
+    private final IpAccessTrie trie;
+    private final byte[] bytes;
+    private final String etag;
+
+    private CompiledIpAccess(IpAccessTrie trie) {
+      this.trie = trie;
+      this.bytes = trie.toBytes();
+
+      CRC32 crc = new CRC32();
+      crc.update(bytes, 0, bytes.length);
+      this.etag = "\"" + Long.toHexString(crc.getValue()) + "\"";
+    }
+  }
+
+  /**
+   * The part of the platform configuration that does not change between
+   * configuration loads, together with the configuration it was built from.
+   */
+  private static final class PlatformConfigSnapshot {
+    private final Configuration config;
+    private final PlatformConfigurationWsResult result;
+
+    private PlatformConfigSnapshot(Configuration config,
+	PlatformConfigurationWsResult result) {
+      this.config = config;
+      this.result = result;
+    }
+  }
 }
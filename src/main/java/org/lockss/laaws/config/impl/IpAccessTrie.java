@@ -0,0 +1,622 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import org.lockss.log.L4JLogger;
+
+/**
+ * Binary radix trie of the CIDR blocks of an IP access list, compiled once
+ * from the include and exclude lists of a configuration section and then used
+ * for lookups proportional to the address length only.
+ * <p>
+ * An address is allowed if it matches some included block and does not match
+ * any excluded block. IPv4 and IPv6 addresses are kept in separate tries.
+ * <p>
+ * Instances are immutable once built.
+ */
+public class IpAccessTrie {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  /** The media type of the serialized form. */
+  public static final String MEDIA_TYPE = "application/octet-stream";
+
+  // The marker at the start of the serialized form ("LIPA").
+  static final int MAGIC = 0x4C495041;
+
+  // The version of the serialized form.
+  static final byte FORMAT_VERSION = 1;
+
+  // Node flags.
+  static final byte FLAG_INCLUDE = 1;
+  static final byte FLAG_EXCLUDE = 2;
+
+  // Marker of a missing child node.
+  private static final int NO_NODE = -1;
+
+  private final Node ipv4;
+  private final Node ipv6;
+  private final int entryCount;
+
+  /**
+   * Builds the trie of an IP access list.
+   *
+   * @param includes
+   *          A {@code Collection<String>} with the included IP addresses,
+   *          CIDR blocks, IPv4 netmask blocks or IPv4 trailing wildcard
+   *          patterns.
+   * @param excludes
+   *          A {@code Collection<String>} with the excluded IP addresses,
+   *          CIDR blocks, IPv4 netmask blocks or IPv4 trailing wildcard
+   *          patterns.
+   * @return an IpAccessTrie with the compiled access list.
+   */
+  public static IpAccessTrie build(Collection<String> includes,
+      Collection<String> excludes) {
+    log.debug2("includes = {}", includes);
+    log.debug2("excludes = {}", excludes);
+
+    Builder ipv4Builder = new Builder();
+    Builder ipv6Builder = new Builder();
+    int count = 0;
+
+    count += addAll(ipv4Builder, ipv6Builder, includes, FLAG_INCLUDE);
+    count += addAll(ipv4Builder, ipv6Builder, excludes, FLAG_EXCLUDE);
+
+    IpAccessTrie result =
+	new IpAccessTrie(ipv4Builder.build(), ipv6Builder.build(), count);
+    log.debug2("result = {}", result);
+    return result;
+  }
+
+  private IpAccessTrie(Node ipv4, Node ipv6, int entryCount) {
+    this.ipv4 = ipv4;
+    this.ipv6 = ipv6;
+    this.entryCount = entryCount;
+  }
+
+  /**
+   * Provides an indication of whether an IP address is allowed by this access
+   * list.
+   *
+   * @param ip
+   *          A String with the numeric IPv4 or IPv6 address.
+   * @return {@code true} if the address is allowed, {@code false} otherwise.
+   * @throws IllegalArgumentException if the address is not a valid numeric IP
+   *           address.
+   */
+  public boolean isAllowed(String ip) {
+    byte[] address = parseAddress(ip);
+
+    if (address == null) {
+      throw new IllegalArgumentException("Invalid IP address '" + ip + "'");
+    }
+
+    Node trie = address.length == 4 ? ipv4 : ipv6;
+    int flags = trie.matchFlags(address);
+
+    return (flags & FLAG_INCLUDE) != 0 && (flags & FLAG_EXCLUDE) == 0;
+  }
+
+  /**
+   * Provides the number of access list entries compiled into this trie.
+   *
+   * @return an int with the number of entries.
+   */
+  public int getEntryCount() {
+    return entryCount;
+  }
+
+  /**
+   * Provides the serialized form of this trie.
+   * <p>
+   * The format is, in network byte order: the int {@code 0x4C495041}, a
+   * version byte, and then the IPv4 and IPv6 tries, each as an int node count
+   * followed by the nodes in index order. Each node is its int zero-bit child
+   * index, its int one-bit child index (-1 for none) and a flags byte (1 for
+   * the end of an included block, 2 for the end of an excluded block). The
+   * root of each trie is node 0.
+   *
+   * @return a byte[] with the serialized form.
+   */
+  public byte[] toBytes() {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream(
+	9 + 9 * (ipv4.flags.length + ipv6.flags.length));
+
+    try (DataOutputStream dos = new DataOutputStream(baos)) {
+      dos.writeInt(MAGIC);
+      dos.writeByte(FORMAT_VERSION);
+      ipv4.writeTo(dos);
+      ipv6.writeTo(dos);
+    } catch (IOException ioe) {
+      // It cannot happen with a ByteArrayOutputStream.
+      throw new RuntimeException(ioe);
+    }
+
+    return baos.toByteArray();
+  }
+
+  @Override
+  public String toString() {
+    return "[IpAccessTrie entryCount=" + entryCount + ", ipv4Nodes="
+	+ ipv4.flags.length + ", ipv6Nodes=" + ipv6.flags.length + "]";
+  }
+
+  /**
+   * Adds access list entries to the trie builders.
+   *
+   * @return an int with the number of valid entries added.
+   */
+  private static int addAll(Builder ipv4Builder, Builder ipv6Builder,
+      Collection<String> entries, byte flag) {
+    int count = 0;
+
+    if (entries == null) {
+      return count;
+    }
+
+    for (String entry : entries) {
+      String spec = entry.trim();
+
+      if (spec.isEmpty()) {
+	continue;
+      }
+
+      byte[] address;
+      int prefixLength;
+
+      int slash = spec.indexOf('/');
+
+      if (slash >= 0) {
+	// CIDR block, or IPv4 address and netmask.
+	address = parseAddress(spec.substring(0, slash));
+	String suffix = spec.substring(slash + 1);
+
+	if (suffix.indexOf('.') >= 0) {
+	  prefixLength = address != null && address.length == 4
+	      ? netmaskPrefixLength(suffix) : -1;
+	} else {
+	  try {
+	    prefixLength = Integer.parseInt(suffix);
+	  } catch (NumberFormatException nfe) {
+	    prefixLength = -1;
+	  }
+	}
+      } else if (spec.indexOf('*') >= 0) {
+	// IPv4 wildcard pattern, such as 10.1.*.* or 10.1.*, where only the
+	// trailing octets may be wildcards.
+	String[] octets = spec.split("\\.", -1);
+	int fixed = 0;
+
+	while (fixed < octets.length && !"*".equals(octets[fixed])) {
+	  fixed++;
+	}
+
+	boolean isTrailing = octets.length <= 4;
+
+	for (int i = fixed; i < octets.length; i++) {
+	  if (!"*".equals(octets[i])) {
+	    isTrailing = false;
+	  }
+	}
+
+	StringBuilder sb = new StringBuilder();
+
+	for (int i = 0; i < 4; i++) {
+	  if (i > 0) {
+	    sb.append('.');
+	  }
+
+	  sb.append(i < fixed ? octets[i] : "0");
+	}
+
+	address = isTrailing && fixed < 4 ? parseAddress(sb.toString()) : null;
+	prefixLength = fixed * 8;
+      } else {
+	// Single address.
+	address = parseAddress(spec);
+	prefixLength = address == null ? -1 : address.length * 8;
+      }
+
+      if (address == null || prefixLength < 0
+	  || prefixLength > address.length * 8) {
+	log.warn("Ignored invalid IP access list entry '{}'", entry);
+	continue;
+      }
+
+      (address.length == 4 ? ipv4Builder : ipv6Builder)
+	  .add(address, prefixLength, flag);
+      count++;
+    }
+
+    return count;
+  }
+
+  /**
+   * Provides the prefix length equivalent to an IPv4 netmask.
+   *
+   * @param mask
+   *          A String with the netmask, such as 255.255.0.0.
+   * @return an int with the prefix length, or -1 if the netmask is invalid or
+   *         its one bits are not contiguous.
+   */
+  static int netmaskPrefixLength(String mask) {
+    byte[] bytes = parseAddress(mask);
+
+    if (bytes == null || bytes.length != 4) {
+      return -1;
+    }
+
+    int bits = ((bytes[0] & 0xff) << 24) | ((bytes[1] & 0xff) << 16)
+	| ((bytes[2] & 0xff) << 8) | (bytes[3] & 0xff);
+    int prefixLength = Integer.numberOfLeadingZeros(~bits);
+
+    // The remaining bits must all be zero.
+    return (bits << prefixLength) == 0 || prefixLength == 32
+	? prefixLength : -1;
+  }
+
+  /**
+   * Parses a numeric IP address without performing any name lookup.
+   *
+   * @param ip
+   *          A String with the numeric IPv4 or IPv6 address.
+   * @return a byte[] with the 4 or 16 bytes of the address, or null if it is
+   *         not a valid numeric IP address. An IPv4-mapped IPv6 address is
+   *         provided as its 4 IPv4 bytes.
+   */
+  static byte[] parseAddress(String ip) {
+    if (ip == null || ip.isEmpty()) {
+      return null;
+    }
+
+    if (ip.indexOf(':') < 0) {
+      return parseIpv4Address(ip);
+    }
+
+    if (ip.startsWith("[") && ip.endsWith("]")) {
+      ip = ip.substring(1, ip.length() - 1);
+    }
+
+    // The literal is parsed here, because InetAddress would resolve anything
+    // that is not a valid literal.
+    byte[] result = parseIpv6Address(ip);
+
+    // Check whether it is an IPv4-mapped IPv6 address.
+    if (result != null && isIpv4Mapped(result)) {
+      // Yes: Use the IPv4 address.
+      return Arrays.copyOfRange(result, 12, 16);
+    }
+
+    return result;
+  }
+
+  /**
+   * Parses a dotted-decimal IPv4 address.
+   *
+   * @param ip
+   *          A String with the IPv4 address.
+   * @return a byte[] with the 4 bytes of the address, or null if it is not a
+   *         valid IPv4 address.
+   */
+  private static byte[] parseIpv4Address(String ip) {
+    String[] octets = ip.split("\\.", -1);
+
+    if (octets.length != 4) {
+      return null;
+    }
+
+    byte[] result = new byte[4];
+
+    for (int i = 0; i < 4; i++) {
+      String octet = octets[i];
+
+      if (octet.isEmpty() || octet.length() > 3) {
+	return null;
+      }
+
+      int value = 0;
+
+      for (int j = 0; j < octet.length(); j++) {
+	char c = octet.charAt(j);
+
+	if (c < '0' || c > '9') {
+	  return null;
+	}
+
+	value = value * 10 + (c - '0');
+      }
+
+      if (value > 255) {
+	return null;
+      }
+
+      result[i] = (byte)value;
+    }
+
+    return result;
+  }
+
+  /**
+   * Parses an IPv6 address literal, as described in RFC 4291, section 2.2,
+   * without a zone.
+   *
+   * @param ip
+   *          A String with the IPv6 address.
+   * @return a byte[] with the 16 bytes of the address, or null if it is not a
+   *         valid IPv6 address literal.
+   */
+  private static byte[] parseIpv6Address(String ip) {
+    int compressed = ip.indexOf("::");
+
+    // At most one run of zero groups can be compressed.
+    if (compressed >= 0 && ip.indexOf("::", compressed + 1) >= 0) {
+      return null;
+    }
+
+    byte[] head;
+    byte[] tail;
+
+    if (compressed < 0) {
+      head = parseIpv6Groups(ip, true);
+      tail = new byte[0];
+
+      if (head == null || head.length != 16) {
+	return null;
+      }
+    } else {
+      head = parseIpv6Groups(ip.substring(0, compressed), false);
+      tail = parseIpv6Groups(ip.substring(compressed + 2), true);
+
+      // The compressed run must stand for at least one group.
+      if (head == null || tail == null || head.length + tail.length > 14) {
+	return null;
+      }
+    }
+
+    byte[] result = new byte[16];
+    System.arraycopy(head, 0, result, 0, head.length);
+    System.arraycopy(tail, 0, result, 16 - tail.length, tail.length);
+
+    return result;
+  }
+
+  /**
+   * Parses a sequence of colon-separated groups of an IPv6 address literal.
+   *
+   * @param groups
+   *          A String with the groups, possibly empty.
+   * @param isLast
+   *          A boolean with the indication of whether the groups end the
+   *          literal, so that the last one may be a dotted-decimal IPv4
+   *          address.
+   * @return a byte[] with the bytes of the groups, or null if they are not
+   *         valid.
+   */
+  private static byte[] parseIpv6Groups(String groups, boolean isLast) {
+    if (groups.isEmpty()) {
+      return new byte[0];
+    }
+
+    String[] parts = groups.split(":", -1);
+
+    if (parts.length > 8) {
+      return null;
+    }
+
+    byte[] result = new byte[parts.length * 2 + 2];
+    int length = 0;
+
+    for (int i = 0; i < parts.length; i++) {
+      String part = parts[i];
+
+      if (isLast && i == parts.length - 1 && part.indexOf('.') >= 0) {
+	byte[] ipv4 = parseIpv4Address(part);
+
+	if (ipv4 == null) {
+	  return null;
+	}
+
+	System.arraycopy(ipv4, 0, result, length, 4);
+	length += 4;
+	break;
+      }
+
+      if (part.isEmpty() || part.length() > 4) {
+	return null;
+      }
+
+      int value = 0;
+
+      for (int j = 0; j < part.length(); j++) {
+	int digit = hexDigit(part.charAt(j));
+
+	if (digit < 0) {
+	  return null;
+	}
+
+	value = (value << 4) | digit;
+      }
+
+      result[length++] = (byte)(value >>> 8);
+      result[length++] = (byte)value;
+    }
+
+    return Arrays.copyOf(result, length);
+  }
+
+  /**
+   * Provides the value of an ASCII hexadecimal digit.
+   *
+   * @param c
+   *          A char with the digit.
+   * @return an int with the value of the digit, or -1 if it is not one.
+   */
+  private static int hexDigit(char c) {
+    if (c >= '0' && c <= '9') {
+      return c - '0';
+    } else if (c >= 'a' && c <= 'f') {
+      return c - 'a' + 10;
+    } else if (c >= 'A' && c <= 'F') {
+      return c - 'A' + 10;
+    }
+
+    return -1;
+  }
+
+  /**
+   * Provides an indication of whether an IPv6 address is an IPv4-mapped one,
+   * in ::ffff:0:0/96.
+   *
+   * @param address
+   *          A byte[] with the 16 bytes of the IPv6 address.
+   * @return {@code true} if the address is IPv4-mapped, {@code false}
+   *         otherwise.
+   */
+  private static boolean isIpv4Mapped(byte[] address) {
+    for (int i = 0; i < 10; i++) {
+      if (address[i] != 0) {
+	return false;
+      }
+    }
+
+    return address[10] == (byte)0xff && address[11] == (byte)0xff;
+  }
+
+  /**
+   * A compiled trie, stored as parallel arrays indexed by node.
+   */
+  private static final class Node {
+    private final int[] zero;
+    private final int[] one;
+    private final byte[] flags;
+
+    private Node(int[] zero, int[] one, byte[] flags) {
+      this.zero = zero;
+      this.one = one;
+      this.flags = flags;
+    }
+
+    /**
+     * Provides the union of the flags of all the blocks that contain an
+     * address.
+     */
+    private int matchFlags(byte[] address) {
+      int node = 0;
+      int result = flags[node];
+      int bits = address.length * 8;
+
+      for (int bit = 0; bit < bits && result != (FLAG_INCLUDE | FLAG_EXCLUDE);
+	  bit++) {
+	node = ((address[bit >>> 3] >>> (7 - (bit & 7))) & 1) == 0
+	    ? zero[node] : one[node];
+
+	if (node == NO_NODE) {
+	  break;
+	}
+
+	result |= flags[node];
+      }
+
+      return result;
+    }
+
+    private void writeTo(DataOutputStream dos) throws IOException {
+      dos.writeInt(flags.length);
+
+      for (int i = 0; i < flags.length; i++) {
+	dos.writeInt(zero[i]);
+	dos.writeInt(one[i]);
+	dos.writeByte(flags[i]);
+      }
+    }
+  }
+
+  /**
+   * Incremental builder of a trie.
+   */
+  private static final class Builder {
+    private int[] zero = new int[16];
+    private int[] one = new int[16];
+    private byte[] flags = new byte[16];
+    private int size = 0;
+
+    private Builder() {
+      newNode();
+    }
+
+    private void add(byte[] address, int prefixLength, byte flag) {
+      int node = 0;
+
+      for (int bit = 0; bit < prefixLength; bit++) {
+	boolean isOne = ((address[bit >>> 3] >>> (7 - (bit & 7))) & 1) != 0;
+	int next = isOne ? one[node] : zero[node];
+
+	if (next == NO_NODE) {
+	  next = newNode();
+
+	  if (isOne) {
+	    one[node] = next;
+	  } else {
+	    zero[node] = next;
+	  }
+	}
+
+	node = next;
+      }
+
+      flags[node] |= flag;
+    }
+
+    private int newNode() {
+      if (size == flags.length) {
+	zero = Arrays.copyOf(zero, size * 2);
+	one = Arrays.copyOf(one, size * 2);
+	flags = Arrays.copyOf(flags, size * 2);
+      }
+
+      zero[size] = NO_NODE;
+      one[size] = NO_NODE;
+      flags[size] = 0;
+      return size++;
+    }
+
+    private Node build() {
+      return new Node(Arrays.copyOf(zero, size), Arrays.copyOf(one, size),
+	  Arrays.copyOf(flags, size));
+    }
+  }
+}
@@ -0,0 +1,196 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import org.lockss.log.L4JLogger;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Helper of the web service operations that can stream their results as
+ * newline-delimited JSON (NDJSON), one result per line, as they are produced.
+ * <p>
+ * A streaming operation writes directly to the servlet response and returns a
+ * null {@code ResponseEntity}, which tells Spring that the response has
+ * already been handled.
+ * <p>
+ * Operations that accept batches can also read them either as a JSON array or
+ * as NDJSON.
+ */
+public class NdjsonHelper {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  /** The NDJSON media type. */
+  public static final String MEDIA_TYPE_NDJSON = "application/x-ndjson";
+
+  /** The NDJSON media type, as a MediaType. */
+  public static final MediaType NDJSON = MediaType.valueOf(MEDIA_TYPE_NDJSON);
+
+  // The mapper used to read the batches and to write the results.
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  /**
+   * Provides an indication of whether the client of the current request has
+   * asked for NDJSON results.
+   *
+   * @return {@code true} if the "Accept" header of the current request
+   *         includes the NDJSON media type, {@code false} otherwise.
+   */
+  static boolean isNdjsonAccepted() {
+    return isAccepted(NDJSON);
+  }
+
+  /**
+   * Provides an indication of whether the client of the current request has
+   * asked for results of a given media type.
+   *
+   * @param expected
+   *          A MediaType with the media type.
+   * @return {@code true} if the "Accept" header of the current request
+   *         includes the media type, {@code false} otherwise.
+   */
+  static boolean isAccepted(MediaType expected) {
+    String accept = getCurrentRequest().getHeader(HttpHeaders.ACCEPT);
+    log.trace("accept = {}", accept);
+
+    if (accept == null) {
+      return false;
+    }
+
+    try {
+      List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+
+      for (MediaType mediaType : mediaTypes) {
+	if (expected.equalsTypeAndSubtype(mediaType)) {
+	  return true;
+	}
+      }
+    } catch (IllegalArgumentException iae) {
+      log.debug("Ignored invalid Accept header '{}'", accept);
+    }
+
+    return false;
+  }
+
+  /**
+   * Starts a successful NDJSON response to the current request.
+   *
+   * @param headers
+   *          An HttpHeaders with any additional response headers, or null.
+   * @return a JsonGenerator that writes to the response body.
+   * @throws IOException if there are problems starting the response.
+   */
+  static JsonGenerator startResponse(HttpHeaders headers) throws IOException {
+    HttpServletResponse response = getCurrentResponse();
+    response.setStatus(HttpStatus.OK.value());
+    response.setContentType(MEDIA_TYPE_NDJSON);
+
+    if (headers != null) {
+      headers.forEach((name, values) -> {
+	for (String value : values) {
+	  response.addHeader(name, value);
+	}
+      });
+    }
+
+    JsonGenerator generator =
+	mapper.getFactory().createGenerator(response.getOutputStream());
+
+    // Each value is followed by a newline, not preceded by a separator.
+    generator.setRootValueSeparator(null);
+    return generator;
+  }
+
+  /**
+   * Writes a result as one NDJSON line.
+   *
+   * @param generator
+   *          A JsonGenerator with the generator of the response.
+   * @param value
+   *          An Object with the result to be written.
+   * @throws IOException if there are problems writing the result.
+   */
+  static void writeLine(JsonGenerator generator, Object value)
+      throws IOException {
+    generator.writeObject(value);
+    generator.writeRaw('\n');
+  }
+
+  /**
+   * Reads a batch of values given either as a JSON array or as NDJSON.
+   *
+   * @param body
+   *          A String with the batch.
+   * @param type
+   *          A {@code Class<T>} with the type of the values.
+   * @return a {@code List<T>} with the values, in their original order.
+   * @throws IOException if the batch cannot be parsed.
+   */
+  static <T> List<T> readValues(String body, Class<T> type)
+      throws IOException {
+    // A root-level JSON array is read as the sequence of its elements.
+    try (MappingIterator<T> iterator =
+	mapper.readerFor(type).readValues(body)) {
+      return iterator.readAll();
+    }
+  }
+
+  /**
+   * Provides the current request.
+   *
+   * @return an HttpServletRequest with the current request.
+   */
+  static HttpServletRequest getCurrentRequest() {
+    return ((ServletRequestAttributes)RequestContextHolder
+	.currentRequestAttributes()).getRequest();
+  }
+
+  /**
+   * Provides the response to the current request.
+   *
+   * @return an HttpServletResponse with the response to the current request.
+   */
+  static HttpServletResponse getCurrentResponse() {
+    return ((ServletRequestAttributes)RequestContextHolder
+	.currentRequestAttributes()).getResponse();
+  }
+}
@@ -0,0 +1,104 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A ForkJoinPool shared by several threads, replaced by a new one when its
+ * configured parallelism changes.
+ * <p>
+ * A replaced pool is shut down only after all the threads that acquired it
+ * have released it, so that none of them submits a task to a pool that has
+ * been shut down.
+ */
+class ResizableForkJoinPool {
+  // The current pool.
+  private ForkJoinPool current = null;
+
+  // The number of threads using each pool that has not been released by
+  // all of them.
+  private final Map<ForkJoinPool, Integer> users = new IdentityHashMap<>();
+
+  /**
+   * Acquires the pool with a given parallelism, replacing the current pool
+   * if its parallelism is different.
+   * <p>
+   * Each call must be followed by a call to {@link #release(ForkJoinPool)}
+   * once the pool is no longer used.
+   *
+   * @param parallelism An int with the parallelism of the pool.
+   * @return a ForkJoinPool with the pool.
+   */
+  synchronized ForkJoinPool acquire(int parallelism) {
+    if (current == null || current.getParallelism() != parallelism) {
+      if (current != null && !users.containsKey(current)) {
+        current.shutdown();
+      }
+
+      current = new ForkJoinPool(parallelism);
+    }
+
+    users.merge(current, 1, Integer::sum);
+    return current;
+  }
+
+  /**
+   * Releases a pool acquired by {@link #acquire(int)}, shutting it down if
+   * it has been replaced and no other thread is using it.
+   *
+   * @param pool A ForkJoinPool with the pool, or null for none.
+   */
+  synchronized void release(ForkJoinPool pool) {
+    if (pool == null) {
+      return;
+    }
+
+    Integer count = users.get(pool);
+
+    if (count == null) {
+      throw new IllegalStateException("Pool not acquired");
+    }
+
+    if (count > 1) {
+      users.put(pool, count - 1);
+    } else {
+      users.remove(pool);
+
+      if (pool != current) {
+        pool.shutdown();
+      }
+    }
+  }
+}
@@ -0,0 +1,179 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import org.lockss.log.L4JLogger;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+/**
+ * Helper of the web service operations that can exchange their data encoded
+ * as Smile, the binary JSON format of Jackson, instead of as JSON text.
+ * <p>
+ * AU configurations repeat the same keys, and often the same values, in every
+ * AU, so the encoder is set up to replace repeated property names and short
+ * string values with back-references to their first occurrence.
+ * <p>
+ * Like the NDJSON responses, a Smile response is written directly to the
+ * servlet response and the operation returns a null {@code ResponseEntity}.
+ */
+public class SmileHelper {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  /** The Smile media type. */
+  public static final String MEDIA_TYPE_SMILE = "application/x-jackson-smile";
+
+  /** The Smile media type, as a MediaType. */
+  public static final MediaType SMILE = MediaType.valueOf(MEDIA_TYPE_SMILE);
+
+  // The factory of the Smile encoders and decoders, with back-references to
+  // both shared property names and shared string values.
+  private static final SmileFactory smileFactory = SmileFactory.builder()
+      .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+      .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+      .build();
+
+  // The mapper used to write the results.
+  private static final ObjectMapper mapper = new ObjectMapper(smileFactory);
+
+  // The factory used to transcode Smile requests into JSON text.
+  private static final JsonFactory jsonFactory = new JsonFactory();
+
+  /**
+   * Provides the mapper used to encode and decode Smile.
+   *
+   * @return an ObjectMapper with the Smile mapper.
+   */
+  public static ObjectMapper getMapper() {
+    return mapper;
+  }
+
+  /**
+   * Provides an indication of whether the client of the current request has
+   * asked for Smile results.
+   *
+   * @return {@code true} if the "Accept" header of the current request
+   *         includes the Smile media type, {@code false} otherwise.
+   */
+  static boolean isSmileAccepted() {
+    return NdjsonHelper.isAccepted(SMILE);
+  }
+
+  /**
+   * Starts a successful Smile response to the current request.
+   *
+   * @param headers
+   *          An HttpHeaders with any additional response headers, or null.
+   * @return a JsonGenerator that writes to the response body.
+   * @throws IOException if there are problems starting the response.
+   */
+  static JsonGenerator startResponse(HttpHeaders headers) throws IOException {
+    HttpServletResponse response = NdjsonHelper.getCurrentResponse();
+    response.setStatus(HttpStatus.OK.value());
+    response.setContentType(MEDIA_TYPE_SMILE);
+
+    if (headers != null) {
+      headers.forEach((name, values) -> {
+	for (String value : values) {
+	  response.addHeader(name, value);
+	}
+      });
+    }
+
+    return mapper.getFactory().createGenerator(response.getOutputStream());
+  }
+
+  /**
+   * Writes a successful Smile response to the current request.
+   *
+   * @param headers
+   *          An HttpHeaders with any additional response headers, or null.
+   * @param value
+   *          An Object with the result to be written.
+   * @throws IOException if there are problems writing the response.
+   */
+  static void writeResponse(HttpHeaders headers, Object value)
+      throws IOException {
+    try (JsonGenerator generator = startResponse(headers)) {
+      generator.writeObject(value);
+    }
+  }
+
+  /**
+   * Transcodes Smile into JSON text.
+   * <p>
+   * A sequence of root values is transcoded into a sequence of JSON values,
+   * one per line, as NDJSON.
+   *
+   * @param smile
+   *          An InputStream with the Smile data.
+   * @return a String with the equivalent JSON text.
+   * @throws IOException if the Smile data cannot be parsed.
+   */
+  static String toJson(InputStream smile) throws IOException {
+    StringWriter writer = new StringWriter();
+
+    try (JsonParser parser = smileFactory.createParser(smile);
+	JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+      generator.setRootValueSeparator(null);
+      int depth = 0;
+
+      while (parser.nextToken() != null) {
+	generator.copyCurrentEvent(parser);
+
+	if (parser.currentToken().isStructStart()) {
+	  depth++;
+	} else if (parser.currentToken().isStructEnd()) {
+	  depth--;
+	}
+
+	if (depth == 0) {
+	  generator.writeRaw('\n');
+	}
+      }
+    }
+
+    log.trace("writer.getBuffer().length() = {}", writer.getBuffer().length());
+    return writer.toString();
+  }
+}
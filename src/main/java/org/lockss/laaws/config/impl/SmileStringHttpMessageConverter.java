@@ -0,0 +1,86 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.io.IOException;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reader of Smile request bodies into the String parameters of the web
+ * service operations that accept their batches also as JSON or NDJSON.
+ * <p>
+ * The body is transcoded into JSON text, so that the operations can parse it
+ * the same way regardless of its encoding. Without this converter, the binary
+ * body would be decoded as text, and corrupted, by the default String
+ * converter. Responses are not written by this converter.
+ */
+@Component
+public class SmileStringHttpMessageConverter
+    extends AbstractHttpMessageConverter<String> {
+
+  /**
+   * Constructor.
+   */
+  public SmileStringHttpMessageConverter() {
+    super(SmileHelper.SMILE);
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return String.class == clazz;
+  }
+
+  @Override
+  public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  protected String readInternal(Class<? extends String> clazz,
+      HttpInputMessage inputMessage)
+	  throws IOException, HttpMessageNotReadableException {
+    return SmileHelper.toJson(inputMessage.getBody());
+  }
+
+  @Override
+  protected void writeInternal(String value, HttpOutputMessage outputMessage)
+      throws IOException, HttpMessageNotWritableException {
+    throw new HttpMessageNotWritableException(
+	"Smile responses are not written from strings");
+  }
+}
@@ -0,0 +1,138 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * A pool of shared strings, so that equal strings held by many objects are
+ * stored only once.
+ * <p>
+ * The pool references its strings weakly, so a string is dropped from the
+ * pool when it is no longer held by anything else. It is not thread-safe;
+ * its users must synchronize its access.
+ */
+public class StringPool {
+  // The approximate size, in bytes, of a pool entry, without the string.
+  private static final int ENTRY_BYTES = 40 + 32;
+
+  private final WeakHashMap<String, WeakReference<String>> pool =
+      new WeakHashMap<>();
+
+  /**
+   * Provides the pooled string equal to a given one, adding it to the pool
+   * if there is none.
+   *
+   * @param s
+   *          A String with the string.
+   * @return a String with the pooled string, or null if the string is null.
+   */
+  public String intern(String s) {
+    if (s == null) {
+      return null;
+    }
+
+    WeakReference<String> ref = pool.get(s);
+    String pooled = ref == null ? null : ref.get();
+
+    if (pooled == null) {
+      pool.put(s, new WeakReference<>(s));
+      pooled = s;
+    }
+
+    return pooled;
+  }
+
+  /**
+   * Provides the number of strings in the pool.
+   *
+   * @return an int with the number of strings in the pool.
+   */
+  public int size() {
+    return pool.size();
+  }
+
+  /**
+   * Removes all the strings from the pool.
+   */
+  public void clear() {
+    pool.clear();
+  }
+
+  /**
+   * Provides an estimate of the heap used by the strings in the pool and by
+   * the pool itself.
+   *
+   * @return a long with the estimated number of bytes.
+   */
+  public long estimateBytes() {
+    long result = 0;
+
+    for (String s : pool.keySet()) {
+      if (s != null) {
+	result += ENTRY_BYTES + estimateStringBytes(s);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Provides an estimate of the heap used by a string, assuming compressed
+   * object pointers and compact strings.
+   *
+   * @param s
+   *          A String with the string.
+   * @return a long with the estimated number of bytes.
+   */
+  public static long estimateStringBytes(String s) {
+    boolean latin1 = true;
+
+    for (int i = 0; i < s.length() && latin1; i++) {
+      latin1 = s.charAt(i) < 256;
+    }
+
+    return 24 + align(16 + (long)s.length() * (latin1 ? 1 : 2));
+  }
+
+  /**
+   * Rounds up a number of bytes to the object alignment.
+   *
+   * @param bytes
+   *          A long with the number of bytes.
+   * @return a long with the aligned number of bytes.
+   */
+  static long align(long bytes) {
+    return (bytes + 7) & ~7L;
+  }
+}
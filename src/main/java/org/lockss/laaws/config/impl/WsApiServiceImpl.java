@@ -1,10 +1,11 @@
 package org.lockss.laaws.config.impl;
 
-import org.josql.Query;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.josql.QueryExecutionException;
-import org.josql.QueryResults;
+import org.josql.QueryParseException;
 import org.lockss.app.LockssDaemon;
 import org.lockss.config.Configuration;
+import org.lockss.config.CurrentConfig;
 import org.lockss.daemon.TitleConfig;
 import org.lockss.laaws.config.api.WsApiDelegate;
 import org.lockss.log.L4JLogger;
@@ -13,14 +14,22 @@ import org.lockss.spring.auth.AuthUtil;
 import org.lockss.spring.auth.Roles;
 import org.lockss.spring.base.BaseSpringApiServiceImpl;
 import org.lockss.util.StringUtil;
-import org.lockss.util.josql.JosqlUtil;
 import org.lockss.ws.entities.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.security.AccessControlException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 @Service
 public class WsApiServiceImpl extends BaseSpringApiServiceImpl
@@ -28,6 +37,100 @@ public class WsApiServiceImpl extends BaseSpringApiServiceImpl
 
   private static L4JLogger log = L4JLogger.getLogger();
 
+  public static final String PREFIX =
+      Configuration.PREFIX + "configService.ws.";
+
+  /**
+   * The maximum number of threads used to find the title configurations of
+   * the archival units to be added.
+   */
+  public static final String PARAM_TITLE_CONFIG_PARALLELISM =
+      PREFIX + "titleConfigParallelism";
+  public static final int DEFAULT_TITLE_CONFIG_PARALLELISM =
+      Math.min(8, Runtime.getRuntime().availableProcessors());
+
+  /**
+   * The number of archival units processed together when the results of a
+   * batch operation are streamed.
+   */
+  public static final String PARAM_STREAM_CHUNK_SIZE =
+      PREFIX + "streamChunkSize";
+  public static final int DEFAULT_STREAM_CHUNK_SIZE = 100;
+
+  /**
+   * The maximum number of archival units added with a single call to the
+   * remote API.
+   */
+  public static final String PARAM_ADD_CHUNK_SIZE = PREFIX + "addChunkSize";
+  public static final int DEFAULT_ADD_CHUNK_SIZE = 500;
+
+  /**
+   * The time, in milliseconds, to pause between the chunks of archival units
+   * being added, to give way to other work on a busy daemon.
+   */
+  public static final String PARAM_ADD_CHUNK_PAUSE = PREFIX + "addChunkPause";
+  public static final long DEFAULT_ADD_CHUNK_PAUSE = 0;
+
+  /**
+   * The number of query results written to a streamed response between
+   * flushes, after the first one, which is flushed as soon as it is written.
+   */
+  public static final String PARAM_QUERY_FLUSH_SIZE =
+      PREFIX + "queryFlushSize";
+  public static final int DEFAULT_QUERY_FLUSH_SIZE = 100;
+
+  /**
+   * The response header with the offset of the next page of the results of
+   * a query, present when a limit was requested and the page is full.
+   */
+  static final String HEADER_NEXT_OFFSET = "X-Lockss-Next-Offset";
+
+  // The literals of an SQL-like query.
+  private static final Pattern QUOTED_LITERAL =
+      Pattern.compile("'[^']*'|\"[^\"]*\"");
+
+  // The query clauses, or statement separator, that cannot follow a WHERE
+  // condition that selects the archival units of a batch operation.
+  private static final Pattern NON_CONDITION_CLAUSE = Pattern.compile(
+      "\\b(order\\s+by|group\\s+by|having|limit|execute\\s+on)\\b|;",
+      Pattern.CASE_INSENSITIVE);
+
+  // The minimum number of archival units for which their title
+  // configurations are found in parallel.
+  static final int MIN_PARALLEL_TITLE_CONFIGS = 16;
+
+  // The pool used to find title configurations in parallel.
+  private static final ResizableForkJoinPool titleConfigPool =
+      new ResizableForkJoinPool();
+
+  // The log of the changes made to the AU configurations.
+  @Autowired
+  private AuConfigChangeLog auConfigChangeLog;
+
+  // The cache of the stored AU configurations.
+  @Autowired
+  private AuConfigCache auConfigCache;
+
+  // The asynchronous batch jobs.
+  @Autowired
+  private WsBatchJobs wsBatchJobs;
+
+  // The cache of parsed queries.
+  @Autowired
+  private WsQueryCache wsQueryCache;
+
+  // The indexes of the configured AUs.
+  @Autowired
+  private AuQueryIndex auQueryIndex;
+
+  // The cache of the sizes of the configured AUs.
+  @Autowired
+  private AuSizeCache auSizeCache;
+
+  // The cache of the substance and article URLs of the configured AUs.
+  @Autowired
+  private AuUrlListCache auUrlListCache;
+
   /**
    * Configures the archival units defined by a list of their identifiers.
    *
@@ -56,73 +159,220 @@ public class WsApiServiceImpl extends BaseSpringApiServiceImpl
     }
 
     try {
-      List<ContentConfigurationResult> results =
-          new ArrayList<ContentConfigurationResult>(auIds.size());
+      // Check whether the results are to be streamed.
+      if (NdjsonHelper.isNdjsonAccepted()) {
+        // Yes.
+        streamResults("add", auIds, this::addAus);
+        return null;
+      }
 
-      RemoteApi remoteApi = LockssDaemon.getLockssDaemon().getRemoteApi();
-      List<String> auids = new LinkedList<>();
+      List<ContentConfigurationResult> results = addAus(auIds);
 
-      Map<String, Configuration> titleConfigs =
-          new HashMap<String, Configuration>();
+      log.debug2("results = {}", results);
+      return new ResponseEntity<List<ContentConfigurationResult>>(results,
+          HttpStatus.OK);
+    } catch (Exception e) {
+      String message = "Cannot postAus()";
+      log.error(message, e);
+      return new ResponseEntity<String>(message,
+          HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
 
-      // Loop  through all the Archival Unit identifiers.
-      for (String auId : auIds) {
+  /**
+   * Adds the archival units defined by a list of their identifiers, recording
+   * the changes to their configurations.
+   * <p>
+   * Large lists are added in chunks, each one with its own call to the
+   * remote API, so that the resources held by each call are bounded and the
+   * locks taken by each call are released between chunks, optionally with a
+   * pause.
+   *
+   * @param auIds A {@code List<String>} with the identifiers (auids) of the
+   *              archival units.
+   * @return a {@code List<ContentConfigurationResult>} with the results of
+   *         the operation.
+   * @throws Exception if there are problems performing the operation.
+   */
+  List<ContentConfigurationResult> addAus(List<String> auIds) throws Exception {
+    RemoteApi remoteApi = LockssDaemon.getLockssDaemon().getRemoteApi();
+    int chunkSize = Math.max(1,
+        CurrentConfig.getIntParam(PARAM_ADD_CHUNK_SIZE, DEFAULT_ADD_CHUNK_SIZE));
+    long pause = CurrentConfig.getLongParam(PARAM_ADD_CHUNK_PAUSE,
+        DEFAULT_ADD_CHUNK_PAUSE);
+
+    return applyInChunks(auIds, chunkSize, pause,
+        chunk -> addAuChunk(remoteApi, chunk));
+  }
 
-        // Get the configuration of the Archival Unit.
-        TitleConfig titleConfig = remoteApi.findTitleConfig(auId);
+  /**
+   * Applies an operation to a list of archival units one chunk at a time,
+   * pausing between chunks.
+   *
+   * @param auIds          A {@code List<String>} with the identifiers
+   *                       (auids) of the archival units.
+   * @param chunkSize      An int with the number of archival units in a
+   *                       chunk.
+   * @param pause          A long with the time, in milliseconds, to pause
+   *                       between chunks.
+   * @param chunkOperation A WsBatchJobs.ChunkOperation with the operation.
+   * @return a {@code List<ContentConfigurationResult>} with the results of
+   *         all the chunks, in the order of the archival units.
+   * @throws Exception if there are problems performing the operation.
+   */
+  static List<ContentConfigurationResult> applyInChunks(List<String> auIds,
+      int chunkSize, long pause, WsBatchJobs.ChunkOperation chunkOperation)
+      throws Exception {
+    List<ContentConfigurationResult> results =
+        new ArrayList<ContentConfigurationResult>(auIds.size());
+
+    for (int start = 0; start < auIds.size(); start += chunkSize) {
+      if (start > 0 && pause > 0) {
+        Thread.sleep(pause);
+      }
 
-        // Check whether the configuration was found.
-        if (titleConfig != null) {
-          // Populate the array of Archival Unit identifiers.
-          auids.add(auId);
+      results.addAll(chunkOperation.apply(
+          auIds.subList(start, Math.min(auIds.size(), start + chunkSize))));
+    }
 
-          // Yes: Add it to the map.
-          titleConfigs.put(auId,  titleConfig.getConfig());
-        }
-      }
+    return results;
+  }
 
-      String[] auIdArray = auids.toArray(new String[0]);
+  /**
+   * Adds a chunk of archival units, recording the changes to their
+   * configurations.
+   *
+   * @param remoteApi A RemoteApi with the remote API.
+   * @param auIds     A {@code List<String>} with the identifiers (auids) of
+   *                  the archival units in the chunk.
+   * @return a {@code List<ContentConfigurationResult>} with the results of
+   *         the chunk.
+   * @throws Exception if there are problems performing the operation.
+   */
+  private List<ContentConfigurationResult> addAuChunk(RemoteApi remoteApi,
+      List<String> auIds) throws Exception {
+    List<ContentConfigurationResult> results =
+        new ArrayList<ContentConfigurationResult>(auIds.size());
+    List<String> auids = new LinkedList<>();
+
+    Map<String, Configuration> titleConfigs =
+        new HashMap<String, Configuration>();
+
+    // Get the configurations of the Archival Units, in parallel for large
+    // batches, in the order of their identifiers.
+    ForkJoinPool pool = auIds.size() < MIN_PARALLEL_TITLE_CONFIGS
+        ? null : acquireTitleConfigPool();
+    List<TitleConfig> foundTitleConfigs;
+
+    try {
+      foundTitleConfigs =
+          resolveInOrder(auIds, remoteApi::findTitleConfig, pool);
+    } finally {
+      titleConfigPool.release(pool);
+    }
 
-      // Add all the archival units.
-      RemoteApi.BatchAuStatus status = remoteApi.batchAddAus(RemoteApi.BATCH_ADD_ADD,
-          auIdArray, null, null, titleConfigs, new HashMap<String, String>(),
-          null);
+    // Loop  through all the Archival Unit identifiers.
+    for (int i = 0; i < auIds.size(); i++) {
+      String auId = auIds.get(i);
+      TitleConfig titleConfig = foundTitleConfigs.get(i);
 
-      int index = 0;
+      // Check whether the configuration was found.
+      if (titleConfig != null) {
+        // Populate the array of Archival Unit identifiers.
+        auids.add(auId);
 
-      // Loop through all the results.
-      for (RemoteApi.BatchAuStatus.Entry entry : status.getUnsortedStatusList()) {
-        RemoteApi.BatchAuStatus entryStatus = new RemoteApi.BatchAuStatus();
-        entryStatus.add(entry);
+        // Yes: Add it to the map.
+        titleConfigs.put(auId,  titleConfig.getConfig());
+      }
+    }
 
-        ContentConfigurationResult result = null;
+    String[] auIdArray = auids.toArray(new String[0]);
 
-        if (entry.isOk()) {
-          log.debug("Success configuring AU '" + entry.getName() + "': "
-              + entry.getExplanation());
+    // Add all the archival units in the chunk.
+    RemoteApi.BatchAuStatus status = remoteApi.batchAddAus(RemoteApi.BATCH_ADD_ADD,
+        auIdArray, null, null, titleConfigs, new HashMap<String, String>(),
+        null);
 
-          result = new ContentConfigurationResult(auIdArray[index++],
-              entry.getName(), Boolean.TRUE, entry.getExplanation());
-        } else {
-          log.error("Error configuring AU '" + entry.getName() + "': "
-              + entry.getExplanation());
+    int index = 0;
+    List<String> changedAuIds = new ArrayList<>();
 
-          result = new ContentConfigurationResult(auIdArray[index++],
-              entry.getName(), Boolean.FALSE, entry.getExplanation());
-        }
+    // Loop through all the results.
+    for (RemoteApi.BatchAuStatus.Entry entry : status.getUnsortedStatusList()) {
+      RemoteApi.BatchAuStatus entryStatus = new RemoteApi.BatchAuStatus();
+      entryStatus.add(entry);
+
+      ContentConfigurationResult result = null;
+
+      if (entry.isOk()) {
+        log.debug("Success configuring AU '" + entry.getName() + "': "
+            + entry.getExplanation());
+
+        changedAuIds.add(auIdArray[index]);
+        result = new ContentConfigurationResult(auIdArray[index++],
+            entry.getName(), Boolean.TRUE, entry.getExplanation());
+      } else {
+        log.error("Error configuring AU '" + entry.getName() + "': "
+            + entry.getExplanation());
 
-        results.add(result);
+        result = new ContentConfigurationResult(auIdArray[index++],
+            entry.getName(), Boolean.FALSE, entry.getExplanation());
       }
 
-      log.debug2("results = " + results);
-      return new ResponseEntity<List<ContentConfigurationResult>>(results,
-          HttpStatus.OK);
-    } catch (Exception e) {
-      String message = "Cannot postAus()";
-      log.error(message, e);
-      return new ResponseEntity<String>(message,
-          HttpStatus.INTERNAL_SERVER_ERROR);
+      results.add(result);
     }
+
+    auConfigChangeLog.record(changedAuIds, AuConfigChangeLog.Type.ADDED);
+    auConfigCache.invalidate(auids);
+
+    return results;
+  }
+
+  /**
+   * Applies a function to each of a list of keys, in parallel if a pool is
+   * provided, keeping the results in the order of the keys.
+   *
+   * @param keys     A {@code List<String>} with the keys.
+   * @param resolver A {@code Function<String, T>} with the function to be
+   *                 applied, which must be thread-safe.
+   * @param pool     A ForkJoinPool with the pool where to apply the function
+   *                 in parallel, or null to apply it serially.
+   * @return a {@code List<T>} with the results, in the order of the keys.
+   * @throws InterruptedException if interrupted while waiting for the
+   *                              results.
+   * @throws ExecutionException   if the function threw an exception.
+   */
+  static <T> List<T> resolveInOrder(List<String> keys,
+      Function<String, T> resolver, ForkJoinPool pool)
+      throws InterruptedException, ExecutionException {
+    Object[] results = new Object[keys.size()];
+
+    if (pool == null) {
+      for (int i = 0; i < results.length; i++) {
+        results[i] = resolver.apply(keys.get(i));
+      }
+    } else {
+      // Each result is stored in the position of its key.
+      pool.submit(() -> IntStream.range(0, results.length).parallel()
+          .forEach(i -> results[i] = resolver.apply(keys.get(i)))).get();
+    }
+
+    @SuppressWarnings("unchecked")
+    List<T> result = (List<T>)Arrays.asList(results);
+    return result;
+  }
+
+  /**
+   * Acquires the pool used to find title configurations in parallel, with
+   * the configured parallelism. A pool acquired by this method must be
+   * released with {@code titleConfigPool.release()}.
+   *
+   * @return a ForkJoinPool with the pool.
+   */
+  private static ForkJoinPool acquireTitleConfigPool() {
+    int parallelism = Math.max(1, CurrentConfig.getIntParam(
+        PARAM_TITLE_CONFIG_PARALLELISM, DEFAULT_TITLE_CONFIG_PARALLELISM));
+
+    return titleConfigPool.acquire(parallelism);
   }
 
   /**
@@ -152,49 +402,16 @@ public class WsApiServiceImpl extends BaseSpringApiServiceImpl
     }
 
     try {
-      List<ContentConfigurationResult> results =
-          new ArrayList<ContentConfigurationResult>(auIds.size());
-
-      // Deactivate the archival units.
-      RemoteApi.BatchAuStatus status =
-          LockssDaemon.getLockssDaemon().getRemoteApi().deactivateAus(auIds);
-
-      // Loop through all the results.
-      for (int i = 0; i < status.getUnsortedStatusList().size(); i++) {
-        // Get the original Archival Unit identifier.
-        String auId = auIds.get(i);
-
-        // Handle the result.
-        RemoteApi.BatchAuStatus.Entry statusEntry = status.getUnsortedStatusList().get(i);
-
-        if (statusEntry.isOk()
-            || "Deactivated".equals(statusEntry.getStatus())) {
-          log.debug("Success deactivating AU '" + statusEntry.getName() + "': "
-              + statusEntry.getExplanation());
-
-          String explanation = statusEntry.getExplanation();
-          if (StringUtil.isNullString(explanation)) {
-            explanation = "Deactivated Archival Unit '" + auId + "'";
-          }
-
-          results.add(new ContentConfigurationResult(auId,
-              statusEntry.getName(), Boolean.TRUE,
-              statusEntry.getExplanation()));
-        } else {
-          log.error("Error deactivating AU '" + statusEntry.getName() + "': "
-              + statusEntry.getExplanation());
-
-          String explanation = statusEntry.getExplanation();
-          if (StringUtil.isNullString(explanation)) {
-            explanation = statusEntry.getStatus();
-          }
-
-          results.add(new ContentConfigurationResult(auId,
-              statusEntry.getName(), Boolean.FALSE, explanation));
-        }
+      // Check whether the results are to be streamed.
+      if (NdjsonHelper.isNdjsonAccepted()) {
+        // Yes.
+        streamResults("deactivate", auIds, this::deactivateAus);
+        return null;
       }
 
-      log.debug2("results = " + results);
+      List<ContentConfigurationResult> results = deactivateAus(auIds);
+
+      log.debug2("results = {}", results);
       return new ResponseEntity<List<ContentConfigurationResult>>(results,
           HttpStatus.OK);
     } catch (Exception e) {
@@ -205,6 +422,69 @@ public class WsApiServiceImpl extends BaseSpringApiServiceImpl
     }
   }
 
+  /**
+   * Deactivates the archival units defined by a list of their identifiers, recording
+   * the changes to their configurations.
+   *
+   * @param auIds A {@code List<String>} with the identifiers (auids) of the
+   *              archival units.
+   * @return a {@code List<ContentConfigurationResult>} with the results of
+   *         the operation.
+   * @throws Exception if there are problems performing the operation.
+   */
+  List<ContentConfigurationResult> deactivateAus(List<String> auIds) throws Exception {
+    List<ContentConfigurationResult> results =
+        new ArrayList<ContentConfigurationResult>(auIds.size());
+
+    // Deactivate the archival units.
+    RemoteApi.BatchAuStatus status =
+        LockssDaemon.getLockssDaemon().getRemoteApi().deactivateAus(auIds);
+
+    List<String> changedAuIds = new ArrayList<>();
+
+    // Loop through all the results.
+    for (int i = 0; i < status.getUnsortedStatusList().size(); i++) {
+      // Get the original Archival Unit identifier.
+      String auId = auIds.get(i);
+
+      // Handle the result.
+      RemoteApi.BatchAuStatus.Entry statusEntry = status.getUnsortedStatusList().get(i);
+
+      if (statusEntry.isOk()
+          || "Deactivated".equals(statusEntry.getStatus())) {
+        log.debug("Success deactivating AU '" + statusEntry.getName() + "': "
+            + statusEntry.getExplanation());
+
+        String explanation = statusEntry.getExplanation();
+        if (StringUtil.isNullString(explanation)) {
+          explanation = "Deactivated Archival Unit '" + auId + "'";
+        }
+
+        changedAuIds.add(auId);
+
+        results.add(new ContentConfigurationResult(auId,
+            statusEntry.getName(), Boolean.TRUE,
+            statusEntry.getExplanation()));
+      } else {
+        log.error("Error deactivating AU '" + statusEntry.getName() + "': "
+            + statusEntry.getExplanation());
+
+        String explanation = statusEntry.getExplanation();
+        if (StringUtil.isNullString(explanation)) {
+          explanation = statusEntry.getStatus();
+        }
+
+        results.add(new ContentConfigurationResult(auId,
+            statusEntry.getName(), Boolean.FALSE, explanation));
+      }
+    }
+
+    auConfigChangeLog.record(changedAuIds, AuConfigChangeLog.Type.MODIFIED);
+    auConfigCache.invalidate(auIds);
+
+    return results;
+  }
+
   /**
    * Reactivates the archival units defined by a list with their identifiers.
    *
@@ -233,50 +513,16 @@ public class WsApiServiceImpl extends BaseSpringApiServiceImpl
     }
 
     try {
-      List<ContentConfigurationResult> results =
-          new ArrayList<ContentConfigurationResult>(auIds.size());
-
-      RemoteApi.BatchAuStatus status = null;
-
-      // Reactivate the archival units.
-      status =
-          LockssDaemon.getLockssDaemon().getRemoteApi().reactivateAus(auIds);
-
-      // Loop through all the results.
-      for (int i = 0; i < status.getUnsortedStatusList().size(); i++) {
-        // Get the original Archival Unit identifier.
-        String auId = auIds.get(i);
-
-        // Handle the result.
-        RemoteApi.BatchAuStatus.Entry statusEntry = status.getUnsortedStatusList().get(i);
-
-        if (statusEntry.isOk() || "Added".equals(statusEntry.getStatus())) {
-          log.debug("Success reactivating AU '" + statusEntry.getName()
-              + "': " + statusEntry.getExplanation());
-
-          String explanation = statusEntry.getExplanation();
-          if (StringUtil.isNullString(explanation)) {
-            explanation = "Reactivated Archival Unit '" + auId + "'";
-          }
-
-          results.add(new ContentConfigurationResult(auId,
-              statusEntry.getName(), Boolean.TRUE,
-              statusEntry.getExplanation()));
-        } else {
-          log.error("Error reactivating AU '" + statusEntry.getName() + "': "
-              + statusEntry.getExplanation());
-
-          String explanation = statusEntry.getExplanation();
-          if (StringUtil.isNullString(explanation)) {
-            explanation = statusEntry.getStatus();
-          }
-
-          results.add(new ContentConfigurationResult(auId,
-              statusEntry.getName(), Boolean.FALSE, explanation));
-        }
+      // Check whether the results are to be streamed.
+      if (NdjsonHelper.isNdjsonAccepted()) {
+        // Yes.
+        streamResults("reactivate", auIds, this::reactivateAus);
+        return null;
       }
 
-      log.debug2("results = " + results);
+      List<ContentConfigurationResult> results = reactivateAus(auIds);
+
+      log.debug2("results = {}", results);
       return new ResponseEntity<List<ContentConfigurationResult>>(results,
           HttpStatus.OK);
     } catch (Exception e) {
@@ -287,6 +533,70 @@ public class WsApiServiceImpl extends BaseSpringApiServiceImpl
     }
   }
 
+  /**
+   * Reactivates the archival units defined by a list of their identifiers, recording
+   * the changes to their configurations.
+   *
+   * @param auIds A {@code List<String>} with the identifiers (auids) of the
+   *              archival units.
+   * @return a {@code List<ContentConfigurationResult>} with the results of
+   *         the operation.
+   * @throws Exception if there are problems performing the operation.
+   */
+  List<ContentConfigurationResult> reactivateAus(List<String> auIds) throws Exception {
+    List<ContentConfigurationResult> results =
+        new ArrayList<ContentConfigurationResult>(auIds.size());
+
+    RemoteApi.BatchAuStatus status = null;
+
+    // Reactivate the archival units.
+    status =
+        LockssDaemon.getLockssDaemon().getRemoteApi().reactivateAus(auIds);
+
+    List<String> changedAuIds = new ArrayList<>();
+
+    // Loop through all the results.
+    for (int i = 0; i < status.getUnsortedStatusList().size(); i++) {
+      // Get the original Archival Unit identifier.
+      String auId = auIds.get(i);
+
+      // Handle the result.
+      RemoteApi.BatchAuStatus.Entry statusEntry = status.getUnsortedStatusList().get(i);
+
+      if (statusEntry.isOk() || "Added".equals(statusEntry.getStatus())) {
+        log.debug("Success reactivating AU '" + statusEntry.getName()
+            + "': " + statusEntry.getExplanation());
+
+        String explanation = statusEntry.getExplanation();
+        if (StringUtil.isNullString(explanation)) {
+          explanation = "Reactivated Archival Unit '" + auId + "'";
+        }
+
+        changedAuIds.add(auId);
+
+        results.add(new ContentConfigurationResult(auId,
+            statusEntry.getName(), Boolean.TRUE,
+            statusEntry.getExplanation()));
+      } else {
+        log.error("Error reactivating AU '" + statusEntry.getName() + "': "
+            + statusEntry.getExplanation());
+
+        String explanation = statusEntry.getExplanation();
+        if (StringUtil.isNullString(explanation)) {
+          explanation = statusEntry.getStatus();
+        }
+
+        results.add(new ContentConfigurationResult(auId,
+            statusEntry.getName(), Boolean.FALSE, explanation));
+      }
+    }
+
+    auConfigChangeLog.record(changedAuIds, AuConfigChangeLog.Type.MODIFIED);
+    auConfigCache.invalidate(auIds);
+
+    return results;
+  }
+
   /**
    * Unconfigures the archival units defined by a list with their identifiers.
    *
@@ -315,46 +625,15 @@ public class WsApiServiceImpl extends BaseSpringApiServiceImpl
     }
 
     try {
-      List<ContentConfigurationResult> results =
-          new ArrayList<ContentConfigurationResult>(auIds.size());
-
-      // Delete the archival units.
-      RemoteApi.BatchAuStatus status =
-          LockssDaemon.getLockssDaemon().getRemoteApi().deleteAus(auIds);
-
-      // Loop through all the results.
-      for (int i = 0; i < status.getUnsortedStatusList().size(); i++) {
-        // Get the original Archival Unit identifier.
-        String auId = auIds.get(i);
-
-        // Handle the result.
-        RemoteApi.BatchAuStatus.Entry statusEntry = status.getUnsortedStatusList().get(i);
-
-        if (statusEntry.isOk() || "Deleted".equals(statusEntry.getStatus())) {
-          if (log.isDebugEnabled()) log.debug("Success unconfiguring AU '"
-              + statusEntry.getName() + "': " + statusEntry.getExplanation());
-
-          String explanation = statusEntry.getExplanation();
-          if (StringUtil.isNullString(explanation)) {
-            explanation = "Deleted Archival Unit '" + auId + "'";
-          }
-
-          results.add(new ContentConfigurationResult(auId, statusEntry.getName(),
-              Boolean.TRUE, statusEntry.getExplanation()));
-        } else {
-          log.error("Error unconfiguring AU '" + statusEntry.getName() + "': "
-              + statusEntry.getExplanation());
-
-          String explanation = statusEntry.getExplanation();
-          if (StringUtil.isNullString(explanation)) {
-            explanation = statusEntry.getStatus();
-          }
-
-          results.add(new ContentConfigurationResult(auId,
-              statusEntry.getName(), Boolean.FALSE, explanation));
-        }
+      // Check whether the results are to be streamed.
+      if (NdjsonHelper.isNdjsonAccepted()) {
+        // Yes.
+        streamResults("delete", auIds, this::deleteAus);
+        return null;
       }
 
+      List<ContentConfigurationResult> results = deleteAus(auIds);
+
       log.debug2("results = {}", results);
       return new ResponseEntity<List<ContentConfigurationResult>>(results,
           HttpStatus.OK);
@@ -366,6 +645,601 @@ public class WsApiServiceImpl extends BaseSpringApiServiceImpl
     }
   }
 
+  /**
+   * Unconfigures the archival units defined by a list of their identifiers, recording
+   * the changes to their configurations.
+   *
+   * @param auIds A {@code List<String>} with the identifiers (auids) of the
+   *              archival units.
+   * @return a {@code List<ContentConfigurationResult>} with the results of
+   *         the operation.
+   * @throws Exception if there are problems performing the operation.
+   */
+  List<ContentConfigurationResult> deleteAus(List<String> auIds) throws Exception {
+    List<ContentConfigurationResult> results =
+        new ArrayList<ContentConfigurationResult>(auIds.size());
+
+    // Delete the archival units.
+    RemoteApi.BatchAuStatus status =
+        LockssDaemon.getLockssDaemon().getRemoteApi().deleteAus(auIds);
+
+    List<String> changedAuIds = new ArrayList<>();
+
+    // Loop through all the results.
+    for (int i = 0; i < status.getUnsortedStatusList().size(); i++) {
+      // Get the original Archival Unit identifier.
+      String auId = auIds.get(i);
+
+      // Handle the result.
+      RemoteApi.BatchAuStatus.Entry statusEntry = status.getUnsortedStatusList().get(i);
+
+      if (statusEntry.isOk() || "Deleted".equals(statusEntry.getStatus())) {
+        if (log.isDebugEnabled()) log.debug("Success unconfiguring AU '"
+            + statusEntry.getName() + "': " + statusEntry.getExplanation());
+
+        String explanation = statusEntry.getExplanation();
+        if (StringUtil.isNullString(explanation)) {
+          explanation = "Deleted Archival Unit '" + auId + "'";
+        }
+
+        changedAuIds.add(auId);
+
+        results.add(new ContentConfigurationResult(auId, statusEntry.getName(),
+            Boolean.TRUE, statusEntry.getExplanation()));
+      } else {
+        log.error("Error unconfiguring AU '" + statusEntry.getName() + "': "
+            + statusEntry.getExplanation());
+
+        String explanation = statusEntry.getExplanation();
+        if (StringUtil.isNullString(explanation)) {
+          explanation = statusEntry.getStatus();
+        }
+
+        results.add(new ContentConfigurationResult(auId,
+            statusEntry.getName(), Boolean.FALSE, explanation));
+      }
+    }
+
+    auConfigChangeLog.record(changedAuIds, AuConfigChangeLog.Type.REMOVED);
+    auConfigCache.invalidate(auIds);
+
+    return results;
+  }
+
+  /**
+   * Streams as NDJSON the results of a batch operation, applying it to the
+   * archival units one chunk at a time and writing the result of each one as
+   * soon as its chunk is done, so that the results are not accumulated.
+   * <p>
+   * Once the response has started, a problem applying the operation to a
+   * chunk is reported as a failure of each archival unit in the chunk.
+   *
+   * @param operation      A String with the name of the operation.
+   * @param auIds          A {@code List<String>} with the identifiers
+   *                       (auids) of the archival units.
+   * @param chunkOperation A WsBatchJobs.ChunkOperation with the operation.
+   * @throws IOException if there are problems writing the results.
+   */
+  static void streamResults(String operation, List<String> auIds,
+      WsBatchJobs.ChunkOperation chunkOperation) throws IOException {
+    int chunkSize = Math.max(1, CurrentConfig.getIntParam(
+        PARAM_STREAM_CHUNK_SIZE, DEFAULT_STREAM_CHUNK_SIZE));
+
+    try (JsonGenerator generator = NdjsonHelper.startResponse(null)) {
+      for (int start = 0; start < auIds.size(); start += chunkSize) {
+        List<String> chunk =
+            auIds.subList(start, Math.min(auIds.size(), start + chunkSize));
+
+        for (ContentConfigurationResult result
+            : WsBatchJobs.applyToChunk(operation, chunkOperation, chunk)) {
+          NdjsonHelper.writeLine(generator, result);
+        }
+
+        generator.flush();
+      }
+    }
+
+    log.debug2("Streamed {} results", auIds.size());
+  }
+
+  /**
+   * Submits an asynchronous job that applies a batch operation to the
+   * archival units defined by a list of their identifiers.
+   *
+   * @param operation A String with the operation: "add", "deactivate",
+   *                  "reactivate" or "delete".
+   * @param auIds     A {@code List<String>} with the identifiers (auids) of
+   *                  the archival units.
+   * @return a {@code ResponseEntity<Map<String, Object>>} with the status of
+   *         the submitted job.
+   */
+  @Override
+  public ResponseEntity postAuBatchJob(String operation, List<String> auIds) {
+    log.debug2("operation = {}", operation);
+    log.debug2("auIds = {}", auIds);
+
+    // Check whether the service has not been fully initialized.
+    if (!waitReady()) {
+      // Yes: Notify the client.
+      return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    // Check for required role
+    try {
+      AuthUtil.checkHasRole(Roles.ROLE_AU_ADMIN);
+    } catch (AccessControlException ace) {
+      log.warn(ace.getMessage());
+      return new ResponseEntity<Void>(HttpStatus.FORBIDDEN);
+    }
+
+    WsBatchJobs.ChunkOperation chunkOperation =
+        getChunkOperation(operation);
+
+    if (chunkOperation == null) {
+      String message = "Invalid operation = '" + operation + "'";
+      log.error(message);
+      return new ResponseEntity<String>(message, HttpStatus.BAD_REQUEST);
+    }
+
+    try {
+      WsBatchJobs.Job job =
+          wsBatchJobs.submit(operation, auIds, chunkOperation);
+
+      if (job == null) {
+        String message = "Too many queued jobs";
+        log.error(message);
+        return new ResponseEntity<String>(message,
+            HttpStatus.SERVICE_UNAVAILABLE);
+      }
+
+      Map<String, Object> result = job.getStatus(0);
+      log.debug2("result = {}", result);
+      return new ResponseEntity<Map<String, Object>>(result,
+          HttpStatus.ACCEPTED);
+    } catch (Exception e) {
+      String message = "Cannot postAuBatchJob()";
+      log.error(message, e);
+      return new ResponseEntity<String>(message,
+          HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Provides the status of an asynchronous batch job, with the results of
+   * the archival units processed so far.
+   *
+   * @param jobId A String with the identifier of the job.
+   * @param from  An Integer with the index of the first result to include,
+   *              or null to include all of them.
+   * @return a {@code ResponseEntity<Map<String, Object>>} with the status of
+   *         the job.
+   */
+  @Override
+  public ResponseEntity getAuBatchJob(String jobId, Integer from) {
+    log.debug2("jobId = {}", jobId);
+    log.debug2("from = {}", from);
+
+    // Check whether the service has not been fully initialized.
+    if (!waitReady()) {
+      // Yes: Notify the client.
+      return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    // Check for required role
+    try {
+      AuthUtil.checkHasRole(Roles.ROLE_AU_ADMIN);
+    } catch (AccessControlException ace) {
+      log.warn(ace.getMessage());
+      return new ResponseEntity<Void>(HttpStatus.FORBIDDEN);
+    }
+
+    if (from != null && from.intValue() < 0) {
+      String message = "Invalid from = " + from;
+      log.error(message);
+      return new ResponseEntity<String>(message, HttpStatus.BAD_REQUEST);
+    }
+
+    WsBatchJobs.Job job = wsBatchJobs.get(jobId);
+
+    if (job == null) {
+      String message = "No job found for jobId = '" + jobId + "'";
+      log.error(message);
+      return new ResponseEntity<String>(message, HttpStatus.NOT_FOUND);
+    }
+
+    Map<String, Object> result =
+        job.getStatus(from == null ? 0 : from.intValue());
+    log.debug2("result = {}", result);
+    return new ResponseEntity<Map<String, Object>>(result, HttpStatus.OK);
+  }
+
+  /**
+   * Cancels an asynchronous batch job. A job that is running stops before
+   * its next chunk of archival units.
+   *
+   * @param jobId A String with the identifier of the job.
+   * @return a {@code ResponseEntity<Map<String, Object>>} with the status of
+   *         the job.
+   */
+  @Override
+  public ResponseEntity deleteAuBatchJob(String jobId) {
+    log.debug2("jobId = {}", jobId);
+
+    // Check whether the service has not been fully initialized.
+    if (!waitReady()) {
+      // Yes: Notify the client.
+      return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    // Check for required role
+    try {
+      AuthUtil.checkHasRole(Roles.ROLE_AU_ADMIN);
+    } catch (AccessControlException ace) {
+      log.warn(ace.getMessage());
+      return new ResponseEntity<Void>(HttpStatus.FORBIDDEN);
+    }
+
+    WsBatchJobs.Job job = wsBatchJobs.cancel(jobId);
+
+    if (job == null) {
+      String message = "No job found for jobId = '" + jobId + "'";
+      log.error(message);
+      return new ResponseEntity<String>(message, HttpStatus.NOT_FOUND);
+    }
+
+    Map<String, Object> result = job.getStatus(0);
+    log.debug2("result = {}", result);
+    return new ResponseEntity<Map<String, Object>>(result, HttpStatus.OK);
+  }
+
+  /**
+   * Applies a batch operation to the archival units that match the WHERE
+   * clause of an SQL-like query, avoiding the need for the client to query
+   * for their identifiers first.
+   * <p>
+   * The archival units to be added are selected from the title database;
+   * the rest, from the configured archival units. The operation is applied
+   * in an asynchronous job if requested; otherwise its results are streamed
+   * as NDJSON, as the archival units are processed, if the client accepts
+   * it.
+   *
+   * @param operation A String with the operation: "add", "deactivate",
+   *                  "reactivate" or "delete".
+   * @param async     A Boolean with the indication of whether the operation
+   *                  is to be applied in an asynchronous job.
+   * @param where     A String with the WHERE clause of the
+   *                  <a href="package-summary.html#SQL-Like_Query">SQL-like
+   *                  query</a> that selects the archival units.
+   * @return a {@code ResponseEntity<List<ContentConfigurationResult>>} with
+   *         the results of the operation, or a
+   *         {@code ResponseEntity<Map<String, Object>>} with the status of
+   *         the submitted job.
+   */
+  @Override
+  public ResponseEntity postAuQueryOperation(String operation, Boolean async,
+      String where) {
+    log.debug2("operation = {}", operation);
+    log.debug2("async = {}", async);
+    log.debug2("where = {}", where);
+
+    // Check whether the service has not been fully initialized.
+    if (!waitReady()) {
+      // Yes: Notify the client.
+      return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    // Check for required role
+    try {
+      AuthUtil.checkHasRole(Roles.ROLE_AU_ADMIN);
+    } catch (AccessControlException ace) {
+      log.warn(ace.getMessage());
+      return new ResponseEntity<Void>(HttpStatus.FORBIDDEN);
+    }
+
+    WsBatchJobs.ChunkOperation chunkOperation =
+        getChunkOperation(operation);
+
+    if (chunkOperation == null) {
+      String message = "Invalid operation = '" + operation + "'";
+      log.error(message);
+      return new ResponseEntity<String>(message, HttpStatus.BAD_REQUEST);
+    }
+
+    if (StringUtil.isNullString(where)) {
+      String message = "Missing WHERE clause";
+      log.error(message);
+      return new ResponseEntity<String>(message, HttpStatus.BAD_REQUEST);
+    }
+
+    List<String> auIds;
+
+    try {
+      auIds = findMatchingAuIds("add".equals(operation), where);
+      log.debug("{} AUs match '{}'", auIds.size(), where);
+    } catch (QueryParseException qpe) {
+      String message = "Invalid WHERE clause = '" + where + "'";
+      log.error(message, qpe);
+      return new ResponseEntity<String>(message + ": " + qpe.getMessage(),
+          HttpStatus.BAD_REQUEST);
+    } catch (Exception e) {
+      // Check whether the query exceeded its budget.
+      ResponseEntity<String> overBudget = checkBudgetExceeded(e);
+
+      if (overBudget != null) {
+        // Yes: Report the problem.
+        return overBudget;
+      }
+
+      String message = "Cannot postAuQueryOperation() for where = '" + where
+          + "'";
+      log.error(message, e);
+      return new ResponseEntity<String>(message,
+          HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // Check whether the operation is to be applied asynchronously.
+    if (Boolean.TRUE.equals(async)) {
+      // Yes.
+      return postAuBatchJob(operation, auIds);
+    }
+
+    try {
+      // Check whether the results are to be streamed.
+      if (NdjsonHelper.isNdjsonAccepted()) {
+        // Yes.
+        streamResults(operation, auIds, chunkOperation);
+        return null;
+      }
+
+      List<ContentConfigurationResult> results = chunkOperation.apply(auIds);
+
+      log.debug2("results = {}", results);
+      return new ResponseEntity<List<ContentConfigurationResult>>(results,
+          HttpStatus.OK);
+    } catch (Exception e) {
+      String message = "Cannot postAuQueryOperation() for where = '" + where
+          + "'";
+      log.error(message, e);
+      return new ResponseEntity<String>(message,
+          HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Provides the identifiers of the archival units that match the WHERE
+   * clause of an SQL-like query.
+   *
+   * @param fromTdb A boolean with the indication of whether the archival
+   *                units are to be selected from the title database instead
+   *                of from the configured archival units.
+   * @param where   A String with the WHERE clause.
+   * @return a {@code List<String>} with the identifiers of the matching
+   *         archival units, without duplicates.
+   * @throws QueryParseException     if the WHERE clause cannot be parsed or
+   *                                 is not just a condition.
+   * @throws QueryExecutionException if the query cannot be executed.
+   */
+  private List<String> findMatchingAuIds(boolean fromTdb, String where)
+      throws QueryParseException, QueryExecutionException {
+    checkWhereCondition(where);
+    Set<String> auIds = new LinkedHashSet<>();
+
+    if (fromTdb) {
+      for (Object result : wsQueryCache.execute(
+          "select " + TdbAuHelper.AU_ID + " where " + where,
+          TdbAuHelper.SOURCE_FQCN, TdbAuHelper.PROPERTY_NAMES,
+          TdbAuHelper.RESULT_FQCN, new TdbAuHelper()::createUniverse)) {
+        auIds.add(((TdbAuWsResult)result).getAuId());
+      }
+    } else {
+      AuHelper auHelper = new AuHelper(auSizeCache, auUrlListCache);
+
+      for (Object result : wsQueryCache.execute(
+          "select " + AuHelper.AU_ID + " where " + where,
+          AuHelper.SOURCE_FQCN, AuHelper.PROPERTY_NAMES,
+          AuHelper.RESULT_FQCN,
+          equalities -> auHelper.createUniverse(equalities, auQueryIndex,
+              WsQueryBudget.fromConfig()))) {
+        auIds.add(((AuWsResult)result).getAuId());
+      }
+    }
+
+    return new ArrayList<>(auIds);
+  }
+
+  /**
+   * Checks that the WHERE clause of an SQL-like query is just a condition,
+   * so that appending it to the selection of the archival unit identifiers
+   * cannot add other clauses that change which archival units are selected,
+   * such as <code>LIMIT</code>, <code>GROUP BY</code> or
+   * <code>EXECUTE ON</code>.
+   *
+   * @param where A String with the WHERE clause.
+   * @throws QueryParseException if the WHERE clause contains a clause other
+   *                             than a condition.
+   */
+  static void checkWhereCondition(String where) throws QueryParseException {
+    // The text of the literals is ignored.
+    String unquoted = QUOTED_LITERAL.matcher(where).replaceAll("''");
+    Matcher matcher = NON_CONDITION_CLAUSE.matcher(unquoted);
+
+    if (matcher.find()) {
+      throw new QueryParseException("Unexpected '" + matcher.group()
+          + "' in the WHERE condition");
+    }
+  }
+
+  /**
+   * Provides the batch operation with a given name.
+   *
+   * @param operation A String with the name of the operation.
+   * @return a WsBatchJobs.ChunkOperation with the operation, or null if
+   *         there is no operation with that name.
+   */
+  private WsBatchJobs.ChunkOperation getChunkOperation(String operation) {
+    if (operation == null) {
+      return null;
+    }
+
+    switch (operation) {
+      case "add":
+        return this::addAus;
+      case "deactivate":
+        return this::deactivateAus;
+      case "reactivate":
+        return this::reactivateAus;
+      case "delete":
+        return this::deleteAus;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Validates the requested page of the results of a query.
+   *
+   * @param limit  An Integer with the maximum number of results, or null.
+   * @param offset An Integer with the number of results to skip, or null.
+   * @return a {@code ResponseEntity<String>} with the error response, or null
+   *         if the page is valid.
+   */
+  private ResponseEntity<String> checkPage(Integer limit, Integer offset) {
+    if ((limit != null && limit < 0) || (offset != null && offset < 0)) {
+      String message =
+          "Invalid limit = " + limit + " or offset = " + offset;
+      log.error(message);
+      return new ResponseEntity<String>(message, HttpStatus.BAD_REQUEST);
+    }
+
+    return null;
+  }
+
+  /**
+   * Provides the error response to a query that exceeded its budget.
+   *
+   * @param e An Exception with the failure of the query.
+   * @return a {@code ResponseEntity<String>} with the error response, or null
+   *         if the failure was not caused by the budget of the query.
+   */
+  private ResponseEntity<String> checkBudgetExceeded(Exception e) {
+    WsQueryBudget.BudgetExceededException bee = WsQueryBudget.findCause(e);
+
+    if (bee == null) {
+      return null;
+    }
+
+    log.warn(bee.getMessage());
+    return new ResponseEntity<String>(bee.getMessage(),
+        HttpStatus.UNPROCESSABLE_ENTITY);
+  }
+
+  /**
+   * Provides the headers of a response with a page of the results of a
+   * query.
+   *
+   * @param limit  An Integer with the requested limit, or null.
+   * @param offset An Integer with the requested offset, or null.
+   * @param count  An int with the number of results in the page.
+   * @return an HttpHeaders with the headers.
+   */
+  private HttpHeaders pageHeaders(Integer limit, Integer offset, int count) {
+    HttpHeaders headers = new HttpHeaders();
+
+    // Tell the client where the next page starts, if there may be one.
+    if (limit != null && limit > 0 && count == limit) {
+      headers.set(HEADER_NEXT_OFFSET, String.valueOf(toInt(offset) + count));
+    }
+
+    return headers;
+  }
+
+  /**
+   * Provides the value of an optional integer parameter.
+   *
+   * @param value An Integer with the value, or null.
+   * @return an int with the value, or 0 if it is null.
+   */
+  private static int toInt(Integer value) {
+    return value == null ? 0 : value.intValue();
+  }
+
+  /**
+   * Executes a query and streams a page of its results as NDJSON, writing
+   * each result as soon as it is produced.
+   * <p>
+   * The response is started with the first result, or once the query has
+   * been executed if it has none, so that an invalid query is reported with
+   * an error status. A failure after the response is started truncates it.
+   *
+   * @param query         A String with the SQL-like query.
+   * @param sourceFqcn    A String with the fully-qualified name of the class
+   *                      of the queried objects.
+   * @param propertyNames A {@code Set<String>} with the names of the
+   *                      properties that can be queried.
+   * @param resultFqcn    A String with the fully-qualified name of the class
+   *                      of the results.
+   * @param universe      A {@code Function<Map<String, String>, List<?>>}
+   *                      with the objects to be queried.
+   * @param limit         An Integer with the maximum number of results, or
+   *                      null.
+   * @param offset        An Integer with the number of results to skip, or
+   *                      null.
+   * @throws Exception if the query cannot be executed before the response is
+   *                   started.
+   */
+  private void streamQuery(String query, String sourceFqcn,
+      Set<String> propertyNames, String resultFqcn,
+      Function<Map<String, String>, ? extends List<?>> universe,
+      Integer limit, Integer offset) throws Exception {
+    int flushSize = Math.max(1, CurrentConfig.getIntParam(
+        PARAM_QUERY_FLUSH_SIZE, DEFAULT_QUERY_FLUSH_SIZE));
+    JsonGenerator[] generator = new JsonGenerator[1];
+    int[] written = new int[1];
+
+    try {
+      wsQueryCache.stream(query, sourceFqcn, propertyNames, resultFqcn,
+          universe, toInt(offset), toInt(limit), result -> {
+            if (generator[0] == null) {
+              generator[0] = NdjsonHelper.startResponse(null);
+            }
+
+            NdjsonHelper.writeLine(generator[0], result);
+
+            if (written[0]++ % flushSize == 0) {
+              generator[0].flush();
+            }
+          });
+
+      if (generator[0] == null) {
+        generator[0] = NdjsonHelper.startResponse(null);
+      }
+    } catch (Exception e) {
+      // Check whether the response has not been started.
+      if (generator[0] == null) {
+        // Yes: Let the caller report the problem.
+        throw e;
+      }
+
+      WsQueryBudget.BudgetExceededException bee = WsQueryBudget.findCause(e);
+
+      // Check whether the query exceeded its budget.
+      if (bee != null) {
+        // Yes: Report it without the stack trace.
+        log.warn("Streamed query '{}' truncated after {} results: {}", query,
+            written[0], bee.getMessage());
+      } else {
+        log.error("Streamed query '{}' truncated after {} results", query,
+            written[0], e);
+      }
+    } finally {
+      if (generator[0] != null) {
+        generator[0].close();
+      }
+    }
+
+    log.debug2("Streamed {} results", written[0]);
+  }
+
   /**
    * Provides the selected properties of selected archival units.
    *
@@ -376,41 +1250,70 @@ public class WsApiServiceImpl extends BaseSpringApiServiceImpl
    * @return a {@code ResponseEntity<List<AuWsResult>>} with the results.
    */
   @Override
-  public ResponseEntity getAuqueries(String auQuery) {
+  public ResponseEntity getAuqueries(String auQuery, Integer limit,
+      Integer offset) {
     log.debug2("auQuery = {}", auQuery);
+    log.debug2("limit = {}", limit);
+    log.debug2("offset = {}", offset);
+
+    // Check whether the requested page is not valid.
+    ResponseEntity<String> invalidPage = checkPage(limit, offset);
+
+    if (invalidPage != null) {
+      // Yes: Report the problem.
+      return invalidPage;
+    }
 
-    AuHelper auHelper = new AuHelper();
+    AuHelper auHelper = new AuHelper(auSizeCache, auUrlListCache);
+    // The properties that walk the URLs or articles of each AU are charged
+    // to a budget shared by all the AUs.
+    WsQueryBudget budget = WsQueryBudget.fromConfig();
+    Function<Map<String, String>, List<AuWsSource>> universe =
+        equalities -> auHelper.createUniverse(equalities, auQueryIndex,
+            budget);
     List<AuWsResult> results = null;
 
     try {
-      // Create the full query.
-      String fullQuery = JosqlUtil.createFullQuery(auQuery,
-          AuHelper.SOURCE_FQCN, AuHelper.PROPERTY_NAMES, AuHelper.RESULT_FQCN);
-      log.trace("fullQuery = {}", fullQuery);
-
-      // Create a new JoSQL query.
-      Query q = new Query();
-
-      try {
-        // Parse the SQL-like query.
-        q.parse(fullQuery);
-
-        // Execute the query.
-        QueryResults qr = q.execute(auHelper.createUniverse());
-
-        // Get the query results.
-        results = (List<AuWsResult>)qr.getResults();
-        log.trace("results.size() = {}", results.size());
-        log.trace("results = {}", auHelper.nonDefaultToString(results));
-        return new ResponseEntity<List<AuWsResult>>(results, HttpStatus.OK);
-      } catch (QueryExecutionException qee) {
-        String message =
-            "Cannot getAuqueries() for auQuery = '" + auQuery + "'";
-        log.error(message, qee);
-        return new ResponseEntity<String>(message,
-            HttpStatus.INTERNAL_SERVER_ERROR);
+      // Check whether the results are to be streamed.
+      if (NdjsonHelper.isNdjsonAccepted()) {
+        // Yes.
+        streamQuery(auQuery, AuHelper.SOURCE_FQCN, AuHelper.PROPERTY_NAMES,
+            AuHelper.RESULT_FQCN, universe, limit, offset);
+        return null;
+      }
+
+      // Execute the query, reusing its parsed form if it is cached, over the
+      // AUs narrowed down by the indexes.
+      results = (List<AuWsResult>)wsQueryCache.execute(
+          auQuery, AuHelper.SOURCE_FQCN, AuHelper.PROPERTY_NAMES,
+          AuHelper.RESULT_FQCN, universe, toInt(offset), toInt(limit));
+      log.trace("results.size() = {}", results.size());
+      log.trace("results = {}", auHelper.nonDefaultToString(results));
+      return new ResponseEntity<List<AuWsResult>>(results,
+          pageHeaders(limit, offset, results.size()), HttpStatus.OK);
+    } catch (QueryExecutionException qee) {
+      // Check whether the query exceeded its budget.
+      ResponseEntity<String> overBudget = checkBudgetExceeded(qee);
+
+      if (overBudget != null) {
+        // Yes: Report the problem.
+        return overBudget;
       }
+
+      String message =
+          "Cannot getAuqueries() for auQuery = '" + auQuery + "'";
+      log.error(message, qee);
+      return new ResponseEntity<String>(message,
+          HttpStatus.INTERNAL_SERVER_ERROR);
     } catch (Exception e) {
+      // Check whether the query exceeded its budget.
+      ResponseEntity<String> overBudget = checkBudgetExceeded(e);
+
+      if (overBudget != null) {
+        // Yes: Report the problem.
+        return overBudget;
+      }
+
       String message = "Cannot getAuqueries() for auQuery = '" + auQuery + "'";
       log.error(message, e);
       return new ResponseEntity<String>(message,
@@ -428,42 +1331,50 @@ public class WsApiServiceImpl extends BaseSpringApiServiceImpl
    * @return a {@code ResponseEntity<List<PluginWsResult>>} with the results.
    */
   @Override
-  public ResponseEntity getPlugins(String pluginQuery) {
+  public ResponseEntity getPlugins(String pluginQuery, Integer limit,
+      Integer offset) {
     log.debug2("pluginQuery = {}", pluginQuery);
+    log.debug2("limit = {}", limit);
+    log.debug2("offset = {}", offset);
+
+    // Check whether the requested page is not valid.
+    ResponseEntity<String> invalidPage = checkPage(limit, offset);
+
+    if (invalidPage != null) {
+      // Yes: Report the problem.
+      return invalidPage;
+    }
 
     PluginHelper pluginHelper = new PluginHelper();
+    Function<Map<String, String>, List<PluginWsSource>> universe =
+        equalities -> pluginHelper.createUniverse();
     List<PluginWsResult> results = null;
 
     try {
-      // Create the full query.
-      String fullQuery = JosqlUtil.createFullQuery(pluginQuery,
-          PluginHelper.SOURCE_FQCN, PluginHelper.PROPERTY_NAMES,
-          PluginHelper.RESULT_FQCN);
-      log.trace("fullQuery = {}", fullQuery);
-
-      // Create a new JoSQL query.
-      Query q = new Query();
-
-      try {
-        // Parse the SQL-like query.
-        q.parse(fullQuery);
-
-        // Execute the query.
-        QueryResults qr = q.execute(pluginHelper.createUniverse());
-
-        // Get the query results.
-        results = (List<PluginWsResult>)qr.getResults();
-        log.trace("results.size() = {}" + results.size());
-        log.trace("results = {}", pluginHelper.nonDefaultToString(results));
-        return new ResponseEntity<List<PluginWsResult>>(results,
-            HttpStatus.OK);
-      } catch (QueryExecutionException qee) {
-        String message =
-            "Cannot getTdbTitles() for pluginQuery = '" + pluginQuery + "'";
-        log.error(message, qee);
-        return new ResponseEntity<String>(message,
-            HttpStatus.INTERNAL_SERVER_ERROR);
+      // Check whether the results are to be streamed.
+      if (NdjsonHelper.isNdjsonAccepted()) {
+        // Yes.
+        streamQuery(pluginQuery, PluginHelper.SOURCE_FQCN,
+            PluginHelper.PROPERTY_NAMES, PluginHelper.RESULT_FQCN, universe,
+            limit, offset);
+        return null;
       }
+
+      // Execute the query, reusing its parsed form if it is cached.
+      results = (List<PluginWsResult>)wsQueryCache.execute(
+          pluginQuery, PluginHelper.SOURCE_FQCN,
+          PluginHelper.PROPERTY_NAMES, PluginHelper.RESULT_FQCN, universe,
+          toInt(offset), toInt(limit));
+      log.trace("results.size() = {}" + results.size());
+      log.trace("results = {}", pluginHelper.nonDefaultToString(results));
+      return new ResponseEntity<List<PluginWsResult>>(results,
+          pageHeaders(limit, offset, results.size()), HttpStatus.OK);
+    } catch (QueryExecutionException qee) {
+      String message =
+          "Cannot getTdbTitles() for pluginQuery = '" + pluginQuery + "'";
+      log.error(message, qee);
+      return new ResponseEntity<String>(message,
+          HttpStatus.INTERNAL_SERVER_ERROR);
     } catch (Exception e) {
       String message =
           "Cannot getTdbTitles() for pluginQuery = '" + pluginQuery + "'";
@@ -483,8 +1394,11 @@ public class WsApiServiceImpl extends BaseSpringApiServiceImpl
    * @return a {@code ResponseEntity<List<TdbAuWsResult>>} with the results.
    */
   @Override
-  public ResponseEntity getTdbAus(String tdbAuQuery) {
+  public ResponseEntity getTdbAus(String tdbAuQuery, Integer limit,
+      Integer offset) {
     log.debug2("tdbAuQuery = {}", tdbAuQuery);
+    log.debug2("limit = {}", limit);
+    log.debug2("offset = {}", offset);
 
     // Check whether the service has not been fully initialized.
     if (!waitReady()) {
@@ -492,38 +1406,44 @@ public class WsApiServiceImpl extends BaseSpringApiServiceImpl
       return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
     }
 
+    // Check whether the requested page is not valid.
+    ResponseEntity<String> invalidPage = checkPage(limit, offset);
+
+    if (invalidPage != null) {
+      // Yes: Report the problem.
+      return invalidPage;
+    }
+
     TdbAuHelper tdbAuHelper = new TdbAuHelper();
+    Function<Map<String, String>, List<TdbAuWsSource>> universe =
+        equalities -> tdbAuHelper.createUniverse();
     List<TdbAuWsResult> results = null;
 
     try {
-      // Create the full query.
-      String fullQuery = JosqlUtil.createFullQuery(tdbAuQuery,
-          TdbAuHelper.SOURCE_FQCN, TdbAuHelper.PROPERTY_NAMES,
-          TdbAuHelper.RESULT_FQCN);
-      log.trace("fullQuery = {}", fullQuery);
-
-      // Create a new JoSQL query.
-      Query q = new Query();
-
-      try {
-        // Parse the SQL-like query.
-        q.parse(fullQuery);
-
-        // Execute the query.
-        QueryResults qr = q.execute(tdbAuHelper.createUniverse());
-
-        // Get the query results.
-        results = (List<TdbAuWsResult>)qr.getResults();
-        log.trace("results.size() = {}", results.size());
-        log.trace("results = {}", tdbAuHelper.nonDefaultToString(results));
-        return new ResponseEntity<List<TdbAuWsResult>>(results, HttpStatus.OK);
-      } catch (QueryExecutionException qee) {
-        String message =
-            "Cannot getTdbAus() for tdbAuQuery = '" + tdbAuQuery + "'";
-        log.error(message, qee);
-        return new ResponseEntity<String>(message,
-            HttpStatus.INTERNAL_SERVER_ERROR);
+      // Check whether the results are to be streamed.
+      if (NdjsonHelper.isNdjsonAccepted()) {
+        // Yes.
+        streamQuery(tdbAuQuery, TdbAuHelper.SOURCE_FQCN,
+            TdbAuHelper.PROPERTY_NAMES, TdbAuHelper.RESULT_FQCN, universe,
+            limit, offset);
+        return null;
       }
+
+      // Execute the query, reusing its parsed form if it is cached.
+      results = (List<TdbAuWsResult>)wsQueryCache.execute(
+          tdbAuQuery, TdbAuHelper.SOURCE_FQCN,
+          TdbAuHelper.PROPERTY_NAMES, TdbAuHelper.RESULT_FQCN, universe,
+          toInt(offset), toInt(limit));
+      log.trace("results.size() = {}", results.size());
+      log.trace("results = {}", tdbAuHelper.nonDefaultToString(results));
+      return new ResponseEntity<List<TdbAuWsResult>>(results,
+          pageHeaders(limit, offset, results.size()), HttpStatus.OK);
+    } catch (QueryExecutionException qee) {
+      String message =
+          "Cannot getTdbAus() for tdbAuQuery = '" + tdbAuQuery + "'";
+      log.error(message, qee);
+      return new ResponseEntity<String>(message,
+          HttpStatus.INTERNAL_SERVER_ERROR);
     } catch (Exception e) {
       String message =
           "Cannot getTdbAus() for tdbAuQuery = '" + tdbAuQuery + "'";
@@ -543,8 +1463,11 @@ public class WsApiServiceImpl extends BaseSpringApiServiceImpl
    * @return a {@code List<TdbPublisherWsResult>} with the results.
    */
   @Override
-  public ResponseEntity getTdbPublishers(String tdbPublisherQuery) {
+  public ResponseEntity getTdbPublishers(String tdbPublisherQuery,
+      Integer limit, Integer offset) {
     log.debug2("tdbPublisherQuery = {}", tdbPublisherQuery);
+    log.debug2("limit = {}", limit);
+    log.debug2("offset = {}", offset);
 
     // Check whether the service has not been fully initialized.
     if (!waitReady()) {
@@ -552,40 +1475,45 @@ public class WsApiServiceImpl extends BaseSpringApiServiceImpl
       return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
     }
 
+    // Check whether the requested page is not valid.
+    ResponseEntity<String> invalidPage = checkPage(limit, offset);
+
+    if (invalidPage != null) {
+      // Yes: Report the problem.
+      return invalidPage;
+    }
+
     TdbPublisherHelper tdbPublisherHelper = new TdbPublisherHelper();
+    Function<Map<String, String>, List<TdbPublisherWsSource>> universe =
+        equalities -> tdbPublisherHelper.createUniverse();
     List<TdbPublisherWsResult> results = null;
 
     try {
-      // Create the full query.
-      String fullQuery = JosqlUtil.createFullQuery(tdbPublisherQuery,
-          TdbPublisherHelper.SOURCE_FQCN, TdbPublisherHelper.PROPERTY_NAMES,
-          TdbPublisherHelper.RESULT_FQCN);
-      log.trace("fullQuery = {}", fullQuery);
-
-      // Create a new JoSQL query.
-      Query q = new Query();
-
-      try {
-        // Parse the SQL-like query.
-        q.parse(fullQuery);
-
-        // Execute the query.
-        QueryResults qr = q.execute(tdbPublisherHelper.createUniverse());
-
-        // Get the query results.
-        results = (List<TdbPublisherWsResult>)qr.getResults();
-        log.trace("results.size() = {}" + results.size());
-        log.trace("results = {}",
-            tdbPublisherHelper.nonDefaultToString(results));
-        return new ResponseEntity<List<TdbPublisherWsResult>>(results,
-            HttpStatus.OK);
-      } catch (QueryExecutionException qee) {
-        String message = "Cannot getTdbPublishers() for tdbPublisherQuery = '"
-            + tdbPublisherQuery + "'";
-        log.error(message, qee);
-        return new ResponseEntity<String>(message,
-            HttpStatus.INTERNAL_SERVER_ERROR);
+      // Check whether the results are to be streamed.
+      if (NdjsonHelper.isNdjsonAccepted()) {
+        // Yes.
+        streamQuery(tdbPublisherQuery, TdbPublisherHelper.SOURCE_FQCN,
+            TdbPublisherHelper.PROPERTY_NAMES, TdbPublisherHelper.RESULT_FQCN,
+            universe, limit, offset);
+        return null;
       }
+
+      // Execute the query, reusing its parsed form if it is cached.
+      results = (List<TdbPublisherWsResult>)wsQueryCache.execute(
+          tdbPublisherQuery, TdbPublisherHelper.SOURCE_FQCN,
+          TdbPublisherHelper.PROPERTY_NAMES, TdbPublisherHelper.RESULT_FQCN,
+          universe, toInt(offset), toInt(limit));
+      log.trace("results.size() = {}" + results.size());
+      log.trace("results = {}",
+          tdbPublisherHelper.nonDefaultToString(results));
+      return new ResponseEntity<List<TdbPublisherWsResult>>(results,
+          pageHeaders(limit, offset, results.size()), HttpStatus.OK);
+    } catch (QueryExecutionException qee) {
+      String message = "Cannot getTdbPublishers() for tdbPublisherQuery = '"
+          + tdbPublisherQuery + "'";
+      log.error(message, qee);
+      return new ResponseEntity<String>(message,
+          HttpStatus.INTERNAL_SERVER_ERROR);
     } catch (Exception e) {
       String message = "Cannot getTdbPublishers() for tdbPublisherQuery = '"
           + tdbPublisherQuery + "'";
@@ -605,8 +1533,11 @@ public class WsApiServiceImpl extends BaseSpringApiServiceImpl
    * @return a {@code ResponseEntity<List<TdbTitleWsResult>>} with the results.
    */
   @Override
-  public ResponseEntity getTdbTitles(String tdbTitleQuery) {
+  public ResponseEntity getTdbTitles(String tdbTitleQuery, Integer limit,
+      Integer offset) {
     log.debug2("tdbTitleQuery = {}", tdbTitleQuery);
+    log.debug2("limit = {}", limit);
+    log.debug2("offset = {}", offset);
 
     // Check whether the service has not been fully initialized.
     if (!waitReady()) {
@@ -614,39 +1545,44 @@ public class WsApiServiceImpl extends BaseSpringApiServiceImpl
       return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
     }
 
+    // Check whether the requested page is not valid.
+    ResponseEntity<String> invalidPage = checkPage(limit, offset);
+
+    if (invalidPage != null) {
+      // Yes: Report the problem.
+      return invalidPage;
+    }
+
     TdbTitleHelper tdbTitleHelper = new TdbTitleHelper();
+    Function<Map<String, String>, List<TdbTitleWsSource>> universe =
+        equalities -> tdbTitleHelper.createUniverse();
     List<TdbTitleWsResult> results = null;
 
     try {
-      // Create the full query.
-      String fullQuery = JosqlUtil.createFullQuery(tdbTitleQuery,
-          TdbTitleHelper.SOURCE_FQCN, TdbTitleHelper.PROPERTY_NAMES,
-          TdbTitleHelper.RESULT_FQCN);
-      log.trace("fullQuery = {}", fullQuery);
-
-      // Create a new JoSQL query.
-      Query q = new Query();
-
-      try {
-        // Parse the SQL-like query.
-        q.parse(fullQuery);
-
-        // Execute the query.
-        QueryResults qr = q.execute(tdbTitleHelper.createUniverse());
-
-        // Get the query results.
-        results = (List<TdbTitleWsResult>)qr.getResults();
-        log.trace("results.size() = {}" + results.size());
-        log.trace("results = {}", tdbTitleHelper.nonDefaultToString(results));
-        return new ResponseEntity<List<TdbTitleWsResult>>(results,
-            HttpStatus.OK);
-      } catch (QueryExecutionException qee) {
-        String message =
-            "Cannot getTdbTitles() for tdbTitleQuery = '" + tdbTitleQuery + "'";
-        log.error(message, qee);
-        return new ResponseEntity<String>(message,
-            HttpStatus.INTERNAL_SERVER_ERROR);
+      // Check whether the results are to be streamed.
+      if (NdjsonHelper.isNdjsonAccepted()) {
+        // Yes.
+        streamQuery(tdbTitleQuery, TdbTitleHelper.SOURCE_FQCN,
+            TdbTitleHelper.PROPERTY_NAMES, TdbTitleHelper.RESULT_FQCN, universe,
+            limit, offset);
+        return null;
       }
+
+      // Execute the query, reusing its parsed form if it is cached.
+      results = (List<TdbTitleWsResult>)wsQueryCache.execute(
+          tdbTitleQuery, TdbTitleHelper.SOURCE_FQCN,
+          TdbTitleHelper.PROPERTY_NAMES, TdbTitleHelper.RESULT_FQCN, universe,
+          toInt(offset), toInt(limit));
+      log.trace("results.size() = {}" + results.size());
+      log.trace("results = {}", tdbTitleHelper.nonDefaultToString(results));
+      return new ResponseEntity<List<TdbTitleWsResult>>(results,
+          pageHeaders(limit, offset, results.size()), HttpStatus.OK);
+    } catch (QueryExecutionException qee) {
+      String message =
+          "Cannot getTdbTitles() for tdbTitleQuery = '" + tdbTitleQuery + "'";
+      log.error(message, qee);
+      return new ResponseEntity<String>(message,
+          HttpStatus.INTERNAL_SERVER_ERROR);
     } catch (Exception e) {
       String message =
           "Cannot getTdbTitles() for tdbTitleQuery = '" + tdbTitleQuery + "'";
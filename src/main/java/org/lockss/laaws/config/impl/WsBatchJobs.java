@@ -0,0 +1,457 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.lockss.config.CurrentConfig;
+import org.lockss.log.L4JLogger;
+import org.lockss.ws.entities.ContentConfigurationResult;
+import org.springframework.stereotype.Component;
+
+/**
+ * The asynchronous jobs that apply a batch operation to a list of archival
+ * units.
+ * <p>
+ * A submitted job is queued and then run by a bounded pool of worker
+ * threads, which apply the operation to the archival units one chunk at a
+ * time, so that the results of the processed chunks are available while the
+ * job runs. A job can be cancelled, in which case it stops before its next
+ * chunk. Finished jobs are kept for a while so that their results can be
+ * retrieved.
+ */
+@Component
+public class WsBatchJobs {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  /** The number of worker threads that run jobs. */
+  public static final String PARAM_THREADS =
+      WsApiServiceImpl.PREFIX + "jobs.threads";
+  public static final int DEFAULT_THREADS = 2;
+
+  /**
+   * The maximum number of jobs waiting for a worker thread. Only read when
+   * the first job is submitted.
+   */
+  public static final String PARAM_MAX_QUEUED =
+      WsApiServiceImpl.PREFIX + "jobs.maxQueued";
+  public static final int DEFAULT_MAX_QUEUED = 100;
+
+  /** The number of archival units processed together by a job. */
+  public static final String PARAM_CHUNK_SIZE =
+      WsApiServiceImpl.PREFIX + "jobs.chunkSize";
+  public static final int DEFAULT_CHUNK_SIZE = 100;
+
+  /** The time, in milliseconds, that a finished job is kept. */
+  public static final String PARAM_RETENTION =
+      WsApiServiceImpl.PREFIX + "jobs.retention";
+  public static final long DEFAULT_RETENTION = 60 * 60 * 1000L;
+
+  /** The state of a job. */
+  public enum State {QUEUED, RUNNING, COMPLETED, CANCELLED, FAILED}
+
+  /**
+   * The operation applied by a job to each chunk of archival units.
+   */
+  @FunctionalInterface
+  public interface ChunkOperation {
+    /**
+     * Applies the operation to a chunk of archival units.
+     *
+     * @param auIds A {@code List<String>} with the identifiers of the
+     *              archival units in the chunk.
+     * @return a {@code List<ContentConfigurationResult>} with the result for
+     *         each archival unit, in the order of the chunk.
+     * @throws Exception if the operation could not be applied.
+     */
+    List<ContentConfigurationResult> apply(List<String> auIds)
+        throws Exception;
+  }
+
+  // The jobs, in submission order.
+  private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+  // The worker threads.
+  private ThreadPoolExecutor executor = null;
+
+  /**
+   * Submits a job.
+   *
+   * @param operation A String with the name of the operation.
+   * @param auIds     A {@code List<String>} with the identifiers of the
+   *                  archival units.
+   * @param chunkOperation A ChunkOperation with the operation to be applied
+   *                  to each chunk.
+   * @return a Job with the submitted job, or null if there are too many
+   *         queued jobs.
+   */
+  public Job submit(String operation, List<String> auIds,
+      ChunkOperation chunkOperation) {
+    log.debug2("operation = {}", operation);
+    log.debug2("auIds.size() = {}", auIds.size());
+
+    int chunkSize = Math.max(1,
+        CurrentConfig.getIntParam(PARAM_CHUNK_SIZE, DEFAULT_CHUNK_SIZE));
+    Job job = new Job(operation, new ArrayList<>(auIds), chunkOperation,
+        chunkSize);
+
+    synchronized (this) {
+      removeExpiredJobs();
+
+      try {
+        job.future = getExecutor().submit(job::run);
+      } catch (RejectedExecutionException ree) {
+        log.warn("Job rejected: Too many queued jobs");
+        return null;
+      }
+
+      jobs.put(job.getId(), job);
+    }
+
+    log.debug("Submitted job {} to {} {} AUs", job.getId(), operation,
+        auIds.size());
+    return job;
+  }
+
+  /**
+   * Provides a job.
+   *
+   * @param jobId A String with the identifier of the job.
+   * @return a Job with the job, or null if there is no such job.
+   */
+  public synchronized Job get(String jobId) {
+    removeExpiredJobs();
+    return jobs.get(jobId);
+  }
+
+  /**
+   * Cancels a job. A queued job is cancelled immediately and removed from
+   * the queue, so that it no longer takes up room in it; a running job is
+   * cancelled when it finishes its current chunk.
+   *
+   * @param jobId A String with the identifier of the job.
+   * @return a Job with the job, or null if there is no such job.
+   */
+  public Job cancel(String jobId) {
+    Job job = get(jobId);
+
+    if (job != null && job.cancel()) {
+      synchronized (this) {
+        if (executor != null && job.future instanceof Runnable) {
+          executor.remove((Runnable)job.future);
+        }
+      }
+    }
+
+    return job;
+  }
+
+  /**
+   * Applies an operation to a chunk of archival units, reporting as a failure
+   * of each one any problem applying it to the chunk.
+   *
+   * @param operation      A String with the name of the operation.
+   * @param chunkOperation A ChunkOperation with the operation.
+   * @param chunk          A {@code List<String>} with the identifiers of the
+   *                       archival units in the chunk.
+   * @return a {@code List<ContentConfigurationResult>} with the result for
+   *         each archival unit, in the order of the chunk.
+   */
+  static List<ContentConfigurationResult> applyToChunk(String operation,
+      ChunkOperation chunkOperation, List<String> chunk) {
+    try {
+      return chunkOperation.apply(chunk);
+    } catch (Exception e) {
+      log.error("Cannot " + operation + " chunk", e);
+      List<ContentConfigurationResult> failures = new ArrayList<>();
+
+      for (String auId : chunk) {
+        failures.add(new ContentConfigurationResult(auId, null,
+            Boolean.FALSE, "Cannot " + operation + ": " + e.getMessage()));
+      }
+
+      return failures;
+    }
+  }
+
+  /**
+   * Provides the worker threads, adjusting their number to the current
+   * configuration.
+   *
+   * @return a ThreadPoolExecutor with the worker threads.
+   */
+  private ThreadPoolExecutor getExecutor() {
+    int threads =
+        Math.max(1, CurrentConfig.getIntParam(PARAM_THREADS, DEFAULT_THREADS));
+
+    if (executor == null) {
+      AtomicInteger count = new AtomicInteger();
+      executor = new ThreadPoolExecutor(threads, threads, 60,
+          TimeUnit.SECONDS, new LinkedBlockingQueue<>(Math.max(1,
+              CurrentConfig.getIntParam(PARAM_MAX_QUEUED,
+                  DEFAULT_MAX_QUEUED))),
+          runnable -> {
+            Thread thread =
+                new Thread(runnable, "WsBatchJob-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          });
+      executor.allowCoreThreadTimeOut(true);
+    } else if (executor.getCorePoolSize() != threads) {
+      // The order of the changes must keep the core size below the maximum.
+      if (threads > executor.getMaximumPoolSize()) {
+        executor.setMaximumPoolSize(threads);
+        executor.setCorePoolSize(threads);
+      } else {
+        executor.setCorePoolSize(threads);
+        executor.setMaximumPoolSize(threads);
+      }
+    }
+
+    return executor;
+  }
+
+  /**
+   * Removes the finished jobs that have been kept long enough.
+   */
+  private void removeExpiredJobs() {
+    long expiration = System.currentTimeMillis()
+        - CurrentConfig.getLongParam(PARAM_RETENTION, DEFAULT_RETENTION);
+
+    for (Iterator<Job> iterator = jobs.values().iterator();
+        iterator.hasNext(); ) {
+      Job job = iterator.next();
+
+      if (job.isFinished() && job.getFinishTime() < expiration) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * A job that applies an operation to a list of archival units.
+   */
+  public static class Job {
+    private final String id = UUID.randomUUID().toString();
+    private final String operation;
+    private final List<String> auIds;
+    private final ChunkOperation chunkOperation;
+    private final int chunkSize;
+    private final long submitTime = System.currentTimeMillis();
+    private final List<ContentConfigurationResult> results =
+        Collections.synchronizedList(new ArrayList<>());
+
+    private Future<?> future;
+    private volatile State state = State.QUEUED;
+    private volatile boolean cancelRequested = false;
+    private volatile long startTime = 0;
+    private volatile long finishTime = 0;
+    private volatile String error = null;
+
+    /**
+     * Constructor.
+     *
+     * @param operation      A String with the name of the operation.
+     * @param auIds          A {@code List<String>} with the identifiers of
+     *                       the archival units.
+     * @param chunkOperation A ChunkOperation with the operation to be applied
+     *                       to each chunk.
+     * @param chunkSize      An int with the number of archival units in a
+     *                       chunk.
+     */
+    Job(String operation, List<String> auIds, ChunkOperation chunkOperation,
+        int chunkSize) {
+      this.operation = operation;
+      this.auIds = auIds;
+      this.chunkOperation = chunkOperation;
+      this.chunkSize = chunkSize;
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    public String getOperation() {
+      return operation;
+    }
+
+    public State getState() {
+      return state;
+    }
+
+    public long getFinishTime() {
+      return finishTime;
+    }
+
+    /**
+     * Provides an indication of whether the job has finished.
+     *
+     * @return {@code true} if the job has finished, {@code false} otherwise.
+     */
+    public boolean isFinished() {
+      return state != State.QUEUED && state != State.RUNNING;
+    }
+
+    /**
+     * Provides the results of the archival units processed so far.
+     *
+     * @param from An int with the index of the first result to provide.
+     * @return a {@code List<ContentConfigurationResult>} with the results,
+     *         in the order of the archival units.
+     */
+    public List<ContentConfigurationResult> getResults(int from) {
+      synchronized (results) {
+        return from >= results.size() ? new ArrayList<>()
+            : new ArrayList<>(results.subList(Math.max(0, from),
+                results.size()));
+      }
+    }
+
+    /**
+     * Provides the status of the job.
+     *
+     * @param from An int with the index of the first result to include.
+     * @return a {@code Map<String, Object>} with the status of the job.
+     */
+    public Map<String, Object> getStatus(int from) {
+      List<ContentConfigurationResult> partialResults = getResults(from);
+      int processed;
+      int succeeded = 0;
+
+      synchronized (results) {
+        processed = results.size();
+
+        for (ContentConfigurationResult result : results) {
+          if (Boolean.TRUE.equals(result.getIsSuccess())) {
+            succeeded++;
+          }
+        }
+      }
+
+      Map<String, Object> status = new LinkedHashMap<>();
+      status.put("id", id);
+      status.put("operation", operation);
+      status.put("state", state.name());
+      status.put("cancelRequested", cancelRequested);
+      status.put("total", auIds.size());
+      status.put("processed", processed);
+      status.put("succeeded", succeeded);
+      status.put("submitTime", submitTime);
+      status.put("startTime", startTime);
+      status.put("finishTime", finishTime);
+
+      if (error != null) {
+        status.put("error", error);
+      }
+
+      status.put("from", from);
+      status.put("results", partialResults);
+      return status;
+    }
+
+    /**
+     * Requests the cancellation of the job.
+     *
+     * @return {@code true} if the job had not started yet and has been
+     *         cancelled right away, {@code false} otherwise.
+     */
+    boolean cancel() {
+      cancelRequested = true;
+      boolean wasQueued = false;
+
+      // A job that has not started yet is cancelled right away.
+      synchronized (this) {
+        if (state == State.QUEUED) {
+          if (future != null) {
+            future.cancel(false);
+          }
+
+          state = State.CANCELLED;
+          finishTime = System.currentTimeMillis();
+          wasQueued = true;
+        }
+      }
+
+      log.debug("Cancellation requested for job {}", id);
+      return wasQueued;
+    }
+
+    /**
+     * Runs the job.
+     */
+    void run() {
+      synchronized (this) {
+        if (state != State.QUEUED) {
+          return;
+        }
+
+        state = State.RUNNING;
+        startTime = System.currentTimeMillis();
+      }
+
+      log.debug("Starting job {}", id);
+
+      try {
+        for (int start = 0; start < auIds.size(); start += chunkSize) {
+          if (cancelRequested) {
+            break;
+          }
+
+          List<String> chunk =
+              auIds.subList(start, Math.min(auIds.size(), start + chunkSize));
+          results.addAll(applyToChunk(operation, chunkOperation, chunk));
+        }
+
+        state = cancelRequested ? State.CANCELLED : State.COMPLETED;
+      } catch (RuntimeException re) {
+        log.error("Job " + id + " failed", re);
+        error = re.getMessage();
+        state = State.FAILED;
+      } finally {
+        finishTime = System.currentTimeMillis();
+      }
+
+      log.debug("Finished job {} with state {}", id, state);
+    }
+  }
+}
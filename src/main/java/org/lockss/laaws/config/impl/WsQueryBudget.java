@@ -0,0 +1,187 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.lockss.config.CurrentConfig;
+
+/**
+ * The time and work budgets of a web service query, shared by the objects
+ * being queried.
+ * <p>
+ * The expensive properties of the queried objects, which walk the URLs or
+ * the articles of an archival unit, charge each step to the budget. A step
+ * taken after the budget is exceeded, after the query is cancelled or after
+ * the thread that started the query is interrupted throws a
+ * {@link BudgetExceededException}, so all the threads evaluating the query
+ * stop at their next step.
+ */
+public class WsQueryBudget {
+  /**
+   * The maximum number of milliseconds spent computing the expensive
+   * properties of the objects of a single query; 0 means no limit.
+   */
+  public static final String PARAM_QUERY_MAX_TIME =
+      WsApiServiceImpl.PREFIX + "queryMaxTime";
+  public static final long DEFAULT_QUERY_MAX_TIME = 10 * 60 * 1000L;
+
+  /**
+   * The maximum number of URLs, articles and peer agreements visited
+   * computing the expensive properties of the objects of a single query;
+   * 0 means no limit.
+   */
+  public static final String PARAM_QUERY_MAX_WORK =
+      WsApiServiceImpl.PREFIX + "queryMaxWork";
+  public static final long DEFAULT_QUERY_MAX_WORK = 10000000L;
+
+  private final long maxTime;
+  private final long maxWork;
+  private final long deadline;
+  private final Thread owner;
+  private final AtomicLong work = new AtomicLong();
+  private volatile String cancelReason = null;
+
+  /**
+   * Constructor.
+   *
+   * @param maxTime A long with the maximum number of milliseconds that can be
+   *                spent, or 0 for no limit.
+   * @param maxWork A long with the maximum number of steps that can be taken,
+   *                or 0 for no limit.
+   */
+  public WsQueryBudget(long maxTime, long maxWork) {
+    this.maxTime = maxTime;
+    this.maxWork = maxWork;
+    deadline = maxTime > 0 ? System.nanoTime() + maxTime * 1000000L : 0;
+    owner = Thread.currentThread();
+  }
+
+  /**
+   * Provides a budget with the configured limits, starting now.
+   *
+   * @return a WsQueryBudget with the budget.
+   */
+  public static WsQueryBudget fromConfig() {
+    return new WsQueryBudget(
+        CurrentConfig.getLongParam(PARAM_QUERY_MAX_TIME,
+            DEFAULT_QUERY_MAX_TIME),
+        CurrentConfig.getLongParam(PARAM_QUERY_MAX_WORK,
+            DEFAULT_QUERY_MAX_WORK));
+  }
+
+  /**
+   * Charges one step to this budget.
+   *
+   * @param property A String with the name of the property being computed.
+   * @throws BudgetExceededException if the budget is exhausted or the query
+   *                                 has been cancelled.
+   */
+  public void charge(String property) {
+    long steps = work.incrementAndGet();
+
+    if (cancelReason != null) {
+      throw new BudgetExceededException("Query cancelled computing "
+          + property + ": " + cancelReason);
+    }
+
+    if (owner.isInterrupted()) {
+      cancel("interrupted");
+      throw new BudgetExceededException("Query interrupted computing "
+          + property);
+    }
+
+    if (maxWork > 0 && steps > maxWork) {
+      throw new BudgetExceededException("Query exceeded its work budget of "
+          + maxWork + " steps computing " + property
+          + "; narrow it down or raise " + PARAM_QUERY_MAX_WORK);
+    }
+
+    if (deadline != 0 && System.nanoTime() - deadline > 0) {
+      throw new BudgetExceededException("Query exceeded its time budget of "
+          + maxTime + " ms computing " + property
+          + "; narrow it down or raise " + PARAM_QUERY_MAX_TIME);
+    }
+  }
+
+  /**
+   * Cancels the query, so that its next step fails.
+   *
+   * @param reason A String with the reason for the cancellation.
+   */
+  public void cancel(String reason) {
+    if (cancelReason == null) {
+      cancelReason = reason;
+    }
+  }
+
+  /**
+   * Provides the number of steps charged to this budget.
+   *
+   * @return a long with the number of steps.
+   */
+  public long getWork() {
+    return work.get();
+  }
+
+  /**
+   * Provides the budget exception in the causes of a query failure.
+   *
+   * @param t A Throwable with the failure.
+   * @return a BudgetExceededException with the budget exception, or null if
+   *         the failure is not caused by one.
+   */
+  public static BudgetExceededException findCause(Throwable t) {
+    for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+      if (cause instanceof BudgetExceededException) {
+        return (BudgetExceededException)cause;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Thrown when a query exhausts its budget or is cancelled.
+   */
+  public static class BudgetExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor.
+     *
+     * @param message A String with the detail message.
+     */
+    public BudgetExceededException(String message) {
+      super(message);
+    }
+  }
+}
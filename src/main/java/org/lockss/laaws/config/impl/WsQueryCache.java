@@ -0,0 +1,498 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.josql.Query;
+import org.josql.QueryExecutionException;
+import org.josql.QueryParseException;
+import org.lockss.config.CurrentConfig;
+import org.lockss.log.L4JLogger;
+import org.lockss.util.josql.JosqlUtil;
+import org.springframework.stereotype.Component;
+
+/**
+ * A bounded, least-recently-used cache of the parsed queries of the web
+ * service query operations, keyed by the class of the queried objects and
+ * the text of the query.
+ * <p>
+ * Queries within the subset of the syntax supported by
+ * {@link CompiledWsQuery} are compiled, and can be executed concurrently.
+ * When there are enough queried objects, a compiled query is evaluated on
+ * them in parallel in a dedicated pool.
+ * The rest are parsed by JoSQL; a parsed query keeps its resolved
+ * accessors, so a repeated query skips both the parsing and the reflection
+ * setup. As a JoSQL query cannot be executed concurrently, a cached query
+ * already being executed by another thread is bypassed by parsing a private
+ * copy of it.
+ */
+@Component
+public class WsQueryCache {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  /** The maximum number of parsed queries kept. 0 disables the cache. */
+  public static final String PARAM_QUERY_CACHE_SIZE =
+      WsApiServiceImpl.PREFIX + "queryCacheSize";
+  public static final int DEFAULT_QUERY_CACHE_SIZE = 32;
+
+  /**
+   * Whether the queries within the supported syntax are compiled instead of
+   * being evaluated by JoSQL.
+   */
+  public static final String PARAM_COMPILE_QUERIES =
+      WsApiServiceImpl.PREFIX + "compileQueries";
+  public static final boolean DEFAULT_COMPILE_QUERIES = true;
+
+  /**
+   * The number of threads used to evaluate a compiled query on the queried
+   * objects in parallel; 1 evaluates queries serially.
+   */
+  public static final String PARAM_QUERY_PARALLELISM =
+      WsApiServiceImpl.PREFIX + "queryParallelism";
+  public static final int DEFAULT_QUERY_PARALLELISM =
+      Math.min(4, Runtime.getRuntime().availableProcessors());
+
+  /**
+   * The minimum number of queried objects for a compiled query to be
+   * evaluated in parallel.
+   */
+  public static final String PARAM_MIN_PARALLEL_QUERY_OBJECTS =
+      WsApiServiceImpl.PREFIX + "minParallelQueryObjects";
+  public static final int DEFAULT_MIN_PARALLEL_QUERY_OBJECTS = 64;
+
+  // The cached queries, in access order.
+  private final Map<List<String>, CachedQuery> queries =
+      new LinkedHashMap<List<String>, CachedQuery>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(
+            Map.Entry<List<String>, CachedQuery> eldest) {
+          return size() > getMaxSize();
+        }
+      };
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  // The pool used to evaluate queries in parallel, separate from the
+  // request threads.
+  private final ResizableForkJoinPool queryPool = new ResizableForkJoinPool();
+
+  /**
+   * Executes an SQL-like query, reusing its parsed form if it is cached.
+   *
+   * @param query         A String with the SQL-like query.
+   * @param sourceFqcn    A String with the fully-qualified name of the class
+   *                      of the queried objects.
+   * @param propertyNames A {@code Set<String>} with the names of the
+   *                      properties that can be queried.
+   * @param resultFqcn    A String with the fully-qualified name of the class
+   *                      of the results.
+   * @param universe      A {@code Supplier<List<?>>} with the objects to be
+   *                      queried, only called if the query is valid.
+   * @return a {@code List<?>} with the results of the query.
+   * @throws QueryParseException     if the query cannot be parsed.
+   * @throws QueryExecutionException if the query cannot be executed.
+   */
+  public List<?> execute(String query, String sourceFqcn,
+      Set<String> propertyNames, String resultFqcn,
+      Supplier<? extends List<?>> universe)
+      throws QueryParseException, QueryExecutionException {
+    return execute(query, sourceFqcn, propertyNames, resultFqcn,
+        equalities -> universe.get());
+  }
+
+  /**
+   * Executes an SQL-like query, reusing its parsed form if it is cached,
+   * over a universe that can be narrowed down to the objects with some
+   * property values.
+   *
+   * @param query         A String with the SQL-like query.
+   * @param sourceFqcn    A String with the fully-qualified name of the class
+   *                      of the queried objects.
+   * @param propertyNames A {@code Set<String>} with the names of the
+   *                      properties that can be queried.
+   * @param resultFqcn    A String with the fully-qualified name of the class
+   *                      of the results.
+   * @param universe      A {@code Function<Map<String, String>, List<?>>}
+   *                      with the objects to be queried, given the text
+   *                      constants to which some properties of the objects
+   *                      must be equal to satisfy the query, only called if
+   *                      the query is valid. The universe may include
+   *                      objects that do not have those property values,
+   *                      but it must include all that do.
+   * @return a {@code List<?>} with the results of the query.
+   * @throws QueryParseException     if the query cannot be parsed.
+   * @throws QueryExecutionException if the query cannot be executed.
+   */
+  public List<?> execute(String query, String sourceFqcn,
+      Set<String> propertyNames, String resultFqcn,
+      Function<Map<String, String>, ? extends List<?>> universe)
+      throws QueryParseException, QueryExecutionException {
+    return execute(query, sourceFqcn, propertyNames, resultFqcn, universe, 0,
+        0);
+  }
+
+  /**
+   * Executes an SQL-like query, reusing its parsed form if it is cached,
+   * over a universe that can be narrowed down to the objects with some
+   * property values, and provides a page of its results.
+   *
+   * @param query         A String with the SQL-like query.
+   * @param sourceFqcn    A String with the fully-qualified name of the class
+   *                      of the queried objects.
+   * @param propertyNames A {@code Set<String>} with the names of the
+   *                      properties that can be queried.
+   * @param resultFqcn    A String with the fully-qualified name of the class
+   *                      of the results.
+   * @param universe      A {@code Function<Map<String, String>, List<?>>}
+   *                      with the objects to be queried, as in
+   *                      {@link #execute(String, String, Set, String,
+   *                      Function)}.
+   * @param offset        An int with the number of results to be skipped.
+   * @param limit         An int with the maximum number of results, or 0
+   *                      for no limit.
+   * @return a {@code List<?>} with the page of results of the query.
+   * @throws QueryParseException     if the query cannot be parsed.
+   * @throws QueryExecutionException if the query cannot be executed.
+   */
+  public List<?> execute(String query, String sourceFqcn,
+      Set<String> propertyNames, String resultFqcn,
+      Function<Map<String, String>, ? extends List<?>> universe, int offset,
+      int limit) throws QueryParseException, QueryExecutionException {
+    List<Object> results = new ArrayList<>();
+
+    try {
+      stream(query, sourceFqcn, propertyNames, resultFqcn, universe, offset,
+          limit, results::add);
+    } catch (IOException ioe) {
+      // Cannot happen when adding to a list.
+      throw new IllegalStateException(ioe);
+    }
+
+    return results;
+  }
+
+  /**
+   * Executes an SQL-like query, reusing its parsed form if it is cached,
+   * over a universe that can be narrowed down to the objects with some
+   * property values, and passes a page of its results to a consumer.
+   * <p>
+   * The results of a compiled query are passed to the consumer as they are
+   * produced; those of a query evaluated by JoSQL, once they all are.
+   *
+   * @param query         A String with the SQL-like query.
+   * @param sourceFqcn    A String with the fully-qualified name of the class
+   *                      of the queried objects.
+   * @param propertyNames A {@code Set<String>} with the names of the
+   *                      properties that can be queried.
+   * @param resultFqcn    A String with the fully-qualified name of the class
+   *                      of the results.
+   * @param universe      A {@code Function<Map<String, String>, List<?>>}
+   *                      with the objects to be queried, as in
+   *                      {@link #execute(String, String, Set, String,
+   *                      Function)}.
+   * @param offset        An int with the number of results to be skipped.
+   * @param limit         An int with the maximum number of results to be
+   *                      passed to the consumer, or 0 for no limit.
+   * @param consumer      A CompiledWsQuery.ResultConsumer with the consumer
+   *                      of the results.
+   * @return an int with the number of results passed to the consumer.
+   * @throws QueryParseException     if the query cannot be parsed.
+   * @throws QueryExecutionException if the query cannot be executed.
+   * @throws IOException             if the consumer cannot accept a result.
+   */
+  public int stream(String query, String sourceFqcn,
+      Set<String> propertyNames, String resultFqcn,
+      Function<Map<String, String>, ? extends List<?>> universe, int offset,
+      int limit, CompiledWsQuery.ResultConsumer consumer)
+      throws QueryParseException, QueryExecutionException, IOException {
+    log.debug2("query = {}", query);
+    log.debug2("sourceFqcn = {}", sourceFqcn);
+    log.debug2("offset = {}", offset);
+    log.debug2("limit = {}", limit);
+
+    List<String> key = Arrays.asList(sourceFqcn, query);
+    CachedQuery cached;
+
+    synchronized (queries) {
+      cached = queries.get(key);
+    }
+
+    if (cached == null) {
+      misses.incrementAndGet();
+
+      // Compile or parse the query outside of the cache lock.
+      CompiledWsQuery compiled =
+          compile(query, sourceFqcn, propertyNames, resultFqcn);
+      cached = compiled != null ? new CachedQuery(compiled)
+          : new CachedQuery(parse(query, sourceFqcn, propertyNames,
+              resultFqcn));
+
+      if (getMaxSize() > 0) {
+        synchronized (queries) {
+          CachedQuery existing = queries.putIfAbsent(key, cached);
+
+          if (existing != null) {
+            cached = existing;
+          }
+        }
+      }
+    } else {
+      hits.incrementAndGet();
+    }
+
+    // Check whether the query is compiled.
+    if (cached.compiled != null) {
+      // Yes: It can be executed concurrently, and evaluated in parallel.
+      List<?> objects = universe.apply(cached.compiled.getEqualities());
+      ForkJoinPool pool = acquireQueryPool(objects.size());
+
+      try {
+        int count = cached.compiled.stream(objects, offset, limit, pool,
+            consumer);
+        log.debug2("count = {}", count);
+        return count;
+      } finally {
+        queryPool.release(pool);
+      }
+    }
+
+    List<?> results;
+
+    // Check whether the cached query is being executed by another thread.
+    if (!cached.lock.tryLock()) {
+      // Yes: Use a private copy of it.
+      log.trace("Query in use: Parsing a private copy");
+      Query q = parse(query, sourceFqcn, propertyNames, resultFqcn);
+      results = new ArrayList<>(
+          q.execute(universe.apply(Collections.emptyMap())).getResults());
+    } else {
+      try {
+        results = new ArrayList<>(cached.query.execute(
+            universe.apply(Collections.emptyMap())).getResults());
+      } finally {
+        release(key, cached);
+        cached.lock.unlock();
+      }
+    }
+
+    log.debug2("results.size() = {}", results.size());
+
+    int from = Math.min(Math.max(0, offset), results.size());
+    int to = limit > 0 ? (int)Math.min(results.size(), (long)from + limit)
+        : results.size();
+
+    for (Object result : results.subList(from, to)) {
+      consumer.accept(result);
+    }
+
+    return to - from;
+  }
+
+  /**
+   * Compiles an SQL-like query, if enabled and supported.
+   *
+   * @param query         A String with the SQL-like query.
+   * @param sourceFqcn    A String with the fully-qualified name of the class
+   *                      of the queried objects.
+   * @param propertyNames A {@code Set<String>} with the names of the
+   *                      properties that can be queried.
+   * @param resultFqcn    A String with the fully-qualified name of the class
+   *                      of the results.
+   * @return a CompiledWsQuery with the compiled query, or null if the query
+   *         is to be evaluated by JoSQL.
+   */
+  private CompiledWsQuery compile(String query, String sourceFqcn,
+      Set<String> propertyNames, String resultFqcn) {
+    if (!CurrentConfig.getBooleanParam(PARAM_COMPILE_QUERIES,
+        DEFAULT_COMPILE_QUERIES)) {
+      return null;
+    }
+
+    try {
+      ClassLoader loader = getClass().getClassLoader();
+      return CompiledWsQuery.compile(query,
+          Class.forName(sourceFqcn, true, loader), propertyNames,
+          Class.forName(resultFqcn, true, loader));
+    } catch (ClassNotFoundException cnfe) {
+      log.debug2("Cannot compile query '{}'", query, cnfe);
+      return null;
+    }
+  }
+
+  /**
+   * Parses an SQL-like query.
+   *
+   * @param query         A String with the SQL-like query.
+   * @param sourceFqcn    A String with the fully-qualified name of the class
+   *                      of the queried objects.
+   * @param propertyNames A {@code Set<String>} with the names of the
+   *                      properties that can be queried.
+   * @param resultFqcn    A String with the fully-qualified name of the class
+   *                      of the results.
+   * @return a Query with the parsed query.
+   * @throws QueryParseException if the query cannot be parsed.
+   */
+  private Query parse(String query, String sourceFqcn,
+      Set<String> propertyNames, String resultFqcn)
+      throws QueryParseException {
+    // Create the full query.
+    String fullQuery = JosqlUtil.createFullQuery(query, sourceFqcn,
+        propertyNames, resultFqcn);
+    log.trace("fullQuery = {}", fullQuery);
+
+    Query q = new Query();
+    q.parse(fullQuery);
+    return q;
+  }
+
+  /**
+   * Makes a cached query drop its references to the objects and results of
+   * its last execution, so that the cache does not retain them.
+   *
+   * @param key    A {@code List<String>} with the key of the query.
+   * @param cached A CachedQuery with the query.
+   */
+  private void release(List<String> key, CachedQuery cached) {
+    try {
+      cached.query.execute(Collections.emptyList());
+    } catch (QueryExecutionException | RuntimeException e) {
+      log.warn("Cannot release query: Removing it from the cache", e);
+
+      synchronized (queries) {
+        queries.remove(key, cached);
+      }
+    }
+  }
+
+  /**
+   * Acquires the pool used to evaluate a query in parallel, with the
+   * configured parallelism. A pool acquired by this method must be released
+   * with {@code queryPool.release()}.
+   *
+   * @param objectCount An int with the number of queried objects.
+   * @return a ForkJoinPool with the pool, or null if the query is to be
+   *         evaluated serially.
+   */
+  private ForkJoinPool acquireQueryPool(int objectCount) {
+    int parallelism = Math.max(1, CurrentConfig.getIntParam(
+        PARAM_QUERY_PARALLELISM, DEFAULT_QUERY_PARALLELISM));
+
+    if (parallelism == 1 || objectCount < CurrentConfig.getIntParam(
+        PARAM_MIN_PARALLEL_QUERY_OBJECTS,
+        DEFAULT_MIN_PARALLEL_QUERY_OBJECTS)) {
+      return null;
+    }
+
+    return queryPool.acquire(parallelism);
+  }
+
+  /**
+   * Provides the maximum number of cached queries.
+   *
+   * @return an int with the maximum number of cached queries.
+   */
+  private int getMaxSize() {
+    return Math.max(0, CurrentConfig.getIntParam(PARAM_QUERY_CACHE_SIZE,
+        DEFAULT_QUERY_CACHE_SIZE));
+  }
+
+  /**
+   * Provides the number of cached queries.
+   *
+   * @return an int with the number of cached queries.
+   */
+  int size() {
+    synchronized (queries) {
+      return queries.size();
+    }
+  }
+
+  /**
+   * Provides the number of executions that reused a cached query.
+   *
+   * @return a long with the number of cache hits.
+   */
+  long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * Provides the number of executions that parsed their query.
+   *
+   * @return a long with the number of cache misses.
+   */
+  long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Discards all the cached queries.
+   */
+  void clear() {
+    synchronized (queries) {
+      queries.clear();
+    }
+  }
+
+  /**
+   * A compiled query, or a parsed JoSQL query and the lock that serializes
+   * its executions.
+   */
+  private static class CachedQuery {
+    private final CompiledWsQuery compiled;
+    private final Query query;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private CachedQuery(CompiledWsQuery compiled) {
+      this.compiled = compiled;
+      this.query = null;
+    }
+
+    private CachedQuery(Query query) {
+      this.compiled = null;
+      this.query = query;
+    }
+  }
+}
@@ -0,0 +1,154 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.lockss.config.AuConfiguration;
+
+/**
+ * Benchmark of the size and of the encoding and decoding times of a set of AU
+ * configurations encoded as JSON and as Smile with shared-string
+ * back-references.
+ * <p>
+ * It is not run as part of the tests. To run it, with the test classpath:
+ * <pre>
+ * java org.lockss.laaws.config.impl.AuConfigEncodingBenchmark [AUs [rounds]]
+ * </pre>
+ */
+public class AuConfigEncodingBenchmark {
+  private static final int DEFAULT_AU_COUNT = 50000;
+  private static final int DEFAULT_ROUNDS = 20;
+
+  private static final TypeReference<List<AuConfiguration>> AU_CONFIG_LIST =
+      new TypeReference<List<AuConfiguration>>(){};
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args
+   *          A String[] with the optional number of AUs and of rounds.
+   * @throws Exception if there are problems.
+   */
+  public static void main(String[] args) throws Exception {
+    int auCount = args.length > 0 ? Integer.parseInt(args[0])
+	: DEFAULT_AU_COUNT;
+    int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+
+    List<AuConfiguration> auConfigs = makeAuConfigs(auCount);
+
+    System.out.println("AUs: " + auCount + ", rounds: " + rounds);
+    run("JSON", new ObjectMapper(), auConfigs, rounds);
+    run("Smile", SmileHelper.getMapper(), auConfigs, rounds);
+  }
+
+  /**
+   * Measures one encoding.
+   *
+   * @param name
+   *          A String with the name of the encoding.
+   * @param mapper
+   *          An ObjectMapper with the mapper of the encoding.
+   * @param auConfigs
+   *          A {@code List<AuConfiguration>} with the AU configurations.
+   * @param rounds
+   *          An int with the number of measured rounds.
+   * @throws Exception if there are problems.
+   */
+  private static void run(String name, ObjectMapper mapper,
+      List<AuConfiguration> auConfigs, int rounds) throws Exception {
+    byte[] encoded = mapper.writeValueAsBytes(auConfigs);
+
+    // Warm up.
+    for (int i = 0; i < rounds; i++) {
+      mapper.readValue(mapper.writeValueAsBytes(auConfigs), AU_CONFIG_LIST);
+    }
+
+    long encodeNanos = 0;
+    long decodeNanos = 0;
+
+    for (int i = 0; i < rounds; i++) {
+      long start = System.nanoTime();
+      encoded = mapper.writeValueAsBytes(auConfigs);
+      long middle = System.nanoTime();
+      List<AuConfiguration> decoded =
+	  mapper.readValue(encoded, AU_CONFIG_LIST);
+      decodeNanos += System.nanoTime() - middle;
+      encodeNanos += middle - start;
+
+      if (!auConfigs.equals(decoded)) {
+	throw new IllegalStateException(name + " round trip failed");
+      }
+    }
+
+    System.out.println(String.format(
+	"%-6s size: %,12d bytes, encode: %8.2f ms, decode: %8.2f ms",
+	name, encoded.length, encodeNanos / 1e6 / rounds,
+	decodeNanos / 1e6 / rounds));
+  }
+
+  /**
+   * Provides AU configurations shaped like those of typical plugins, with the
+   * same keys in all of them and with values shared by many of them.
+   *
+   * @param auCount
+   *          An int with the number of AU configurations.
+   * @return a {@code List<AuConfiguration>} with the AU configurations.
+   */
+  static List<AuConfiguration> makeAuConfigs(int auCount) {
+    List<AuConfiguration> result = new ArrayList<>(auCount);
+
+    for (int i = 0; i < auCount; i++) {
+      String baseUrl = "https://www.publisher" + (i % 20) + ".org/";
+      String journal = "journal" + (i % 500);
+      String volume = Integer.toString(i / 500);
+
+      Map<String, String> auConfig = new HashMap<>();
+      auConfig.put("base_url", baseUrl);
+      auConfig.put("journal_id", journal);
+      auConfig.put("volume_name", volume);
+      auConfig.put("year", Integer.toString(1990 + i % 30));
+      auConfig.put("reserved.disabled", "false");
+
+      result.add(new AuConfiguration("org|lockss|plugin|publisher"
+	  + (i % 20) + "|Publisher" + (i % 20) + "Plugin"
+	  + "&base_url~" + baseUrl.replace(":", "%3A").replace("/", "%2F")
+	  + "&journal_id~" + journal + "&volume_name~" + volume, auConfig));
+    }
+
+    return result;
+  }
+}
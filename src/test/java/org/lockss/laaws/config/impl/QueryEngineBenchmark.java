@@ -0,0 +1,159 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.josql.Query;
+import org.lockss.config.TdbPublisher;
+import org.lockss.util.josql.JosqlUtil;
+
+/**
+ * Benchmark of the evaluation of a query by JoSQL, both parsing it each time
+ * and reusing its parsed form, and by {@link CompiledWsQuery}, on a large
+ * universe of title database publishers.
+ * <p>
+ * It is not run as part of the tests. To run it, with the test classpath:
+ * <pre>
+ * java org.lockss.laaws.config.impl.QueryEngineBenchmark [objects [query]]
+ * </pre>
+ */
+public class QueryEngineBenchmark {
+  private static final int DEFAULT_OBJECT_COUNT = 200000;
+  private static final String DEFAULT_QUERY =
+      "select name where name like 'Publisher 1%' or name = 'Publisher 7'"
+      + " order by name desc";
+  private static final int ROUNDS = 10;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args
+   *          A String[] with the optional number of objects and query.
+   * @throws Exception if there are problems.
+   */
+  public static void main(String[] args) throws Exception {
+    int objectCount = args.length > 0 ? Integer.parseInt(args[0])
+	: DEFAULT_OBJECT_COUNT;
+    String query = args.length > 1 ? args[1] : DEFAULT_QUERY;
+
+    List<TdbPublisherWsSource> universe = new ArrayList<>(objectCount);
+
+    for (int i = 0; i < objectCount; i++) {
+      universe.add(new TdbPublisherWsSource(new TdbPublisher("Publisher "
+	  + i)));
+    }
+
+    String fullQuery = JosqlUtil.createFullQuery(query,
+	TdbPublisherHelper.SOURCE_FQCN, TdbPublisherHelper.PROPERTY_NAMES,
+	TdbPublisherHelper.RESULT_FQCN);
+
+    CompiledWsQuery compiled = CompiledWsQuery.compile(query,
+	TdbPublisherWsSource.class, TdbPublisherHelper.PROPERTY_NAMES,
+	Class.forName(TdbPublisherHelper.RESULT_FQCN));
+
+    if (compiled == null) {
+      throw new IllegalArgumentException("Query cannot be compiled: " + query);
+    }
+
+    Query parsed = new Query();
+    parsed.parse(fullQuery);
+
+    Evaluation parsing = () -> {
+      Query q = new Query();
+      q.parse(fullQuery);
+      return q.execute(universe).getResults().size();
+    };
+
+    Evaluation reusing = () -> parsed.execute(universe).getResults().size();
+    Evaluation compiling = () -> compiled.execute(universe).size();
+
+    int expected = compiling.evaluate();
+
+    if (parsing.evaluate() != expected) {
+      throw new IllegalStateException("Different number of results");
+    }
+
+    double parsingMillis = measure(parsing, expected);
+    double reusingMillis = measure(reusing, expected);
+    double compiledMillis = measure(compiling, expected);
+
+    System.out.println(String.format("objects: %d, results: %d", objectCount,
+	expected));
+    System.out.println(String.format("JoSQL, parsed each time: %8.2f ms",
+	parsingMillis));
+    System.out.println(String.format("JoSQL, parsed once:      %8.2f ms",
+	reusingMillis));
+    System.out.println(String.format(
+	"Compiled:                %8.2f ms, speedup: %5.2f", compiledMillis,
+	parsingMillis / compiledMillis));
+  }
+
+  /**
+   * Measures the average time of an evaluation.
+   *
+   * @param evaluation
+   *          An Evaluation with the evaluation.
+   * @param expected
+   *          An int with the expected number of results.
+   * @return a double with the average time in milliseconds.
+   * @throws Exception if there are problems.
+   */
+  private static double measure(Evaluation evaluation, int expected)
+      throws Exception {
+    // Warm up.
+    for (int i = 0; i < ROUNDS; i++) {
+      evaluation.evaluate();
+    }
+
+    long nanos = 0;
+
+    for (int i = 0; i < ROUNDS; i++) {
+      long start = System.nanoTime();
+      int count = evaluation.evaluate();
+      nanos += System.nanoTime() - start;
+
+      if (count != expected) {
+	throw new IllegalStateException("Unexpected number of results");
+      }
+    }
+
+    return nanos / 1e6 / ROUNDS;
+  }
+
+  /**
+   * An evaluation of the query that provides the number of results.
+   */
+  private interface Evaluation {
+    int evaluate() throws Exception;
+  }
+}
@@ -0,0 +1,138 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.lockss.config.AuConfiguration;
+import org.lockss.test.LockssTestCase4;
+
+/**
+ * Test class for the compacted entries of
+ * org.lockss.laaws.config.impl.AuConfigCache.
+ */
+public class TestAuConfigCache extends LockssTestCase4 {
+  // The number of synthetic Archival Unit configurations.
+  private static final int AU_COUNT = 5000;
+
+  /**
+   * Tests that equal keys and values are shared by the compacted entries
+   * and that the estimated heap drops accordingly.
+   */
+  @Test
+  public void testCompaction() throws Exception {
+    StringPool pool = new StringPool();
+    List<AuConfigCache.CompactAuConfig> entries = new ArrayList<>();
+    long uncompactedBytes = 0;
+    long compactBytes = 0;
+
+    for (int i = 0; i < AU_COUNT; i++) {
+      AuConfigCache.CompactAuConfig entry =
+	  new AuConfigCache.CompactAuConfig(makeAuConfiguration(i), pool);
+      entries.add(entry);
+      uncompactedBytes += entry.estimateUncompactedBytes();
+      compactBytes += entry.estimateBytes();
+    }
+
+    compactBytes += pool.estimateBytes();
+
+    // The configurations are unchanged.
+    AuConfiguration expected = makeAuConfiguration(17);
+    AuConfiguration actual = entries.get(17).toAuConfiguration();
+    assertEquals(expected.getAuId(), actual.getAuId());
+    assertEquals(expected.getAuConfig(), actual.getAuConfig());
+
+    // Equal keys and values are the same object: the first Archival Unit
+    // and the 201st one have the same values.
+    Map<String, String> first = entries.get(0).toAuConfiguration()
+	.getAuConfig();
+    Map<String, String> other = entries.get(200).toAuConfiguration()
+	.getAuConfig();
+
+    for (String key : first.keySet()) {
+      assertSame(key, pooledKey(other, key));
+      assertSame(first.get(key), other.get(key));
+    }
+
+    // Only the distinct strings are pooled: 5 keys, 4 hosts, 50 journals,
+    // 40 years, 200 volumes and one flag.
+    assertEquals(5 + 4 + 50 + 40 + 200 + 1, pool.size());
+
+    // The estimated heap, about 4.1 MB uncompacted, drops at least by a
+    // factor of 8.
+    assertTrue("uncompactedBytes = " + uncompactedBytes + ", compactBytes = "
+	+ compactBytes, uncompactedBytes >= 8 * compactBytes);
+  }
+
+  /**
+   * Provides the key object of a map equal to a given one.
+   *
+   * @param map
+   *          A {@code Map<String, String>} with the map.
+   * @param key
+   *          A String with the key.
+   * @return a String with the key object of the map.
+   */
+  private String pooledKey(Map<String, String> map, String key) {
+    for (String mapKey : map.keySet()) {
+      if (mapKey.equals(key)) {
+	return mapKey;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Provides a synthetic Archival Unit configuration, shaped like those of
+   * typical plugins, built with strings not shared with any other one.
+   *
+   * @param i
+   *          An int with the number of the Archival Unit.
+   * @return an AuConfiguration with the configuration.
+   */
+  private AuConfiguration makeAuConfiguration(int i) {
+    Map<String, String> auConfig = new HashMap<>();
+    auConfig.put(new String("base_url"),
+	new String("https://host" + (i % 4) + ".example.com/"));
+    auConfig.put(new String("journal_id"), new String("journal" + (i % 50)));
+    auConfig.put(new String("year"), String.valueOf(1990 + i % 40));
+    auConfig.put(new String("volume_name"), String.valueOf(i % 200));
+    auConfig.put(new String("reserved.disabled"), new String("false"));
+
+    return new AuConfiguration("org|lockss|plugin|TestPlugin&base_url~"
+	+ i, auConfig);
+  }
+}
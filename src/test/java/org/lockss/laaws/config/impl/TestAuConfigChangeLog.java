@@ -0,0 +1,91 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.util.List;
+import org.junit.Test;
+import org.lockss.test.ConfigurationUtil;
+import org.lockss.test.LockssTestCase4;
+
+/**
+ * Test class for org.lockss.laaws.config.impl.AuConfigChangeLog.
+ */
+public class TestAuConfigChangeLog extends LockssTestCase4 {
+  /**
+   * Tests paging through the log while it wraps around and is compacted.
+   */
+  @Test
+  public void testGetChangesSince() throws Exception {
+    ConfigurationUtil.addFromArgs(AuConfigChangeLog.PARAM_MAX_CHANGES, "50");
+    AuConfigChangeLog changeLog = new AuConfigChangeLog();
+
+    for (int i = 1; i <= 130; i++) {
+      assertEquals(i, changeLog.record("p&au" + i,
+	  AuConfigChangeLog.Type.ADDED));
+    }
+
+    assertEquals(130, changeLog.getLatest());
+    assertEquals(80, changeLog.getHorizon());
+
+    // Changes beyond the horizon, or not yet recorded.
+    assertNull(changeLog.getChangesSince(79, 10));
+    assertNull(changeLog.getChangesSince(131, 10));
+
+    // A page in the middle of the log.
+    AuConfigChangeLog.Page page = changeLog.getChangesSince(100, 7);
+    List<AuConfigChangeLog.Change> changes = page.getChanges();
+    assertEquals(107, page.getNext());
+    assertEquals(7, changes.size());
+    assertEquals(101, changes.get(0).getSeq());
+    assertEquals("p&au101", changes.get(0).getAuId());
+    assertEquals(107, changes.get(6).getSeq());
+
+    // The end of the log.
+    page = changeLog.getChangesSince(125, 100);
+    assertEquals(130, page.getNext());
+    assertEquals(5, page.getChanges().size());
+
+    page = changeLog.getChangesSince(130, 100);
+    assertEquals(130, page.getNext());
+    assertEquals(0, page.getChanges().size());
+
+    // Only the last change to each Archival Unit is reported.
+    changeLog.record("p&au128", AuConfigChangeLog.Type.REMOVED);
+    page = changeLog.getChangesSince(126, 100);
+    changes = page.getChanges();
+    assertEquals(131, page.getNext());
+    assertEquals(4, changes.size());
+    assertEquals("p&au127", changes.get(0).getAuId());
+    assertEquals("p&au128", changes.get(3).getAuId());
+    assertEquals(AuConfigChangeLog.Type.REMOVED, changes.get(3).getType());
+  }
+}
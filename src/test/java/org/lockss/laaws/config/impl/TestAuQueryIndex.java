@@ -0,0 +1,292 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import org.lockss.plugin.ArchivalUnit;
+import org.lockss.test.ConfigurationUtil;
+import org.lockss.test.LockssTestCase4;
+import org.lockss.test.MockArchivalUnit;
+
+/**
+ * Test class for org.lockss.laaws.config.impl.AuQueryIndex.
+ */
+public class TestAuQueryIndex extends LockssTestCase4 {
+  private static final String[] PLUGINS = {"org.lockss.plugin.APlugin",
+      "org.lockss.plugin.BPlugin", "org.lockss.plugin.CPlugin"};
+  private static final String[] PUBLISHERS = {"Publisher 0", "Publisher 1",
+      "Publisher 2", "Publisher 3"};
+  private static final String[] YEARS = {"2000", "2001", "2002", "2003"};
+
+  // The configured archival units, and the current values of their indexed
+  // properties.
+  private Map<String, ArchivalUnit> aus;
+  private Map<String, String[]> values;
+
+  // What happens while the archival units are being scanned, if anything.
+  private Runnable duringScan;
+
+  private AuQueryIndex index;
+
+  @Before
+  public void setUpIndex() throws Exception {
+    aus = new LinkedHashMap<>();
+    values = new HashMap<>();
+    duringScan = null;
+
+    for (int i = 0; i < 60; i++) {
+      addAu("p&au" + i, PLUGINS[i % PLUGINS.length],
+	  i % 10 == 0 ? null : PUBLISHERS[i % PUBLISHERS.length],
+	  YEARS[i % YEARS.length]);
+    }
+
+    // An index of the fake archival units, with their fake properties.
+    index = new AuQueryIndex() {
+      @Override
+      void register() {
+      }
+
+      @Override
+      Collection<ArchivalUnit> getConfiguredAus() {
+	List<ArchivalUnit> scanned = new ArrayList<>(aus.values());
+
+	if (duringScan != null) {
+	  duringScan.run();
+	  duringScan = null;
+	}
+
+	return scanned;
+      }
+
+      @Override
+      String[] computeValues(ArchivalUnit au) {
+	String[] auValues = values.get(au.getAuId());
+	return auValues == null ? new String[3] : auValues.clone();
+      }
+    };
+  }
+
+  /**
+   * Tests that the narrowed archival units are those of a full scan, as the
+   * archival units are created, reconfigured and deleted.
+   */
+  @Test
+  public void testEvents() throws Exception {
+    assertSameAsFullScan();
+    assertEquals(60, index.size());
+
+    // Created.
+    index.put(addAu("p&new", PLUGINS[0], PUBLISHERS[1], YEARS[2]));
+    assertSameAsFullScan();
+
+    // Reconfigured.
+    values.put("p&au7", new String[] {PLUGINS[1], PUBLISHERS[0], YEARS[3]});
+    index.put(aus.get("p&au7"));
+    assertSameAsFullScan();
+
+    // Deleted.
+    aus.remove("p&au8");
+    values.remove("p&au8");
+    index.remove("p&au8");
+    assertSameAsFullScan();
+    assertEquals(60, index.size());
+  }
+
+  /**
+   * Tests that the narrowed archival units are those of a full scan after a
+   * title database reload, which changes the properties without events.
+   */
+  @Test
+  public void testTitleDbReload() throws Exception {
+    assertSameAsFullScan();
+
+    for (int i = 0; i < 60; i += 3) {
+      values.get("p&au" + i)[1] = PUBLISHERS[(i + 1) % PUBLISHERS.length];
+      values.get("p&au" + i)[2] = YEARS[(i + 2) % YEARS.length];
+    }
+
+    // The title database comes with a new configuration.
+    ConfigurationUtil.addFromArgs("org.lockss.title.reloaded", "true");
+    assertSameAsFullScan();
+  }
+
+  /**
+   * Tests that the changes made while the archival units are being scanned
+   * are not lost.
+   */
+  @Test
+  public void testChangesDuringScan() throws Exception {
+    duringScan = () -> {
+      aus.remove("p&au1");
+      values.remove("p&au1");
+      index.remove("p&au1");
+
+      index.put(addAu("p&new", PLUGINS[1], PUBLISHERS[1], YEARS[1]));
+
+      values.put("p&au2", new String[] {PLUGINS[1], PUBLISHERS[1], YEARS[1]});
+      index.put(aus.get("p&au2"));
+    };
+
+    assertSameAsFullScan();
+    assertTrue(index.findCandidates(equalities(PLUGINS[1], PUBLISHERS[1],
+	YEARS[1])).contains("p&new"));
+  }
+
+  /**
+   * Tests the queries that cannot be narrowed.
+   */
+  @Test
+  public void testNotNarrowed() throws Exception {
+    assertNull(index.findCandidates(new HashMap<>()));
+
+    // State properties are not indexed.
+    Map<String, String> equalities = new HashMap<>();
+    equalities.put(AuHelper.SUBSTANCE_STATE, "Yes");
+    assertNull(index.findCandidates(equalities));
+
+    ConfigurationUtil.addFromArgs(AuQueryIndex.PARAM_ENABLED, "false");
+    assertNull(index.findCandidates(equalities(PLUGINS[0], null, null)));
+  }
+
+  /**
+   * Verifies that the narrowed archival units for every combination of the
+   * indexed properties are those of a full scan.
+   */
+  private void assertSameAsFullScan() {
+    List<String> plugins = withNull(PLUGINS);
+    List<String> publishers = withNull(PUBLISHERS);
+    List<String> years = withNull(YEARS);
+
+    for (String plugin : plugins) {
+      for (String publisher : publishers) {
+	for (String year : years) {
+	  Map<String, String> equalities =
+	      equalities(plugin, publisher, year);
+
+	  if (equalities.isEmpty()) {
+	    continue;
+	  }
+
+	  // Properties that are not indexed do not narrow down the results.
+	  equalities.put(AuHelper.SUBSTANCE_STATE, "Yes");
+
+	  assertEquals(equalities.toString(), fullScan(equalities),
+	      index.findCandidates(equalities));
+	}
+      }
+    }
+  }
+
+  /**
+   * Provides the archival units with some values of the indexed properties,
+   * by scanning all of them.
+   */
+  private Set<String> fullScan(Map<String, String> equalities) {
+    Set<String> result = new LinkedHashSet<>();
+
+    for (String auId : aus.keySet()) {
+      boolean matches = true;
+
+      for (int i = 0; i < AuQueryIndex.INDEXED_PROPERTIES.size(); i++) {
+	String value =
+	    equalities.get(AuQueryIndex.INDEXED_PROPERTIES.get(i));
+
+	if (value != null && !value.equals(values.get(auId)[i])) {
+	  matches = false;
+	}
+      }
+
+      if (matches) {
+	result.add(auId);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Provides the equalities of some values of the indexed properties.
+   */
+  private Map<String, String> equalities(String plugin, String publisher,
+      String year) {
+    Map<String, String> equalities = new HashMap<>();
+
+    if (plugin != null) {
+      equalities.put(AuHelper.PLUGIN_NAME, plugin);
+    }
+
+    if (publisher != null) {
+      equalities.put(AuHelper.TDB_PUBLISHER, publisher);
+    }
+
+    if (year != null) {
+      equalities.put(AuHelper.TDB_YEAR, year);
+    }
+
+    return equalities;
+  }
+
+  /**
+   * Provides some values, plus null.
+   */
+  private List<String> withNull(String[] array) {
+    List<String> result = new ArrayList<>();
+    result.add(null);
+
+    for (String value : array) {
+      result.add(value);
+    }
+
+    return result;
+  }
+
+  /**
+   * Adds a fake archival unit.
+   */
+  private ArchivalUnit addAu(String auId, String plugin, String publisher,
+      String year) {
+    MockArchivalUnit au = new MockArchivalUnit();
+    au.setAuId(auId);
+    aus.put(auId, au);
+    values.put(auId, new String[] {plugin, publisher, year});
+    return au;
+  }
+}
@@ -0,0 +1,200 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.lockss.test.ConfigurationUtil;
+import org.lockss.test.LockssTestCase4;
+import org.lockss.util.time.TimeBase;
+
+/**
+ * Test class for org.lockss.laaws.config.impl.AuSizeCache.
+ */
+public class TestAuSizeCache extends LockssTestCase4 {
+  /**
+   * Tests that the saved sizes are loaded with their computation times.
+   */
+  @Test
+  public void testSaveAndLoad() throws Exception {
+    File file = new File(getTempDir(), "sizes.txt");
+
+    AuSizeCache cache = new AuSizeCache();
+    cache.put("plugin&base_url~http%3A%2F%2Fexample%2Ecom%2F",
+        new AuSizeCache.Sizes(1234L, 4096L, 1000L));
+    cache.put("plugin&year~2020", new AuSizeCache.Sizes(-1L, 512L, 2000L));
+    cache.put("plugin&year~2021", new AuSizeCache.Sizes(1L, 1L, 3000L));
+    cache.remove("plugin&year~2021");
+    cache.save(file);
+    assertFalse(new File(file.getPath() + ".tmp").exists());
+
+    AuSizeCache loaded = new AuSizeCache();
+    loaded.load(file);
+
+    AuSizeCache.Sizes sizes =
+        loaded.get("plugin&base_url~http%3A%2F%2Fexample%2Ecom%2F");
+    assertEquals(1234L, sizes.getContentSize());
+    assertEquals(4096L, sizes.getDiskUsage());
+    assertEquals(1000L, sizes.getComputedAt());
+
+    sizes = loaded.get("plugin&year~2020");
+    assertEquals(-1L, sizes.getContentSize());
+    assertEquals(512L, sizes.getDiskUsage());
+    assertEquals(2000L, sizes.getComputedAt());
+
+    assertNull(loaded.get("plugin&year~2021"));
+  }
+
+  /**
+   * Tests that invalid lines in the saved file are ignored.
+   */
+  @Test
+  public void testLoadInvalid() throws Exception {
+    File file = new File(getTempDir(), "sizes.txt");
+    Files.write(file.toPath(), Arrays.asList("auid1\t10\t20\t30",
+        "truncated\t10", "notanumber\t10\tx\t30", "auid2\t40\t50\t60"),
+        StandardCharsets.UTF_8);
+
+    AuSizeCache cache = new AuSizeCache();
+    cache.load(file);
+
+    assertEquals(10L, cache.get("auid1").getContentSize());
+    assertEquals(60L, cache.get("auid2").getComputedAt());
+    assertNull(cache.get("truncated"));
+    assertNull(cache.get("notanumber"));
+  }
+
+  /**
+   * Tests that the sizes are recomputed in batches of the configured size.
+   */
+  @Test
+  public void testRecomputeBatches() throws Exception {
+    ConfigurationUtil.addFromArgs(AuSizeCache.PARAM_RECOMPUTE_BATCH_SIZE,
+        "100");
+
+    Map<String, Long> crawlTimes = new LinkedHashMap<>();
+
+    for (int i = 0; i < 250; i++) {
+      crawlTimes.put("auid" + i, -1L);
+    }
+
+    List<String> computed = new ArrayList<>();
+
+    AuSizeCache cache = new AuSizeCache() {
+      @Override
+      Map<String, Long> getAuCrawlTimes() {
+        return crawlTimes;
+      }
+
+      @Override
+      Sizes computeSizes(String auId) {
+        computed.add(auId);
+
+        // A deleted archival unit.
+        if (auId.equals("auid7")) {
+          return null;
+        }
+
+        return new Sizes(auId.length(), 4096L, 1000L);
+      }
+    };
+
+    // One archival unit is cached and not old, so it is not recomputed.
+    cache.put("auid3", new AuSizeCache.Sizes(1L, 2L, TimeBase.nowMs()));
+
+    assertEquals(100, cache.recomputeBatch());
+    assertEquals(100, cache.recomputeBatch());
+    assertEquals(49, cache.recomputeBatch());
+
+    // Nothing is left until the next sweep.
+    assertEquals(0, cache.recomputeBatch());
+
+    assertEquals(249, computed.size());
+    assertFalse(computed.contains("auid3"));
+    assertEquals("auid0", computed.get(0));
+    assertEquals("auid249", computed.get(248));
+
+    assertEquals(1L, cache.get("auid3").getContentSize());
+    assertEquals(6L, cache.get("auid10").getContentSize());
+    assertNull(cache.get("auid7"));
+  }
+
+  /**
+   * Tests that the first sweep after the sizes are loaded recomputes those of
+   * the archival units crawled since they were computed.
+   */
+  @Test
+  public void testRecomputeCrawledAfterLoad() throws Exception {
+    File file = new File(getTempDir(), "sizes.txt");
+    long now = TimeBase.nowMs();
+    Files.write(file.toPath(), Arrays.asList("crawled\t10\t20\t" + now,
+        "notcrawled\t10\t20\t" + now, "never\t10\t20\t" + now),
+        StandardCharsets.UTF_8);
+
+    Map<String, Long> crawlTimes = new LinkedHashMap<>();
+    crawlTimes.put("never", -1L);
+    crawlTimes.put("notcrawled", now - 1000L);
+    crawlTimes.put("crawled", now + 1000L);
+
+    List<String> computed = new ArrayList<>();
+
+    AuSizeCache cache = new AuSizeCache() {
+      @Override
+      Map<String, Long> getAuCrawlTimes() {
+        return crawlTimes;
+      }
+
+      @Override
+      Sizes computeSizes(String auId) {
+        computed.add(auId);
+        return new Sizes(30L, 40L, now + 2000L);
+      }
+    };
+
+    cache.load(file);
+
+    assertEquals(1, cache.recomputeBatch());
+    assertEquals(Arrays.asList("crawled"), computed);
+    assertEquals(30L, cache.get("crawled").getContentSize());
+    assertEquals(10L, cache.get("notcrawled").getContentSize());
+
+    // The recomputed sizes are newer than the crawl.
+    assertEquals(0, cache.recomputeBatch());
+  }
+}
@@ -0,0 +1,244 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.Before;
+import org.junit.Test;
+import org.lockss.test.ConfigurationUtil;
+import org.lockss.test.LockssTestCase4;
+
+/**
+ * Test class for org.lockss.laaws.config.impl.AuUrlListCache.
+ */
+public class TestAuUrlListCache extends LockssTestCase4 {
+  private static final String AU_ID = "plugin&base_url~x";
+
+  // The number of full computations of the URL lists.
+  private AtomicInteger computations;
+
+  @Before
+  public void setUpDir() throws Exception {
+    ConfigurationUtil.addFromArgs(AuUrlListCache.PARAM_DIR,
+        new File(getTempDir(), "lists").getPath());
+    computations = new AtomicInteger();
+  }
+
+  /**
+   * Tests that a saved list is loaded intact, and only for its archival unit.
+   */
+  @Test
+  public void testSaveAndLoad() throws Exception {
+    File file = new File(getTempDir(), "list.gz");
+    List<String> urls = new ArrayList<>();
+
+    for (int i = 0; i < 1000; i++) {
+      urls.add("http://www.example.com/vol" + (i / 100) + "/art" + i + ".pdf");
+    }
+
+    // URLs that share no prefix, or are prefixes of others.
+    urls.add("https://other.example.org/");
+    urls.add("https://other.example.org/x");
+    urls.add("");
+
+    AuUrlListCache.save(file, "plugin&base_url~x",
+        new AuUrlListCache.UrlList(1234L, urls));
+
+    AuUrlListCache.UrlList loaded =
+        AuUrlListCache.load(file, "plugin&base_url~x");
+    assertEquals(1234L, loaded.token);
+    assertEquals(urls, loaded.urls);
+
+    // A loaded list may have missed changes.
+    assertFalse(loaded.tracked);
+
+    assertNull(AuUrlListCache.load(file, "plugin&base_url~y"));
+  }
+
+  /**
+   * Tests when a list is valid and when it can be updated incrementally.
+   */
+  @Test
+  public void testValidity() throws Exception {
+    AuUrlListCache.UrlList list =
+        new AuUrlListCache.UrlList(10L, Arrays.asList("http://x/a"));
+    assertTrue(list.isValid(10L));
+    assertFalse(list.isValid(11L));
+    assertFalse(list.isUpdatable());
+
+    list.changed.add("http://x/b");
+    assertFalse(list.isValid(10L));
+    assertTrue(list.isUpdatable());
+
+    list.tracked = false;
+    assertFalse(list.isUpdatable());
+
+    list.tracked = true;
+    list.changedUnknown = true;
+    assertFalse(list.isValid(10L));
+    assertFalse(list.isUpdatable());
+  }
+
+  /**
+   * Tests that a list is computed once while its archival unit does not
+   * change, and is saved for a later cache.
+   */
+  @Test
+  public void testGet() throws Exception {
+    AuUrlListCache cache = newCache();
+    List<String> urls = Arrays.asList("http://x/a", "http://x/b");
+
+    assertEquals(urls, getSubstanceUrls(cache, 10L, computing(urls)));
+    assertEquals(urls, getSubstanceUrls(cache, 10L, computing(urls)));
+    assertEquals(1, computations.get());
+
+    // A new crawl invalidates the list.
+    assertEquals(urls, getSubstanceUrls(cache, 11L, computing(urls)));
+    assertEquals(2, computations.get());
+
+    // The list is loaded from its file.
+    assertEquals(urls, getSubstanceUrls(newCache(), 11L, computing(urls)));
+    assertEquals(2, computations.get());
+  }
+
+  /**
+   * Tests that only the changed URLs are checked again, and that the updated
+   * list keeps the order of a full computation.
+   */
+  @Test
+  public void testIncrementalUpdate() throws Exception {
+    AuUrlListCache cache = newCache();
+    getSubstanceUrls(cache, 10L,
+        computing(Arrays.asList("http://x/a", "http://x/c", "http://x/d")));
+    assertEquals(1, computations.get());
+
+    // A URL is added and another one is removed.
+    cache.contentChanged(AU_ID, Arrays.asList("http://x/b", "http://x/c"));
+
+    // The file of the list is deleted, as it cannot record the change.
+    assertEquals(Arrays.asList("http://x/z"), getSubstanceUrls(newCache(),
+        10L, computing(Arrays.asList("http://x/z"))));
+    assertEquals(2, computations.get());
+
+    List<String> updated = getSubstanceUrls(cache, 10L, () -> {
+      throw new AssertionError("Unexpected full computation");
+    });
+    assertEquals(Arrays.asList("http://x/a", "http://x/b", "http://x/d"),
+        updated);
+
+    // The updated list is valid, and saved again.
+    assertSame(updated, getSubstanceUrls(cache, 10L, computing(null)));
+    assertEquals(updated, getSubstanceUrls(newCache(), 10L,
+        computing(null)));
+    assertEquals(2, computations.get());
+
+    // An article URL list is never updated incrementally.
+    List<String> articles = Arrays.asList("http://x/a");
+    cache.getArticleUrls(AU_ID, 10L, computing(articles));
+    cache.contentChanged(AU_ID, Arrays.asList("http://x/b"));
+    cache.getArticleUrls(AU_ID, 10L, computing(articles));
+    assertEquals(4, computations.get());
+  }
+
+  /**
+   * Tests that a list computed while its archival unit changes is not
+   * trusted afterwards.
+   */
+  @Test
+  public void testChangeDuringComputation() throws Exception {
+    AuUrlListCache cache = newCache();
+    List<String> urls = Arrays.asList("http://x/a");
+
+    List<String> result = getSubstanceUrls(cache, 10L, () -> {
+      computations.incrementAndGet();
+      cache.contentChanged(AU_ID, Arrays.asList("http://x/b"));
+      return urls;
+    });
+    assertEquals(urls, result);
+
+    // The list is neither valid nor saved.
+    assertEquals(urls, getSubstanceUrls(newCache(), 10L, computing(urls)));
+    assertEquals(2, computations.get());
+    assertEquals(urls, getSubstanceUrls(cache, 10L, computing(urls)));
+    assertEquals(3, computations.get());
+
+    // Without changes, the recomputed list is valid.
+    assertEquals(urls, getSubstanceUrls(cache, 10L, computing(null)));
+    assertEquals(3, computations.get());
+  }
+
+  /**
+   * Provides a cache that does not register for archival unit events.
+   *
+   * @return an AuUrlListCache with the cache.
+   */
+  private AuUrlListCache newCache() {
+    return new AuUrlListCache() {
+      @Override
+      void register() {
+      }
+    };
+  }
+
+  /**
+   * Provides a computation of a URL list that counts its invocations.
+   *
+   * @param urls A {@code List<String>} with the URLs.
+   * @return a {@code Supplier<List<String>>} with the computation.
+   */
+  private Supplier<List<String>> computing(List<String> urls) {
+    return () -> {
+      computations.incrementAndGet();
+      return urls;
+    };
+  }
+
+  /**
+   * Provides the substance URLs of the test archival unit, where only the
+   * URLs not ending in "c" have content.
+   *
+   * @param cache   An AuUrlListCache with the cache.
+   * @param token   A long with the last completed crawl time.
+   * @param compute A {@code Supplier<List<String>>} with the computation.
+   * @return a {@code List<String>} with the substance URLs.
+   */
+  private List<String> getSubstanceUrls(AuUrlListCache cache, long token,
+      Supplier<List<String>> compute) {
+    return cache.getSubstanceUrls(AU_ID, token, compute,
+        url -> !url.endsWith("c"));
+  }
+}
@@ -44,6 +44,8 @@ import org.lockss.laaws.config.ConfigApplication;
 import org.lockss.log.L4JLogger;
 import org.lockss.plugin.PluginManager;
 import org.lockss.spring.test.SpringLockssTestCase4;
+import org.lockss.test.ConfigurationUtil;
+import org.lockss.util.StringUtil;
 import org.lockss.util.rest.RestUtil;
 import org.lockss.util.rest.exception.LockssRestException;
 import org.lockss.util.rest.exception.LockssRestHttpException;
@@ -165,7 +167,13 @@ public class TestAusApiServiceImpl extends SpringLockssTestCase4 {
     putAuConfigUnAuthenticatedTest();
     getAuConfigUnAuthenticatedTest();
     getAllAuConfigUnAuthenticatedTest();
+    postAuConfigBatchUnAuthenticatedTest();
+    getAuConfigChangesCommonTest();
+    getAuConfigCacheStatsCommonTest();
+    conditionalGetCommonTest();
+    deleteAuConfigBatchUnAuthenticatedTest();
     deleteAusUnAuthenticatedTest();
+    postAuQueryOperationCommonTest();
     log.debug2("Done");
   }
 
@@ -192,7 +200,14 @@ public class TestAusApiServiceImpl extends SpringLockssTestCase4 {
     putAuConfigAuthenticatedTest();
     getAuConfigAuthenticatedTest();
     getAllAuConfigAuthenticatedTest();
+    postAuConfigBatchAuthenticatedTest();
+    getAuConfigChangesAuthenticatedTest();
+    getAuConfigCacheStatsAuthenticatedTest();
+    conditionalGetCommonTest();
+    deleteAuConfigBatchAuthenticatedTest();
     deleteAusAuthenticatedTest();
+    getAuUrlsAuthenticatedTest();
+    postAuQueryOperationAuthenticatedTest();
 
     log.debug2("Done");
   }
@@ -1349,9 +1364,309 @@ public class TestAusApiServiceImpl extends SpringLockssTestCase4 {
     assertEquals(configOutput,
 	runTestGetAllAuConfigClient(AU_ADMIN, HttpStatus.OK));
 
+    // Page by page.
+    ResponseEntity<String> response =
+	runTestGetAllAuConfigPage(1, null, false, AU_ADMIN, HttpStatus.OK);
+    List<AuConfiguration> page = parseAuConfigs(response, false);
+    assertEquals(1, page.size());
+    String cursor =
+	response.getHeaders().getFirst(AusApiServiceImpl.HEADER_NEXT_CURSOR);
+    assertEquals(page.get(0).getAuId(), cursor);
+
+    response =
+	runTestGetAllAuConfigPage(1, cursor, false, USER_ADMIN, HttpStatus.OK);
+    List<AuConfiguration> page2 = parseAuConfigs(response, false);
+    assertEquals(1, page2.size());
+    assertNotEquals(page.get(0), page2.get(0));
+    assertTrue(configOutput.contains(page.get(0)));
+    assertTrue(configOutput.contains(page2.get(0)));
+    cursor =
+	response.getHeaders().getFirst(AusApiServiceImpl.HEADER_NEXT_CURSOR);
+    assertEquals(page2.get(0).getAuId(), cursor);
+
+    response =
+	runTestGetAllAuConfigPage(1, cursor, false, AU_ADMIN, HttpStatus.OK);
+    assertEquals(0, parseAuConfigs(response, false).size());
+    assertNull(
+	response.getHeaders().getFirst(AusApiServiceImpl.HEADER_NEXT_CURSOR));
+
+    // Streamed.
+    response =
+	runTestGetAllAuConfigPage(null, null, true, USER_ADMIN, HttpStatus.OK);
+    List<AuConfiguration> streamed = parseAuConfigs(response, true);
+    assertEquals(2, streamed.size());
+    assertEquals(page.get(0), streamed.get(0));
+    assertEquals(page2.get(0), streamed.get(1));
+
+    response = runTestGetAllAuConfigPage(5, page.get(0).getAuId(), true,
+	AU_ADMIN, HttpStatus.OK);
+    streamed = parseAuConfigs(response, true);
+    assertEquals(1, streamed.size());
+    assertEquals(page2.get(0), streamed.get(0));
+
+    // Encoded as Smile.
+    assertEquals(Arrays.asList(page.get(0), page2.get(0)),
+	runTestGetAllAuConfigSmile(AU_ADMIN, HttpStatus.OK));
+
+    // Bad paging parameters.
+    runTestGetAllAuConfigPage(0, null, false, USER_ADMIN,
+	HttpStatus.BAD_REQUEST);
+    runTestGetAllAuConfigPage(1, BAD_AUID, false, AU_ADMIN,
+	HttpStatus.BAD_REQUEST);
+
+    // Filtered by plugin.
+    String pluginId = "org.lockss.plugin.pensoft.oai.PensoftOaiPlugin";
+    response = runTestGetAllAuConfigPage(pluginId, null, null, null, false,
+	USER_ADMIN, HttpStatus.OK);
+    assertEquals(configOutput.size(), parseAuConfigs(response, false).size());
+
+    response = runTestGetAllAuConfigPage("org.lockss.plugin.NoSuchPlugin",
+	null, null, null, false, AU_ADMIN, HttpStatus.OK);
+    assertEquals(0, parseAuConfigs(response, false).size());
+
+    response = runTestGetAllAuConfigPage(pluginId, null, 1, null, false,
+	AU_ADMIN, HttpStatus.OK);
+    assertEquals(page, parseAuConfigs(response, false));
+    assertEquals(page.get(0).getAuId(),
+	response.getHeaders().getFirst(AusApiServiceImpl.HEADER_NEXT_CURSOR));
+
+    // Filtered JSON results without a limit are still paged.
+    ConfigurationUtil.addFromArgs(AusApiServiceImpl.PARAM_MAX_PAGE_SIZE, "1");
+    response = runTestGetAllAuConfigPage(pluginId, null, null, null, false,
+	USER_ADMIN, HttpStatus.OK);
+    assertEquals(page, parseAuConfigs(response, false));
+    assertEquals(page.get(0).getAuId(),
+	response.getHeaders().getFirst(AusApiServiceImpl.HEADER_NEXT_CURSOR));
+
+    // Streamed results are not.
+    response = runTestGetAllAuConfigPage(pluginId, null, null, null, true,
+	AU_ADMIN, HttpStatus.OK);
+    assertEquals(configOutput.size(), parseAuConfigs(response, true).size());
+    ConfigurationUtil.addFromArgs(AusApiServiceImpl.PARAM_MAX_PAGE_SIZE,
+	String.valueOf(AusApiServiceImpl.DEFAULT_MAX_PAGE_SIZE));
+
+    // Filtered by prefix.
+    response = runTestGetAllAuConfigPage(null, "org|lockss|plugin|pensoft",
+	null, null, false, USER_ADMIN, HttpStatus.OK);
+    assertEquals(configOutput.size(), parseAuConfigs(response, false).size());
+
+    String auidPrefix = "org|lockss|plugin|pensoft|oai|PensoftOaiPlugin"
+	+ "&au_oai_date~2014";
+    response = runTestGetAllAuConfigPage(null, auidPrefix, null, null, false,
+	AU_ADMIN, HttpStatus.OK);
+    List<AuConfiguration> filtered = parseAuConfigs(response, false);
+    assertEquals(1, filtered.size());
+    assertEquals(GOOD_AUID_1, filtered.get(0).getAuId());
+
+    response = runTestGetAllAuConfigPage(pluginId, auidPrefix, null, null,
+	true, USER_ADMIN, HttpStatus.OK);
+    assertEquals(filtered, parseAuConfigs(response, true));
+
+    response = runTestGetAllAuConfigPage("org.lockss.plugin.NoSuchPlugin",
+	auidPrefix, null, null, true, AU_ADMIN, HttpStatus.OK);
+    assertEquals(0, parseAuConfigs(response, true).size());
+
+    // Bad filtering parameters.
+    runTestGetAllAuConfigPage("", null, null, null, false, USER_ADMIN,
+	HttpStatus.BAD_REQUEST);
+    runTestGetAllAuConfigPage(null, "", null, null, false, AU_ADMIN,
+	HttpStatus.BAD_REQUEST);
+
     log.debug2("Done");
   }
 
+  /**
+   * Performs a GET operation for a page of Archival Units.
+   * 
+   * @param limit
+   *          An Integer with the maximum number of configurations to return.
+   * @param after
+   *          A String with the identifier of the Archival Unit after which the
+   *          returned configurations start.
+   * @param ndjson
+   *          A boolean with the indication of whether the configurations are
+   *          to be streamed as NDJSON.
+   * @param credentials
+   *          A Credentials with the request credentials.
+   * @param expectedStatus
+   *          An HttpStatus with the HTTP status of the result.
+   * @return a {@code ResponseEntity<String>} with the response.
+   */
+  private ResponseEntity<String> runTestGetAllAuConfigPage(Integer limit,
+      String after, boolean ndjson, Credentials credentials,
+      HttpStatus expectedStatus) {
+    return runTestGetAllAuConfigPage(null, null, limit, after, ndjson,
+	credentials, expectedStatus);
+  }
+
+  /**
+   * Performs a GET operation for a page of the Archival Units of a plugin or
+   * with identifiers that start with a given prefix.
+   * 
+   * @param plugin
+   *          A String with the identifier of the plugin of the Archival Units.
+   * @param auidPrefix
+   *          A String with the prefix of the Archival Unit identifiers.
+   * @param limit
+   *          An Integer with the maximum number of configurations to return.
+   * @param after
+   *          A String with the identifier of the Archival Unit after which the
+   *          returned configurations start.
+   * @param ndjson
+   *          A boolean with the indication of whether the configurations are
+   *          to be streamed as NDJSON.
+   * @param credentials
+   *          A Credentials with the request credentials.
+   * @param expectedStatus
+   *          An HttpStatus with the HTTP status of the result.
+   * @return a {@code ResponseEntity<String>} with the response.
+   */
+  private ResponseEntity<String> runTestGetAllAuConfigPage(String plugin,
+      String auidPrefix, Integer limit, String after, boolean ndjson,
+      Credentials credentials, HttpStatus expectedStatus) {
+    log.debug2("plugin = {}", plugin);
+    log.debug2("auidPrefix = {}", auidPrefix);
+    log.debug2("limit = {}", limit);
+    log.debug2("after = {}", after);
+    log.debug2("ndjson = {}", ndjson);
+    log.debug2("credentials = {}", credentials);
+    log.debug2("expectedStatus = {}", expectedStatus);
+
+    // Create the URI of the request to the REST service.
+    UriComponentsBuilder builder =
+	UriComponentsBuilder.fromUriString(getTestUrlTemplate("/aus"));
+
+    if (limit != null) {
+      builder.queryParam("limit", limit);
+    }
+
+    if (after != null) {
+      builder.queryParam("after", after);
+    }
+
+    if (plugin != null) {
+      builder.queryParam("plugin", plugin);
+    }
+
+    if (auidPrefix != null) {
+      builder.queryParam("auidPrefix", auidPrefix);
+    }
+
+    URI uri = builder.build().encode().toUri();
+    log.trace("uri = {}", uri);
+
+    // Initialize the request headers.
+    HttpHeaders headers = new HttpHeaders();
+
+    if (ndjson) {
+      headers.setAccept(
+	  Collections.singletonList(MediaType.valueOf("application/x-ndjson")));
+    }
+
+    // Set up the authentication credentials, if necessary.
+    if (credentials != null) {
+      credentials.setUpBasicAuthentication(headers);
+    }
+
+    // Make the request and get the response. 
+    ResponseEntity<String> response =
+	new TestRestTemplate(RestUtil.getRestTemplateBuilder(0, 0))
+	.exchange(uri, HttpMethod.GET, new HttpEntity<String>(null, headers),
+	    String.class);
+
+    assertEquals(expectedStatus,
+	HttpStatus.valueOf(response.getStatusCode().value()));
+
+    return response;
+  }
+
+  /**
+   * Performs a GET operation for all Archival Units, encoded as Smile.
+   * 
+   * @param credentials
+   *          A Credentials with the request credentials.
+   * @param expectedStatus
+   *          An HttpStatus with the HTTP status of the result.
+   * @return a {@code List<AuConfiguration>} with the configuration of all
+   *         Archival Units.
+   * @throws IOException
+   *           if there are problems parsing the response.
+   */
+  private List<AuConfiguration> runTestGetAllAuConfigSmile(
+      Credentials credentials, HttpStatus expectedStatus) throws IOException {
+    log.debug2("credentials = {}", credentials);
+    log.debug2("expectedStatus = {}", expectedStatus);
+
+    URI uri = UriComponentsBuilder.fromUriString(getTestUrlTemplate("/aus"))
+	.build().encode().toUri();
+    log.trace("uri = {}", uri);
+
+    // Initialize the request headers.
+    HttpHeaders headers = new HttpHeaders();
+    headers.setAccept(Collections.singletonList(SmileHelper.SMILE));
+
+    // Set up the authentication credentials, if necessary.
+    if (credentials != null) {
+      credentials.setUpBasicAuthentication(headers);
+    }
+
+    // Make the request and get the response. 
+    ResponseEntity<byte[]> response =
+	new TestRestTemplate(RestUtil.getRestTemplateBuilder(0, 0))
+	.exchange(uri, HttpMethod.GET, new HttpEntity<String>(null, headers),
+	    byte[].class);
+
+    HttpStatus status = HttpStatus.valueOf(response.getStatusCode().value());
+    assertEquals(expectedStatus, status);
+
+    List<AuConfiguration> result = null;
+
+    // Check whether it is a success response.
+    if (RestUtil.isSuccess(status)) {
+      // Yes: Parse it.
+      assertTrue(SmileHelper.SMILE.isCompatibleWith(
+	  response.getHeaders().getContentType()));
+      result = SmileHelper.getMapper().readValue(response.getBody(),
+	  new TypeReference<List<AuConfiguration>>(){});
+    }
+
+    log.debug2("result = {}", result);
+    return result;
+  }
+
+  /**
+   * Parses the Archival Unit configurations in a response.
+   * 
+   * @param response
+   *          A {@code ResponseEntity<String>} with the response.
+   * @param ndjson
+   *          A boolean with the indication of whether the response is NDJSON.
+   * @return a {@code List<AuConfiguration>} with the parsed configurations.
+   * @throws IOException if there are problems parsing the response.
+   */
+  private List<AuConfiguration> parseAuConfigs(ResponseEntity<String> response,
+      boolean ndjson) throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    String body = response.getBody();
+
+    if (!ndjson) {
+      return mapper.readValue(body,
+	  new TypeReference<List<AuConfiguration>>(){});
+    }
+
+    List<AuConfiguration> result = new ArrayList<>();
+
+    if (body != null) {
+      for (String line : body.split("\n")) {
+	if (!line.isEmpty()) {
+	  result.add(mapper.readValue(line, AuConfiguration.class));
+	}
+      }
+    }
+
+    return result;
+  }
+
   /**
    * Performs a GET operation for all Archival Units.
    * 
@@ -1475,6 +1790,1121 @@ public class TestAusApiServiceImpl extends SpringLockssTestCase4 {
     return result;
   }
 
+  /**
+   * Runs the postAuConfigBatch()-related un-authenticated-specific tests.
+   */
+  private void postAuConfigBatchUnAuthenticatedTest() throws Exception {
+    log.debug2("Invoked");
+
+    // Bad credentials are ignored.
+    List<Map<String, Object>> results =
+	runTestPostAuConfigBatch("[]", null, ANYBODY, HttpStatus.OK);
+
+    // Verify.
+    assertTrue(results.isEmpty());
+
+    postAuConfigBatchCommonTest();
+
+    log.debug2("Done");
+  }
+
+  /**
+   * Runs the postAuConfigBatch()-related authenticated-specific tests.
+   */
+  private void postAuConfigBatchAuthenticatedTest() throws Exception {
+    log.debug2("Invoked");
+
+    // No credentials.
+    runTestPostAuConfigBatch("[]", null, null, HttpStatus.UNAUTHORIZED);
+
+    // Bad credentials.
+    runTestPostAuConfigBatch("[]", null, ANYBODY, HttpStatus.UNAUTHORIZED);
+
+    // Insufficient credentials.
+    runTestPostAuConfigBatch("[]", null, CONTENT_ADMIN, HttpStatus.FORBIDDEN);
+
+    postAuConfigBatchCommonTest();
+
+    log.debug2("Done");
+  }
+
+  /**
+   * Runs the postAuConfigBatch()-related authentication-independent tests.
+   */
+  private void postAuConfigBatchCommonTest() throws Exception {
+    log.debug2("Invoked");
+
+    PluginManager pluginManager =
+	LockssDaemon.getLockssDaemon().getPluginManager();
+    ObjectMapper mapper = new ObjectMapper();
+
+    // Unparseable batch.
+    runTestPostAuConfigBatch("[{", null, USER_ADMIN, HttpStatus.BAD_REQUEST);
+
+    // Get the current configuration of the second AU.
+    AuConfiguration backupConfig2 =
+	runTestGetAuConfig(GOOD_AUID_2, AU_ADMIN, HttpStatus.OK);
+
+    Map<String, String> auConfig = new HashMap<>();
+    auConfig.put("testKey1", "testValue1");
+    auConfig.put("testKey2", "testValue2");
+
+    AuConfiguration unknownAuConfiguration =
+	new AuConfiguration(UNKNOWN_AUID, auConfig);
+
+    List<AuConfiguration> batch = new ArrayList<>();
+    batch.add(unknownAuConfiguration);
+    batch.add(new AuConfiguration(BAD_AUID, auConfig));
+    batch.add(backupConfig2);
+    batch.add(new AuConfiguration(GOOD_AUID_1, new HashMap<>()));
+    batch.add(unknownAuConfiguration);
+
+    // Store the batch as a JSON array.
+    List<Map<String, Object>> results =
+	runTestPostAuConfigBatch(mapper.writeValueAsString(batch),
+	    MediaType.APPLICATION_JSON, AU_ADMIN, HttpStatus.OK);
+
+    // Verify the results, in the order of the batch.
+    assertEquals(5, results.size());
+    assertEquals(Boolean.TRUE, results.get(0).get("isSuccess"));
+    assertEquals(Boolean.FALSE, results.get(1).get("isSuccess"));
+    assertEquals(Boolean.TRUE, results.get(2).get("isSuccess"));
+    assertEquals(Boolean.FALSE, results.get(3).get("isSuccess"));
+    assertEquals(Boolean.FALSE, results.get(4).get("isSuccess"));
+
+    // Verify independently.
+    assertEquals(auConfig,
+	pluginManager.getStoredAuConfiguration(UNKNOWN_AUID).getAuConfig());
+    assertEquals(backupConfig2,
+	pluginManager.getStoredAuConfiguration(GOOD_AUID_2));
+
+    // Store it again as NDJSON.
+    StringBuilder ndjson = new StringBuilder();
+
+    for (AuConfiguration auConfiguration : batch.subList(0, 3)) {
+      ndjson.append(mapper.writeValueAsString(auConfiguration)).append("\n");
+    }
+
+    results = runTestPostAuConfigBatch(ndjson.toString(),
+	MediaType.valueOf("application/x-ndjson"), USER_ADMIN, HttpStatus.OK);
+
+    // Verify.
+    assertEquals(3, results.size());
+    assertEquals(Boolean.TRUE, results.get(0).get("isSuccess"));
+    assertEquals(Boolean.FALSE, results.get(1).get("isSuccess"));
+    assertEquals(Boolean.TRUE, results.get(2).get("isSuccess"));
+
+    assertEquals(auConfig, runTestGetAuConfig(UNKNOWN_AUID, AU_ADMIN,
+	HttpStatus.OK).getAuConfig());
+
+    // Store it again as Smile.
+    results = runTestPostAuConfigBatchSmile(batch.subList(0, 3), AU_ADMIN,
+	HttpStatus.OK);
+
+    // Verify.
+    assertEquals(3, results.size());
+    assertEquals(Boolean.TRUE, results.get(0).get("isSuccess"));
+    assertEquals(Boolean.FALSE, results.get(1).get("isSuccess"));
+    assertEquals(Boolean.TRUE, results.get(2).get("isSuccess"));
+
+    assertEquals(auConfig, runTestGetAuConfig(UNKNOWN_AUID, USER_ADMIN,
+	HttpStatus.OK).getAuConfig());
+
+    // Delete the configuration just added.
+    assertEquals(unknownAuConfiguration,
+	runTestDeleteAus(UNKNOWN_AUID, AU_ADMIN, HttpStatus.OK));
+
+    // Verify that the second AU is unaffected.
+    assertEquals(backupConfig2, runTestGetAuConfig(GOOD_AUID_2, USER_ADMIN,
+	HttpStatus.OK));
+
+    log.debug2("Done");
+  }
+
+  /**
+   * Performs a POST operation for a batch of Archival Unit configurations.
+   * 
+   * @param body
+   *          A String with the batch of Archival Unit configurations.
+   * @param contentType
+   *          A MediaType with the content type of the request.
+   * @param credentials
+   *          A Credentials with the request credentials.
+   * @param expectedStatus
+   *          An HttpStatus with the HTTP status of the result.
+   * @return a {@code List<Map<String, Object>>} with the result for each
+   *         Archival Unit configuration.
+   * @throws Exception
+   *           if there are problems.
+   */
+  private List<Map<String, Object>> runTestPostAuConfigBatch(String body,
+      MediaType contentType, Credentials credentials,
+      HttpStatus expectedStatus) throws Exception {
+    log.debug2("body = {}", body);
+    log.debug2("contentType = {}", contentType);
+    log.debug2("credentials = {}", credentials);
+    log.debug2("expectedStatus = {}", expectedStatus);
+
+    URI uri = UriComponentsBuilder.fromUriString(
+	getTestUrlTemplate("/aus/batch")).build().encode().toUri();
+    log.trace("uri = {}", uri);
+
+    // Initialize the request headers.
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(contentType == null
+	? MediaType.APPLICATION_JSON : contentType);
+
+    // Set up the authentication credentials, if necessary.
+    if (credentials != null) {
+      credentials.setUpBasicAuthentication(headers);
+    }
+
+    // Make the request and get the response. 
+    ResponseEntity<String> response =
+	new TestRestTemplate(RestUtil.getRestTemplateBuilder(0, 0))
+	.exchange(uri, HttpMethod.POST, new HttpEntity<String>(body, headers),
+	    String.class);
+
+    HttpStatus status = HttpStatus.valueOf(response.getStatusCode().value());
+    assertEquals(expectedStatus, status);
+
+    List<Map<String, Object>> result = null;
+
+    // Check whether it is a success response.
+    if (RestUtil.isSuccess(status)) {
+      // Yes: Parse it.
+      result = new ObjectMapper().readValue(response.getBody(),
+	  new TypeReference<List<Map<String, Object>>>(){});
+    }
+
+    log.debug2("result = {}", result);
+    return result;
+  }
+
+  /**
+   * Performs a POST operation for a batch of Archival Unit configurations
+   * encoded as Smile, with the results also encoded as Smile.
+   * 
+   * @param batch
+   *          A {@code List<AuConfiguration>} with the batch of Archival Unit
+   *          configurations.
+   * @param credentials
+   *          A Credentials with the request credentials.
+   * @param expectedStatus
+   *          An HttpStatus with the HTTP status of the result.
+   * @return a {@code List<Map<String, Object>>} with the result for each
+   *         Archival Unit configuration.
+   * @throws Exception
+   *           if there are problems.
+   */
+  private List<Map<String, Object>> runTestPostAuConfigBatchSmile(
+      List<AuConfiguration> batch, Credentials credentials,
+      HttpStatus expectedStatus) throws Exception {
+    log.debug2("batch = {}", batch);
+    log.debug2("credentials = {}", credentials);
+    log.debug2("expectedStatus = {}", expectedStatus);
+
+    URI uri = UriComponentsBuilder.fromUriString(
+	getTestUrlTemplate("/aus/batch")).build().encode().toUri();
+    log.trace("uri = {}", uri);
+
+    // Initialize the request headers.
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(SmileHelper.SMILE);
+    headers.setAccept(Collections.singletonList(SmileHelper.SMILE));
+
+    // Set up the authentication credentials, if necessary.
+    if (credentials != null) {
+      credentials.setUpBasicAuthentication(headers);
+    }
+
+    // Make the request and get the response. 
+    ResponseEntity<byte[]> response =
+	new TestRestTemplate(RestUtil.getRestTemplateBuilder(0, 0))
+	.exchange(uri, HttpMethod.POST, new HttpEntity<byte[]>(
+	    SmileHelper.getMapper().writeValueAsBytes(batch), headers),
+	    byte[].class);
+
+    HttpStatus status = HttpStatus.valueOf(response.getStatusCode().value());
+    assertEquals(expectedStatus, status);
+
+    List<Map<String, Object>> result = null;
+
+    // Check whether it is a success response.
+    if (RestUtil.isSuccess(status)) {
+      // Yes: Parse it.
+      assertTrue(SmileHelper.SMILE.isCompatibleWith(
+	  response.getHeaders().getContentType()));
+      result = SmileHelper.getMapper().readValue(response.getBody(),
+	  new TypeReference<List<Map<String, Object>>>(){});
+    }
+
+    log.debug2("result = {}", result);
+    return result;
+  }
+
+  /**
+   * Runs the getAuConfigChanges()-related authenticated-specific tests.
+   */
+  private void getAuConfigChangesAuthenticatedTest() throws Exception {
+    log.debug2("Invoked");
+
+    // No credentials.
+    runTestGetAuConfigChanges(0L, null, null, HttpStatus.UNAUTHORIZED);
+
+    // Bad credentials.
+    runTestGetAuConfigChanges(0L, null, ANYBODY, HttpStatus.UNAUTHORIZED);
+
+    getAuConfigChangesCommonTest();
+
+    log.debug2("Done");
+  }
+
+  /**
+   * Runs the getAuConfigChanges()-related authentication-independent tests.
+   */
+  private void getAuConfigChangesCommonTest() throws Exception {
+    log.debug2("Invoked");
+
+    // Missing and bad sequence.
+    runTestGetAuConfigChanges(null, null, USER_ADMIN, HttpStatus.BAD_REQUEST);
+    runTestGetAuConfigChanges(-1L, null, AU_ADMIN, HttpStatus.BAD_REQUEST);
+
+    // Get the current state of the change log.
+    Map<String, Object> result =
+	runTestGetAuConfigChanges(0L, null, CONTENT_ADMIN, HttpStatus.OK);
+    String epoch = (String)result.get("epoch");
+    long latest = ((Number)result.get("latest")).longValue();
+
+    Map<String, String> auConfig = new HashMap<>();
+    auConfig.put("testKey1", "testValue1");
+
+    // Add an AU and modify it.
+    runTestPutAuConfig(new AuConfiguration(UNKNOWN_AUID, auConfig), null,
+	USER_ADMIN, HttpStatus.OK);
+
+    auConfig.put("testKey2", "testValue2");
+    AuConfiguration unknownAuConfiguration =
+	new AuConfiguration(UNKNOWN_AUID, auConfig);
+
+    runTestPutAuConfig(unknownAuConfiguration, null, AU_ADMIN, HttpStatus.OK);
+
+    // Verify that only the last change to the AU is reported.
+    result = runTestGetAuConfigChanges(latest, epoch, USER_ADMIN,
+	HttpStatus.OK);
+
+    assertEquals(Boolean.FALSE, result.get("resyncRequired"));
+    assertEquals(latest + 2, ((Number)result.get("next")).longValue());
+
+    List<Map<String, Object>> changes =
+	(List<Map<String, Object>>)result.get("changes");
+    assertEquals(1, changes.size());
+    assertEquals(UNKNOWN_AUID, changes.get(0).get("auId"));
+    assertEquals("MODIFIED", changes.get(0).get("type"));
+    assertEquals(auConfig, changes.get(0).get("auConfig"));
+
+    // Delete the AU.
+    assertEquals(unknownAuConfiguration,
+	runTestDeleteAus(UNKNOWN_AUID, AU_ADMIN, HttpStatus.OK));
+
+    // Verify.
+    result = runTestGetAuConfigChanges(latest + 2, epoch, CONTENT_ADMIN,
+	HttpStatus.OK);
+    changes = (List<Map<String, Object>>)result.get("changes");
+    assertEquals(1, changes.size());
+    assertEquals("REMOVED", changes.get(0).get("type"));
+    assertNull(changes.get(0).get("auConfig"));
+
+    // A sequence not yet in the log requires a full resynchronization.
+    result = runTestGetAuConfigChanges(latest + 4, epoch, USER_ADMIN,
+	HttpStatus.OK);
+    assertEquals(Boolean.TRUE, result.get("resyncRequired"));
+
+    // So does a sequence from another epoch of the log.
+    result = runTestGetAuConfigChanges(latest, epoch + "x", USER_ADMIN,
+	HttpStatus.OK);
+    assertEquals(Boolean.TRUE, result.get("resyncRequired"));
+
+    log.debug2("Done");
+  }
+
+  /**
+   * Performs a GET operation for the changes to the Archival Unit
+   * configurations.
+   * 
+   * @param since
+   *          A Long with the sequence after which the changes are requested.
+   * @param epoch
+   *          A String with the epoch of the change log.
+   * @param credentials
+   *          A Credentials with the request credentials.
+   * @param expectedStatus
+   *          An HttpStatus with the HTTP status of the result.
+   * @return a {@code Map<String, Object>} with the changes.
+   * @throws Exception
+   *           if there are problems.
+   */
+  private Map<String, Object> runTestGetAuConfigChanges(Long since,
+      String epoch, Credentials credentials, HttpStatus expectedStatus)
+	  throws Exception {
+    log.debug2("since = {}", since);
+    log.debug2("epoch = {}", epoch);
+    log.debug2("credentials = {}", credentials);
+    log.debug2("expectedStatus = {}", expectedStatus);
+
+    // Create the URI of the request to the REST service.
+    UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(
+	getTestUrlTemplate("/aus/changes"));
+
+    if (since != null) {
+      builder.queryParam("since", since);
+    }
+
+    if (epoch != null) {
+      builder.queryParam("epoch", epoch);
+    }
+
+    URI uri = builder.build().encode().toUri();
+    log.trace("uri = {}", uri);
+
+    // Initialize the request headers.
+    HttpHeaders headers = new HttpHeaders();
+
+    // Set up the authentication credentials, if necessary.
+    if (credentials != null) {
+      credentials.setUpBasicAuthentication(headers);
+    }
+
+    // Make the request and get the response. 
+    ResponseEntity<String> response =
+	new TestRestTemplate(RestUtil.getRestTemplateBuilder(0, 0))
+	.exchange(uri, HttpMethod.GET, new HttpEntity<String>(null, headers),
+	    String.class);
+
+    HttpStatus status = HttpStatus.valueOf(response.getStatusCode().value());
+    assertEquals(expectedStatus, status);
+
+    Map<String, Object> result = null;
+
+    // Check whether it is a success response.
+    if (RestUtil.isSuccess(status)) {
+      // Yes: Parse it.
+      result = new ObjectMapper().readValue(response.getBody(),
+	  new TypeReference<Map<String, Object>>(){});
+    }
+
+    log.debug2("result = {}", result);
+    return result;
+  }
+
+  /**
+   * Runs the getAuConfigCacheStats()-related authenticated-specific tests.
+   */
+  private void getAuConfigCacheStatsAuthenticatedTest() throws Exception {
+    log.debug2("Invoked");
+
+    // No credentials.
+    runTestGetAuConfigCacheStats(null, HttpStatus.UNAUTHORIZED);
+
+    // Bad credentials.
+    runTestGetAuConfigCacheStats(ANYBODY, HttpStatus.UNAUTHORIZED);
+
+    getAuConfigCacheStatsCommonTest();
+
+    log.debug2("Done");
+  }
+
+  /**
+   * Runs the getAuConfigCacheStats()-related authentication-independent
+   * tests.
+   */
+  private void getAuConfigCacheStatsCommonTest() throws Exception {
+    log.debug2("Invoked");
+
+    PluginManager pluginManager =
+	LockssDaemon.getLockssDaemon().getPluginManager();
+
+    // Read an AU configuration, so that it is cached.
+    AuConfiguration config1 =
+	runTestGetAuConfig(GOOD_AUID_1, USER_ADMIN, HttpStatus.OK);
+
+    Map<String, Object> before =
+	runTestGetAuConfigCacheStats(CONTENT_ADMIN, HttpStatus.OK);
+
+    // Read it again.
+    assertEquals(config1,
+	runTestGetAuConfig(GOOD_AUID_1, AU_ADMIN, HttpStatus.OK));
+
+    Map<String, Object> after =
+	runTestGetAuConfigCacheStats(USER_ADMIN, HttpStatus.OK);
+
+    // Verify that it has been served from the cache.
+    assertEquals(((Number)before.get("hits")).longValue() + 1,
+	((Number)after.get("hits")).longValue());
+    assertEquals(((Number)before.get("misses")).longValue(),
+	((Number)after.get("misses")).longValue());
+
+    // Verify that the memory used by the compacted entries is reported.
+    assertTrue(((Number)after.get("pooledStrings")).intValue() > 0);
+    assertTrue(((Number)after.get("estimatedBytes")).longValue() > 0);
+    assertTrue(
+	((Number)after.get("estimatedUncompactedBytes")).longValue() > 0);
+
+    // Verify that a change is written through the cache.
+    Map<String, String> auConfig = new HashMap<>();
+    auConfig.put("testKey1", "testValue1");
+    AuConfiguration unknownAuConfiguration =
+	new AuConfiguration(UNKNOWN_AUID, auConfig);
+
+    assertNull(runTestGetAuConfig(UNKNOWN_AUID, AU_ADMIN, HttpStatus.OK));
+
+    runTestPutAuConfig(unknownAuConfiguration, null, USER_ADMIN,
+	HttpStatus.OK);
+
+    assertEquals(unknownAuConfiguration,
+	runTestGetAuConfig(UNKNOWN_AUID, AU_ADMIN, HttpStatus.OK));
+    assertEquals(pluginManager.getStoredAuConfiguration(UNKNOWN_AUID),
+	unknownAuConfiguration);
+
+    assertEquals(unknownAuConfiguration,
+	runTestDeleteAus(UNKNOWN_AUID, AU_ADMIN, HttpStatus.OK));
+
+    assertNull(runTestGetAuConfig(UNKNOWN_AUID, USER_ADMIN, HttpStatus.OK));
+
+    log.debug2("Done");
+  }
+
+  /**
+   * Performs a GET operation for the statistics of the Archival Unit
+   * configuration cache.
+   * 
+   * @param credentials
+   *          A Credentials with the request credentials.
+   * @param expectedStatus
+   *          An HttpStatus with the HTTP status of the result.
+   * @return a {@code Map<String, Object>} with the statistics.
+   * @throws Exception
+   *           if there are problems.
+   */
+  private Map<String, Object> runTestGetAuConfigCacheStats(
+      Credentials credentials, HttpStatus expectedStatus) throws Exception {
+    log.debug2("credentials = {}", credentials);
+    log.debug2("expectedStatus = {}", expectedStatus);
+
+    URI uri = UriComponentsBuilder.fromUriString(
+	getTestUrlTemplate("/aus/cache")).build().encode().toUri();
+    log.trace("uri = {}", uri);
+
+    // Initialize the request headers.
+    HttpHeaders headers = new HttpHeaders();
+
+    // Set up the authentication credentials, if necessary.
+    if (credentials != null) {
+      credentials.setUpBasicAuthentication(headers);
+    }
+
+    // Make the request and get the response. 
+    ResponseEntity<String> response =
+	new TestRestTemplate(RestUtil.getRestTemplateBuilder(0, 0))
+	.exchange(uri, HttpMethod.GET, new HttpEntity<String>(null, headers),
+	    String.class);
+
+    HttpStatus status = HttpStatus.valueOf(response.getStatusCode().value());
+    assertEquals(expectedStatus, status);
+
+    Map<String, Object> result = null;
+
+    // Check whether it is a success response.
+    if (RestUtil.isSuccess(status)) {
+      // Yes: Parse it.
+      result = new ObjectMapper().readValue(response.getBody(),
+	  new TypeReference<Map<String, Object>>(){});
+    }
+
+    log.debug2("result = {}", result);
+    return result;
+  }
+
+  /**
+   * Runs the getAuUrls()-related authenticated-specific tests.
+   */
+  private void getAuUrlsAuthenticatedTest() throws Exception {
+    log.debug2("Invoked");
+
+    // No credentials.
+    runTestGetAuUrls(UNKNOWN_AUID, null, null, HttpStatus.UNAUTHORIZED);
+
+    // Bad credentials.
+    runTestGetAuUrls(UNKNOWN_AUID, null, ANYBODY, HttpStatus.UNAUTHORIZED);
+
+    // Invalid limit.
+    runTestGetAuUrls(UNKNOWN_AUID, 0, USER_ADMIN, HttpStatus.BAD_REQUEST);
+
+    // Unknown AU.
+    runTestGetAuUrls(UNKNOWN_AUID, null, USER_ADMIN, HttpStatus.NOT_FOUND);
+    runTestGetAuUrls(UNKNOWN_AUID, 10, AU_ADMIN, HttpStatus.NOT_FOUND);
+
+    log.debug2("Done");
+  }
+
+  /**
+   * Performs a GET operation for the URLs of an Archival Unit.
+   * 
+   * @param auId
+   *          A String with the Archival Unit identifier.
+   * @param limit
+   *          An Integer with the maximum number of URLs, or null.
+   * @param credentials
+   *          A Credentials with the request credentials.
+   * @param expectedStatus
+   *          An HttpStatus with the HTTP status of the result.
+   * @return a String with the body of the response.
+   * @throws Exception
+   *           if there are problems.
+   */
+  private String runTestGetAuUrls(String auId, Integer limit,
+      Credentials credentials, HttpStatus expectedStatus) throws Exception {
+    log.debug2("auId = {}", auId);
+    log.debug2("limit = {}", limit);
+    log.debug2("credentials = {}", credentials);
+    log.debug2("expectedStatus = {}", expectedStatus);
+
+    UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(
+	getTestUrlTemplate("/aus/{auid}/urls"));
+
+    if (limit != null) {
+      builder.queryParam("limit", limit);
+    }
+
+    URI uri = builder.build().expand(Collections.singletonMap("auid", auId))
+	.encode().toUri();
+    log.trace("uri = {}", uri);
+
+    // Initialize the request headers.
+    HttpHeaders headers = new HttpHeaders();
+
+    // Set up the authentication credentials, if necessary.
+    if (credentials != null) {
+      credentials.setUpBasicAuthentication(headers);
+    }
+
+    // Make the request and get the response. 
+    ResponseEntity<String> response =
+	new TestRestTemplate(RestUtil.getRestTemplateBuilder(0, 0))
+	.exchange(uri, HttpMethod.GET, new HttpEntity<String>(null, headers),
+	    String.class);
+
+    HttpStatus status = HttpStatus.valueOf(response.getStatusCode().value());
+    assertEquals(expectedStatus, status);
+
+    log.debug2("response.getBody() = {}", response.getBody());
+    return response.getBody();
+  }
+
+  /**
+   * Runs the query operation-related authenticated-specific tests.
+   * 
+   * @throws Exception
+   *           if there are problems.
+   */
+  private void postAuQueryOperationAuthenticatedTest() throws Exception {
+    log.debug2("Invoked");
+
+    String where = "auId = '" + UNKNOWN_AUID + "'";
+
+    // No credentials.
+    runTestPostAuQueryOperation("delete", null, where, null, null,
+	HttpStatus.UNAUTHORIZED);
+
+    // Bad credentials.
+    runTestPostAuQueryOperation("delete", null, where, null, ANYBODY,
+	HttpStatus.UNAUTHORIZED);
+
+    postAuQueryOperationCommonTest();
+
+    log.debug2("Done");
+  }
+
+  /**
+   * Runs the query operation-related authentication-independent tests.
+   * 
+   * @throws Exception
+   *           if there are problems.
+   */
+  private void postAuQueryOperationCommonTest() throws Exception {
+    log.debug2("Invoked");
+
+    String where = "auId = '" + UNKNOWN_AUID + "'";
+
+    // Invalid operation.
+    runTestPostAuQueryOperation("unknown", null, where, null, USER_ADMIN,
+	HttpStatus.BAD_REQUEST);
+
+    // Clauses other than a condition.
+    runTestPostAuQueryOperation("delete", null, where + " order by auId",
+	null, USER_ADMIN, HttpStatus.BAD_REQUEST);
+    runTestPostAuQueryOperation("deactivate", null, where + " limit 1", null,
+	AU_ADMIN, HttpStatus.BAD_REQUEST);
+
+    // A condition that cannot be parsed.
+    runTestPostAuQueryOperation("delete", null, "auId = ", null, USER_ADMIN,
+	HttpStatus.BAD_REQUEST);
+
+    // No matches, with the results in a JSON array.
+    ResponseEntity<String> response = runTestPostAuQueryOperation("delete",
+	null, where, null, USER_ADMIN, HttpStatus.OK);
+    assertEquals(0, new ObjectMapper().readValue(response.getBody(),
+	new TypeReference<List<Map<String, Object>>>(){}).size());
+
+    // No matches in the title database either.
+    response = runTestPostAuQueryOperation("add", false, where, null,
+	AU_ADMIN, HttpStatus.OK);
+    assertEquals(0, new ObjectMapper().readValue(response.getBody(),
+	new TypeReference<List<Map<String, Object>>>(){}).size());
+
+    // No matches, with the results streamed as NDJSON.
+    response = runTestPostAuQueryOperation("reactivate", null, where,
+	NdjsonHelper.NDJSON, USER_ADMIN, HttpStatus.OK);
+    assertTrue(StringUtil.isNullString(response.getBody()));
+
+    // No matches, in an asynchronous job.
+    response = runTestPostAuQueryOperation("deactivate", true, where, null,
+	USER_ADMIN, HttpStatus.ACCEPTED);
+    Map<String, Object> job = new ObjectMapper().readValue(
+	response.getBody(), new TypeReference<Map<String, Object>>(){});
+    assertEquals("deactivate", job.get("operation"));
+    assertEquals(0, job.get("total"));
+
+    // Wait for the job to finish.
+    long deadline = System.currentTimeMillis() + 10000;
+
+    do {
+      ResponseEntity<String> jobResponse = new TestRestTemplate(
+	  RestUtil.getRestTemplateBuilder(0, 0)).exchange(
+	      UriComponentsBuilder.fromUriString(getTestUrlTemplate(
+		  "/ws/jobs/{jobId}")).build()
+	      .expand(Collections.singletonMap("jobId", job.get("id")))
+	      .encode().toUri(),
+	      HttpMethod.GET, new HttpEntity<String>(null,
+		  getAuthenticationHeaders(USER_ADMIN)), String.class);
+      assertEquals(HttpStatus.OK,
+	  HttpStatus.valueOf(jobResponse.getStatusCode().value()));
+      job = new ObjectMapper().readValue(jobResponse.getBody(),
+	  new TypeReference<Map<String, Object>>(){});
+    } while (!"COMPLETED".equals(job.get("state"))
+	&& System.currentTimeMillis() < deadline);
+
+    assertEquals("COMPLETED", job.get("state"));
+    assertEquals(0, job.get("processed"));
+
+    log.debug2("Done");
+  }
+
+  /**
+   * Performs a POST operation that applies an operation to the Archival
+   * Units that match a query.
+   * 
+   * @param operation
+   *          A String with the operation.
+   * @param async
+   *          A Boolean with the indication of whether the operation is to be
+   *          applied in an asynchronous job, or null.
+   * @param where
+   *          A String with the WHERE clause of the query.
+   * @param accept
+   *          A MediaType with the accepted media type, or null.
+   * @param credentials
+   *          A Credentials with the request credentials.
+   * @param expectedStatus
+   *          An HttpStatus with the HTTP status of the result.
+   * @return a {@code ResponseEntity<String>} with the response.
+   */
+  private ResponseEntity<String> runTestPostAuQueryOperation(
+      String operation, Boolean async, String where, MediaType accept,
+      Credentials credentials, HttpStatus expectedStatus) {
+    log.debug2("operation = {}", operation);
+    log.debug2("async = {}", async);
+    log.debug2("where = {}", where);
+    log.debug2("accept = {}", accept);
+    log.debug2("credentials = {}", credentials);
+    log.debug2("expectedStatus = {}", expectedStatus);
+
+    UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(
+	getTestUrlTemplate("/ws/aus/query"))
+	.queryParam("operation", operation);
+
+    if (async != null) {
+      builder.queryParam("async", async);
+    }
+
+    URI uri = builder.build().encode().toUri();
+    log.trace("uri = {}", uri);
+
+    // Initialize the request headers.
+    HttpHeaders headers = getAuthenticationHeaders(credentials);
+    headers.setContentType(MediaType.TEXT_PLAIN);
+
+    if (accept != null) {
+      headers.setAccept(Collections.singletonList(accept));
+    }
+
+    // Make the request and get the response. 
+    ResponseEntity<String> response =
+	new TestRestTemplate(RestUtil.getRestTemplateBuilder(0, 0))
+	.exchange(uri, HttpMethod.POST, new HttpEntity<String>(where, headers),
+	    String.class);
+
+    HttpStatus status = HttpStatus.valueOf(response.getStatusCode().value());
+    assertEquals(expectedStatus, status);
+
+    log.debug2("response.getBody() = {}", response.getBody());
+    return response;
+  }
+
+  /**
+   * Provides request headers with authentication credentials.
+   * 
+   * @param credentials
+   *          A Credentials with the request credentials, or null.
+   * @return an HttpHeaders with the request headers.
+   */
+  private HttpHeaders getAuthenticationHeaders(Credentials credentials) {
+    HttpHeaders headers = new HttpHeaders();
+
+    // Set up the authentication credentials, if necessary.
+    if (credentials != null) {
+      credentials.setUpBasicAuthentication(headers);
+    }
+
+    return headers;
+  }
+
+  /**
+   * Runs the conditional GET-related authentication-independent tests.
+   */
+  private void conditionalGetCommonTest() throws Exception {
+    log.debug2("Invoked");
+
+    // Get the entity tags of the AUs and of the collection.
+    String etag1 = runTestConditionalGet("/aus/{auid}", GOOD_AUID_1, null,
+	USER_ADMIN, HttpStatus.OK).getHeaders().getETag();
+    String etag2 = runTestConditionalGet("/aus/{auid}", GOOD_AUID_2, null,
+	AU_ADMIN, HttpStatus.OK).getHeaders().getETag();
+    String etagAll = runTestConditionalGet("/aus", null, null, CONTENT_ADMIN,
+	HttpStatus.OK).getHeaders().getETag();
+
+    assertNotNull(etag1);
+    assertNotNull(etag2);
+    assertNotNull(etagAll);
+
+    // Unchanged.
+    runTestConditionalGet("/aus/{auid}", GOOD_AUID_1, etag1, USER_ADMIN,
+	HttpStatus.NOT_MODIFIED);
+    runTestConditionalGet("/aus/{auid}", GOOD_AUID_2, "\"x\", " + etag2,
+	AU_ADMIN, HttpStatus.NOT_MODIFIED);
+    runTestConditionalGet("/aus", null, "W/" + etagAll, CONTENT_ADMIN,
+	HttpStatus.NOT_MODIFIED);
+    runTestConditionalGet("/aus", null, "*", USER_ADMIN,
+	HttpStatus.NOT_MODIFIED);
+
+    // A tag for another AU does not match.
+    runTestConditionalGet("/aus/{auid}", GOOD_AUID_1, "\"x\"", USER_ADMIN,
+	HttpStatus.OK);
+
+    // A missing AU is never reported as not modified.
+    ResponseEntity<String> response = runTestConditionalGet("/aus/{auid}",
+	UNKNOWN_AUID, "*", USER_ADMIN, HttpStatus.OK);
+    assertNull(response.getHeaders().getETag());
+
+    // Store again the same configuration of the second AU.
+    AuConfiguration backupConfig2 =
+	runTestGetAuConfig(GOOD_AUID_2, AU_ADMIN, HttpStatus.OK);
+    runTestPutAuConfig(backupConfig2, null, USER_ADMIN, HttpStatus.OK);
+
+    // Verify that the tag of the second AU depends only on its content.
+    runTestConditionalGet("/aus/{auid}", GOOD_AUID_2, etag2, AU_ADMIN,
+	HttpStatus.NOT_MODIFIED);
+
+    // Store a different configuration of the second AU.
+    Map<String, String> auConfig = new HashMap<>(backupConfig2.getAuConfig());
+    auConfig.put("testKey1", "testValue1");
+    runTestPutAuConfig(new AuConfiguration(GOOD_AUID_2, auConfig), null,
+	USER_ADMIN, HttpStatus.OK);
+
+    // Verify that only the second AU and the collection have changed.
+    runTestConditionalGet("/aus/{auid}", GOOD_AUID_1, etag1, AU_ADMIN,
+	HttpStatus.NOT_MODIFIED);
+
+    response = runTestConditionalGet("/aus/{auid}", GOOD_AUID_2, etag2,
+	USER_ADMIN, HttpStatus.OK);
+    assertNotEquals(etag2, response.getHeaders().getETag());
+
+    response = runTestConditionalGet("/aus", null, etagAll, CONTENT_ADMIN,
+	HttpStatus.OK);
+    assertNotEquals(etagAll, response.getHeaders().getETag());
+
+    // Restore the original configuration of the second AU.
+    runTestPutAuConfig(backupConfig2, null, USER_ADMIN, HttpStatus.OK);
+    runTestConditionalGet("/aus/{auid}", GOOD_AUID_2, etag2, AU_ADMIN,
+	HttpStatus.NOT_MODIFIED);
+
+    log.debug2("Done");
+  }
+
+  /**
+   * Performs a conditional GET operation.
+   * 
+   * @param path
+   *          A String with the path of the request.
+   * @param auId
+   *          A String with the Archival Unit identifier in the path, if any.
+   * @param ifNoneMatch
+   *          A String with the "If-None-Match" header, or null.
+   * @param credentials
+   *          A Credentials with the request credentials.
+   * @param expectedStatus
+   *          An HttpStatus with the HTTP status of the result.
+   * @return a {@code ResponseEntity<String>} with the response.
+   */
+  private ResponseEntity<String> runTestConditionalGet(String path,
+      String auId, String ifNoneMatch, Credentials credentials,
+      HttpStatus expectedStatus) {
+    log.debug2("path = {}", path);
+    log.debug2("auId = {}", auId);
+    log.debug2("ifNoneMatch = {}", ifNoneMatch);
+    log.debug2("credentials = {}", credentials);
+    log.debug2("expectedStatus = {}", expectedStatus);
+
+    // Create the URI of the request to the REST service.
+    UriComponents uriComponents = UriComponentsBuilder
+	.fromUriString(getTestUrlTemplate(path)).build()
+	.expand(Collections.singletonMap("auid", auId));
+
+    URI uri = UriComponentsBuilder.newInstance().uriComponents(uriComponents)
+	.build().encode().toUri();
+    log.trace("uri = {}", uri);
+
+    // Initialize the request headers.
+    HttpHeaders headers = new HttpHeaders();
+
+    if (ifNoneMatch != null) {
+      headers.set(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+    }
+
+    // Set up the authentication credentials, if necessary.
+    if (credentials != null) {
+      credentials.setUpBasicAuthentication(headers);
+    }
+
+    // Make the request and get the response. 
+    ResponseEntity<String> response =
+	new TestRestTemplate(RestUtil.getRestTemplateBuilder(0, 0))
+	.exchange(uri, HttpMethod.GET, new HttpEntity<String>(null, headers),
+	    String.class);
+
+    assertEquals(expectedStatus,
+	HttpStatus.valueOf(response.getStatusCode().value()));
+
+    return response;
+  }
+
+  /**
+   * Runs the deleteAuConfigBatch()-related un-authenticated-specific tests.
+   */
+  private void deleteAuConfigBatchUnAuthenticatedTest() throws Exception {
+    log.debug2("Invoked");
+
+    // Bad credentials are ignored.
+    List<Map<String, Object>> results = runTestDeleteAuConfigBatch(null,
+	Collections.singletonList(UNKNOWN_AUID), ANYBODY, HttpStatus.OK);
+
+    // Verify.
+    assertEquals(1, results.size());
+    assertEquals(Boolean.FALSE, results.get(0).get("isSuccess"));
+
+    deleteAuConfigBatchCommonTest();
+
+    log.debug2("Done");
+  }
+
+  /**
+   * Runs the deleteAuConfigBatch()-related authenticated-specific tests.
+   */
+  private void deleteAuConfigBatchAuthenticatedTest() throws Exception {
+    log.debug2("Invoked");
+
+    // No credentials.
+    runTestDeleteAuConfigBatch(null, Collections.singletonList(UNKNOWN_AUID),
+	null, HttpStatus.UNAUTHORIZED);
+
+    // Bad credentials.
+    runTestDeleteAuConfigBatch(UNKNOWN_AUID, null, ANYBODY,
+	HttpStatus.UNAUTHORIZED);
+
+    // Insufficient credentials.
+    runTestDeleteAuConfigBatch(UNKNOWN_AUID, null, CONTENT_ADMIN,
+	HttpStatus.FORBIDDEN);
+
+    deleteAuConfigBatchCommonTest();
+
+    log.debug2("Done");
+  }
+
+  /**
+   * Runs the deleteAuConfigBatch()-related authentication-independent tests.
+   */
+  private void deleteAuConfigBatchCommonTest() throws Exception {
+    log.debug2("Invoked");
+
+    PluginManager pluginManager =
+	LockssDaemon.getLockssDaemon().getPluginManager();
+
+    // Neither identifiers nor prefix.
+    runTestDeleteAuConfigBatch(null, null, USER_ADMIN, HttpStatus.BAD_REQUEST);
+
+    // Both identifiers and prefix.
+    runTestDeleteAuConfigBatch(UNKNOWN_AUID,
+	Collections.singletonList(UNKNOWN_AUID), AU_ADMIN,
+	HttpStatus.BAD_REQUEST);
+
+    // Get the current configuration of the good AUs.
+    AuConfiguration backupConfig1 =
+	runTestGetAuConfig(GOOD_AUID_1, AU_ADMIN, HttpStatus.OK);
+    AuConfiguration backupConfig2 =
+	runTestGetAuConfig(GOOD_AUID_2, AU_ADMIN, HttpStatus.OK);
+
+    Map<String, String> auConfig = new HashMap<>();
+    auConfig.put("testKey1", "testValue1");
+
+    String unknownAuId2 = UNKNOWN_AUID + "2";
+    String unknownAuId3 = UNKNOWN_AUID + "3";
+
+    // Add some configurations to be deleted.
+    List<AuConfiguration> batch = new ArrayList<>();
+    batch.add(new AuConfiguration(UNKNOWN_AUID, auConfig));
+    batch.add(new AuConfiguration(unknownAuId2, auConfig));
+    batch.add(new AuConfiguration(unknownAuId3, auConfig));
+
+    runTestPostAuConfigBatch(new ObjectMapper().writeValueAsString(batch),
+	null, AU_ADMIN, HttpStatus.OK);
+
+    // Delete one of them and a missing one by identifier.
+    List<Map<String, Object>> results = runTestDeleteAuConfigBatch(null,
+	Arrays.asList(unknownAuId3, BAD_AUID, unknownAuId3), USER_ADMIN,
+	HttpStatus.OK);
+
+    // Verify.
+    assertEquals(3, results.size());
+    assertEquals(Boolean.TRUE, results.get(0).get("isSuccess"));
+    assertEquals(Boolean.FALSE, results.get(1).get("isSuccess"));
+    assertEquals(Boolean.FALSE, results.get(2).get("isSuccess"));
+    assertNull(pluginManager.getStoredAuConfiguration(unknownAuId3));
+
+    // A prefix without a plugin identifier.
+    runTestDeleteAuConfigBatch("&auid", null, USER_ADMIN,
+	HttpStatus.BAD_REQUEST);
+
+    // A prefix without an ampersand is a whole plugin identifier.
+    results = runTestDeleteAuConfigBatch("unk", null, AU_ADMIN, HttpStatus.OK);
+    assertEquals(0, results.size());
+    assertNotNull(pluginManager.getStoredAuConfiguration(UNKNOWN_AUID));
+
+    // A prefix that selects too many AUs.
+    ConfigurationUtil.addFromArgs(AusApiServiceImpl.PARAM_MAX_BATCH_SIZE, "1");
+    runTestDeleteAuConfigBatch(UNKNOWN_AUID, null, USER_ADMIN,
+	HttpStatus.PAYLOAD_TOO_LARGE);
+    assertNotNull(pluginManager.getStoredAuConfiguration(UNKNOWN_AUID));
+    ConfigurationUtil.addFromArgs(AusApiServiceImpl.PARAM_MAX_BATCH_SIZE,
+	String.valueOf(AusApiServiceImpl.DEFAULT_MAX_BATCH_SIZE));
+
+    // Delete the rest by prefix.
+    results = runTestDeleteAuConfigBatch(UNKNOWN_AUID, null, AU_ADMIN,
+	HttpStatus.OK);
+
+    // Verify.
+    assertEquals(2, results.size());
+    assertEquals(Boolean.TRUE, results.get(0).get("isSuccess"));
+    assertEquals(Boolean.TRUE, results.get(1).get("isSuccess"));
+    assertNull(pluginManager.getStoredAuConfiguration(UNKNOWN_AUID));
+    assertNull(pluginManager.getStoredAuConfiguration(unknownAuId2));
+
+    // Verify that the good AUs are unaffected.
+    assertEquals(backupConfig1, runTestGetAuConfig(GOOD_AUID_1, USER_ADMIN,
+	HttpStatus.OK));
+    assertEquals(backupConfig2, runTestGetAuConfig(GOOD_AUID_2, AU_ADMIN,
+	HttpStatus.OK));
+
+    log.debug2("Done");
+  }
+
+  /**
+   * Performs a POST operation to delete a batch of Archival Units.
+   * 
+   * @param auidPrefix
+   *          A String with the prefix of the identifiers of the Archival
+   *          Units to be deleted.
+   * @param auIds
+   *          A {@code List<String>} with the identifiers of the Archival
+   *          Units to be deleted.
+   * @param credentials
+   *          A Credentials with the request credentials.
+   * @param expectedStatus
+   *          An HttpStatus with the HTTP status of the result.
+   * @return a {@code List<Map<String, Object>>} with the result for each
+   *         Archival Unit.
+   * @throws Exception
+   *           if there are problems.
+   */
+  private List<Map<String, Object>> runTestDeleteAuConfigBatch(
+      String auidPrefix, List<String> auIds, Credentials credentials,
+      HttpStatus expectedStatus) throws Exception {
+    log.debug2("auidPrefix = {}", auidPrefix);
+    log.debug2("auIds = {}", auIds);
+    log.debug2("credentials = {}", credentials);
+    log.debug2("expectedStatus = {}", expectedStatus);
+
+    // Create the URI of the request to the REST service.
+    UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(
+	getTestUrlTemplate("/aus/batch/delete"));
+
+    if (auidPrefix != null) {
+      builder.queryParam("auidPrefix", auidPrefix);
+    }
+
+    URI uri = builder.build().encode().toUri();
+    log.trace("uri = {}", uri);
+
+    // Initialize the request headers.
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+
+    // Set up the authentication credentials, if necessary.
+    if (credentials != null) {
+      credentials.setUpBasicAuthentication(headers);
+    }
+
+    // Make the request and get the response. 
+    ResponseEntity<String> response =
+	new TestRestTemplate(RestUtil.getRestTemplateBuilder(0, 0))
+	.exchange(uri, HttpMethod.POST,
+	    new HttpEntity<List<String>>(auIds, headers), String.class);
+
+    HttpStatus status = HttpStatus.valueOf(response.getStatusCode().value());
+    assertEquals(expectedStatus, status);
+
+    List<Map<String, Object>> result = null;
+
+    // Check whether it is a success response.
+    if (RestUtil.isSuccess(status)) {
+      // Yes: Parse it.
+      result = new ObjectMapper().readValue(response.getBody(),
+	  new TypeReference<List<Map<String, Object>>>(){});
+    }
+
+    log.debug2("result = {}", result);
+    return result;
+  }
+
   /**
    * Runs the deleteAus()-related un-authenticated-specific tests.
    */
@@ -0,0 +1,172 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Before;
+import org.junit.Test;
+import org.lockss.config.TdbPublisher;
+import org.lockss.test.LockssTestCase4;
+import org.lockss.ws.entities.TdbPublisherWsResult;
+
+/**
+ * Test class for org.lockss.laaws.config.impl.CompiledWsQuery.
+ */
+public class TestCompiledWsQuery extends LockssTestCase4 {
+  private List<TdbPublisherWsSource> universe;
+
+  @Before
+  public void setUpUniverse() throws Exception {
+    universe = new ArrayList<>();
+
+    for (String name : new String[] {"Beta", "Alpha", "Gamma", "Alphabet"}) {
+      universe.add(new TdbPublisherWsSource(new TdbPublisher(name)));
+    }
+  }
+
+  /**
+   * Tests the supported syntax.
+   */
+  @Test
+  public void testSupported() throws Exception {
+    assertEquals(List.of("Beta", "Alpha", "Gamma", "Alphabet"),
+        names("select *"));
+    assertEquals(List.of("Gamma"), names("select name where name = 'Gamma'"));
+    assertEquals(List.of("Beta", "Gamma"),
+        names("SELECT name WHERE name != 'Alpha' AND name <> 'Alphabet'"));
+    assertEquals(List.of("Alpha", "Alphabet"),
+        names("select name where name like 'Alpha%'"));
+    assertEquals(List.of("Beta", "Alpha", "Gamma"),
+        names("select name where name not like 'Alpha_%'"));
+    assertEquals(List.of("Gamma", "Beta"),
+        names("select name where name > 'B' order by name desc"));
+    assertEquals(List.of("Alpha", "Alphabet", "Gamma"),
+        names("select name where not (name >= 'B' and name < 'C')"
+            + " order by name"));
+    assertEquals(List.of(), names("select name where name is null"));
+  }
+
+  /**
+   * Tests that unsupported queries are not compiled.
+   */
+  @Test
+  public void testUnsupported() throws Exception {
+    assertNull(compile("select name where lower(name) = 'alpha'"));
+    assertNull(compile("select name where name = name"));
+    assertNull(compile("select name where name = 1"));
+    assertNull(compile("select name where name = 'it''s'"));
+    assertNull(compile("select unknown"));
+    assertNull(compile("select name where"));
+  }
+
+  /**
+   * Tests the equalities required by a query.
+   */
+  @Test
+  public void testEqualities() throws Exception {
+    assertEquals(Map.of(), compile("select name").getEqualities());
+    assertEquals(Map.of("name", "Beta"),
+        compile("select name where name = 'Beta'").getEqualities());
+    assertEquals(Map.of("name", "Beta"),
+        compile("select name where (name > 'A') and name = 'Beta'")
+        .getEqualities());
+    assertEquals(Map.of(),
+        compile("select name where name = 'Beta' or name = 'Gamma'")
+        .getEqualities());
+    assertEquals(Map.of(),
+        compile("select name where not name = 'Beta'").getEqualities());
+    assertEquals(Map.of(),
+        compile("select name where (name = 'Beta' or name > 'C')")
+        .getEqualities());
+  }
+
+  /**
+   * Tests that a parallel execution provides the results of a serial one.
+   */
+  @Test
+  public void testParallel() throws Exception {
+    for (int i = 0; i < 500; i++) {
+      universe.add(new TdbPublisherWsSource(new TdbPublisher("Publisher "
+          + i)));
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(3);
+
+    try {
+      for (String query : new String[] {"select *",
+          "select name where name like 'Publisher %5'",
+          "select name where name > 'P' order by name desc"}) {
+        List<Object> serial = compile(query).execute(universe);
+        List<Object> parallel = compile(query).execute(universe, pool);
+        assertEquals(serial.size(), parallel.size());
+
+        for (int i = 0; i < serial.size(); i++) {
+          assertEquals(((TdbPublisherWsResult)serial.get(i)).getName(),
+              ((TdbPublisherWsResult)parallel.get(i)).getName());
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Tests the conversion of LIKE patterns.
+   */
+  @Test
+  public void testToPattern() throws Exception {
+    assertTrue(CompiledWsQuery.toPattern("a%c").matcher("abbc").matches());
+    assertTrue(CompiledWsQuery.toPattern("a_c").matcher("abc").matches());
+    assertFalse(CompiledWsQuery.toPattern("a_c").matcher("abbc").matches());
+    assertTrue(CompiledWsQuery.toPattern("a.c").matcher("a.c").matches());
+    assertFalse(CompiledWsQuery.toPattern("a.c").matcher("abc").matches());
+  }
+
+  private CompiledWsQuery compile(String query) throws Exception {
+    return CompiledWsQuery.compile(query, TdbPublisherWsSource.class,
+        TdbPublisherHelper.PROPERTY_NAMES, TdbPublisherWsResult.class);
+  }
+
+  private List<String> names(String query) throws Exception {
+    List<String> names = new ArrayList<>();
+
+    for (Object result : compile(query).execute(universe)) {
+      assertTrue(result instanceof TdbPublisherWsResult);
+      names.add(((TdbPublisherWsResult)result).getName());
+    }
+
+    return names;
+  }
+}
@@ -54,6 +54,7 @@ import org.lockss.util.rest.multipart.MultipartResponse;
 import org.lockss.util.rest.multipart.MultipartResponse.Part;
 import org.lockss.util.rest.multipart.NamedByteArrayResource;
 import org.lockss.util.time.TimeBase;
+import org.lockss.ws.entities.PlatformConfigurationWsResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -245,8 +246,10 @@ public class TestConfigApiServiceImpl extends SpringLockssTestCase4 {
     getConfigUrlUnAuthenticatedTest();
     getLastUpdateTimeUnAuthenticatedTest();
     getLoadedUrlListUnAuthenticatedTest();
+    getIpAccessCheckUnAuthenticatedTest();
     putConfigUnAuthenticatedTest();
     putConfigReloadUnAuthenticatedTest();
+    getPlatformConfigSnapshotTest();
 
     log.debug2("Done");
   }
@@ -275,6 +278,7 @@ public class TestConfigApiServiceImpl extends SpringLockssTestCase4 {
     getConfigUrlAuthenticatedTest();
     getLastUpdateTimeAuthenticatedTest();
     getLoadedUrlListAuthenticatedTest();
+    getIpAccessCheckAuthenticatedTest();
     putConfigAuthenticatedTest();
     putConfigReloadAuthenticatedTest();
 
@@ -2814,6 +2818,228 @@ public class TestConfigApiServiceImpl extends SpringLockssTestCase4 {
     log.debug2("Done");
   }
 
+  /**
+   * Runs the getIpAccessCheck()-related un-authenticated-specific tests.
+   * 
+   * @throws Exception
+   *           if there are problems.
+   */
+  private void getIpAccessCheckUnAuthenticatedTest() throws Exception {
+    log.debug2("Invoked");
+
+    runTestGetIpAccessCheck("127.0.0.1", null, null, HttpStatus.OK);
+    runTestGetIpAccessCheck("127.0.0.1", SECTION_NAME_PROXY_IP_ACCESS,
+	ANYBODY, HttpStatus.OK);
+    runTestGetIpAccessCheck("10.1.2.3", UIIPACCESS, CONTENT_ADMIN,
+	HttpStatus.OK);
+
+    getIpAccessCheckCommonTest();
+
+    log.debug2("Done");
+  }
+
+  /**
+   * Runs the getIpAccessCheck()-related authenticated-specific tests.
+   * 
+   * @throws Exception
+   *           if there are problems.
+   */
+  private void getIpAccessCheckAuthenticatedTest() throws Exception {
+    log.debug2("Invoked");
+
+    runTestGetIpAccessCheck("127.0.0.1", null, null, HttpStatus.UNAUTHORIZED);
+    runTestGetIpAccessCheck("127.0.0.1", SECTION_NAME_PROXY_IP_ACCESS,
+	ANYBODY, HttpStatus.UNAUTHORIZED);
+    runTestGetIpAccessCheck("10.1.2.3", UIIPACCESS, CONTENT_ADMIN,
+	HttpStatus.FORBIDDEN);
+
+    getIpAccessCheckCommonTest();
+
+    log.debug2("Done");
+  }
+
+  /**
+   * Runs the getIpAccessCheck()-related authentication-independent tests.
+   * 
+   * @throws Exception
+   *           if there are problems.
+   */
+  private void getIpAccessCheckCommonTest() throws Exception {
+    log.debug2("Invoked");
+
+    runTestGetIpAccessCheck("127.0.0.1", null, USER_ADMIN, HttpStatus.OK);
+    runTestGetIpAccessCheck("10.1.2.3", UIIPACCESS, USER_ADMIN,
+	HttpStatus.OK);
+    runTestGetIpAccessCheck("::1", SECTION_NAME_PROXY_IP_ACCESS, USER_ADMIN,
+	HttpStatus.OK);
+
+    // Bad IP address.
+    runTestGetIpAccessCheck("1.2.3", null, USER_ADMIN,
+	HttpStatus.BAD_REQUEST);
+    runTestGetIpAccessCheck("localhost", null, USER_ADMIN,
+	HttpStatus.BAD_REQUEST);
+    runTestGetIpAccessCheck("zz:zz", null, USER_ADMIN,
+	HttpStatus.BAD_REQUEST);
+
+    // Section without an IP access list.
+    runTestGetIpAccessCheck("127.0.0.1", CLUSTER, USER_ADMIN,
+	HttpStatus.BAD_REQUEST);
+    runTestGetIpAccessCheck("127.0.0.1", BAD_SN, USER_ADMIN,
+	HttpStatus.BAD_REQUEST);
+
+    log.debug2("Done");
+  }
+
+  /**
+   * Performs a GET ipaccess/check operation.
+   * 
+   * @param ip
+   *          A String with the IP address to be checked.
+   * @param sectionName
+   *          A String with the name of the section with the IP access list.
+   * @param credentials
+   *          A Credentials with the request credentials.
+   * @param expectedStatus
+   *          An HttpStatus with the HTTP status of the result.
+   * 
+   * @throws Exception
+   *           if there are problems.
+   */
+  private void runTestGetIpAccessCheck(String ip, String sectionName,
+      Credentials credentials, HttpStatus expectedStatus) throws Exception {
+    log.debug2("ip = {}", ip);
+    log.debug2("sectionName = {}", sectionName);
+    log.debug2("credentials = {}", credentials);
+    log.debug2("expectedStatus = {}", expectedStatus);
+
+    // Get the test URL template.
+    String template = getTestUrlTemplate("/config/ipaccess/check");
+
+    // Create the URI of the request to the REST service.
+    UriComponentsBuilder builder =
+	UriComponentsBuilder.fromUriString(template).queryParam("ip", ip);
+
+    if (sectionName != null) {
+      builder.queryParam("sectionName", sectionName);
+    }
+
+    URI uri = builder.build().encode().toUri();
+    log.trace("uri = {}", uri);
+
+    // Initialize the request to the REST service.
+    RestTemplateBuilder templateBuilder = RestUtil.getRestTemplateBuilder(0, 0);
+
+    HttpEntity<String> requestEntity = null;
+
+    // Check whether there are any custom headers to be specified in the
+    // request.
+    if (credentials != null) {
+      // Yes: Initialize the request headers.
+      HttpHeaders headers = new HttpHeaders();
+
+      // Set up the authentication credentials, if necessary.
+      credentials.setUpBasicAuthentication(headers);
+
+      log.trace("requestHeaders = {}", () -> headers.toSingleValueMap());
+
+      // Create the request entity.
+      requestEntity = new HttpEntity<String>(null, headers);
+    }
+
+    // Make the request and get the response. 
+    ResponseEntity<?> response = new TestRestTemplate(templateBuilder)
+	.exchange(uri, HttpMethod.GET, requestEntity, String.class);
+
+    // Get the response status.
+    HttpStatusCode statusCode = response.getStatusCode();
+    HttpStatus status = HttpStatus.valueOf(statusCode.value());
+    assertEquals(expectedStatus, status);
+
+    // Check whether it is a success response.
+    if (isSuccess(status)) {
+      // Yes: Parse it.
+      ObjectMapper mapper = new ObjectMapper();
+      Map<String, Object> result = mapper.readValue(
+	  (String)response.getBody(),
+	  new TypeReference<Map<String, Object>>(){});
+
+      String expectedSection = sectionName == null
+	  ? SECTION_NAME_UI_IP_ACCESS : sectionName.toLowerCase();
+      String prefix = SECTION_NAME_UI_IP_ACCESS.equals(expectedSection)
+	  ? PARAM_UI_IP_ACCESS_PREFIX : PARAM_PROXY_IP_ACCESS_PREFIX;
+
+      // Compile the access list independently from the current configuration.
+      IpAccessTrie expected = IpAccessTrie.build(
+	  ConfigManager.getCurrentConfig().getList(prefix + SUFFIX_IP_INCLUDE),
+	  ConfigManager.getCurrentConfig().getList(prefix + SUFFIX_IP_EXCLUDE));
+
+      assertEquals(ip, result.get("ip"));
+      assertEquals(expectedSection, result.get("sectionName"));
+      assertEquals(expected.isAllowed(ip), result.get("allowed"));
+    }
+
+    log.debug2("Done");
+  }
+
+  /**
+   * Runs the tests of the cached part of the platform configuration.
+   * 
+   * @throws Exception
+   *           if there are problems.
+   */
+  private void getPlatformConfigSnapshotTest() throws Exception {
+    log.debug2("Invoked");
+
+    ConfigApiServiceImpl service = new ConfigApiServiceImpl();
+
+    // The snapshot is reused while the configuration does not change.
+    PlatformConfigurationWsResult snapshot =
+	service.getPlatformConfigSnapshot();
+    assertSame(snapshot, service.getPlatformConfigSnapshot());
+    assertNotNull(snapshot.getDisks());
+
+    // The snapshot is rebuilt after a configuration change.
+    String project = "snapshotTestProject";
+    ConfigurationUtil.addFromArgs(ConfigManager.PARAM_PLATFORM_PROJECT,
+	project);
+
+    PlatformConfigurationWsResult rebuilt =
+	service.getPlatformConfigSnapshot();
+    assertNotSame(snapshot, rebuilt);
+    assertEquals(project, rebuilt.getProject());
+    assertSame(rebuilt, service.getPlatformConfigSnapshot());
+
+    // The cached lists cannot be modified.
+    try {
+      rebuilt.getDisks().add("/tmp/extra");
+      fail("Should have thrown UnsupportedOperationException");
+    } catch (UnsupportedOperationException uoe) {
+      // Expected.
+    }
+
+    // The platform configuration provided to a caller is a copy, so its
+    // modification does not reach the snapshot.
+    ResponseEntity<?> response = service.getPlatformConfig();
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+
+    PlatformConfigurationWsResult result =
+	(PlatformConfigurationWsResult)response.getBody();
+    assertNotSame(rebuilt, result);
+    assertEquals(project, result.getProject());
+
+    result.setProject("modifiedProject");
+    assertEquals(project, service.getPlatformConfigSnapshot().getProject());
+
+    try {
+      result.getDisks().clear();
+      fail("Should have thrown UnsupportedOperationException");
+    } catch (UnsupportedOperationException uoe) {
+      // Expected.
+    }
+
+    log.debug2("Done");
+  }
+
   /**
    * Runs the putConfig()-related un-authenticated-specific tests.
    */
@@ -0,0 +1,146 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+import org.lockss.test.LockssTestCase4;
+
+/**
+ * Test class for org.lockss.laaws.config.impl.IpAccessTrie.
+ */
+public class TestIpAccessTrie extends LockssTestCase4 {
+  /**
+   * Tests CIDR blocks and exclusions.
+   */
+  @Test
+  public void testCidr() throws Exception {
+    IpAccessTrie trie = IpAccessTrie.build(
+	Arrays.asList("10.0.0.0/8", "192.168.1.7", "2001:db8::/32"),
+	Arrays.asList("10.9.0.0/16"));
+
+    assertEquals(3 + 1, trie.getEntryCount());
+    assertTrue(trie.isAllowed("10.1.2.3"));
+    assertFalse(trie.isAllowed("10.9.2.3"));
+    assertTrue(trie.isAllowed("192.168.1.7"));
+    assertFalse(trie.isAllowed("192.168.1.8"));
+    assertTrue(trie.isAllowed("2001:db8::1"));
+    assertFalse(trie.isAllowed("2001:db9::1"));
+  }
+
+  /**
+   * Tests that only trailing wildcards are accepted.
+   */
+  @Test
+  public void testWildcards() throws Exception {
+    IpAccessTrie trie = IpAccessTrie.build(
+	Arrays.asList("10.1.*.*", "172.16.*"), null);
+
+    assertEquals(2, trie.getEntryCount());
+    assertTrue(trie.isAllowed("10.1.200.5"));
+    assertFalse(trie.isAllowed("10.2.0.5"));
+    assertTrue(trie.isAllowed("172.16.3.4"));
+
+    // A wildcard followed by a fixed octet is not a prefix.
+    trie = IpAccessTrie.build(
+	Arrays.asList("10.1.*.5", "*.1.2.3", "10.*.*.*.*"), null);
+
+    assertEquals(0, trie.getEntryCount());
+    assertFalse(trie.isAllowed("10.1.0.5"));
+    assertFalse(trie.isAllowed("10.1.7.9"));
+  }
+
+  /**
+   * Tests netmask entries.
+   */
+  @Test
+  public void testNetmask() throws Exception {
+    assertEquals(16, IpAccessTrie.netmaskPrefixLength("255.255.0.0"));
+    assertEquals(20, IpAccessTrie.netmaskPrefixLength("255.255.240.0"));
+    assertEquals(32, IpAccessTrie.netmaskPrefixLength("255.255.255.255"));
+    assertEquals(0, IpAccessTrie.netmaskPrefixLength("0.0.0.0"));
+    assertEquals(-1, IpAccessTrie.netmaskPrefixLength("255.0.255.0"));
+    assertEquals(-1, IpAccessTrie.netmaskPrefixLength("255.255.0"));
+
+    IpAccessTrie trie = IpAccessTrie.build(
+	Arrays.asList("10.1.0.0/255.255.0.0", "10.2.0.0/255.0.255.0"),
+	Collections.singletonList("10.1.2.0/255.255.255.0"));
+
+    assertEquals(2, trie.getEntryCount());
+    assertTrue(trie.isAllowed("10.1.7.1"));
+    assertFalse(trie.isAllowed("10.1.2.1"));
+    assertFalse(trie.isAllowed("10.2.7.1"));
+  }
+
+  /**
+   * Tests that only numeric addresses are parsed, without any name lookup.
+   */
+  @Test
+  public void testParseAddress() throws Exception {
+    assertArrayEquals(new byte[] {10, 1, 2, (byte)255},
+	IpAccessTrie.parseAddress("10.1.2.255"));
+
+    byte[] loopback = new byte[16];
+    loopback[15] = 1;
+    assertArrayEquals(loopback, IpAccessTrie.parseAddress("::1"));
+    assertArrayEquals(loopback, IpAccessTrie.parseAddress("[::1]"));
+    assertArrayEquals(loopback,
+	IpAccessTrie.parseAddress("0:0:0:0:0:0:0:1"));
+    assertArrayEquals(new byte[16], IpAccessTrie.parseAddress("::"));
+
+    byte[] documentation = new byte[16];
+    documentation[0] = 0x20;
+    documentation[1] = 0x01;
+    documentation[2] = 0x0d;
+    documentation[3] = (byte)0xb8;
+    documentation[14] = (byte)0xab;
+    documentation[15] = (byte)0xcd;
+    assertArrayEquals(documentation,
+	IpAccessTrie.parseAddress("2001:DB8::abcd"));
+
+    // An IPv4-mapped address is its IPv4 address, but an IPv4-compatible
+    // one is not.
+    assertArrayEquals(new byte[] {(byte)192, (byte)168, 1, 7},
+	IpAccessTrie.parseAddress("::ffff:192.168.1.7"));
+    assertEquals(16, IpAccessTrie.parseAddress("::192.168.1.7").length);
+
+    // Neither host names nor malformed literals are resolved.
+    for (String invalid : Arrays.asList(null, "", "localhost", "zz:zz",
+	"example.com:80", "1.2.3", "1.2.3.256", "1:2:3:4:5:6:7",
+	"1:2:3:4:5:6:7:8:9", "1::2::3", ":1::2", "1::2:", "1:::2",
+	"12345::1", "::1%eth0", "1.2.3.4::", "::1.2.3", "1:2:3:4:5:6:7::8",
+	"[::1", "::\uff11")) {
+      assertNull(invalid, IpAccessTrie.parseAddress(invalid));
+    }
+  }
+}
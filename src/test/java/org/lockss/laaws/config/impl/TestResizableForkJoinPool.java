@@ -0,0 +1,113 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import org.lockss.test.LockssTestCase4;
+
+/**
+ * Test class for org.lockss.laaws.config.impl.ResizableForkJoinPool.
+ */
+public class TestResizableForkJoinPool extends LockssTestCase4 {
+	/**
+	 * Tests that a pool is shared while its parallelism is unchanged.
+	 */
+	@Test
+	public void testShared() throws Exception {
+		ResizableForkJoinPool resizable = new ResizableForkJoinPool();
+
+		ForkJoinPool pool1 = resizable.acquire(2);
+		ForkJoinPool pool2 = resizable.acquire(2);
+		assertSame(pool1, pool2);
+		assertEquals(2, pool1.getParallelism());
+
+		resizable.release(pool1);
+		resizable.release(pool2);
+
+		// The current pool is kept after all its users release it.
+		assertFalse(pool1.isShutdown());
+		assertSame(pool1, resizable.acquire(2));
+	}
+
+	/**
+	 * Tests that a replaced pool is shut down only after all its users
+	 * release it.
+	 */
+	@Test
+	public void testReplacedPoolDrains() throws Exception {
+		ResizableForkJoinPool resizable = new ResizableForkJoinPool();
+
+		ForkJoinPool old1 = resizable.acquire(2);
+		ForkJoinPool old2 = resizable.acquire(2);
+
+		// Changing the parallelism replaces the pool.
+		ForkJoinPool current = resizable.acquire(3);
+		assertNotSame(old1, current);
+		assertEquals(3, current.getParallelism());
+
+		// The replaced pool still accepts tasks from its users.
+		assertFalse(old1.isShutdown());
+		assertEquals(Integer.valueOf(1), old1.submit(() -> 1).get());
+
+		resizable.release(old1);
+		assertFalse(old2.isShutdown());
+		assertEquals(Integer.valueOf(2), old2.submit(() -> 2).get());
+
+		// The last user shuts it down.
+		resizable.release(old2);
+		assertTrue(old2.isShutdown());
+		assertFalse(current.isShutdown());
+
+		resizable.release(current);
+		assertFalse(current.isShutdown());
+	}
+
+	/**
+	 * Tests that a replaced pool without users is shut down immediately.
+	 */
+	@Test
+	public void testReplacedIdlePool() throws Exception {
+		ResizableForkJoinPool resizable = new ResizableForkJoinPool();
+
+		ForkJoinPool old = resizable.acquire(2);
+		resizable.release(old);
+
+		ForkJoinPool current = resizable.acquire(4);
+		assertTrue(old.isShutdown());
+		assertFalse(current.isShutdown());
+		resizable.release(current);
+
+		// Releasing no pool is allowed.
+		resizable.release(null);
+	}
+}
@@ -0,0 +1,193 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.josql.QueryParseException;
+import org.lockss.test.ConfigurationUtil;
+import org.lockss.test.LockssTestCase4;
+import org.lockss.ws.entities.ContentConfigurationResult;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Test class for the batch operation helpers of
+ * org.lockss.laaws.config.impl.WsApiServiceImpl.
+ */
+public class TestWsApiServiceImpl extends LockssTestCase4 {
+  private static final List<String> AUIDS = Arrays.asList("p&a1", "p&a2",
+      "p&a3", "p&a4", "p&a5", "p&a6", "p&a7");
+
+  private MockHttpServletResponse response;
+
+  @Before
+  public void setUpRequest() throws Exception {
+    response = new MockHttpServletResponse();
+    RequestContextHolder.setRequestAttributes(
+	new ServletRequestAttributes(new MockHttpServletRequest(), response));
+  }
+
+  @After
+  public void tearDownRequest() throws Exception {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  /**
+   * Tests that the results of a batch operation are streamed as one NDJSON
+   * line per archival unit, in order across chunk boundaries.
+   */
+  @Test
+  public void testStreamResults() throws Exception {
+    ConfigurationUtil.addFromArgs(WsApiServiceImpl.PARAM_STREAM_CHUNK_SIZE,
+	"3");
+    List<List<String>> chunks = new ArrayList<>();
+
+    WsApiServiceImpl.streamResults("add", AUIDS, chunk -> {
+      chunks.add(new ArrayList<>(chunk));
+
+      if (chunk.contains("p&a4")) {
+	throw new IllegalStateException("Boom");
+      }
+
+      return succeed(chunk);
+    });
+
+    // The operation has been applied one chunk at a time.
+    assertEquals(3, chunks.size());
+    assertEquals(AUIDS.subList(0, 3), chunks.get(0));
+    assertEquals(AUIDS.subList(3, 6), chunks.get(1));
+    assertEquals(AUIDS.subList(6, 7), chunks.get(2));
+
+    assertEquals(NdjsonHelper.MEDIA_TYPE_NDJSON, response.getContentType());
+    String body = response.getContentAsString();
+    assertTrue(body.endsWith("\n"));
+
+    // One line per archival unit, in the original order, with the failure
+    // of the second chunk reported for each of its archival units.
+    String[] lines = body.split("\n");
+    assertEquals(AUIDS.size(), lines.length);
+    ObjectMapper mapper = new ObjectMapper();
+
+    for (int i = 0; i < lines.length; i++) {
+      Map<?, ?> result = mapper.readValue(lines[i], Map.class);
+      assertEquals(AUIDS.get(i), result.get("id"));
+      assertEquals(i < 3 || i > 5, result.get("isSuccess"));
+    }
+  }
+
+  /**
+   * Tests that applying an operation in chunks keeps the order and the
+   * status of each archival unit across chunk boundaries.
+   */
+  @Test
+  public void testApplyInChunks() throws Exception {
+    List<List<String>> chunks = new ArrayList<>();
+    long pause = 50;
+    long startTime = System.currentTimeMillis();
+
+    List<ContentConfigurationResult> results =
+	WsApiServiceImpl.applyInChunks(AUIDS, 3, pause, chunk -> {
+	  chunks.add(new ArrayList<>(chunk));
+	  List<ContentConfigurationResult> chunkResults = new ArrayList<>();
+
+	  // Every other archival unit fails.
+	  for (String auId : chunk) {
+	    boolean success = AUIDS.indexOf(auId) % 2 == 0;
+	    chunkResults.add(new ContentConfigurationResult(auId, auId,
+		success, success ? "Added" : "Not found"));
+	  }
+
+	  return chunkResults;
+	});
+
+    // There is a pause between each pair of chunks.
+    assertTrue(System.currentTimeMillis() - startTime >= 2 * pause);
+
+    assertEquals(3, chunks.size());
+    assertEquals(AUIDS.subList(3, 6), chunks.get(1));
+    assertEquals(AUIDS.size(), results.size());
+
+    for (int i = 0; i < results.size(); i++) {
+      assertEquals(AUIDS.get(i), results.get(i).getId());
+      assertEquals(Boolean.valueOf(i % 2 == 0), results.get(i).getIsSuccess());
+      assertEquals(i % 2 == 0 ? "Added" : "Not found",
+	  results.get(i).getMessage());
+    }
+  }
+
+  /**
+   * Tests that only conditions are accepted as the WHERE clause of a query
+   * operation.
+   */
+  @Test
+  public void testCheckWhereCondition() throws Exception {
+    WsApiServiceImpl.checkWhereCondition("auId = 'p&a1'");
+    WsApiServiceImpl.checkWhereCondition(
+	"name like '%order by%' and pluginName = \"limit; having\"");
+    WsApiServiceImpl.checkWhereCondition("(volume = '1' or year = '2010')");
+
+    for (String where : Arrays.asList("auId = 'p&a1' order by auId",
+	"year = '2010' LIMIT 1", "year = '2010' group by pluginName",
+	"year = '2010' Having count(*) > 1",
+	"year = '2010' execute on all count(*)", "year = '2010'; auId = 'x'")) {
+      try {
+	WsApiServiceImpl.checkWhereCondition(where);
+	fail("Should have thrown QueryParseException for '" + where + "'");
+      } catch (QueryParseException qpe) {
+	// Expected.
+      }
+    }
+  }
+
+  /**
+   * Provides successful results for a chunk of archival units.
+   */
+  private List<ContentConfigurationResult> succeed(List<String> chunk) {
+    List<ContentConfigurationResult> results = new ArrayList<>();
+
+    for (String auId : chunk) {
+      results.add(new ContentConfigurationResult(auId, auId, Boolean.TRUE,
+	  "OK"));
+    }
+
+    return results;
+  }
+}
@@ -0,0 +1,228 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.lockss.test.ConfigurationUtil;
+import org.lockss.test.LockssTestCase4;
+import org.lockss.ws.entities.ContentConfigurationResult;
+
+/**
+ * Test class for org.lockss.laaws.config.impl.WsBatchJobs.
+ */
+public class TestWsBatchJobs extends LockssTestCase4 {
+  private static final List<String> AUIDS = Arrays.asList("p&a1", "p&a2",
+      "p&a3", "p&a4", "p&a5", "p&a6", "p&a7");
+
+  private WsBatchJobs jobs;
+
+  @Before
+  public void setUpJobs() throws Exception {
+    ConfigurationUtil.addFromArgs(WsBatchJobs.PARAM_CHUNK_SIZE, "3");
+    jobs = new WsBatchJobs();
+  }
+
+  /**
+   * Tests a job that completes.
+   */
+  @Test
+  public void testCompleted() throws Exception {
+    List<List<String>> chunks = new ArrayList<>();
+
+    WsBatchJobs.Job job = jobs.submit("add", AUIDS, chunk -> {
+      chunks.add(new ArrayList<>(chunk));
+      return succeed(chunk);
+    });
+
+    assertSame(job, jobs.get(job.getId()));
+    waitFinished(job);
+
+    assertEquals(WsBatchJobs.State.COMPLETED, job.getState());
+    assertEquals(3, chunks.size());
+    assertEquals(AUIDS.subList(0, 3), chunks.get(0));
+    assertEquals(AUIDS.subList(6, 7), chunks.get(2));
+
+    Map<String, Object> status = job.getStatus(0);
+    assertEquals(AUIDS.size(), status.get("total"));
+    assertEquals(AUIDS.size(), status.get("processed"));
+    assertEquals(AUIDS.size(), status.get("succeeded"));
+    assertEquals(AUIDS, auIds(job.getResults(0)));
+    assertEquals(AUIDS.subList(5, 7), auIds(job.getResults(5)));
+    assertEquals(0, job.getResults(10).size());
+  }
+
+  /**
+   * Tests a job with a chunk that fails.
+   */
+  @Test
+  public void testFailedChunk() throws Exception {
+    WsBatchJobs.Job job = jobs.submit("delete", AUIDS, chunk -> {
+      if (chunk.contains("p&a4")) {
+	throw new IllegalStateException("Boom");
+      }
+
+      return succeed(chunk);
+    });
+
+    waitFinished(job);
+
+    assertEquals(WsBatchJobs.State.COMPLETED, job.getState());
+    List<ContentConfigurationResult> results = job.getResults(0);
+    assertEquals(AUIDS, auIds(results));
+    assertTrue(results.get(2).getIsSuccess());
+    assertFalse(results.get(3).getIsSuccess());
+    assertFalse(results.get(5).getIsSuccess());
+    assertTrue(results.get(6).getIsSuccess());
+    assertEquals(4, job.getStatus(0).get("succeeded"));
+  }
+
+  /**
+   * Tests the cancellation of a running job.
+   */
+  @Test
+  public void testCancelled() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    WsBatchJobs.Job job = jobs.submit("deactivate", AUIDS, chunk -> {
+      started.countDown();
+      assertTrue(release.await(10, TimeUnit.SECONDS));
+      return succeed(chunk);
+    });
+
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    assertSame(job, jobs.cancel(job.getId()));
+    assertEquals(WsBatchJobs.State.RUNNING, job.getState());
+    release.countDown();
+    waitFinished(job);
+
+    // Only the chunk that was running has been processed.
+    assertEquals(WsBatchJobs.State.CANCELLED, job.getState());
+    assertEquals(AUIDS.subList(0, 3), auIds(job.getResults(0)));
+    assertEquals(Boolean.TRUE, job.getStatus(0).get("cancelRequested"));
+  }
+
+  /**
+   * Tests that the cancellation of a queued job frees its place in the
+   * queue.
+   */
+  @Test
+  public void testCancelledQueued() throws Exception {
+    ConfigurationUtil.addFromArgs(WsBatchJobs.PARAM_THREADS, "1",
+	WsBatchJobs.PARAM_MAX_QUEUED, "1");
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    WsBatchJobs.Job running = jobs.submit("add", AUIDS, chunk -> {
+      started.countDown();
+      assertTrue(release.await(10, TimeUnit.SECONDS));
+      return succeed(chunk);
+    });
+
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+
+    // The only place in the queue is taken.
+    WsBatchJobs.Job queued = jobs.submit("add", AUIDS, this::succeed);
+    assertNotNull(queued);
+    assertNull(jobs.submit("add", AUIDS, this::succeed));
+
+    // Cancelling the queued job frees its place.
+    assertSame(queued, jobs.cancel(queued.getId()));
+    assertEquals(WsBatchJobs.State.CANCELLED, queued.getState());
+
+    WsBatchJobs.Job next = jobs.submit("add", AUIDS, this::succeed);
+    assertNotNull(next);
+
+    release.countDown();
+    waitFinished(running);
+    waitFinished(next);
+
+    assertEquals(WsBatchJobs.State.COMPLETED, next.getState());
+    assertEquals(0, queued.getResults(0).size());
+  }
+
+  /**
+   * Tests an unknown job.
+   */
+  @Test
+  public void testUnknown() throws Exception {
+    assertNull(jobs.get("unknown"));
+    assertNull(jobs.cancel("unknown"));
+  }
+
+  /**
+   * Provides successful results for a chunk of archival units.
+   */
+  private List<ContentConfigurationResult> succeed(List<String> chunk) {
+    List<ContentConfigurationResult> results = new ArrayList<>();
+
+    for (String auId : chunk) {
+      results.add(new ContentConfigurationResult(auId, auId, Boolean.TRUE,
+	  "OK"));
+    }
+
+    return results;
+  }
+
+  /**
+   * Provides the archival unit identifiers of some results.
+   */
+  private List<String> auIds(List<ContentConfigurationResult> results) {
+    List<String> auIds = new ArrayList<>();
+
+    for (ContentConfigurationResult result : results) {
+      auIds.add(result.getId());
+    }
+
+    return auIds;
+  }
+
+  /**
+   * Waits for a job to finish.
+   */
+  private void waitFinished(WsBatchJobs.Job job) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+
+    while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+
+    assertTrue(job.isFinished());
+  }
+}
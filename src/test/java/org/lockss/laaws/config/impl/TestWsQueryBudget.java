@@ -0,0 +1,117 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import org.josql.QueryExecutionException;
+import org.junit.Test;
+import org.lockss.test.LockssTestCase4;
+
+/**
+ * Test class for org.lockss.laaws.config.impl.WsQueryBudget.
+ */
+public class TestWsQueryBudget extends LockssTestCase4 {
+  /**
+   * Tests the work budget.
+   */
+  @Test
+  public void testWork() throws Exception {
+    WsQueryBudget budget = new WsQueryBudget(0, 3);
+
+    for (int i = 0; i < 3; i++) {
+      budget.charge("urls");
+    }
+
+    try {
+      budget.charge("urls");
+      fail("Charge over the work budget should throw");
+    } catch (WsQueryBudget.BudgetExceededException bee) {
+      assertTrue(bee.getMessage().contains(
+          "work budget of 3 steps computing urls"));
+    }
+
+    assertEquals(4, budget.getWork());
+  }
+
+  /**
+   * Tests the time budget.
+   */
+  @Test
+  public void testTime() throws Exception {
+    WsQueryBudget budget = new WsQueryBudget(1, 0);
+    Thread.sleep(10);
+
+    try {
+      budget.charge("articleUrls");
+      fail("Charge over the time budget should throw");
+    } catch (WsQueryBudget.BudgetExceededException bee) {
+      assertTrue(bee.getMessage().contains("time budget of 1 ms"));
+    }
+
+    // No limits.
+    budget = new WsQueryBudget(0, 0);
+
+    for (int i = 0; i < 1000; i++) {
+      budget.charge("urls");
+    }
+  }
+
+  /**
+   * Tests the cancellation of a query.
+   */
+  @Test
+  public void testCancel() throws Exception {
+    WsQueryBudget budget = new WsQueryBudget(0, 0);
+    budget.charge("urls");
+    budget.cancel("client gone");
+
+    try {
+      budget.charge("urls");
+      fail("Charge after the cancellation should throw");
+    } catch (WsQueryBudget.BudgetExceededException bee) {
+      assertTrue(bee.getMessage().contains("client gone"));
+    }
+  }
+
+  /**
+   * Tests finding the budget exception in the causes of a failure.
+   */
+  @Test
+  public void testFindCause() throws Exception {
+    WsQueryBudget.BudgetExceededException bee =
+        new WsQueryBudget.BudgetExceededException("over");
+
+    assertSame(bee, WsQueryBudget.findCause(bee));
+    assertSame(bee, WsQueryBudget.findCause(
+        new QueryExecutionException("wrapped", new RuntimeException(bee))));
+    assertNull(WsQueryBudget.findCause(new RuntimeException("other")));
+  }
+}
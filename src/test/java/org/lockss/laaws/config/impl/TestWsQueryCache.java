@@ -0,0 +1,173 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.josql.QueryParseException;
+import org.junit.Before;
+import org.junit.Test;
+import org.lockss.config.TdbPublisher;
+import org.lockss.test.ConfigurationUtil;
+import org.lockss.test.LockssTestCase4;
+import org.lockss.ws.entities.TdbPublisherWsResult;
+
+/**
+ * Test class for org.lockss.laaws.config.impl.WsQueryCache.
+ */
+public class TestWsQueryCache extends LockssTestCase4 {
+  private WsQueryCache cache;
+  private List<TdbPublisherWsSource> universe;
+
+  @Before
+  public void setUpCache() throws Exception {
+    ConfigurationUtil.addFromArgs(WsQueryCache.PARAM_QUERY_CACHE_SIZE, "2");
+    cache = new WsQueryCache();
+
+    universe = new ArrayList<>();
+    universe.add(new TdbPublisherWsSource(new TdbPublisher("Publisher A")));
+    universe.add(new TdbPublisherWsSource(new TdbPublisher("Publisher B")));
+  }
+
+  /**
+   * Tests that a repeated query reuses its parsed form.
+   */
+  @Test
+  public void testRepeatedQuery() throws Exception {
+    String query = "select name where name = 'Publisher B'";
+
+    for (int i = 0; i < 3; i++) {
+      List<?> results = execute(query);
+      assertEquals(1, results.size());
+      assertEquals("Publisher B",
+          ((TdbPublisherWsResult)results.get(0)).getName());
+    }
+
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getMisses());
+    assertEquals(2, cache.getHits());
+  }
+
+  /**
+   * Tests that the least recently used query is evicted.
+   */
+  @Test
+  public void testEviction() throws Exception {
+    execute("select name where name = 'Publisher A'");
+    execute("select name where name = 'Publisher B'");
+    execute("select name where name = 'Publisher A'");
+    execute("select name");
+    assertEquals(2, cache.size());
+    assertEquals(3, cache.getMisses());
+
+    // The query for Publisher A was used more recently than the one for
+    // Publisher B.
+    execute("select name where name = 'Publisher A'");
+    assertEquals(2, cache.getHits());
+    execute("select name where name = 'Publisher B'");
+    assertEquals(4, cache.getMisses());
+  }
+
+  /**
+   * Tests that an invalid query is not cached.
+   */
+  @Test
+  public void testInvalidQuery() throws Exception {
+    try {
+      execute("select name where");
+      fail("Invalid query should have thrown");
+    } catch (QueryParseException qpe) {
+      // Expected.
+    }
+
+    assertEquals(0, cache.size());
+  }
+
+  /**
+   * Tests that a disabled cache keeps no queries.
+   */
+  @Test
+  public void testDisabled() throws Exception {
+    ConfigurationUtil.addFromArgs(WsQueryCache.PARAM_QUERY_CACHE_SIZE, "0");
+    assertEquals(2, execute("select name").size());
+    assertEquals(2, execute("select name").size());
+    assertEquals(0, cache.size());
+  }
+
+  /**
+   * Tests pages of results, both compiled and evaluated by JoSQL.
+   */
+  @Test
+  public void testPage() throws Exception {
+    for (String compile : new String[] {"true", "false"}) {
+      ConfigurationUtil.addFromArgs(WsQueryCache.PARAM_COMPILE_QUERIES,
+          compile);
+      cache.clear();
+
+      assertEquals(List.of("Publisher B"),
+          names(cache.execute("select name", TdbPublisherHelper.SOURCE_FQCN,
+              TdbPublisherHelper.PROPERTY_NAMES,
+              TdbPublisherHelper.RESULT_FQCN, equalities -> universe, 1, 0)));
+      assertEquals(List.of("Publisher A"),
+          names(cache.execute("select name", TdbPublisherHelper.SOURCE_FQCN,
+              TdbPublisherHelper.PROPERTY_NAMES,
+              TdbPublisherHelper.RESULT_FQCN, equalities -> universe, 0, 1)));
+      assertEquals(List.of(),
+          names(cache.execute("select name", TdbPublisherHelper.SOURCE_FQCN,
+              TdbPublisherHelper.PROPERTY_NAMES,
+              TdbPublisherHelper.RESULT_FQCN, equalities -> universe, 5, 1)));
+
+      List<Object> streamed = new ArrayList<>();
+      assertEquals(1, cache.stream("select name order by name desc",
+          TdbPublisherHelper.SOURCE_FQCN, TdbPublisherHelper.PROPERTY_NAMES,
+          TdbPublisherHelper.RESULT_FQCN, equalities -> universe, 1, 5,
+          streamed::add));
+      assertEquals(List.of("Publisher A"), names(streamed));
+    }
+  }
+
+  private List<String> names(List<?> results) {
+    List<String> names = new ArrayList<>();
+
+    for (Object result : results) {
+      names.add(((TdbPublisherWsResult)result).getName());
+    }
+
+    return names;
+  }
+
+  private List<?> execute(String query) throws Exception {
+    return cache.execute(query, TdbPublisherHelper.SOURCE_FQCN,
+        TdbPublisherHelper.PROPERTY_NAMES, TdbPublisherHelper.RESULT_FQCN,
+        () -> universe);
+  }
+}
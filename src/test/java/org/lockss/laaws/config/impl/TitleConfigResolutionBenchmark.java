@@ -0,0 +1,151 @@
+/*
+
+Copyright (c) 2000-2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ */
+package org.lockss.laaws.config.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Benchmark of the scaling with the number of threads of the resolution in
+ * order of a batch of keys, as done with the title configurations of the
+ * archival units added by {@link WsApiServiceImpl#postAus(List)}.
+ * <p>
+ * The resolution of each key is simulated with a fixed amount of CPU work.
+ * It is not run as part of the tests. To run it, with the test classpath:
+ * <pre>
+ * java org.lockss.laaws.config.impl.TitleConfigResolutionBenchmark [keys [work]]
+ * </pre>
+ */
+public class TitleConfigResolutionBenchmark {
+  private static final int DEFAULT_KEY_COUNT = 5000;
+  private static final int DEFAULT_WORK = 20000;
+  private static final int ROUNDS = 5;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args
+   *          A String[] with the optional number of keys and of work units
+   *          per key.
+   * @throws Exception if there are problems.
+   */
+  public static void main(String[] args) throws Exception {
+    int keyCount = args.length > 0 ? Integer.parseInt(args[0])
+	: DEFAULT_KEY_COUNT;
+    int work = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_WORK;
+
+    List<String> keys = new ArrayList<>(keyCount);
+
+    for (int i = 0; i < keyCount; i++) {
+      keys.add("org|lockss|plugin|Plugin&key~" + i);
+    }
+
+    Function<String, Long> resolver = key -> simulateWork(key, work);
+    List<Long> expected = WsApiServiceImpl.resolveInOrder(keys, resolver, null);
+    double serialMillis = measure(keys, resolver, null, expected);
+
+    System.out.println(String.format("keys: %d, serial: %8.2f ms", keyCount,
+	serialMillis));
+
+    int cores = Runtime.getRuntime().availableProcessors();
+
+    for (int parallelism = 1; parallelism <= cores; parallelism *= 2) {
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+      try {
+	double millis = measure(keys, resolver, pool, expected);
+	System.out.println(String.format(
+	    "threads: %3d, time: %8.2f ms, speedup: %5.2f", parallelism,
+	    millis, serialMillis / millis));
+      } finally {
+	pool.shutdown();
+      }
+    }
+  }
+
+  /**
+   * Measures the average time of the resolution of the keys.
+   *
+   * @param keys
+   *          A {@code List<String>} with the keys.
+   * @param resolver
+   *          A {@code Function<String, Long>} with the resolver.
+   * @param pool
+   *          A ForkJoinPool with the pool, or null for serial resolution.
+   * @param expected
+   *          A {@code List<Long>} with the expected results, in order.
+   * @return a double with the average time in milliseconds.
+   * @throws Exception if there are problems.
+   */
+  private static double measure(List<String> keys,
+      Function<String, Long> resolver, ForkJoinPool pool, List<Long> expected)
+	  throws Exception {
+    // Warm up.
+    WsApiServiceImpl.resolveInOrder(keys, resolver, pool);
+
+    long nanos = 0;
+
+    for (int i = 0; i < ROUNDS; i++) {
+      long start = System.nanoTime();
+      List<Long> results = WsApiServiceImpl.resolveInOrder(keys, resolver,
+	  pool);
+      nanos += System.nanoTime() - start;
+
+      if (!expected.equals(results)) {
+	throw new IllegalStateException("Results out of order");
+      }
+    }
+
+    return nanos / 1e6 / ROUNDS;
+  }
+
+  /**
+   * Simulates the resolution of a key with some CPU work.
+   *
+   * @param key
+   *          A String with the key.
+   * @param work
+   *          An int with the number of work units.
+   * @return a Long with a result that depends on the key.
+   */
+  private static Long simulateWork(String key, int work) {
+    long hash = key.hashCode();
+
+    for (int i = 0; i < work; i++) {
+      hash = hash * 31 + i;
+    }
+
+    return hash;
+  }
+}